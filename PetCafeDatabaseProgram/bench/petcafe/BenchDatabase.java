@@ -0,0 +1,110 @@
+package petcafe;
+
+/*
+ * BenchDatabase.java -- Schema and data set loading shared by the benchmarks that build their
+ *                       own database (DataAccessJmh, IndexBenchmark).
+ *
+ * The scripts are read from initialSQLfiles/ and the sample rows SyntheticData starts from
+ * from SampleDataCSVs/, so the benchmarks run from the repository root, as insertSampleData
+ * does. Rows are inserted in SyntheticData.TABLES order on one connection, in batches of
+ * 1000; insertSampleData's parallel loader is faster on Oracle but prints as it goes, and a
+ * benchmark's setup should not.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+final class BenchDatabase {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchDatabase() {
+    }
+
+    /* Runs initialSQLfiles/<name>.sql, one statement at a time, in autocommit mode. */
+    static void runScript(Connection conn, String name) throws IOException, SQLException {
+        String script = new String(Files.readAllBytes(Paths.get("initialSQLfiles", name + ".sql")),
+                StandardCharsets.UTF_8).replaceAll("(?s)/\\*.*?\\*/", " ");
+        try (Statement st = conn.createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.trim().isEmpty()) st.execute(sql);
+            }
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method load(conn, data)
+    |
+    |  Purpose:  Replaces the rows of every table the data set generates with
+    |            its rows, then rebuilds the activity summaries and event seat
+    |            counts the way insertSampleData does.
+    |
+    |  Pre-condition:  The schema exists. Drop the index pack first when the
+    |                  data set is large, so the inserts don't maintain it.
+    |
+    *-------------------------------------------------------------------*/
+
+    static void load(Connection conn, SyntheticData data) throws IOException, SQLException {
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM Member_Activity_Summary");
+            for (int i = SyntheticData.TABLES.size() - 1; i >= 0; i--) {
+                st.executeUpdate("DELETE FROM " + SyntheticData.TABLES.get(i));
+                conn.commit();
+            }
+            for (String table : SyntheticData.TABLES) {
+                try (CsvReader reader = new CsvReader(data.open(table))) {
+                    reader.next();
+                    RowBinder binder = RowBinder.compile(conn, table, reader);
+                    try (PreparedStatement ps = conn.prepareStatement(binder.insertSql())) {
+                        long n = 0;
+                        while (reader.next()) {
+                            binder.bind(ps, reader);
+                            ps.addBatch();
+                            if (++n % BATCH_SIZE == 0) {
+                                ps.executeBatch();
+                                conn.commit();
+                            }
+                        }
+                        ps.executeBatch();
+                        conn.commit();
+                    }
+                }
+            }
+            ActivitySummary.rebuild(conn);
+            EventRegistrar.rebuildCounts(conn);
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /* Restarts every id sequence above its table's largest id, as insertSampleData does. */
+    static void restartSequences(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String[] tableAndCol : IdAllocator.SEQUENCED_TABLES) {
+                long start = count(conn, String.format("SELECT NVL(MAX(%s),0) + 1 FROM %s",
+                        tableAndCol[1], tableAndCol[0]));
+                st.execute(String.format("DROP SEQUENCE %s_seq", tableAndCol[0]));
+                st.execute(String.format("CREATE SEQUENCE %s_seq START WITH %d INCREMENT BY %d",
+                        tableAndCol[0], start, IdAllocator.BLOCK_SIZE));
+            }
+        }
+    }
+
+    /* The first column of the query's first row. */
+    static int count(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            if (!rs.next()) throw new SQLException("No rows for: " + sql);
+            return rs.getInt(1);
+        }
+    }
+}
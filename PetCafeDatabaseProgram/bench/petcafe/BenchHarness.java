@@ -0,0 +1,229 @@
+package petcafe;
+
+/*
+ * BenchHarness.java -- Runs an operation in a timed loop on several threads and reports its
+ *                      throughput, latency percentiles and allocation per operation.
+ *
+ * Each measurement has a warm-up phase, whose operations are run but not recorded, followed
+ * by a measured phase of fixed length. Every thread draws its inputs from its own Random
+ * (seed + thread number), so a run with the same data, seed and thread count issues the same
+ * operations. Allocation is read from the JVM's per-thread allocated-bytes counter
+ * (com.sun.management.ThreadMXBean) before and after the measured phase; on a JVM without
+ * that counter it is reported as n/a.
+ *
+ * Results can be appended to a CSV file (-Dpetcafe.bench.out=file) and compared with an
+ * earlier one (-Dpetcafe.bench.baseline=file): a result whose throughput fell, or whose p95
+ * latency rose, by more than -Dpetcafe.bench.tolerance percent (default 15) from the baseline
+ * row with the same operation, scale and thread count is reported as a regression.
+ */
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class BenchHarness {
+
+    /*
+     * One operation under test; rnd belongs to the calling thread.
+     */
+    interface Operation {
+        void run(Random rnd) throws Exception;
+    }
+
+    /*
+     * The measurement of one operation.
+     */
+    static final class Result {
+        final String name;
+        final String scale;
+        final int threads;
+        final LatencyStats latency;
+        final double opsPerSecond;
+        final long bytesPerOp;              // -1 if the JVM cannot tell
+
+        Result(String name, String scale, int threads, LatencyStats latency, double opsPerSecond, long bytesPerOp) {
+            this.name = name;
+            this.scale = scale;
+            this.threads = threads;
+            this.latency = latency;
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %3d %10.1f %7d %9.1f %9.1f %9.1f %9.1f %10s",
+                    name, threads, opsPerSecond, latency.errors(), latency.percentileMicros(50),
+                    latency.percentileMicros(95), latency.percentileMicros(99), latency.percentileMicros(100),
+                    bytesPerOp < 0 ? "n/a" : String.valueOf(bytesPerOp));
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private BenchHarness() {
+    }
+
+    static String header() {
+        return String.format("%-24s %3s %10s %7s %9s %9s %9s %9s %10s",
+                "operation", "thr", "ops/s", "errors", "p50 us", "p95 us", "p99 us", "max us", "bytes/op");
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method measure(name, scale, threads, warmupMillis, measureMillis, seed, op)
+    |
+    |  Purpose:  Runs op on `threads` threads for warmupMillis unrecorded, then
+    |            for measureMillis recorded. An operation that throws counts
+    |            as an error; the first exception is printed.
+    |
+    |  Parameters:
+    |      scale -- Label for the data set, e.g. its row counts; used only to
+    |               match baseline rows.
+    |
+    *-------------------------------------------------------------------*/
+
+    static Result measure(String name, String scale, int threads, long warmupMillis, long measureMillis,
+                          long seed, Operation op) throws InterruptedException {
+        LatencyStats stats = new LatencyStats(name);
+        AtomicLong allocated = new AtomicLong();
+        AtomicLong measuredNanos = new AtomicLong();
+        long start = System.nanoTime();
+        long warmupEnd = start + warmupMillis * 1_000_000L;
+        long end = warmupEnd + measureMillis * 1_000_000L;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random rnd = new Random(seed + t);
+            Thread w = new Thread(() -> {
+                while (System.nanoTime() < warmupEnd) call(op, rnd, null);
+                long tid = Thread.currentThread().getId();
+                long bytes0 = allocatedBytes(tid);
+                long t0 = System.nanoTime();
+                while (System.nanoTime() < end) call(op, rnd, stats);
+                measuredNanos.addAndGet(System.nanoTime() - t0);
+                long bytes1 = allocatedBytes(tid);
+                if (bytes0 < 0 || bytes1 < 0) allocated.set(Long.MIN_VALUE);
+                else allocated.addAndGet(bytes1 - bytes0);
+            }, "bench-" + name + "-" + t);
+            workers.add(w);
+            w.start();
+        }
+        for (Thread w : workers) w.join();
+
+        int ops = stats.count();
+        double seconds = measuredNanos.get() / 1e9 / threads;
+        long bytesPerOp = allocated.get() < 0 || ops == 0 ? -1 : allocated.get() / ops;
+        return new Result(name, scale, threads, stats, seconds == 0 ? 0 : ops / seconds, bytesPerOp);
+    }
+
+    private static boolean reported;
+
+    /* Runs op once; records its latency unless stats is null (warm-up). */
+    private static void call(Operation op, Random rnd, LatencyStats stats) {
+        long t0 = System.nanoTime();
+        boolean ok = true;
+        try {
+            op.run(rnd);
+        } catch (Exception e) {
+            ok = false;
+            synchronized (BenchHarness.class) {
+                if (!reported) {
+                    reported = true;
+                    e.printStackTrace();
+                }
+            }
+        }
+        if (stats != null) stats.record(System.nanoTime() - t0, ok);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method save(results, file)
+    |
+    |  Purpose:  Appends the results to a CSV file, writing a header line if
+    |            the file is new.
+    |
+    *-------------------------------------------------------------------*/
+
+    static void save(List<Result> results, String file) throws IOException {
+        boolean fresh = !new java.io.File(file).exists();
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+            if (fresh) out.println("operation,scale,threads,ops_per_s,p50_us,p95_us,p99_us,max_us,errors,bytes_per_op");
+            for (Result r : results) {
+                out.printf(Locale.ROOT, "%s,%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%d%n", r.name, r.scale, r.threads,
+                        r.opsPerSecond, r.latency.percentileMicros(50), r.latency.percentileMicros(95),
+                        r.latency.percentileMicros(99), r.latency.percentileMicros(100),
+                        r.latency.errors(), r.bytesPerOp);
+            }
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method compare(results, baselineFile, tolerancePercent)
+    |
+    |  Purpose:  Prints how each result moved against the last matching row
+    |            of a file written by save().
+    |
+    |  Returns: The number of regressions beyond tolerancePercent.
+    |
+    *-------------------------------------------------------------------*/
+
+    static int compare(List<Result> results, String baselineFile, double tolerancePercent) throws IOException {
+        Map<String, String[]> baseline = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(baselineFile), StandardCharsets.UTF_8))) {
+            in.readLine();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split(",");
+                if (f.length >= 6) baseline.put(f[0] + "," + f[1] + "," + f[2], f);
+            }
+        }
+
+        int regressions = 0;
+        for (Result r : results) {
+            String[] b = baseline.get(r.name + "," + r.scale + "," + r.threads);
+            if (b == null) {
+                System.out.printf("%-24s no baseline%n", r.name);
+                continue;
+            }
+            double throughput = change(Double.parseDouble(b[3]), r.opsPerSecond);
+            double p95 = change(Double.parseDouble(b[5]), r.latency.percentileMicros(95));
+            boolean worse = throughput < -tolerancePercent || p95 > tolerancePercent;
+            if (worse) regressions++;
+            System.out.printf("%-24s ops/s %+6.1f%%  p95 %+6.1f%%%s%n", r.name, throughput, p95,
+                    worse ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100.0 / before;
+    }
+
+    private static long allocatedBytes(long threadId) {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(threadId);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+        if (!sun.isThreadAllocatedMemorySupported()) return null;
+        sun.setThreadAllocatedMemoryEnabled(true);
+        return sun;
+    }
+}
@@ -0,0 +1,157 @@
+package petcafe;
+
+/*
+ * BookingStress.java -- Checks that BookingEngine never overbooks a room under contention.
+ *
+ * Starts `bookers` threads (default 300) behind a start gate; each borrows a pooled
+ * connection and tries to book the same one-hour slot in the same room for a random member.
+ * Afterwards the number of BOOKED outcomes must equal the number of overlapping rows in the
+ * table, and neither may exceed the room's max_capacity. The reservations made are deleted
+ * again (with their activity summary updates) before the program exits.
+ *
+ * Any JDBC database that accepts the application's SQL can be used, e.g. a scratch Oracle
+ * schema loaded by insertSampleData:
+ *
+ *         java -cp <ojdbc8.jar>:bench-out petcafe.BookingStress <jdbcUrl|-> <username> <password> [roomId [bookers]]
+ *
+ * "-" keeps DBUtil's default URL. Exits with status 1 if overbooking is detected.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BookingStress {
+
+    private static final LocalDate SLOT_DATE = LocalDate.of(2099, 6, 1);
+    private static final int DURATION = 60;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java petcafe.BookingStress <jdbcUrl|-> <username> <password> [roomId [bookers]]");
+            System.exit(-1);
+        }
+        int bookers = args.length > 4 ? Integer.parseInt(args[4]) : 300;
+        if (System.getProperty("petcafe.pool.max") == null) {
+            System.setProperty("petcafe.pool.max", "32");
+        }
+        DBUtil.configure("-".equals(args[0]) ? null : args[0], args[1], args[2]);
+
+        Date date = Date.valueOf(SLOT_DATE);
+        Timestamp start = Timestamp.valueOf(SLOT_DATE.atTime(10, 0));
+        int roomId;
+        int capacity;
+        int[] members;
+        try (Connection conn = DBUtil.getConnection()) {
+            roomId = args.length > 3 ? Integer.parseInt(args[3])
+                    : firstInt(conn, "SELECT MIN(room_id) FROM Room");
+            capacity = firstInt(conn, "SELECT max_capacity FROM Room WHERE room_id = " + roomId);
+            members = ints(conn, "SELECT member_id FROM Member");
+            if (overlapping(conn, roomId, date, start) > 0) {
+                throw new IllegalStateException("Room " + roomId + " already has bookings on " + date
+                        + "; clean them up first.");
+            }
+        }
+
+        AtomicInteger booked = new AtomicInteger(), full = new AtomicInteger(), errors = new AtomicInteger();
+        Queue<int[]> created = new ConcurrentLinkedQueue<>();    // {reservation_id, member_id}
+        CountDownLatch gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(bookers);
+        for (int i = 0; i < bookers; i++) {
+            pool.execute(() -> {
+                try {
+                    gate.await();
+                    int member = members[ThreadLocalRandom.current().nextInt(members.length)];
+                    try (Connection conn = DBUtil.getConnection()) {
+                        int resId = IdAllocator.nextId(conn, "Reservation", "reservation_id");
+                        BookingEngine.Outcome o =
+                                BookingEngine.book(conn, resId, member, roomId, date, start, DURATION, null);
+                        if (o == BookingEngine.Outcome.BOOKED) {
+                            booked.incrementAndGet();
+                            created.add(new int[] {resId, member});
+                        } else {
+                            full.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    if (errors.getAndIncrement() == 0) e.printStackTrace();
+                }
+            });
+        }
+
+        long t0 = System.nanoTime();
+        gate.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        boolean ok;
+        try (Connection conn = DBUtil.getConnection()) {
+            int rows = overlapping(conn, roomId, date, start);
+            ok = rows == booked.get() && rows <= capacity && errors.get() == 0;
+            System.out.printf("room=%d capacity=%d bookers=%d booked=%d refused=%d errors=%d rowsInTable=%d " +
+                    "time=%d ms -> %s%n", roomId, capacity, bookers, booked.get(), full.get(), errors.get(),
+                    rows, millis, ok ? "OK" : "OVERBOOKED OR INCONSISTENT");
+            cleanUp(conn, new ArrayList<>(created));
+        } finally {
+            System.out.println("Pool: " + DBUtil.getPool().stats());
+            DBUtil.shutdown();
+        }
+        if (!ok) System.exit(1);
+    }
+
+    private static int overlapping(Connection conn, int roomId, Date date, Timestamp start) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(BookingEngine.OVERLAPPING)) {
+            BookingEngine.bindOverlapping(ps, 1, roomId, date, start, DURATION);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static void cleanUp(Connection conn, List<int[]> created) throws SQLException {
+        for (int[] r : created) {
+            DBUtil.inTransaction(conn, c -> {
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM Reservation WHERE reservation_id = ?")) {
+                    ps.setInt(1, r[0]);
+                    if (ps.executeUpdate() > 0) ActivitySummary.recordVisit(c, r[1], -1);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static int firstInt(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            if (!rs.next() || rs.getObject(1) == null) throw new SQLException("No rows for: " + sql);
+            return rs.getInt(1);
+        }
+    }
+
+    private static int[] ints(Connection conn, String sql) throws SQLException {
+        List<Integer> values = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) values.add(rs.getInt(1));
+        }
+        if (values.isEmpty()) throw new SQLException("No rows for: " + sql);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
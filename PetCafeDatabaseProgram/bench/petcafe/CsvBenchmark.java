@@ -0,0 +1,201 @@
+package petcafe;
+
+/*
+ * CsvBenchmark.java -- Compares CsvReader with the String.split(",") / flattenCommaString
+ *                      parsing insertSampleData used before it, on a synthetic CSV file
+ *                      shaped like Health_Record (quote-heavy notes containing commas and
+ *                      escaped quotes, MM-DD-YYYY dates).
+ *
+ * Neither path talks to the database; each parses every field of every row and decodes the
+ * date columns, and a checksum of the results is printed so the work cannot be optimised away.
+ * The generated file is kept and reused by later runs with the same size.
+ *
+ * To compile and run from the CS460Prog4 directory:
+ *
+ *         javac -d bench-out PetCafeDatabaseProgram/src/petcafe/*.java PetCafeDatabaseProgram/bench/petcafe/*.java
+ *         java -cp bench-out petcafe.CsvBenchmark [sizeInMB [file]]
+ *
+ * sizeInMB defaults to 2048 (a multi-GB file); file defaults to a name in java.io.tmpdir.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+public class CsvBenchmark {
+
+    private static final String[] NOTE_WORDS = {
+        "routine", "check", "vaccine", "booster", "given", "weight", "stable", "appetite",
+        "good", "follow-up", "needed", "minor", "wound", "cleaned", "dressed", "ears", "teeth"
+    };
+
+    public static void main(String[] args) throws IOException {
+        long sizeMb = args.length > 0 ? Long.parseLong(args[0]) : 2048;
+        File file = args.length > 1 ? new File(args[1])
+                : new File(System.getProperty("java.io.tmpdir"), "petcafe-health-" + sizeMb + "mb.csv");
+
+        if (!file.exists() || file.length() < sizeMb * 1024 * 1024) {
+            System.out.printf("Generating %d MB of synthetic Health_Record rows in %s ...%n", sizeMb, file);
+            generate(file, sizeMb * 1024 * 1024);
+        }
+        double mb = file.length() / (1024.0 * 1024.0);
+
+        // One short warm-up pass each so the JIT has compiled both parsers.
+        runLegacy(file, 200_000);
+        runCsvReader(file, 200_000);
+
+        long t0 = System.nanoTime();
+        long[] legacy = runLegacy(file, Long.MAX_VALUE);
+        long t1 = System.nanoTime();
+        long[] streaming = runCsvReader(file, Long.MAX_VALUE);
+        long t2 = System.nanoTime();
+
+        report("split/flattenCommaString", legacy, t1 - t0, mb);
+        report("CsvReader", streaming, t2 - t1, mb);
+        System.out.printf("Speed-up: %.2fx%n", (double) (t1 - t0) / (t2 - t1));
+    }
+
+    private static void report(String name, long[] result, long nanos, double mb) {
+        double s = nanos / 1e9;
+        System.out.printf("%-26s %,12d rows  %8.2f s  %9.1f MB/s  %,12.0f rows/s  checksum=%d%n",
+                name, result[0], s, mb / s, result[0] / s, result[1]);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method generate(file, bytes)
+    |
+    |  Purpose:  Writes a Health_Record shaped CSV file of roughly the given size.
+    |            Every third note is quoted and contains commas; every tenth
+    |            also contains an escaped ("") quote.
+    |
+    *-------------------------------------------------------------------*/
+
+    static void generate(File file, long bytes) throws IOException {
+        Random rnd = new Random(460);
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        long written = 0;
+        StringBuilder row = new StringBuilder(256);
+
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 20)) {
+            String header = "record_id,pet_id,staff_id,record_date,record_type,notes,next_due_date,status\r\n";
+            w.write(header);
+            written += header.length();
+
+            for (long id = 1; written < bytes; id++) {
+                row.setLength(0);
+                LocalDate date = base.plusDays(rnd.nextInt(2000));
+                row.append(id).append(',').append(1 + rnd.nextInt(5000)).append(',')
+                        .append(1 + rnd.nextInt(40)).append(',').append(fmt.format(date))
+                        .append(',').append(rnd.nextBoolean() ? "Wellness" : "Treatment").append(',');
+
+                int words = 4 + rnd.nextInt(11);    // quoted notes always get at least one comma
+                if (id % 3 == 0) {
+                    row.append('"');
+                    for (int k = 0; k < words; k++) {
+                        if (k > 0) row.append(k % 3 == 0 ? ", " : " ");
+                        row.append(NOTE_WORDS[rnd.nextInt(NOTE_WORDS.length)]);
+                    }
+                    if (id % 10 == 0) row.append(", owner said \"\"call me\"\"");
+                    row.append('"');
+                } else {
+                    for (int k = 0; k < words; k++) {
+                        if (k > 0) row.append(' ');
+                        row.append(NOTE_WORDS[rnd.nextInt(NOTE_WORDS.length)]);
+                    }
+                }
+
+                row.append(',').append(fmt.format(date.plusDays(21))).append(",ACTIVE\r\n");
+                w.append(row);
+                written += row.length();
+            }
+        }
+    }
+
+    /*
+     * The parsing insertSampleData used before CsvReader: split on every comma, then glue
+     * quoted fields back together, shrinking the array once per embedded comma.
+     */
+    static long[] runLegacy(File file, long maxRows) throws IOException {
+        long rows = 0, checksum = 0;
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while (rows < maxRows && (line = reader.readLine()) != null) {
+                String[] split = line.split(",");
+                for (int i = 0; i < split.length; i++) {
+                    if (i == 3 || i == 6) {
+                        checksum += LocalDate.parse(split[i], fmt).toEpochDay();
+                    } else if (!split[i].isEmpty() && !isNumeric(split[i])) {
+                        split = flattenCommaString(split, i);
+                        split[i] = split[i].replace("\"", "");
+                        checksum += split[i].length();
+                    } else {
+                        checksum += split[i].length();
+                    }
+                }
+                rows++;
+            }
+        }
+        return new long[] {rows, checksum};
+    }
+
+    static long[] runCsvReader(File file, long maxRows) throws IOException {
+        long rows = 0, checksum = 0;
+        try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+             CsvReader reader = new CsvReader(in)) {
+            reader.next();
+            while (rows < maxRows && reader.next()) {
+                for (int i = 0; i < reader.fieldCount(); i++) {
+                    if (i == 3 || i == 6) {
+                        checksum += reader.getDate(i).toLocalDate().toEpochDay();
+                    } else {
+                        checksum += reader.length(i);
+                    }
+                }
+                rows++;
+            }
+        }
+        return new long[] {rows, checksum};
+    }
+
+    private static boolean isNumeric(String s) {
+        try {
+            Double.parseDouble(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String[] flattenCommaString(String[] splitLine, int i) {
+        if (splitLine[i].charAt(0) != '"') return splitLine;
+        while (splitLine[i + 1].charAt(splitLine[i + 1].length() - 1) != '"') {
+            splitLine[i] += splitLine[i + 1];
+            splitLine = remove(splitLine, i + 1);
+        }
+        splitLine[i] += splitLine[i + 1];
+        return remove(splitLine, i + 1);
+    }
+
+    private static String[] remove(String[] arr, int i) {
+        String[] newArr = new String[arr.length - 1];
+        System.arraycopy(arr, 0, newArr, 0, i);
+        System.arraycopy(arr, i + 1, newArr, i, arr.length - 1 - i);
+        return newArr;
+    }
+}
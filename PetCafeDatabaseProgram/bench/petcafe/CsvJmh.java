@@ -0,0 +1,61 @@
+package petcafe;
+
+/*
+ * CsvJmh.java -- JMH version of CsvBenchmark: parses a Health_Record shaped CSV file with the
+ *                old split(",") / flattenCommaString code and with CsvReader.
+ *
+ * Built by the bench profile (see pom.xml) and run from target/benchmarks.jar:
+ *
+ *         mvn -B -Pbench package
+ *         java -jar target/benchmarks.jar CsvJmh [-p sizeMb=64]
+ *
+ * The file (sizeMb, default 16) is generated once into java.io.tmpdir with CsvBenchmark's
+ * fixed seed and reused by later runs of the same size. The score is the time to parse the
+ * whole file; for the multi-GB run use CsvBenchmark itself.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvJmh {
+
+    @Param({"16"})
+    public long sizeMb;
+
+    private File file;
+
+    @Setup
+    public void generate() throws IOException {
+        file = new File(System.getProperty("java.io.tmpdir"), "petcafe-health-" + sizeMb + "mb.csv");
+        if (!file.exists() || file.length() < sizeMb * 1024 * 1024) CsvBenchmark.generate(file, sizeMb * 1024 * 1024);
+    }
+
+    @Benchmark
+    public long[] splitAndFlatten() throws IOException {
+        return CsvBenchmark.runLegacy(file, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long[] csvReader() throws IOException {
+        return CsvBenchmark.runCsvReader(file, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,253 @@
+package petcafe;
+
+/*
+ * DataAccessBenchmark.java -- Measures the throughput, latency and allocation of the
+ *                             application's data-access hot paths.
+ *
+ * Each operation goes through the same repositories the menus and the batch mode use, over
+ * pooled connections (see BenchHarness for how a measurement is taken):
+ *
+ *         book-room              ReservationRepository.book, random member, room and slot in 2098
+ *         create-order           OrderRepository.place, one to four random menu items
+ *         register-event         EventRepository.register into scratch events filled past capacity,
+ *                                so both seated and waitlisted registrations are measured
+ *         visit-history          ReportService.visitHistory for a random member
+ *         upcoming-events        ReportService.upcomingEvents
+ *         top-members            ReportService.topMembers, top 10
+ *         adoption-applications  ReportService.adoptionApplications for a random pet
+ *
+ * Everything the write operations create is deleted again (with its activity summary
+ * updates) before the program exits. The scale of the data set is its Member row count,
+ * which is printed with the other table sizes and stored with each result, so runs are only
+ * compared against runs over the same data. To measure how an operation degrades as the
+ * tables grow, load generated data sets of increasing size and run again on each, e.g.
+ *
+ *         java -Dpetcafe.synthetic.members=1000000 insertSampleData <username> <password>
+ *
+ * (see SyntheticData; the same seed gives the same data, so results stay comparable).
+ *
+ * Any JDBC database that accepts the application's SQL can be used, e.g. a scratch Oracle
+ * schema loaded by insertSampleData, or an in-memory H2 database in Oracle mode if its jar is
+ * on the class path:
+ *
+ *         java -cp <ojdbc8.jar>:bench-out petcafe.DataAccessBenchmark <jdbcUrl|-> <username> <password> [operation,...]
+ *
+ * "-" keeps DBUtil's default URL. Without a list every operation is run. Settings:
+ *
+ *         -Dpetcafe.bench.threads=1         concurrent callers
+ *         -Dpetcafe.bench.warmupSeconds=5   unrecorded warm-up per operation
+ *         -Dpetcafe.bench.seconds=10        measured time per operation
+ *         -Dpetcafe.bench.seed=460          seed of the callers' random inputs
+ *         -Dpetcafe.bench.out=file          append the results to a CSV file
+ *         -Dpetcafe.bench.baseline=file     compare with an earlier CSV file
+ *         -Dpetcafe.bench.tolerance=15      percent change reported as a regression
+ *
+ * Exits with status 1 if an operation fails or a regression is reported.
+ *
+ * DataAccessJmh runs the same operations under JMH against an embedded database it seeds
+ * itself at each size, which is what the build runs; this program is for a database that
+ * is already loaded, such as the class Oracle schema.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DataAccessBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2098, 1, 1);
+    private static final LocalDate EVENT_DATE = LocalDate.of(2098, 7, 1);
+    private static final String[] TABLES = {"Member", "Pet", "Room", "Menu_Item", "Reservation",
+            "Customer_Order", "Order_Item", "Event", "Event_Registration", "Adoption_Application"};
+
+    private final Repositories repo = new Repositories(ConnectionSource.pooled());
+    private final int[] members;
+    private final int[] rooms;
+    private final int[] items;
+    private final int[] pets;
+
+    private final Queue<int[]> reservations = new ConcurrentLinkedQueue<>();   // {reservation_id, member_id}
+    private final Queue<Integer> orders = new ConcurrentLinkedQueue<>();
+    private final List<Integer> events = new ArrayList<>();
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    DataAccessBenchmark(Connection conn) throws SQLException {
+        members = ints(conn, "SELECT member_id FROM Member");
+        rooms = ints(conn, "SELECT room_id FROM Room");
+        items = ints(conn, "SELECT item_id FROM Menu_Item WHERE is_available = 'Y'");
+        pets = ints(conn, "SELECT pet_id FROM Pet");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java petcafe.DataAccessBenchmark <jdbcUrl|-> <username> <password> " +
+                    "[operation,...]");
+            System.exit(-1);
+        }
+        int threads = Integer.getInteger("petcafe.bench.threads", 1);
+        long warmup = Long.getLong("petcafe.bench.warmupSeconds", 5) * 1000;
+        long measure = Long.getLong("petcafe.bench.seconds", 10) * 1000;
+        long seed = Long.getLong("petcafe.bench.seed", 460);
+        if (System.getProperty("petcafe.pool.max") == null) {
+            System.setProperty("petcafe.pool.max", String.valueOf(Math.max(8, threads + 2)));
+        }
+        DBUtil.configure("-".equals(args[0]) ? null : args[0], args[1], args[2]);
+
+        boolean ok;
+        DataAccessBenchmark bench = null;
+        try {
+            String scale;
+            try (Connection conn = DBUtil.getConnection()) {
+                MenuCatalog.load(conn);
+                RoomSchedule.warm(conn);
+                bench = new DataAccessBenchmark(conn);
+                scale = String.valueOf(bench.members.length);
+                StringBuilder sizes = new StringBuilder("Rows:");
+                for (String t : TABLES) {
+                    sizes.append(' ').append(t).append('=').append(firstInt(conn, "SELECT COUNT(*) FROM " + t));
+                }
+                System.out.println(sizes);
+            }
+
+            Map<String, BenchHarness.Operation> operations = bench.operations();
+            List<String> selected = args.length > 3 ? Arrays.asList(args[3].split(","))
+                    : new ArrayList<>(operations.keySet());
+            List<BenchHarness.Result> results = new ArrayList<>();
+            System.out.printf("scale=%s threads=%d warmup=%d s measured=%d s seed=%d%n",
+                    scale, threads, warmup / 1000, measure / 1000, seed);
+            System.out.println(BenchHarness.header());
+            for (String name : selected) {
+                BenchHarness.Operation op = operations.get(name.trim());
+                if (op == null) throw new IllegalArgumentException("No such operation: " + name
+                        + " (expected one of " + operations.keySet() + ")");
+                BenchHarness.Result r = BenchHarness.measure(name.trim(), scale, threads, warmup, measure, seed, op);
+                System.out.println(r);
+                results.add(r);
+            }
+
+            ok = results.stream().allMatch(r -> r.latency.errors() == 0);
+            String out = System.getProperty("petcafe.bench.out");
+            if (out != null) BenchHarness.save(results, out);
+            String baseline = System.getProperty("petcafe.bench.baseline");
+            if (baseline != null) {
+                double tolerance = Double.parseDouble(System.getProperty("petcafe.bench.tolerance", "15"));
+                if (BenchHarness.compare(results, baseline, tolerance) > 0) ok = false;
+            }
+        } finally {
+            try {
+                if (bench != null) bench.cleanUp();
+            } finally {
+                System.out.println("Pool: " + DBUtil.getPool().stats());
+                DBUtil.shutdown();
+            }
+        }
+        if (!ok) System.exit(1);
+    }
+
+    /* The operations by name, in the order they are run by default. */
+    Map<String, BenchHarness.Operation> operations() {
+        Map<String, BenchHarness.Operation> ops = new LinkedHashMap<>();
+        ops.put("book-room", rnd -> {
+            int member = members[rnd.nextInt(members.length)];
+            LocalDate day = FIRST_DAY.plusDays(rnd.nextInt(365));
+            Timestamp start = Timestamp.valueOf(day.atTime(8 + rnd.nextInt(11), 0));
+            ReservationRepository.Booking b = repo.reservations.book(member,
+                    rooms[rnd.nextInt(rooms.length)], Date.valueOf(day), start, 60, null);
+            if (b.outcome == BookingEngine.Outcome.BOOKED) reservations.add(new int[] {b.reservationId, member});
+        });
+        ops.put("create-order", rnd -> {
+            OrderCart cart = new OrderCart(members[rnd.nextInt(members.length)], null);
+            for (int i = rnd.nextInt(4); i >= 0; i--) {
+                repo.orders.addItem(cart, items[rnd.nextInt(items.length)], 1 + rnd.nextInt(3));
+            }
+            int orderId = repo.orders.place(cart);
+            if (orderId > 0) orders.add(orderId);
+        });
+        ops.put("register-event", rnd -> {
+            int n = registrations.getAndIncrement();
+            repo.events.register(members[n % members.length], event(n / members.length));
+        });
+        ops.put("visit-history", rnd ->
+                repo.reports.visitHistory(members[rnd.nextInt(members.length)], v -> { }));
+        ops.put("upcoming-events", rnd -> repo.reports.upcomingEvents(e -> { }));
+        ops.put("top-members", rnd -> repo.reports.topMembers(0, 10, m -> { }));
+        ops.put("adoption-applications", rnd ->
+                repo.reports.adoptionApplications(pets[rnd.nextInt(pets.length)], a -> { }));
+        return ops;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method event(index)
+    |
+    |  Purpose:  The index'th scratch event, created on first use. Each one
+    |            seats half the members, so registering every member into it
+    |            fills it and then waitlists the rest.
+    |
+    *-------------------------------------------------------------------*/
+
+    private synchronized int event(int index) throws SQLException {
+        while (events.size() <= index) {
+            events.add(repo.events.insert("Benchmark event " + events.size(), null, rooms[0],
+                    Date.valueOf(EVENT_DATE), Timestamp.valueOf(EVENT_DATE.atTime(18, 0)),
+                    Timestamp.valueOf(EVENT_DATE.atTime(19, 0)),
+                    Math.max(1, members.length / 2), null, null));
+        }
+        return events.get(index);
+    }
+
+    /* Deletes what the write operations created; registrations go with their events. */
+    void cleanUp() throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            for (int[] r : reservations) {
+                DBUtil.inTransaction(conn, c -> {
+                    try (PreparedStatement ps = c.prepareStatement("DELETE FROM Reservation WHERE reservation_id = ?")) {
+                        ps.setInt(1, r[0]);
+                        if (ps.executeUpdate() > 0) ActivitySummary.recordVisit(c, r[1], -1);
+                    }
+                    return null;
+                });
+                RoomSchedule.remove(r[0]);
+            }
+            for (int event : events) {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM Event WHERE event_id = ?")) {
+                    ps.setInt(1, event);
+                    ps.executeUpdate();
+                }
+            }
+        }
+        for (int order : orders) repo.orders.delete(order);
+        System.out.printf("Cleaned up %d reservations, %d orders, %d events%n",
+                reservations.size(), orders.size(), events.size());
+    }
+
+    private static int firstInt(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            if (!rs.next() || rs.getObject(1) == null) throw new SQLException("No rows for: " + sql);
+            return rs.getInt(1);
+        }
+    }
+
+    private static int[] ints(Connection conn, String sql) throws SQLException {
+        List<Integer> values = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) values.add(rs.getInt(1));
+        }
+        if (values.isEmpty()) throw new SQLException("No rows for: " + sql);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
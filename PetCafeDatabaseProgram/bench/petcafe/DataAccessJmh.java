@@ -0,0 +1,174 @@
+package petcafe;
+
+/*
+ * DataAccessJmh.java -- JMH version of DataAccessBenchmark: the same operations, through the
+ *                       same repositories and pool, against an embedded H2 database in Oracle
+ *                       mode seeded with a SyntheticData set of the chosen size.
+ *
+ * Built by the bench profile (see pom.xml) and run from the repository root, since the
+ * schema and the sample rows are read from initialSQLfiles/ and SampleDataCSVs/:
+ *
+ *         mvn -B -f PetCafeDatabaseProgram -Pbench package
+ *         java -jar PetCafeDatabaseProgram/target/benchmarks.jar DataAccessJmh -p rows=1000,100000 -prof gc
+ *
+ * rows is the Reservation row count, 1K to 10M; the data set has a fifth as many members and
+ * the other tables grow with them (see SyntheticData). Each size is loaded once into
+ * ${java.io.tmpdir}/petcafe-jmh/rows-<rows> (-Dpetcafe.jmh.dir to move it) and reused by
+ * later trials and runs; delete the directory to load it again. The 10M set takes a long
+ * while to load and several GB of disk, so pick sizes with -p rather than running them all.
+ *
+ * The default modes report throughput and, from sampled calls, latency percentiles
+ * (-bm sample for those alone); -prof gc adds the allocation rate per operation. What the
+ * write operations create is deleted again when the trial ends, as DataAccessBenchmark does,
+ * so a reused database stays at its size. The H2 numbers show how each operation scales
+ * with the data and catch regressions in the Java and SQL; latencies on Oracle differ, so
+ * DataAccessBenchmark remains the tool for a run against the class database.
+ */
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataAccessJmh {
+
+    private static final int RESERVATIONS_PER_MEMBER = 5;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private DataAccessBenchmark bench;
+    private BenchHarness.Operation addReservation;
+    private BenchHarness.Operation createOrder;
+    private BenchHarness.Operation registerForEvent;
+    private BenchHarness.Operation visitHistory;
+    private BenchHarness.Operation upcomingEvents;
+    private BenchHarness.Operation topMembers;
+    private BenchHarness.Operation adoptionApplications;
+    private final Random rnd = new Random(460);
+
+    /*---------------------------------------------------------------------
+    |  Method open()
+    |
+    |  Purpose:  Points DBUtil at the database for this size, loading it
+    |            first if it is missing or incomplete, and warms the caches
+    |            the application warms at start-up.
+    |
+    *-------------------------------------------------------------------*/
+
+    @Setup
+    public void open() throws Exception {
+        File dir = new File(System.getProperty("petcafe.jmh.dir",
+                new File(System.getProperty("java.io.tmpdir"), "petcafe-jmh").getPath()));
+        DBUtil.configure("jdbc:h2:file:" + new File(dir, "rows-" + rows).getAbsolutePath()
+                + ";MODE=Oracle;DATABASE_TO_UPPER=TRUE", "sa", "");
+        int members = Math.max(1, rows / RESERVATIONS_PER_MEMBER);
+        try (Connection conn = DBUtil.openConnection()) {
+            if (!loaded(conn, members)) load(conn, members);
+        }
+        try (Connection conn = DBUtil.getConnection()) {
+            MenuCatalog.load(conn);
+            RoomSchedule.warm(conn);
+            bench = new DataAccessBenchmark(conn);
+        }
+        Map<String, BenchHarness.Operation> ops = bench.operations();
+        addReservation = ops.get("book-room");
+        createOrder = ops.get("create-order");
+        registerForEvent = ops.get("register-event");
+        visitHistory = ops.get("visit-history");
+        upcomingEvents = ops.get("upcoming-events");
+        topMembers = ops.get("top-members");
+        adoptionApplications = ops.get("adoption-applications");
+    }
+
+    @TearDown
+    public void close() throws SQLException {
+        try {
+            bench.cleanUp();
+        } finally {
+            DBUtil.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void addReservation() throws Exception {
+        addReservation.run(rnd);
+    }
+
+    @Benchmark
+    public void createOrder() throws Exception {
+        createOrder.run(rnd);
+    }
+
+    @Benchmark
+    public void registerForEvent() throws Exception {
+        registerForEvent.run(rnd);
+    }
+
+    @Benchmark
+    public void visitHistory() throws Exception {
+        visitHistory.run(rnd);
+    }
+
+    @Benchmark
+    public void upcomingEvents() throws Exception {
+        upcomingEvents.run(rnd);
+    }
+
+    @Benchmark
+    public void topMembers() throws Exception {
+        topMembers.run(rnd);
+    }
+
+    @Benchmark
+    public void adoptionApplications() throws Exception {
+        adoptionApplications.run(rnd);
+    }
+
+    /*
+     * Whether the database holds the whole data set: the index pack is applied last, so a
+     * load that was interrupted has no INDEX_PACK row.
+     */
+    private static boolean loaded(Connection conn, int members) {
+        try {
+            return BenchDatabase.count(conn, "SELECT COUNT(*) FROM Schema_Version WHERE component = 'INDEX_PACK'") == 1
+                    && BenchDatabase.count(conn, "SELECT COUNT(*) FROM Member") == members;
+        } catch (SQLException e) {
+            return false;           // no schema yet
+        }
+    }
+
+    private static void load(Connection conn, int members) throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");         // H2: whatever an interrupted load left
+        }
+        BenchDatabase.runScript(conn, "createTables");
+        BenchDatabase.load(conn, new SyntheticData(Paths.get("SampleDataCSVs"), members,
+                SyntheticData.DEFAULT_SEED, SyntheticData.DEFAULT_AS_OF));
+        BenchDatabase.restartSequences(conn);
+        BenchDatabase.runScript(conn, "createIndexes");
+    }
+}
@@ -0,0 +1,197 @@
+package petcafe;
+
+/*
+ * EventRegistrationLoad.java -- Checks that EventRegistrar never oversells an event and
+ *                               promotes its waitlist in order.
+ *
+ * Creates a scratch event with `capacity` seats (default 10) in the first room, then starts
+ * one thread per member (up to `registrants`, default 200) behind a start gate; each borrows
+ * a pooled connection and registers its member. Afterwards exactly min(capacity, members)
+ * registrations must hold a seat and the rest must be WAITLISTED. Then the first half of the
+ * seated members cancel concurrently, and the event must again be full, with the promoted
+ * members being the ones that joined the waitlist first. The scratch event and its
+ * registrations are deleted before the program exits. Event.registered_count must match the
+ * seated members after each phase.
+ *
+ *         java -cp <ojdbc8.jar>:bench-out petcafe.EventRegistrationLoad <jdbcUrl|-> <username> <password> [capacity [registrants]]
+ *
+ * "-" keeps DBUtil's default URL. Exits with status 1 if a check fails.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventRegistrationLoad {
+
+    private static final LocalDate EVENT_DATE = LocalDate.of(2099, 7, 1);
+
+    private interface MemberTask {
+        void run(Connection conn, int memberId) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java petcafe.EventRegistrationLoad <jdbcUrl|-> <username> <password> " +
+                    "[capacity [registrants]]");
+            System.exit(-1);
+        }
+        int capacity = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int registrants = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+        if (System.getProperty("petcafe.pool.max") == null) {
+            System.setProperty("petcafe.pool.max", "32");
+        }
+        DBUtil.configure("-".equals(args[0]) ? null : args[0], args[1], args[2]);
+
+        int eventId;
+        List<Integer> members = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection()) {
+            eventId = createEvent(conn, capacity);
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT member_id FROM Member ORDER BY member_id")) {
+                while (rs.next() && members.size() < registrants) members.add(rs.getInt(1));
+            }
+        }
+
+        boolean ok = false;
+        try {
+            ConcurrentHashMap<EventRegistrar.Outcome, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+            long t0 = System.nanoTime();
+            AtomicInteger errors = concurrently(members, (c, m) ->
+                    outcomes.computeIfAbsent(EventRegistrar.register(c, m, eventId), k -> new AtomicInteger())
+                            .incrementAndGet());
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+            int expectSeated = Math.min(capacity, members.size());
+            List<Integer> seated;
+            List<Integer> waitlist;
+            int counter;
+            try (Connection conn = DBUtil.getConnection()) {
+                seated = memberIds(conn, eventId, "attendance_status = 'REGISTERED'", "member_id");
+                waitlist = memberIds(conn, eventId, "attendance_status = 'WAITLISTED'", "waitlisted_at, member_id");
+                counter = registeredCount(conn, eventId);
+            }
+            boolean registerOk = errors.get() == 0
+                    && seated.size() == expectSeated
+                    && counter == seated.size()
+                    && seated.size() + waitlist.size() == members.size()
+                    && count(outcomes, EventRegistrar.Outcome.REGISTERED) == seated.size()
+                    && count(outcomes, EventRegistrar.Outcome.WAITLISTED) == waitlist.size();
+            System.out.printf("event=%d capacity=%d registrants=%d registered=%d waitlisted=%d errors=%d " +
+                    "time=%d ms -> %s%n", eventId, capacity, members.size(), seated.size(), waitlist.size(),
+                    errors.get(), millis, registerOk ? "OK" : "OVERSOLD OR INCONSISTENT");
+
+            List<Integer> leaving = seated.subList(0, seated.size() / 2);
+            AtomicInteger cancelErrors = concurrently(leaving, (c, m) -> EventRegistrar.cancel(c, m, eventId, false));
+            Set<Integer> expectPromoted =
+                    new HashSet<>(waitlist.subList(0, Math.min(leaving.size(), waitlist.size())));
+            List<Integer> nowSeated;
+            try (Connection conn = DBUtil.getConnection()) {
+                nowSeated = memberIds(conn, eventId, "attendance_status = 'REGISTERED'", "member_id");
+                counter = registeredCount(conn, eventId);
+            }
+            Set<Integer> promoted = new HashSet<>(nowSeated);
+            promoted.removeAll(seated);
+            boolean cancelOk = cancelErrors.get() == 0
+                    && counter == nowSeated.size()
+                    && nowSeated.size() == Math.min(capacity, members.size() - leaving.size())
+                    && promoted.equals(expectPromoted);
+            System.out.printf("cancelled=%d promoted=%d registered=%d errors=%d -> %s%n",
+                    leaving.size(), promoted.size(), nowSeated.size(), cancelErrors.get(),
+                    cancelOk ? "OK" : "WAITLIST NOT PROMOTED IN ORDER");
+            ok = registerOk && cancelOk;
+        } finally {
+            try (Connection conn = DBUtil.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("DELETE FROM Event WHERE event_id = ?")) {
+                ps.setInt(1, eventId);
+                ps.executeUpdate();
+            }
+            System.out.println("Pool: " + DBUtil.getPool().stats());
+            DBUtil.shutdown();
+        }
+        if (!ok) System.exit(1);
+    }
+
+    /* Runs task for every member on its own thread, all released together. Returns the error count. */
+    private static AtomicInteger concurrently(List<Integer> members, MemberTask task) throws InterruptedException {
+        AtomicInteger errors = new AtomicInteger();
+        if (members.isEmpty()) return errors;
+        CountDownLatch gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(members.size());
+        for (int member : members) {
+            pool.execute(() -> {
+                try {
+                    gate.await();
+                    try (Connection conn = DBUtil.getConnection()) {
+                        task.run(conn, member);
+                    }
+                } catch (Exception e) {
+                    if (errors.getAndIncrement() == 0) e.printStackTrace();
+                }
+            });
+        }
+        gate.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        return errors;
+    }
+
+    private static int createEvent(Connection conn, int capacity) throws SQLException {
+        int eventId = IdAllocator.nextId(conn, "Event", "event_id");
+        String sql = "INSERT INTO Event (event_id, title, room_id, event_date, start_time, max_attendees) " +
+                "SELECT ?, 'Registration load test', MIN(room_id), ?, ?, ? FROM Room";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, eventId);
+            ps.setDate(2, Date.valueOf(EVENT_DATE));
+            ps.setTimestamp(3, Timestamp.valueOf(EVENT_DATE.atTime(18, 0)));
+            ps.setInt(4, capacity);
+            ps.executeUpdate();
+        }
+        return eventId;
+    }
+
+    private static List<Integer> memberIds(Connection conn, int eventId, String where, String orderBy)
+            throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String q = "SELECT member_id FROM Event_Registration WHERE event_id = ? AND " + where +
+                " ORDER BY " + orderBy;
+        try (PreparedStatement ps = conn.prepareStatement(q)) {
+            ps.setInt(1, eventId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static int registeredCount(Connection conn, int eventId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT registered_count FROM Event WHERE event_id = ?")) {
+            ps.setInt(1, eventId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int count(ConcurrentHashMap<EventRegistrar.Outcome, AtomicInteger> outcomes,
+                             EventRegistrar.Outcome o) {
+        AtomicInteger n = outcomes.get(o);
+        return n == null ? 0 : n.get();
+    }
+}
@@ -0,0 +1,213 @@
+package petcafe;
+
+/*
+ * IndexBenchmark.java -- Before/after timings for index pack v1 (initialSQLfiles/createIndexes.sql).
+ *
+ * Loads a SyntheticData set in steps (by default with 10K, 100K and 1M reservations) and, at
+ * every step, times the two statements the index pack is meant to keep flat, once with the
+ * indexes dropped and once with them in place:
+ *
+ *     - booking insert: BookingEngine's INSERT ... SELECT with the room overlap count, for a
+ *       random room and slot in the data set's date range
+ *     - member delete:  MemberRepository's conditional DELETE with its guards (and the
+ *       cascade when they pass), for a random member
+ *
+ * Each run is rolled back, so every sample sees the same tables. Median and 95th percentile
+ * latencies are printed per statement, scale and mode.
+ *
+ * The data set has a fifth as many members as reservations (see SyntheticData), so members,
+ * orders, pets and events grow with the reservations and each member keeps the same handful
+ * of rows at every scale. Every step replaces the schema's rows with the generated ones, so
+ * run it against a scratch schema only, and reload it with insertSampleData afterwards; the
+ * indexes dropped and created are the ones named in createIndexes.sql, and they are left in
+ * place when the run ends. The schema has to exist already:
+ *
+ *         java -cp <ojdbc8.jar>:bench-out petcafe.IndexBenchmark <jdbcUrl|-> <username> <password> [scale,scale,...]
+ *
+ * "-" keeps DBUtil's default URL. Optimizer statistics are gathered at every step on Oracle
+ * only. Recorded runs are kept in bench/results/IndexBenchmark.txt.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class IndexBenchmark {
+
+    private static final int SAMPLES = 100;
+    private static final int WARM_UP = 10;
+    private static final int RESERVATIONS_PER_MEMBER = 5;
+    private static final int BENCH_RES_ID = Integer.MAX_VALUE;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java petcafe.IndexBenchmark <jdbcUrl|-> <username> <password> [scale,scale,...]");
+            System.exit(-1);
+        }
+        DBUtil.configure("-".equals(args[0]) ? null : args[0], args[1], args[2]);
+        int[] scales = args.length > 3
+                ? Arrays.stream(args[3].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {10_000, 100_000, 1_000_000};
+
+        try (Connection conn = DBUtil.openConnection()) {
+            boolean oracle = conn.getMetaData().getDatabaseProductName().startsWith("Oracle");
+            Random rnd = new Random(460);
+
+            System.out.println("Database: " + conn.getMetaData().getDatabaseProductName() + " "
+                    + conn.getMetaData().getDatabaseProductVersion());
+            System.out.printf("%-16s %10s %9s %-8s %10s %10s%n", "statement", "rows", "members", "indexes",
+                    "p50 us", "p95 us");
+            try {
+                for (int scale : scales) {
+                    int members = Math.max(1, scale / RESERVATIONS_PER_MEMBER);
+                    dropIndexes(conn);
+                    long t0 = System.nanoTime();
+                    BenchDatabase.load(conn, new SyntheticData(Paths.get("SampleDataCSVs"), members,
+                            SyntheticData.DEFAULT_SEED, SyntheticData.DEFAULT_AS_OF));
+                    System.out.printf("# loaded %d members in %.0f s%n", members, (System.nanoTime() - t0) / 1e9);
+                    if (oracle) gatherStats(conn);
+                    int rows = BenchDatabase.count(conn, "SELECT COUNT(*) FROM Reservation");
+                    int[] memberIds = ids(conn, "SELECT member_id FROM Member");
+                    int[][] rooms = rooms(conn);
+                    for (boolean indexed : new boolean[] {false, true}) {
+                        if (indexed) createIndexes(conn);
+                        measureBooking(conn, rows, members, indexed, rnd, memberIds, rooms);
+                        measureDelete(conn, rows, members, indexed, rnd, memberIds);
+                    }
+                }
+            } finally {
+                createIndexes(conn);
+            }
+        }
+    }
+
+    /* Times BookingEngine's overlap-checked INSERT for random slots, rolling each back. */
+    private static void measureBooking(Connection conn, int rows, int members, boolean indexed, Random rnd,
+                                       int[] memberIds, int[][] rooms) throws SQLException {
+        long[] micros = new long[SAMPLES];
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(BookingEngine.INSERT_IF_FREE)) {
+            for (int i = -WARM_UP; i < SAMPLES; i++) {
+                // the data set's reservations run from 18 months before its as-of date to 6 after
+                LocalDate day = SyntheticData.DEFAULT_AS_OF.minusMonths(18).plusDays(rnd.nextInt(730));
+                Timestamp start = Timestamp.valueOf(day.atTime(8 + rnd.nextInt(10), 0));
+                int[] room = rooms[rnd.nextInt(rooms.length)];
+                BookingEngine.bindInsert(ps, BENCH_RES_ID, memberIds[rnd.nextInt(memberIds.length)], room[0],
+                        Date.valueOf(day), start, 90, null, room[1]);
+                long t0 = System.nanoTime();
+                ps.executeUpdate();
+                if (i >= 0) micros[i] = (System.nanoTime() - t0) / 1000;
+                conn.rollback();
+            }
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+        print("booking insert", rows, members, indexed, micros);
+    }
+
+    /* Times MemberRepository's guarded DELETE for random members, rolling each back. */
+    private static void measureDelete(Connection conn, int rows, int members, boolean indexed, Random rnd,
+                                      int[] memberIds) throws SQLException {
+        long[] micros = new long[SAMPLES];
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(MemberRepository.DELETE)) {
+            for (int i = -WARM_UP; i < SAMPLES; i++) {
+                ps.setInt(1, memberIds[rnd.nextInt(memberIds.length)]);
+                long t0 = System.nanoTime();
+                ps.executeUpdate();
+                if (i >= 0) micros[i] = (System.nanoTime() - t0) / 1000;
+                conn.rollback();
+            }
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+        print("member delete", rows, members, indexed, micros);
+    }
+
+    private static void print(String name, int rows, int members, boolean indexed, long[] micros) {
+        Arrays.sort(micros);
+        System.out.printf("%-16s %10d %9d %-8s %10d %10d%n", name, rows, members, indexed ? "yes" : "no",
+                micros[SAMPLES / 2], micros[SAMPLES * 95 / 100]);
+    }
+
+    private static void gatherStats(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("BEGIN DBMS_STATS.GATHER_SCHEMA_STATS(USER); END;");
+        }
+    }
+
+    private static final Pattern CREATE_INDEX = Pattern.compile("CREATE INDEX (\\w+) ON [^;]+");
+
+    /* The CREATE INDEX statements of the pack, keyed by index name. */
+    private static List<String[]> packIndexes() throws Exception {
+        String sql = new String(Files.readAllBytes(Paths.get("initialSQLfiles/createIndexes.sql")),
+                StandardCharsets.UTF_8);
+        List<String[]> indexes = new ArrayList<>();
+        Matcher m = CREATE_INDEX.matcher(sql);
+        while (m.find()) indexes.add(new String[] {m.group(1), m.group()});
+        return indexes;
+    }
+
+    private static void createIndexes(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement()) {
+            for (String[] index : packIndexes()) {
+                try {
+                    st.execute(index[1]);
+                } catch (SQLException e) {
+                    // already exists: ORA-00955 on Oracle, SQLState 42S11 elsewhere
+                    if (e.getErrorCode() != 955 && !"42S11".equals(e.getSQLState())) throw e;
+                }
+            }
+        }
+    }
+
+    private static void dropIndexes(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement()) {
+            for (String[] index : packIndexes()) {
+                try {
+                    st.execute("DROP INDEX " + index[0]);
+                } catch (SQLException e) {
+                    // not there (already dropped); anything else is a real failure
+                    if (e.getErrorCode() != 1418 && !"42S12".equals(e.getSQLState())) throw e;
+                }
+            }
+        }
+    }
+
+    /* Every room as {room_id, max_capacity}. */
+    private static int[][] rooms(Connection conn) throws SQLException {
+        List<int[]> rooms = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT room_id, max_capacity FROM Room")) {
+            while (rs.next()) rooms.add(new int[] {rs.getInt(1), rs.getInt(2)});
+        }
+        if (rooms.isEmpty()) throw new SQLException("The data set has no rooms.");
+        return rooms.toArray(new int[0][]);
+    }
+
+    private static int[] ids(Connection conn, String sql) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        if (ids.isEmpty()) throw new SQLException(sql + " returned no rows.");
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,169 @@
+package petcafe;
+
+/*
+ * MoneyBenchmark.java -- Cross-checks Money against BigDecimal on random inputs, then times
+ *                        order totalling three ways: the double arithmetic createOrder used
+ *                        to do, BigDecimal, and Money's long cents.
+ *
+ * The check phase draws `cases` random amounts, quantities and discount rates from a fixed
+ * seed and requires, for each one, that
+ *
+ *   - percentOff(c, r) equals c * (100 - r) / 100 rounded HALF_UP by BigDecimal
+ *   - parse(format(c)) == c, and format(c) equals BigDecimal.valueOf(c, 2).toPlainString()
+ *   - parse of a three-decimal string equals BigDecimal's HALF_UP rounding of it
+ *   - fromDecimal(toDecimal(c)) == c
+ *   - a sum of times(unit, qty) equals the BigDecimal sum
+ *
+ * and counts the cases where the old double formula would have written a different cent
+ * value. The timing phase totals the same random orders with each method and prints a
+ * checksum so the work is not optimised away. Nothing touches the database.
+ *
+ *         java -cp bench-out petcafe.MoneyBenchmark [cases [orders [seed]]]
+ *
+ * Exits with status 1 if any check fails.
+ */
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+public class MoneyBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 460L;
+
+        int failures = check(cases, seed);
+        System.out.printf("%,d random cases (seed %d): %d failure(s)%n", cases, seed, failures);
+
+        int[][] qty = new int[orders][];
+        long[][] unit = new long[orders][];
+        int[] rate = new int[orders];
+        Random rnd = new Random(seed);
+        for (int o = 0; o < orders; o++) {
+            int lines = 1 + rnd.nextInt(6);
+            qty[o] = new int[lines];
+            unit[o] = new long[lines];
+            for (int l = 0; l < lines; l++) {
+                qty[o][l] = 1 + rnd.nextInt(4);
+                unit[o][l] = 100 + rnd.nextInt(2_500);
+            }
+            rate[o] = rnd.nextInt(4) == 0 ? -1 : rnd.nextInt(31);      // -1: no tier
+        }
+
+        for (int warm = 0; warm < 3; warm++) {
+            totalDouble(qty, unit, rate);
+            totalDecimal(qty, unit, rate);
+            totalMoney(qty, unit, rate);
+        }
+        long t0 = System.nanoTime();
+        long a = totalDouble(qty, unit, rate);
+        long t1 = System.nanoTime();
+        long b = totalDecimal(qty, unit, rate);
+        long t2 = System.nanoTime();
+        long c = totalMoney(qty, unit, rate);
+        long t3 = System.nanoTime();
+
+        report("double", orders, t1 - t0, a);
+        report("BigDecimal", orders, t2 - t1, b);
+        report("Money (long cents)", orders, t3 - t2, c);
+        if (b != c) {
+            System.out.println("BigDecimal and Money totals differ");
+            failures++;
+        }
+        if (failures > 0) System.exit(1);
+    }
+
+    private static void report(String name, int orders, long nanos, long checksum) {
+        System.out.printf("%-20s %8.1f ms  %6.1f ns/order  checksum=%d%n",
+                name, nanos / 1e6, (double) nanos / orders, checksum);
+    }
+
+    /* Runs the property checks; returns the number of failures (printing the first few). */
+    private static int check(int cases, long seed) {
+        Random rnd = new Random(seed);
+        int failures = 0, doubleDiffers = 0;
+        for (int i = 0; i < cases; i++) {
+            long cents = rnd.nextInt(4) == 0 ? rnd.nextInt(1_000) : rnd.nextLong() % 100_000_000_000L;
+            int r = rnd.nextInt(101);
+
+            long expected = BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(100 - r))
+                    .divide(HUNDRED, 0, RoundingMode.HALF_UP).longValueExact();
+            failures += expect(Money.percentOff(cents, r) == expected, "percentOff", cents, r);
+
+            if (cents >= 0 && cents < 100_000_000L) {
+                double old = (cents / 100.0) * (1.0 - r / 100.0);
+                long oldCents = BigDecimal.valueOf(old).setScale(2, RoundingMode.HALF_UP)
+                        .unscaledValue().longValueExact();
+                if (oldCents != expected) doubleDiffers++;
+            }
+
+            String text = Money.format(cents);
+            failures += expect(text.equals(BigDecimal.valueOf(cents, 2).toPlainString()), "format", cents, r);
+            failures += expect(Money.parse(text) == cents, "parse(format)", cents, r);
+            failures += expect(Money.fromDecimal(Money.toDecimal(cents)) == cents, "fromDecimal", cents, r);
+
+            String three = BigDecimal.valueOf(cents * 10 + rnd.nextInt(10), 3).toPlainString();
+            long rounded = new BigDecimal(three).setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+            failures += expect(Money.parse(three) == rounded, "parse " + three, cents, r);
+
+            long sum = 0;
+            BigDecimal big = BigDecimal.ZERO;
+            for (int l = 0, n = 1 + rnd.nextInt(5); l < n; l++) {
+                long unit = rnd.nextInt(1_000_000);
+                int q = 1 + rnd.nextInt(1_000);
+                sum = Money.plus(sum, Money.times(unit, q));
+                big = big.add(BigDecimal.valueOf(unit).multiply(BigDecimal.valueOf(q)));
+            }
+            failures += expect(big.longValueExact() == sum, "times/plus", cents, r);
+        }
+        System.out.printf("double formula would have written a different total in %,d case(s)%n", doubleDiffers);
+        return failures;
+    }
+
+    private static int printed;
+
+    private static int expect(boolean ok, String what, long cents, int rate) {
+        if (!ok && printed++ < 10) System.out.printf("FAILED %s: cents=%d rate=%d%n", what, cents, rate);
+        return ok ? 0 : 1;
+    }
+
+    static long totalDouble(int[][] qty, long[][] unit, int[] rate) {
+        long checksum = 0;
+        for (int o = 0; o < qty.length; o++) {
+            double base = 0.0;
+            for (int l = 0; l < qty[o].length; l++) base += qty[o][l] * (unit[o][l] / 100.0);
+            double total = rate[o] < 0 ? base : base * (1.0 - rate[o] / 100.0);
+            checksum += Math.round(total * 100.0);
+        }
+        return checksum;
+    }
+
+    static long totalDecimal(int[][] qty, long[][] unit, int[] rate) {
+        long checksum = 0;
+        for (int o = 0; o < qty.length; o++) {
+            BigDecimal base = BigDecimal.ZERO;
+            for (int l = 0; l < qty[o].length; l++) {
+                base = base.add(BigDecimal.valueOf(unit[o][l], 2).multiply(BigDecimal.valueOf(qty[o][l])));
+            }
+            BigDecimal total = rate[o] < 0 ? base
+                    : base.multiply(BigDecimal.valueOf(100 - rate[o])).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            checksum += total.unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    static long totalMoney(int[][] qty, long[][] unit, int[] rate) {
+        long checksum = 0;
+        for (int o = 0; o < qty.length; o++) {
+            long base = 0;
+            for (int l = 0; l < qty[o].length; l++) base = Money.plus(base, Money.times(unit[o][l], qty[o][l]));
+            checksum += rate[o] < 0 ? base : Money.percentOff(base, rate[o]);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,80 @@
+package petcafe;
+
+/*
+ * MoneyJmh.java -- JMH version of MoneyBenchmark's timing phase: totals the same random orders
+ *                  with the double arithmetic createOrder used to do, with BigDecimal, and with
+ *                  Money's long cents. The property checks stay in MoneyBenchmark and MoneyTest.
+ *
+ * Built by the bench profile (see pom.xml) and run from target/benchmarks.jar:
+ *
+ *         mvn -B -Pbench package
+ *         java -jar target/benchmarks.jar MoneyJmh
+ *
+ * Each invocation totals `orders` orders (1 to 6 lines, a tier discount on three in four),
+ * generated once per trial from a fixed seed, so runs are comparable. The score is the time
+ * for the whole batch.
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyJmh {
+
+    @Param({"10000"})
+    public int orders;
+
+    private int[][] qty;
+    private long[][] unit;
+    private int[] rate;
+
+    @Setup
+    public void generate() {
+        qty = new int[orders][];
+        unit = new long[orders][];
+        rate = new int[orders];
+        Random rnd = new Random(460L);
+        for (int o = 0; o < orders; o++) {
+            int lines = 1 + rnd.nextInt(6);
+            qty[o] = new int[lines];
+            unit[o] = new long[lines];
+            for (int l = 0; l < lines; l++) {
+                qty[o][l] = 1 + rnd.nextInt(4);
+                unit[o][l] = 100 + rnd.nextInt(2_500);
+            }
+            rate[o] = rnd.nextInt(4) == 0 ? -1 : rnd.nextInt(31);      // -1: no tier
+        }
+    }
+
+    @Benchmark
+    public long totalDouble() {
+        return MoneyBenchmark.totalDouble(qty, unit, rate);
+    }
+
+    @Benchmark
+    public long totalBigDecimal() {
+        return MoneyBenchmark.totalDecimal(qty, unit, rate);
+    }
+
+    @Benchmark
+    public long totalMoney() {
+        return MoneyBenchmark.totalMoney(qty, unit, rate);
+    }
+}
@@ -0,0 +1,273 @@
+package petcafe;
+
+/*
+ * SessionLoad.java -- Simulates many front-desk terminals working against a SessionServer at
+ *                     once, and reports the latency each terminal saw.
+ *
+ * The server runs in this process on a free loopback port, over DBUtil's pool. Every
+ * simulated terminal connects, waits for the others (so all sessions are open together),
+ * then sends its commands one at a time with a pause between them, as a person at a desk
+ * would, and finally sends quit. The command mix is
+ *
+ *         find-rooms, report-upcoming-events, report-visit-history, report-top-members
+ *         book-room      a random member, room and slot in 2097
+ *         create-order   one or two random menu items
+ *
+ * Reservations and orders the terminals created are deleted again before the program exits.
+ *
+ *         java -cp <ojdbc8.jar>:bench-out petcafe.SessionLoad <jdbcUrl|-> <username> <password> [sessions [commands]]
+ *
+ * "-" keeps DBUtil's default URL. The defaults are 300 sessions of 20 commands each.
+ * Settings:
+ *
+ *         -Dpetcafe.load.thinkMillis=50    pause between a terminal's commands
+ *         -Dpetcafe.load.seed=460          seed of the terminals' random commands
+ *         -Dpetcafe.pool.max=16            connections shared by all sessions
+ *
+ * The terminals run on the same kind of thread as the sessions (virtual on Java 21 and
+ * later), and the report includes the peak number of platform threads in the JVM, which
+ * shows whether the sessions needed a thread each. Exits with status 1 if any command got an
+ * ERR reply or a session failed.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionLoad {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2097, 1, 1);
+    private static final String[] KINDS = {"find-rooms", "report-upcoming-events", "report-visit-history",
+            "report-top-members", "book-room", "create-order"};
+
+    private final int[] members;
+    private final int[] rooms;
+    private final int[] items;
+    private final long thinkMillis = Long.getLong("petcafe.load.thinkMillis", 50);
+
+    private final Map<String, LatencyStats> stats = new LinkedHashMap<>();
+    private final Queue<int[]> reservations = new ConcurrentLinkedQueue<>();   // {reservation_id, member_id}
+    private final Queue<Integer> orders = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failedSessions = new AtomicInteger();
+    private volatile String firstError;
+
+    private SessionLoad(Connection conn) throws SQLException {
+        members = ints(conn, "SELECT member_id FROM Member");
+        rooms = ints(conn, "SELECT room_id FROM Room");
+        items = ints(conn, "SELECT item_id FROM Menu_Item WHERE is_available = 'Y'");
+        for (String kind : KINDS) stats.put(kind, new LatencyStats(kind));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java petcafe.SessionLoad <jdbcUrl|-> <username> <password> " +
+                    "[sessions [commands]]");
+            System.exit(-1);
+        }
+        int sessions = args.length > 3 ? Integer.parseInt(args[3]) : 300;
+        int commands = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        long seed = Long.getLong("petcafe.load.seed", 460);
+        if (System.getProperty("petcafe.pool.max") == null) System.setProperty("petcafe.pool.max", "16");
+        DBUtil.configure("-".equals(args[0]) ? null : args[0], args[1], args[2]);
+
+        boolean ok = false;
+        SessionLoad load = null;
+        try {
+            try (Connection conn = DBUtil.getConnection()) {
+                MenuCatalog.load(conn);
+                RoomSchedule.warm(conn);
+                load = new SessionLoad(conn);
+            }
+            try (SessionServer server = SessionServer.start(0)) {
+                ok = load.run(server, sessions, commands, seed);
+            }
+        } finally {
+            try {
+                if (load != null) load.cleanUp();
+            } finally {
+                System.out.println("Pool: " + DBUtil.getPool().stats());
+                DBUtil.shutdown();
+            }
+        }
+        if (!ok) System.exit(1);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method run(server, sessions, commands, seed)
+    |
+    |  Purpose:  Opens `sessions` terminals against the server, runs
+    |            `commands` commands on each and prints what they saw.
+    |
+    |  Returns: true if every command got an OK reply.
+    |
+    *-------------------------------------------------------------------*/
+
+    private boolean run(SessionServer server, int sessions, int commands, long seed) throws InterruptedException {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        ExecutorService terminals = SessionServer.newVirtualExecutor();
+        if (terminals == null) terminals = Executors.newCachedThreadPool();
+        System.out.printf("%d sessions x %d commands, think time %d ms, %s threads, pool max %s%n",
+                sessions, commands, thinkMillis, server.virtualThreads() ? "virtual" : "platform",
+                System.getProperty("petcafe.pool.max"));
+
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int s = 0; s < sessions; s++) {
+            Random rnd = new Random(seed + s);
+            terminals.execute(() -> terminal(server.port(), commands, rnd, connected, go));
+        }
+        connected.await();
+        long start = System.nanoTime();
+        go.countDown();
+        terminals.shutdown();
+        terminals.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        int errors = 0;
+        System.out.println(LatencyStats.header());
+        for (LatencyStats s : stats.values()) {
+            total += s.count();
+            errors += s.errors();
+            if (s.count() > 0) System.out.println(s);
+        }
+        System.out.printf("%d commands in %.1f s (%.1f commands/s), %d errors, %d failed sessions%n",
+                total, seconds, total / seconds, errors, failedSessions.get());
+        System.out.printf("Sessions: peak %d at once; platform threads: peak %d%n",
+                server.peakSessions(), threads.getPeakThreadCount());
+        if (firstError != null) System.out.println("First error: " + firstError);
+        return errors == 0 && failedSessions.get() == 0;
+    }
+
+    /* One terminal: connect, wait for the go signal, send the commands, quit. */
+    private void terminal(int port, int commands, Random rnd, CountDownLatch connected, CountDownLatch go) {
+        boolean counted = false;
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            expect(in, "PETCAFE READY");
+            connected.countDown();
+            counted = true;
+            go.await();
+
+            for (int i = 0; i < commands; i++) {
+                if (i > 0 && thinkMillis > 0) Thread.sleep(thinkMillis / 2 + rnd.nextInt((int) thinkMillis + 1));
+                String kind = KINDS[rnd.nextInt(KINDS.length)];
+                int member = members[rnd.nextInt(members.length)];
+                long t0 = System.nanoTime();
+                send(out, command(kind, member, rnd));
+                String reply = in.readLine();
+                if (reply == null) throw new IOException("server closed the session");
+                boolean ok = reply.startsWith("OK ");
+                stats.get(kind).record(System.nanoTime() - t0, ok);
+                if (!ok) {
+                    if (firstError == null) firstError = kind + ": " + reply;
+                    continue;
+                }
+                if (reply.startsWith("OK reservation ")) {
+                    reservations.add(new int[] {Integer.parseInt(reply.substring(15).trim()), member});
+                } else if (reply.startsWith("OK order ")) {
+                    orders.add(Integer.parseInt(reply.substring(9).split(" ")[0]));
+                }
+            }
+            send(out, "quit");
+            expect(in, "BYE");
+        } catch (IOException | RuntimeException e) {
+            failedSessions.incrementAndGet();
+            if (firstError == null) firstError = "session: " + e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedSessions.incrementAndGet();
+        } finally {
+            if (!counted) connected.countDown();
+        }
+    }
+
+    /* The command line for one command of the given kind. */
+    private String command(String kind, int member, Random rnd) {
+        LocalDate day = FIRST_DAY.plusDays(rnd.nextInt(365));
+        switch (kind) {
+            case "find-rooms":
+                return "find-rooms date=" + day + " duration=60 party=" + (1 + rnd.nextInt(4));
+            case "report-visit-history":
+                return "report-visit-history member=" + member;
+            case "report-top-members":
+                return "report-top-members top=10";
+            case "book-room":
+                return String.format("book-room member=%d room=%d start=\"%s %02d:00\" duration=60",
+                        member, rooms[rnd.nextInt(rooms.length)], day, 8 + rnd.nextInt(11));
+            case "create-order":
+                String order = "create-order member=" + member + " items=" + items[rnd.nextInt(items.length)] + ":1";
+                return rnd.nextBoolean() ? order : order + "," + items[rnd.nextInt(items.length)] + ":2";
+            default:
+                return kind;
+        }
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    private static void expect(BufferedReader in, String expected) throws IOException {
+        String line = in.readLine();
+        if (!expected.equals(line)) throw new IOException("expected " + expected + ", got " + line);
+    }
+
+    /* Deletes the reservations and orders the terminals created. */
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            for (int[] r : reservations) {
+                DBUtil.inTransaction(conn, c -> {
+                    try (PreparedStatement ps = c.prepareStatement("DELETE FROM Reservation WHERE reservation_id = ?")) {
+                        ps.setInt(1, r[0]);
+                        if (ps.executeUpdate() > 0) ActivitySummary.recordVisit(c, r[1], -1);
+                    }
+                    return null;
+                });
+                RoomSchedule.remove(r[0]);
+            }
+        }
+        Repositories repo = new Repositories(ConnectionSource.pooled());
+        for (int order : orders) repo.orders.delete(order);
+        System.out.printf("Cleaned up %d reservations, %d orders%n", reservations.size(), orders.size());
+    }
+
+    private static int[] ints(Connection conn, String sql) throws SQLException {
+        List<Integer> values = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) values.add(rs.getInt(1));
+        }
+        if (values.isEmpty()) throw new SQLException("No rows for: " + sql);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
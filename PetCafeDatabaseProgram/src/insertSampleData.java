@@ -20,6 +20,17 @@
  *
  *         java JDBC <oracle username> <oracle password>
  *
+ *   To load a generated data set of any size instead of SampleDataCSVs (see
+ *   petcafe.SyntheticData), give the number of members:
+ *
+ *         java -Dpetcafe.synthetic.members=1000000 insertSampleData <oracle username> <oracle password>
+ *
+ *   -Dpetcafe.synthetic.seed and -Dpetcafe.synthetic.asOf=YYYY-MM-DD pick another data set.
+ *   The rows are generated as they are inserted, so no CSV files are written.
+ *
+ *   -Dpetcafe.db.url=<jdbc url> loads another database instead of aloe, e.g. an in-memory
+ *   H2 database in Oracle mode when checking the SQL files and loader without Oracle.
+ *
  * As of 12/7/2025 there are no known bugs. Each input checks that values are within bounds.
  * 
  * Author: AJ Cronin
@@ -31,37 +42,89 @@
  */
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.sql.*;                 // For access to the SQL interaction methods
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import petcafe.ActivitySummary;    // Member totals derived from the loaded rows
+import petcafe.ConnectionPool;     // Gives each loader thread its own connection
+import petcafe.CsvReader;          // Streaming CSV parser with typed column decoders
+import petcafe.EventRegistrar;     // Event seat counts derived from the loaded rows
+import petcafe.IdAllocator;        // For the tables whose ids come from sequences
+import petcafe.LoadScheduler;      // Loads tables in parallel in foreign key order
+import petcafe.RowBinder;          // Binds CSV fields using the table's column types
+import petcafe.SyntheticData;      // Generated data sets of any size
 
 public class insertSampleData {
+
+        private static final int DEFAULT_BATCH_SIZE = 1000;
+
+        private static int batchSize = DEFAULT_BATCH_SIZE;   // rows per JDBC batch
+        private static int commitEvery = 0;                  // rows per commit, 0 = per table
+
+        private static final int DEFAULT_LOAD_THREADS = 4;
+
+        private static int loadThreads = DEFAULT_LOAD_THREADS; // tables loaded concurrently
+
+        private static SyntheticData synthetic = null;         // loaded instead of the CSVs if set
+
         public static void main (String [] args){
 
 
         final String oracleURL =   // Magic lectura -> aloe access spell
-                        "jdbc:oracle:thin:@aloe.cs.arizona.edu:1521:oracle";
+                        System.getProperty("petcafe.db.url", "jdbc:oracle:thin:@aloe.cs.arizona.edu:1521:oracle");
 
         String username = null,    // Oracle DBMS username
                password = null;    // Oracle DBMS password
 
 
-        if (args.length == 2) {    // get username/password from cmd line args
+        if (args.length >= 2 && args.length <= 5) {    // get username/password from cmd line args
             username = args[0];
             password = args[1];
-        } else {
-            System.out.println("\nUsage:  java JDBC <username> <password>\n"
+            try {
+                if (args.length >= 3) batchSize = Integer.parseInt(args[2]);
+                if (args.length >= 4) commitEvery = Integer.parseInt(args[3]);
+                if (args.length == 5) loadThreads = Integer.parseInt(args[4]);
+            } catch (NumberFormatException e) {
+                batchSize = -1;
+            }
+        }
+
+        if (username == null || batchSize < 1 || commitEvery < 0 || loadThreads < 1) {
+            System.out.println("\nUsage:  java insertSampleData <username> <password> [batchSize [commitEvery [threads]]]\n"
                              + "    where <username> is your Oracle DBMS"
                              + " username,\n    and <password> is your Oracle"
-                             + " password (not your system password).\n");
+                             + " password (not your system password).\n"
+                             + "    batchSize is the number of rows sent per JDBC batch (default "
+                             + DEFAULT_BATCH_SIZE + "),\n    and commitEvery is the number of rows"
+                             + " per commit (default 0, one commit per table),\n    and threads is the number"
+                             + " of tables loaded at once (default " + DEFAULT_LOAD_THREADS + ").\n");
             System.exit(-1);
         }
 
+        String syntheticMembers = System.getProperty("petcafe.synthetic.members");
+        if (syntheticMembers != null) {
+            try {
+                String asOf = System.getProperty("petcafe.synthetic.asOf");
+                synthetic = new SyntheticData(Paths.get("SampleDataCSVs"), Long.parseLong(syntheticMembers),
+                        Long.getLong("petcafe.synthetic.seed", SyntheticData.DEFAULT_SEED),
+                        asOf == null ? SyntheticData.DEFAULT_AS_OF : LocalDate.parse(asOf));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("*** Cannot generate synthetic data:  " + e.getMessage());
+                System.exit(-1);
+            }
+        }
+
 
             // load the (Oracle) JDBC driver by initializing its base
             // class, 'oracle.jdbc.OracleDriver'.
 
         try {
 
-                Class.forName("oracle.jdbc.OracleDriver");
+                if (oracleURL.startsWith("jdbc:oracle:")) Class.forName("oracle.jdbc.OracleDriver");
 
         } catch (ClassNotFoundException e) {
 
@@ -109,24 +172,30 @@ public class insertSampleData {
             }
             
 
-            // Covert Tables that are FK first
-            insertData("Membership_Tier", new int[] {}, new int[] {}, stmt);
-            insertData("Staff", new int[] {4}, new int[] {}, stmt);
-            insertData("Room", new int[] {}, new int[] {}, stmt);
-            insertData("Member", new int[] {4}, new int[] {}, stmt);
-            insertData("Pet", new int[] {5}, new int[] {}, stmt);
-            insertData("Adoption_Application", new int[] {3 , 6}, new int[] {}, stmt);
-            insertData("Reservation", new int[] {3}, new int[] {4, 7, 8}, stmt);
-            insertData("Event", new int[] {4}, new int[] {5, 6}, stmt);
+            // Tables are loaded in parallel, each as soon as the tables it references are done.
+            Map<String, Set<String>> dependencies =
+                    LoadScheduler.readDependencies(Paths.get("initialSQLfiles/createTables.sql"));
 
-            insertData("Adoption", new int[] {4, 6}, new int[] {}, stmt);
-            insertData("Event_Registration", new int[] {2}, new int[] {}, stmt);
-            insertData("Health_Record", new int[] {3, 6}, new int[] {}, stmt);
+            final String user = username, pass = password;
+            try (ConnectionPool pool = new ConnectionPool(
+                    () -> DriverManager.getConnection(oracleURL, user, pass),
+                    0, loadThreads, 60_000, 600_000, 3_600_000)) {
 
-            insertData("Menu_Item", new int[] {}, new int[] {}, stmt);
-            insertData("Customer_Order", new int[] {}, new int[] {3}, stmt);
-            insertData("Order_Item", new int[] {}, new int[] {}, stmt);
+                LoadScheduler.run(dependencies, loadThreads, table -> {
+                    if (synthetic != null ? !synthetic.hasTable(table)
+                            : !new File(String.format("SampleDataCSVs/%s.csv", table)).exists()) return;
 
+                    try (Connection conn = pool.borrow()) {
+                        conn.setAutoCommit(false);
+                        insertData(table, conn);
+                    }
+                });
+            }
+
+            executeSQLFile("createIndexes", stmt);    // after loading, so the inserts don't maintain them
+            restartSequences(stmt);
+            ActivitySummary.rebuild(dbconn);
+            EventRegistrar.rebuildCounts(dbconn);
 
             stmt.close();
             dbconn.close();
@@ -142,6 +211,19 @@ public class insertSampleData {
                 System.err.println("\tErrorCode: " + e.getErrorCode());
                 System.exit(-1);
 
+        } catch (Exception e) {
+
+                System.err.println("*** Loading failed:  " + e.getMessage());
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    System.err.println("\tMessage:   " + cause.getMessage());
+                    System.err.println("\tSQLState:  " + ((SQLException) cause).getSQLState());
+                    System.err.println("\tErrorCode: " + ((SQLException) cause).getErrorCode());
+                } else if (cause != null) {
+                    System.err.println("\tCause:     " + cause);
+                }
+                System.exit(-1);
+
         }
 
     }
@@ -151,7 +233,11 @@ public class insertSampleData {
     |  Method executeSQLFile(fileName, stmt)
     |
     |  Purpose:  Takes an SQL file with statements inside of it and executes
-    |            each of them.
+    |            each of them. Block comments are removed first, so they may
+    |            contain any text, semicolons included. A DROP of a table,
+    |            sequence or index that does not exist is skipped, so
+    |            recreateTables also works on a database created before that
+    |            object was added to the schema.
     |
     |  Pre-condition:  stmt is established correctly. fileName is name of sql file
     |                  within initialSQLfile directory. SQL file has statments separated by ;
@@ -177,18 +263,22 @@ public class insertSampleData {
         }
 
         try {
-            // Skip Header
+            StringBuilder allLines = new StringBuilder();
             String currLine = reader.readLine();
 
-            String allLines = "";
-
             while (currLine != null) {
-                allLines += currLine;
+                allLines.append(currLine).append('\n');
                 currLine = reader.readLine();
             }
 
-            for (String d : allLines.split(";")) {
-                stmt.executeQuery(d);
+            String withoutComments = allLines.toString().replaceAll("(?s)/\\*.*?\\*/", " ");
+            for (String d : withoutComments.split(";")) {
+                if (d.trim().isEmpty()) continue;
+                try {
+                    stmt.execute(d);
+                } catch (SQLException e) {
+                    if (!isDrop(d) || !isMissingObject(e)) throw e;
+                }
             }
 
             System.out.println(String.format("Successfully executed %s.sql", fileName));
@@ -199,192 +289,145 @@ public class insertSampleData {
 
     }
 
+    private static boolean isDrop(String sql) {
+        return sql.trim().regionMatches(true, 0, "DROP ", 0, 5);
+    }
+
+    /*
+     * True for "no such table / sequence / index": ORA-00942, ORA-02289 and ORA-01418,
+     * or the matching SQLStates when the loader is pointed at another database.
+     */
+    private static boolean isMissingObject(SQLException e) {
+        switch (e.getErrorCode()) {
+            case 942:
+            case 2289:
+            case 1418:
+                return true;
+            default:
+                String state = e.getSQLState();
+                return "42S02".equals(state) || "42S12".equals(state) || "90036".equals(state);
+        }
+    }
+
     /*---------------------------------------------------------------------
-    |  Method insertData(tableName, dateColumnIndices, timeColumnIndices, stmt)
+    |  Method insertData(tableName, dbconn)
     |
-    |  Purpose:  Takes a CSV file and inserts its data into a table of the matching name
-    |            in SQL. 
+    |  Purpose:  Takes a CSV file (or the synthetic data set's CSV text for the table,
+    |            if one is being loaded) and inserts its data into a table of the matching name
+    |            in SQL. The CSV header names the columns; their types are read from the
+    |            table itself, so each field is bound with the matching typed setter.
+    |            Rows are sent to the DBMS in JDBC batches of batchSize rows, and committed
+    |            every commitEvery rows (or once for the whole table when commitEvery is 0).
+    |            The row count and throughput for the table are printed when it finishes.
     |
-    |  Pre-condition:  stmt is established correctly. Specified Column indices are within
-    |                  bounds of actual SQL table.
+    |  Pre-condition:  dbconn is established correctly and has auto-commit turned off.
+    |                  Every CSV header name is a column of the table.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
     |      tableName         -- Name of the table and matching CSV file we are inserting into
-    |      dateColumnIndices -- The indices of "date" types for the sql table.
-    |      timeColumnIndices -- The indices of "timestamp" types for the sql table.
-    |      stmt              -- Object used to execute SQL query and return the results.
+    |      dbconn            -- Connection the rows are inserted through.
     |
     *-------------------------------------------------------------------*/
 
-    private static void insertData(String tableName, int[] dateColumnIndices, int[] timeColumnIndices, Statement stmt) throws SQLException {
+    private static void insertData(String tableName, Connection dbconn) throws SQLException {
         File fileContent = new File(String.format("SampleDataCSVs/%s.csv", tableName));
 
-        BufferedReader reader = null;
+        CsvReader reader = null;
         try {
-            reader = new BufferedReader(new FileReader(fileContent));
+            reader = new CsvReader(synthetic != null ? synthetic.open(tableName)
+                    : new InputStreamReader(new FileInputStream(fileContent), StandardCharsets.UTF_8));
         } catch (FileNotFoundException e) {
             System.out.println(e);
             System.exit(-1);
         }
 
-        try {
-            // Skip Header
-            String currLine = reader.readLine();
-
-            currLine = reader.readLine();
-
-            while (currLine != null) {
-                String[] splitLine = currLine.split(",");
-  
-                // Go through each element in a row.
-                for (int i = 0; i < splitLine.length; i++) {
+        long startNanos = System.nanoTime();
+        long rowCount = 0;
 
-                    if (splitLine[i].equals("")) {
-                        splitLine[i] = "NULL";
+        try {
+            // The header names the columns; the table tells us their types.
+            reader.next();
+            RowBinder binder = RowBinder.compile(dbconn, tableName, reader);
+
+            try (PreparedStatement ps = dbconn.prepareStatement(binder.insertSql())) {
+                int pendingInBatch = 0;
+
+                while (reader.next()) {
+                    binder.bind(ps, reader);
+                    ps.addBatch();
+                    pendingInBatch++;
+                    rowCount++;
+
+                    if (pendingInBatch == batchSize) {
+                        ps.executeBatch();
+                        pendingInBatch = 0;
                     }
-
-                    if(contains(dateColumnIndices, i)) {    // Handle date typed column
-                        splitLine[i] = splitLine[i] = String.format("TO_DATE('%s', 'MM-DD-YYYY')", splitLine[i]);
-                    } else if (contains(timeColumnIndices, i)) {    // Hande time typed column
-                        splitLine[i] = splitLine[i] = String.format("TO_TIMESTAMP('%s', 'HH:MI AM')", splitLine[i]);
-                    } else if (!isNumeric(splitLine[i])) {
-                        splitLine = flattenCommaString(splitLine, i);   // Flatten string so that commas aren't a problem.
-                        splitLine[i] = String.format("'%s'", splitLine[i].replace("'", "''").replace("\"", ""));
+                    if (commitEvery > 0 && rowCount % commitEvery == 0) {
+                        if (pendingInBatch > 0) {
+                            ps.executeBatch();
+                            pendingInBatch = 0;
+                        }
+                        dbconn.commit();
                     }
                 }
 
-                String valueList = String.join(",", splitLine);
-
-                String currInsert = String.format("INSERT INTO %s VALUES (%s)", tableName, valueList);
-
-                stmt.executeQuery(currInsert);
-
-                currLine = reader.readLine();
+                if (pendingInBatch > 0) {
+                    ps.executeBatch();
+                }
+                dbconn.commit();
+            } catch (SQLException e) {
+                dbconn.rollback();
+                throw e;
             }
 
-            System.out.println(String.format("Successfully imported for %s Data", tableName));
-        } catch (IOException e){
-            System.out.println(e);
-            System.exit(-1);
-        }
-    }
-
-    
-    /*---------------------------------------------------------------------
-    |  Method isNumeric(s)
-    |
-    |  Purpose:  Checks to see if a string only contains numeric characters.
-    |
-    |  Pre-condition:  None
-    |
-    |  Post-condition: A boolean value is returned
-    |
-    |  Parameters:
-    |      s -- String being checked
-    |
-    |  Returns: true if string is numeric, false otherwise.
-    |
-    *-------------------------------------------------------------------*/
-
-    private static boolean isNumeric(String s) {
-        try {
-            Double.parseDouble(s);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-    
-    /*---------------------------------------------------------------------
-    |  Method contains(numArr, num)
-    |
-    |  Purpose:  Checks to see if an array contains a certain number.
-    |
-    |  Pre-condition:  None
-    |
-    |  Post-condition: A boolean value is returned
-    |
-    |  Parameters:
-    |      numArr -- Array contain numbers
-    |      num    -- Number being checked if exists
-    |
-    |  Returns: true if num is in array, false otherwise.
-    |
-    *-------------------------------------------------------------------*/
+            reader.close();
 
-    private static boolean contains(int[] numArr, int num) {
-        for (int i : numArr) {
-            if (i == num) return true;
-        }
-
-        return false;
-    }
-
-    
-    /*---------------------------------------------------------------------
-    |  Method flattenCommaString(splitLine, i)
-    |
-    |  Purpose:  Takes the current split line and flattens the first instance of 
-    |            String that contains a comma by looking at quotes at start and end.
-    |
-    |  Pre-condition:  There exists a string later in the elements that ends with "
-    |
-    |  Post-condition: splitLine's next element is actually the next element of the row.
-    |
-    |  Parameters:
-    |      splitLine -- The current line of the csv split by comma
-    |      i         -- The index currently being observed in splitLine.
-    |
-    *-------------------------------------------------------------------*/
-
-    private static String[] flattenCommaString(String[] splitLine, int i) {
-        String currString = splitLine[i];
-
-        if (currString.charAt(0) != '"') return splitLine;
-
-        // We go until we find the string that ends with "
-        while (splitLine[i + 1].charAt(splitLine[i+1].length()-1) != '"') {
-            splitLine[i] += splitLine[i+1];
-
-            splitLine = remove(splitLine, i + 1);
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            System.out.println(String.format("Successfully imported for %s Data (%d rows in %.2f s, %.0f rows/s)",
+                    tableName, rowCount, seconds, seconds > 0 ? rowCount / seconds : 0.0));
+        } catch (IOException | IllegalArgumentException e){
+            System.out.println(tableName + ".csv: " + e);
+            System.exit(-1);
         }
-
-        splitLine[i] += splitLine[i+1];
-        splitLine = remove(splitLine, i + 1);
-
-        return splitLine;
     }
 
     /*---------------------------------------------------------------------
-    |  Method remove(arr, i)
+    |  Method restartSequences(stmt)
     |
-    |  Purpose:  Removes element i from arr and returns a new arr of the
-    |            same length - 1 so that there are no NULLs.
+    |  Purpose:  Recreates the id sequence of every table in IdAllocator.SEQUENCED_TABLES
+    |            so that it starts just above the largest id in the sample data.
     |
-    |  Pre-condition:  None
+    |  Pre-condition:  stmt is established correctly. The tables have been loaded.
     |
-    |  Post-condition: newArr is one element smaller than arr
+    |  Post-condition: The next id block handed to PetCafeApp cannot collide with
+    |                  a sample data row.
     |
     |  Parameters:
-    |      arr    -- Array having element removed from
-    |      i      -- index being removed
-    |
-    |  Returns: new array with all elements except the one at index i.
+    |      stmt     -- Object used to execute SQL query and return the results.
     |
     *-------------------------------------------------------------------*/
-    private static String[] remove(String[] arr, int i) {
-        String[] newArr = new String[arr.length - 1];
 
-        for (int j = 0; j < i; j++) {
-            newArr[j] = arr[j];
-        }
+    private static void restartSequences(Statement stmt) throws SQLException {
+        for (String[] tableAndCol : IdAllocator.SEQUENCED_TABLES) {
+            String table = tableAndCol[0];
+            long start;
+            try (ResultSet rs = stmt.executeQuery(String.format(
+                    "SELECT NVL(MAX(%s),0) + 1 FROM %s", tableAndCol[1], table))) {
+                rs.next();
+                start = rs.getLong(1);
+            }
 
-        for (int j = i; j < arr.length - 1; j++) {
-            newArr[j] = arr[j+1];
+            try {
+                stmt.execute(String.format("DROP SEQUENCE %s_seq", table));
+            } catch (SQLException e) {
+                // Sequence did not exist yet (database created before sequences were added).
+            }
+            stmt.execute(String.format("CREATE SEQUENCE %s_seq START WITH %d INCREMENT BY %d",
+                    table, start, IdAllocator.BLOCK_SIZE));
         }
 
-        return newArr;
+        System.out.println("Successfully restarted id sequences");
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package petcafe;
+
+/*
+ * ActivitySummary.java -- Maintains Member_Activity_Summary, one row per member holding the
+ *                         member's reservation count and total order spend, so reports can
+ *                         read those figures with a primary key lookup instead of totalling
+ *                         Reservation and Customer_Order on every run.
+ *
+ * The write paths in PetCafeApp call recordVisit / recordSpend with the change they made, in
+ * the same transaction as the change itself (see DBUtil.inTransaction), so the summary can
+ * never be committed out of step with the base tables. Each call is a single MERGE that
+ * creates the member's row on first use. rebuild() recomputes every row from scratch (used
+ * after bulk loading), and check() reports members whose row disagrees with the base tables.
+ *
+ * visit_count counts every reservation row of the member, whatever its status, and
+ * total_spent sums total_price over all of the member's orders, paid or not -- the same
+ * figures reportTopMembers has always shown.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ActivitySummary {
+
+    private static final String MERGE =
+            "MERGE INTO Member_Activity_Summary s " +
+                    "USING (SELECT CAST(? AS NUMBER) AS member_id, CAST(? AS NUMBER) AS visits, " +
+                    "CAST(? AS NUMBER(12,2)) AS spent FROM dual) d " +
+                    "ON (s.member_id = d.member_id) " +
+                    "WHEN MATCHED THEN UPDATE SET " +
+                    "s.visit_count = s.visit_count + d.visits, " +
+                    "s.total_spent = s.total_spent + d.spent " +
+                    "WHEN NOT MATCHED THEN INSERT (member_id, visit_count, total_spent) " +
+                    "VALUES (d.member_id, d.visits, d.spent)";
+
+    // Fresh per-member totals computed from the base tables.
+    private static final String ACTUAL =
+            "SELECT m.member_id, NVL(v.visits,0) AS visits, NVL(s.spent,0) AS spent " +
+                    "FROM Member m " +
+                    "LEFT JOIN (SELECT member_id, COUNT(*) AS visits " +
+                    "FROM Reservation GROUP BY member_id) v ON v.member_id = m.member_id " +
+                    "LEFT JOIN (SELECT member_id, SUM(total_price) AS spent " +
+                    "FROM Customer_Order GROUP BY member_id) s ON s.member_id = m.member_id";
+
+    private ActivitySummary() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method recordVisit(conn, memberId, delta)
+    |
+    |  Purpose:  Adds delta (1 for a new reservation, -1 for a removed one) to
+    |            the member's visit count.
+    |
+    |  Pre-condition:  Called in the transaction that made the change.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void recordVisit(Connection conn, int memberId, int delta) throws SQLException {
+        apply(conn, memberId, delta, 0);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method recordSpend(conn, memberId, delta)
+    |
+    |  Purpose:  Adds deltaCents (negative when an order is removed or reduced)
+    |            to the member's total spend.
+    |
+    |  Pre-condition:  Called in the transaction that made the change.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void recordSpend(Connection conn, int memberId, long deltaCents) throws SQLException {
+        apply(conn, memberId, 0, deltaCents);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method rebuild(conn)
+    |
+    |  Purpose:  Replaces the whole summary with totals recomputed from
+    |            Reservation and Customer_Order, in one transaction.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Returns: The number of summary rows written.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static int rebuild(Connection conn) throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            try (Statement st = c.createStatement()) {
+                st.executeUpdate("DELETE FROM Member_Activity_Summary");
+                return st.executeUpdate("INSERT INTO Member_Activity_Summary " +
+                        "(member_id, visit_count, total_spent) " + ACTUAL);
+            }
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method check(conn)
+    |
+    |  Purpose:  Compares every member's summary row with totals recomputed
+    |            from the base tables. A missing row counts as zero.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Returns: One line per member whose summary is wrong (empty if consistent).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<String> check(Connection conn) throws SQLException {
+        String sql = "SELECT a.member_id, a.visits, a.spent, " +
+                "NVL(s.visit_count,0) AS visit_count, NVL(s.total_spent,0) AS total_spent " +
+                "FROM (" + ACTUAL + ") a " +
+                "LEFT JOIN Member_Activity_Summary s ON s.member_id = a.member_id " +
+                "WHERE a.visits <> NVL(s.visit_count,0) OR a.spent <> NVL(s.total_spent,0) " +
+                "ORDER BY a.member_id";
+        List<String> problems = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                problems.add(String.format("Member %d: visits %d (summary %d), spent %s (summary %s)",
+                        rs.getInt("member_id"),
+                        rs.getInt("visits"), rs.getInt("visit_count"),
+                        Money.format(Money.fromDecimal(rs.getBigDecimal("spent"))),
+                        Money.format(Money.fromDecimal(rs.getBigDecimal("total_spent")))));
+            }
+        }
+        return problems;
+    }
+
+    /*
+     * Two sessions can both take the NOT MATCHED branch for a member's first row; the
+     * loser gets a unique key violation and simply retries, taking the MATCHED branch.
+     */
+    private static void apply(Connection conn, int memberId, int visits, long spentCents) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(MERGE)) {
+            ps.setInt(1, memberId);
+            ps.setInt(2, visits);
+            ps.setBigDecimal(3, Money.toDecimal(spentCents));
+            try {
+                ps.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                ps.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package petcafe;
+
+/*
+ * BatchRunner.java -- Non-interactive mode for PetCafeApp: runs a stream of front-desk
+ *                     commands from a file or standard input and reports how long each kind
+ *                     of command took.
+ *
+ * Started with  java petcafe.PetCafeApp [user pass] --batch [file|-] [--workers N]
+ *
+ * Each line is one command followed by key=value arguments; values containing spaces are
+ * written in double quotes. Blank lines and lines starting with # are skipped:
+ *
+ *   add-member name="Ann Lee" phone=555-0101 tier=2
+ *   book-room member=3 room=1 start="2025-12-01 10:00" duration=60
+ *   create-order member=3 reservation=40 items=2:1,5:3         (item:quantity, ...)
+ *   mark-order-paid order=51
+ *   update-menu-item item=5 [price=4.50] [available=Y|N]
+ *   register-event member=3 event=7
+ *   cancel-event-registration member=3 event=7 [delete=true]
+ *   find-rooms date=2025-12-01 duration=60 [party=2] [type=CAT] [adoption=Y]
+ *   report-visit-history member=3
+ *   report-upcoming-events
+ *   report-top-members [min=50.00] [top=10]
+ *
+ * The commands call the same repositories as the menus (see Repositories). Reading and
+ * parsing run on their own thread and feed a bounded queue, so parsing overlaps with the
+ * database work; worker threads each keep one pooled connection (borrowed long-lived, so
+ * the pool's leak detection leaves it alone), with a set of repositories over it, and take
+ * commands off the queue in batches. With
+ * one worker (the default, or -Dpetcafe.batch.workers) commands run in file order; with more,
+ * commands that depend on each other (booking a member added a few lines earlier) may run
+ * out of order. Keep the workers below petcafe.pool.max.
+ *
+ * A command that is refused for business reasons (room full, event waitlisted) counts as a
+ * success; one that fails (bad arguments, no such member, SQL error) is reported on stderr
+ * with its line number. With -Dpetcafe.batch.echo=true each command's result is printed.
+ *
+ * SessionServer accepts the same commands from terminals over a socket, through parseLine()
+ * and execute().
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchRunner {
+
+    public static final int DEFAULT_WORKERS = Integer.getInteger("petcafe.batch.workers", 1);
+
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int DRAIN_BATCH = 64;
+    private static final boolean ECHO = Boolean.getBoolean("petcafe.batch.echo");
+
+    private static final DateTimeFormatter DATETIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /*
+     * One parsed line.
+     */
+    static final class Command {
+        final int line;
+        final String name;
+        final Map<String, String> args;
+
+        Command(int line, String name, Map<String, String> args) {
+            this.line = line;
+            this.name = name;
+            this.args = args;
+        }
+
+        String string(String key) {
+            String v = args.get(key);
+            if (v == null || v.isEmpty()) throw new IllegalArgumentException("missing " + key + "=");
+            return v;
+        }
+
+        String optString(String key) {
+            String v = args.get(key);
+            return v == null || v.isEmpty() ? null : v;
+        }
+
+        int integer(String key) {
+            return parseInt(key, string(key));
+        }
+
+        Integer optInteger(String key) {
+            String v = optString(key);
+            return v == null ? null : parseInt(key, v);
+        }
+
+        Date date(String key) {
+            String v = optString(key);
+            if (v == null) return null;
+            try {
+                return Date.valueOf(LocalDate.parse(v));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(key + " must be yyyy-MM-dd: " + v);
+            }
+        }
+
+        Timestamp dateTime(String key) {
+            String v = string(key).replace('T', ' ');
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(v, DATETIME_FMT));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(key + " must be \"yyyy-MM-dd HH:mm\": " + v);
+            }
+        }
+
+        private static int parseInt(String key, String v) {
+            try {
+                return Integer.parseInt(v);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " must be a whole number: " + v);
+            }
+        }
+    }
+
+    /*
+     * Runs one command; returns a short description of the result.
+     */
+    interface Handler {
+        String run(Repositories repo, Command cmd) throws SQLException;
+    }
+
+    private static final Map<String, Handler> HANDLERS = new LinkedHashMap<>();
+
+    static {
+        HANDLERS.put("add-member", (repo, cmd) -> "member " + repo.members.insert(
+                cmd.string("name"), cmd.optString("phone"), cmd.optString("email"), cmd.date("dob"),
+                cmd.optString("emergency"), cmd.optInteger("tier")));
+
+        HANDLERS.put("book-room", (repo, cmd) -> {
+            Timestamp start = cmd.dateTime("start");
+            Date date = Date.valueOf(start.toLocalDateTime().toLocalDate());
+            ReservationRepository.Booking b = repo.reservations.book(cmd.integer("member"), cmd.integer("room"),
+                    date, start, cmd.integer("duration"), cmd.optInteger("tier"));
+            if (b.outcome == BookingEngine.Outcome.NO_SUCH_ROOM) throw new IllegalArgumentException("no such room");
+            return b.outcome == BookingEngine.Outcome.BOOKED ? "reservation " + b.reservationId : "refused: room full";
+        });
+
+        HANDLERS.put("create-order", (repo, cmd) -> {
+            OrderCart cart = new OrderCart(cmd.integer("member"), cmd.optInteger("reservation"));
+            String items = cmd.optString("items");
+            if (items != null) {
+                for (String item : items.split(",")) {
+                    String[] parts = item.trim().split(":");
+                    int itemId = Command.parseInt("items", parts[0].trim());
+                    int qty = parts.length > 1 ? Command.parseInt("items", parts[1].trim()) : 1;
+                    if (qty <= 0) throw new IllegalArgumentException("quantity must be positive: " + item);
+                    if (!repo.orders.addItem(cart, itemId, qty)) {
+                        throw new IllegalArgumentException("no such menu item or not available: " + itemId);
+                    }
+                }
+            }
+            int orderId = repo.orders.place(cart);
+            if (orderId < 0) throw new IllegalArgumentException("no such member");
+            return "order " + orderId + " total " + Money.format(cart.totalCents());
+        });
+
+        HANDLERS.put("mark-order-paid", (repo, cmd) -> {
+            if (!repo.orders.markPaid(cmd.integer("order"))) throw new IllegalArgumentException("no such order");
+            return "paid";
+        });
+
+        HANDLERS.put("update-menu-item", (repo, cmd) -> {
+            String price = cmd.optString("price");
+            String available = cmd.optString("available");
+            if (available != null && !available.matches("[YNyn]")) {
+                throw new IllegalArgumentException("available must be Y or N: " + available);
+            }
+            if (!repo.orders.updateMenuItem(cmd.integer("item"), price == null ? null : Money.parse(price),
+                    available == null ? null : available.equalsIgnoreCase("Y"))) {
+                throw new IllegalArgumentException("no such menu item");
+            }
+            return "updated";
+        });
+
+        HANDLERS.put("register-event", (repo, cmd) -> {
+            EventRegistrar.Outcome o = repo.events.register(cmd.integer("member"), cmd.integer("event"));
+            if (o == EventRegistrar.Outcome.NO_SUCH_EVENT) throw new IllegalArgumentException("no such event");
+            return o.name().toLowerCase();
+        });
+
+        HANDLERS.put("cancel-event-registration", (repo, cmd) -> {
+            List<Integer> promoted = repo.events.cancel(cmd.integer("member"), cmd.integer("event"),
+                    "true".equalsIgnoreCase(cmd.optString("delete")));
+            if (promoted == null) throw new IllegalArgumentException("no such registration");
+            return "cancelled, promoted " + promoted;
+        });
+
+        HANDLERS.put("find-rooms", (repo, cmd) -> {
+            Date date = cmd.date("date");
+            if (date == null) throw new IllegalArgumentException("missing date=");
+            String adoption = cmd.optString("adoption");
+            Integer party = cmd.optInteger("party");
+            List<RoomSchedule.Availability> slots = repo.reservations.availability(date,
+                    cmd.integer("duration"), party == null ? 1 : party, cmd.optString("type"),
+                    adoption == null ? null : "Y".equalsIgnoreCase(adoption), false);
+            return slots.size() + " slots";
+        });
+
+        HANDLERS.put("report-visit-history", (repo, cmd) ->
+                repo.reports.visitHistory(cmd.integer("member"), v -> { }) + " rows");
+
+        HANDLERS.put("report-upcoming-events", (repo, cmd) ->
+                repo.reports.upcomingEvents(e -> { }) + " rows");
+
+        HANDLERS.put("report-top-members", (repo, cmd) -> {
+            String min = cmd.optString("min");
+            long minCents;
+            try {
+                minCents = min == null ? 0 : Money.parse(min);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("min must be an amount: " + min);
+            }
+            return repo.reports.topMembers(minCents, cmd.optInteger("top"), m -> { }) + " rows";
+        });
+    }
+
+    // Put on the queue after the last command; each worker puts it back for the next one.
+    private static final Command END = new Command(-1, "", new HashMap<String, String>());
+
+    private BatchRunner() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method run(input, workers, out)
+    |
+    |  Purpose:  Runs every command in input and prints a summary with the
+    |            throughput and per-command latency percentiles.
+    |
+    |  Pre-condition:  DBUtil is configured; the caches PetCafeApp warms at
+    |                  start-up have been loaded.
+    |
+    |  Parameters:
+    |      input   -- The commands, one per line.
+    |      workers -- Number of threads executing commands.
+    |      out     -- Where results and the summary are printed.
+    |
+    |  Returns: The number of lines that failed (parse errors included).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static int run(Reader input, int workers, PrintStream out) throws InterruptedException {
+        BlockingQueue<Command> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Map<String, LatencyStats> stats = newStats();
+        AtomicInteger parseErrors = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        long t0 = System.nanoTime();
+        Thread parser = new Thread(() -> parse(input, queue, parseErrors), "batch-parser");
+        parser.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < Math.max(workers, 1); i++) {
+            Thread t = new Thread(() -> work(queue, stats, failures, out), "batch-worker-" + i);
+            t.start();
+            threads.add(t);
+        }
+        parser.join();
+        for (Thread t : threads) t.join();
+        long wallNanos = System.nanoTime() - t0;
+
+        int commands = 0;
+        for (LatencyStats s : stats.values()) commands += s.count();
+        double seconds = wallNanos / 1e9;
+        out.printf("%n%d commands in %.3f s (%.1f commands/s) on %d worker(s); %d failed, %d unparseable%n",
+                commands, seconds, commands / seconds, Math.max(workers, 1), failures.get(), parseErrors.get());
+        out.println(LatencyStats.header());
+        for (LatencyStats s : stats.values()) {
+            if (s.count() > 0) out.println(s);
+        }
+        return failures.get() + parseErrors.get();
+    }
+
+    /* A LatencyStats for every command, in the order the commands are listed above. */
+    static Map<String, LatencyStats> newStats() {
+        Map<String, LatencyStats> stats = new LinkedHashMap<>();
+        for (String name : HANDLERS.keySet()) stats.put(name, new LatencyStats(name));
+        return stats;
+    }
+
+    /* Runs a parsed command and returns the description of its result. */
+    static String execute(Repositories repo, Command cmd) throws SQLException {
+        return HANDLERS.get(cmd.name).run(repo, cmd);
+    }
+
+    /* Reads and parses every line onto the queue, then END. */
+    private static void parse(Reader input, BlockingQueue<Command> queue, AtomicInteger parseErrors) {
+        try (BufferedReader reader = new BufferedReader(input)) {
+            String text;
+            int line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                try {
+                    Command cmd = parseLine(line, text);
+                    if (cmd != null) queue.put(cmd);
+                } catch (IllegalArgumentException e) {
+                    parseErrors.incrementAndGet();
+                    System.err.println("line " + line + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read batch input: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            putEnd(queue);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method parseLine(line, text)
+    |
+    |  Purpose:  Splits one line into a command name and key=value arguments.
+    |
+    |  Returns: The command, or null for a blank or comment line.
+    |
+    |  Throws: IllegalArgumentException for an unknown command or a
+    |          malformed argument.
+    |
+    *-------------------------------------------------------------------*/
+
+    static Command parseLine(int line, String text) {
+        String s = text.trim();
+        if (s.isEmpty() || s.charAt(0) == '#') return null;
+
+        int i = 0, n = s.length();
+        while (i < n && !Character.isWhitespace(s.charAt(i))) i++;
+        String name = s.substring(0, i).toLowerCase();
+        if (!HANDLERS.containsKey(name)) throw new IllegalArgumentException("unknown command '" + name + "'");
+
+        Map<String, String> args = new HashMap<>();
+        while (true) {
+            while (i < n && Character.isWhitespace(s.charAt(i))) i++;
+            if (i == n) break;
+            int eq = s.indexOf('=', i);
+            if (eq < 0) throw new IllegalArgumentException("expected key=value at '" + s.substring(i) + "'");
+            String key = s.substring(i, eq).trim().toLowerCase();
+            i = eq + 1;
+            String value;
+            if (i < n && s.charAt(i) == '"') {
+                int close = s.indexOf('"', i + 1);
+                if (close < 0) throw new IllegalArgumentException("unterminated quote after " + key + "=");
+                value = s.substring(i + 1, close);
+                i = close + 1;
+            } else {
+                int start = i;
+                while (i < n && !Character.isWhitespace(s.charAt(i))) i++;
+                value = s.substring(start, i);
+            }
+            args.put(key, value);
+        }
+        return new Command(line, name, args);
+    }
+
+    /* Takes commands off the queue in batches and runs them on one long-lived pooled connection. */
+    private static void work(BlockingQueue<Command> queue, Map<String, LatencyStats> stats,
+                             AtomicInteger failures, PrintStream out) {
+        List<Command> batch = new ArrayList<>(DRAIN_BATCH);
+        try (Connection conn = DBUtil.getLongLivedConnection()) {
+            Repositories repo = new Repositories(ConnectionSource.borrowed(conn));
+            boolean done = false;
+            while (!done) {
+                batch.add(queue.take());
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Command cmd : batch) {
+                    if (cmd == END) {
+                        putEnd(queue);
+                        done = true;
+                        break;
+                    }
+                    execute(repo, cmd, stats.get(cmd.name), failures, out);
+                }
+                batch.clear();
+            }
+        } catch (SQLException e) {
+            System.err.println(Thread.currentThread().getName() + " could not get a connection: " + e.getMessage());
+            drainAfterFailure(queue, failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void execute(Repositories repo, Command cmd, LatencyStats stats, AtomicInteger failures,
+                                PrintStream out) {
+        long start = System.nanoTime();
+        String result = null;
+        String error = null;
+        try {
+            result = execute(repo, cmd);
+        } catch (SQLException | IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+        stats.record(System.nanoTime() - start, error == null);
+        if (error != null) {
+            failures.incrementAndGet();
+            System.err.println("line " + cmd.line + " (" + cmd.name + "): " + error);
+        } else if (ECHO) {
+            out.println("line " + cmd.line + " (" + cmd.name + "): " + result);
+        }
+    }
+
+    /* A worker without a connection still consumes its share so the parser is never blocked. */
+    private static void drainAfterFailure(BlockingQueue<Command> queue, AtomicInteger failures) {
+        try {
+            while (queue.take() != END) failures.incrementAndGet();
+            putEnd(queue);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void putEnd(BlockingQueue<Command> queue) {
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package petcafe;
+
+/*
+ * BookingEngine.java -- Books rooms without overbooking them.
+ *
+ * addReservation used to read the room's capacity, count the overlapping reservations and
+ * then insert, each in its own autocommit statement, so two terminals booking the same slot
+ * could both see a free place and both insert. A booking now runs as one transaction:
+ *
+ *   1. SELECT ... FROM Member WHERE member_id = ? FOR UPDATE  -- so the member cannot be
+ *      deleted (and the booking with them) while it is made; see MemberRepository.delete
+ *   2. SELECT ... FROM Room WHERE room_id = ? FOR UPDATE      -- bookings for the room queue here
+ *   3. INSERT INTO Reservation ... SELECT ... WHERE (overlapping count) < max_capacity
+ *   4. the Member_Activity_Summary update, then COMMIT
+ *
+ * The room row lock is held until the commit, so the count in step 3 always includes every
+ * booking committed before it, and bookings for different rooms never wait on each other.
+ * The member's current tier is filled in by the INSERT itself when none is given.
+ *
+ * Two reservations overlap when they are for the same room and reservation_date and their
+ * [start, start + duration) minutes of the day intersect. Only the time of day of start_time
+ * is used: its date part is not reliably the reservation date (times loaded from the sample
+ * CSVs carry the load month's first day). RoomSchedule uses exactly the same rule, so its
+ * answer and this query's never disagree about the same rows.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+public class BookingEngine {
+
+    public enum Outcome { BOOKED, NO_SUCH_ROOM, ROOM_FULL }
+
+    private static final String START_MINUTE =
+            "(EXTRACT(HOUR FROM start_time) * 60 + EXTRACT(MINUTE FROM start_time))";
+
+    // Reservations of the room that overlap the requested slot and still hold a place;
+    // bind with bindOverlapping().
+    static final String OVERLAPPING =
+            "SELECT COUNT(*) FROM Reservation " +
+                    "WHERE room_id = ? " +
+                    "AND reservation_date = ? " +
+                    "AND status IN ('BOOKED','IN_PROGRESS') " +
+                    "AND " + START_MINUTE + " < ? " +
+                    "AND " + START_MINUTE + " + duration_minutes > ?";
+
+    private static final String LOCK_ROOM =
+            "SELECT max_capacity FROM Room WHERE room_id = ? FOR UPDATE";
+
+    // Inserts the booking only if fewer than maxCap places overlap it; bind with bindInsert().
+    static final String INSERT_IF_FREE =
+            "INSERT INTO Reservation " +
+                    "(reservation_id, member_id, room_id, reservation_date, start_time," +
+                    " duration_minutes, status, tier_id) " +
+                    "SELECT ?, ?, ?, ?, ?, ?, 'BOOKED', " +
+                    "NVL(?, (SELECT tier_id FROM Member WHERE member_id = ?)) FROM dual " +
+                    "WHERE (" + OVERLAPPING + ") < ?";
+
+    private BookingEngine() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method bindOverlapping(ps, index, roomId, date, start, duration)
+    |
+    |  Purpose:  Binds the parameters of OVERLAPPING, the first of them at
+    |            position index.
+    |
+    |  Returns: The position of the next parameter.
+    |
+    *-------------------------------------------------------------------*/
+
+    static int bindOverlapping(PreparedStatement ps, int index, int roomId, Date date, Timestamp start,
+                               int duration) throws SQLException {
+        int from = RoomSchedule.minuteOfDay(start);
+        ps.setInt(index++, roomId);
+        ps.setDate(index++, date);
+        ps.setInt(index++, from + duration);
+        ps.setInt(index++, from);
+        return index;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method book(conn, resId, memberId, roomId, date, start, duration, tierId)
+    |
+    |  Purpose:  Inserts a BOOKED reservation if the room has a free place for
+    |            the whole slot, as one transaction.
+    |
+    |  Pre-condition:  conn is established correctly and in autocommit mode.
+    |
+    |  Post-condition: The reservation is committed, or nothing was changed.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |      resId    -- Id for the new reservation (from IdAllocator).
+    |      memberId -- Member making the booking.
+    |      roomId   -- Room to book.
+    |      date     -- Reservation date.
+    |      start    -- Start of the slot.
+    |      duration -- Length of the slot in minutes.
+    |      tierId   -- Tier at time of visit, or null for the member's current tier.
+    |
+    |  Returns: BOOKED, or why the booking was refused.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static Outcome book(Connection conn, int resId, int memberId, int roomId, Date date,
+                               Timestamp start, int duration, Integer tierId) throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            MemberRepository.lock(c, memberId);     // a missing member fails the INSERT's foreign key
+            int maxCap;
+            try (PreparedStatement ps = c.prepareStatement(LOCK_ROOM)) {
+                ps.setInt(1, roomId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return Outcome.NO_SUCH_ROOM;
+                    maxCap = rs.getInt(1);
+                }
+            }
+
+            try (PreparedStatement ps = c.prepareStatement(INSERT_IF_FREE)) {
+                bindInsert(ps, resId, memberId, roomId, date, start, duration, tierId, maxCap);
+                if (ps.executeUpdate() == 0) return Outcome.ROOM_FULL;
+            }
+
+            ActivitySummary.recordVisit(c, memberId, 1);
+            return Outcome.BOOKED;
+        });
+    }
+
+    /* Binds the parameters of INSERT_IF_FREE; book() explains them. */
+    static void bindInsert(PreparedStatement ps, int resId, int memberId, int roomId, Date date, Timestamp start,
+                           int duration, Integer tierId, int maxCap) throws SQLException {
+        ps.setInt(1, resId);
+        ps.setInt(2, memberId);
+        ps.setInt(3, roomId);
+        ps.setDate(4, date);
+        ps.setTimestamp(5, start);
+        ps.setInt(6, duration);
+        if (tierId == null) ps.setNull(7, Types.INTEGER);
+        else ps.setInt(7, tierId);
+        ps.setInt(8, memberId);
+        ps.setInt(bindOverlapping(ps, 9, roomId, date, start, duration), maxCap);
+    }
+}
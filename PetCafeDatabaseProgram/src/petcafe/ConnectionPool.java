@@ -0,0 +1,551 @@
+package petcafe;
+
+/*
+ * ConnectionPool.java -- A small bounded JDBC connection pool so that several front-desk
+ *                        terminals and report jobs can share warm database connections
+ *                        instead of paying a full Oracle handshake for every client.
+ *
+ * Connections handed out by borrow() are proxies; calling close() on them returns the
+ * physical connection to the pool rather than closing it. The pool keeps between
+ * minSize and maxSize physical connections, validates a connection before lending it,
+ * evicts connections that have sat idle longer than idleTimeoutMillis (never going
+ * below minSize), and logs a warning naming the borrowing thread for any connection held
+ * longer than leakThresholdMillis (0 turns leak detection off). When statementCacheSize is
+ * above zero, each physical connection also keeps a StatementCache of that size, and the
+ * proxy's prepareStatement(String) goes through it.
+ *
+ * A borrower that means to keep its connection (a batch worker) takes it with
+ * borrowLongLived(), which leak detection skips. The warning includes the stack trace of
+ * the borrow only when traceLeaks is on, since capturing it costs a stack walk per borrow.
+ *
+ * The pool knows nothing about Oracle; it only needs a ConnectionFactory, so it can be
+ * pointed at any JDBC URL (including an in-process database) through DBUtil.configure.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ConnectionPool implements AutoCloseable {
+
+    /*
+     * Opens a brand-new physical connection. DBUtil supplies one backed by DriverManager.
+     */
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /*
+     * Point-in-time copy of the pool counters, returned by stats().
+     */
+    public static final class Stats {
+        public final int total;             // physical connections currently open
+        public final int idle;              // connections waiting in the pool
+        public final int active;            // connections lent out
+        public final int waiting;           // threads blocked in borrow()
+        public final long borrows;          // successful borrow() calls
+        public final long created;          // physical connections ever opened
+        public final long destroyed;        // physical connections ever closed
+        public final long validationFailures;
+        public final long timeouts;         // borrow() calls that gave up
+        public final long leaksDetected;
+        public final long totalWaitNanos;   // time spent blocked in borrow()
+        public final long statementHits;    // prepareStatement calls served from a cache
+        public final long statementMisses;  // prepareStatement calls that parsed new SQL
+        public final long statementEvictions;
+
+        Stats(int total, int idle, int active, int waiting, long borrows, long created,
+              long destroyed, long validationFailures, long timeouts, long leaksDetected,
+              long totalWaitNanos, long statementHits, long statementMisses,
+              long statementEvictions) {
+            this.total = total;
+            this.idle = idle;
+            this.active = active;
+            this.waiting = waiting;
+            this.borrows = borrows;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.validationFailures = validationFailures;
+            this.timeouts = timeouts;
+            this.leaksDetected = leaksDetected;
+            this.totalWaitNanos = totalWaitNanos;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+            this.statementEvictions = statementEvictions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d idle=%d active=%d waiting=%d borrows=%d created=%d " +
+                            "destroyed=%d validationFailures=%d timeouts=%d leaks=%d avgWaitMs=%.3f " +
+                            "stmtHits=%d stmtMisses=%d stmtEvictions=%d",
+                    total, idle, active, waiting, borrows, created, destroyed,
+                    validationFailures, timeouts, leaksDetected,
+                    borrows == 0 ? 0.0 : totalWaitNanos / 1e6 / borrows,
+                    statementHits, statementMisses, statementEvictions);
+        }
+    }
+
+    /*
+     * Bookkeeping for one physical connection.
+     */
+    private static final class PooledEntry {
+        final Connection physical;
+        final StatementCache statements;    // null when statement caching is off
+        long lastReturnedAt;         // System.nanoTime() when put back in the pool
+        long borrowedAt;             // System.nanoTime() when lent out
+        String borrower;             // name of the borrowing thread, for leak reports
+        Throwable borrowSite;        // where it was borrowed, if traceLeaks is on
+        boolean longLived;           // lent by borrowLongLived(); never reported as a leak
+        boolean leakReported;
+
+        PooledEntry(Connection physical, int statementCacheSize) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize) : null;
+            this.lastReturnedAt = System.nanoTime();
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutNanos;
+    private final long leakThresholdNanos;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final boolean traceLeaks;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Map<PooledEntry, Boolean> lent = new IdentityHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private int total;        // idle + lent + connections being opened
+    private int waiting;
+    private boolean closed;
+
+    private long borrows, created, destroyed, validationFailures, timeouts, leaksDetected;
+    private long totalWaitNanos;
+    private long retiredHits, retiredMisses, retiredEvictions;    // from destroyed connections
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long leakThresholdMillis) {
+        this(factory, minSize, maxSize, idleTimeoutMillis, borrowTimeoutMillis, leakThresholdMillis, 0);
+    }
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long leakThresholdMillis, int statementCacheSize) {
+        this(factory, minSize, maxSize, idleTimeoutMillis, borrowTimeoutMillis, leakThresholdMillis,
+                statementCacheSize, false);
+    }
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long leakThresholdMillis, int statementCacheSize, boolean traceLeaks) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + " max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        this.validationTimeoutSeconds = 2;
+        this.statementCacheSize = statementCacheSize;
+        this.traceLeaks = traceLeaks;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "petcafe-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long shortest = leakThresholdMillis > 0 ? Math.min(idleTimeoutMillis, leakThresholdMillis) : idleTimeoutMillis;
+        long period = Math.max(1000L, shortest / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method prefill()
+    |
+    |  Purpose:  Opens connections until the pool holds minSize of them, so the
+    |            first clients do not pay the connection handshake.
+    |
+    |  Pre-condition:  The pool is not closed.
+    |
+    |  Post-condition: At least minSize physical connections exist, or an
+    |                  SQLException is thrown.
+    |
+    *-------------------------------------------------------------------*/
+
+    public void prefill() throws SQLException {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= minSize) return;
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            PooledEntry entry = openEntry();
+            lock.lock();
+            try {
+                idle.addLast(entry);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method borrow()
+    |
+    |  Purpose:  Lends out a validated connection, opening a new one if the pool
+    |            is below maxSize, or waiting up to the borrow timeout for one to
+    |            be returned otherwise.
+    |
+    |  Pre-condition:  The pool is not closed.
+    |
+    |  Post-condition: The caller owns the returned connection until it calls
+    |                  close() on it.
+    |
+    |  Returns: A connection proxy whose close() hands it back to the pool.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Connection borrow() throws SQLException {
+        return borrow(false);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method borrowLongLived()
+    |
+    |  Purpose:  Lends out a connection the way borrow() does, for a borrower
+    |            that keeps it for its whole lifetime (a batch worker). Leak
+    |            detection ignores it.
+    |
+    |  Returns: A connection proxy whose close() hands it back to the pool.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Connection borrowLongLived() throws SQLException {
+        return borrow(true);
+    }
+
+    private Connection borrow(boolean longLived) throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + borrowTimeoutNanos;
+
+        while (true) {
+            PooledEntry entry = null;
+            boolean mustOpen = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) throw new SQLException("Connection pool is closed.");
+                    entry = idle.pollLast();        // most recently used is most likely warm
+                    if (entry != null) break;
+                    if (total < maxSize) {
+                        total++;
+                        mustOpen = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts++;
+                        throw new SQLTimeoutException("Timed out after "
+                                + TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos)
+                                + " ms waiting for a database connection (" + statsLocked() + ")");
+                    }
+                    waiting++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection.", e);
+                    } finally {
+                        waiting--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustOpen) {
+                entry = openEntry();
+            } else if (!isValid(entry)) {
+                lock.lock();
+                try {
+                    validationFailures++;
+                } finally {
+                    lock.unlock();
+                }
+                destroy(entry);
+                continue;
+            }
+
+            lock.lock();
+            try {
+                entry.borrowedAt = System.nanoTime();
+                entry.borrower = Thread.currentThread().getName();
+                entry.borrowSite = traceLeaks && !longLived ? new Throwable("Connection borrowed here") : null;
+                entry.longLived = longLived;
+                entry.leakReported = false;
+                lent.put(entry, Boolean.TRUE);
+                borrows++;
+                totalWaitNanos += entry.borrowedAt - start;
+            } finally {
+                lock.unlock();
+            }
+            return wrap(entry);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method stats()
+    |
+    |  Purpose:  Returns a snapshot of the pool metrics.
+    |
+    |  Returns: A Stats object.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return statsLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method close()
+    |
+    |  Purpose:  Closes every idle connection and stops lending. Connections that
+    |            are still lent out are closed when their borrowers return them.
+    |
+    *-------------------------------------------------------------------*/
+
+    @Override
+    public void close() {
+        List<PooledEntry> toClose;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledEntry e : toClose) destroy(e);
+    }
+
+    private Stats statsLocked() {
+        long hits = retiredHits, misses = retiredMisses, evictions = retiredEvictions;
+        List<PooledEntry> live = new ArrayList<>(idle);
+        live.addAll(lent.keySet());
+        for (PooledEntry e : live) {
+            if (e.statements == null) continue;
+            hits += e.statements.hits();
+            misses += e.statements.misses();
+            evictions += e.statements.evictions();
+        }
+        return new Stats(total, idle.size(), lent.size(), waiting, borrows, created, destroyed,
+                validationFailures, timeouts, leaksDetected, totalWaitNanos, hits, misses, evictions);
+    }
+
+    /*
+     * Opens a physical connection for a slot that the caller already counted in total.
+     * On failure the slot is released again.
+     */
+    private PooledEntry openEntry() throws SQLException {
+        try {
+            Connection c = factory.open();
+            lock.lock();
+            try {
+                created++;
+            } finally {
+                lock.unlock();
+            }
+            return new PooledEntry(c, statementCacheSize);
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return !entry.physical.isClosed() && entry.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Called when a borrower closes its proxy. The connection is reset to autocommit
+     * (rolling back anything left uncommitted) before it is reused, so one borrower's
+     * half-finished transaction can never leak into the next.
+     */
+    private void release(PooledEntry entry) {
+        boolean reusable;
+        if (entry.statements != null) entry.statements.reclaim();
+        try {
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            reusable = !entry.physical.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            lent.remove(entry);
+            if (reusable && !closed) {
+                entry.lastReturnedAt = System.nanoTime();
+                entry.borrowSite = null;
+                idle.addLast(entry);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(entry);
+    }
+
+    private void destroy(PooledEntry entry) {
+        if (entry.statements != null) entry.statements.close();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // Nothing useful to do; the connection is being thrown away.
+        }
+        lock.lock();
+        try {
+            total--;
+            destroyed++;
+            if (entry.statements != null) {
+                retiredHits += entry.statements.hits();
+                retiredMisses += entry.statements.misses();
+                retiredEvictions += entry.statements.evictions();
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Periodic task: evicts idle connections past the idle timeout (keeping minSize)
+     * and reports connections that have been lent out longer than the leak threshold.
+     */
+    private void housekeep() {
+        List<PooledEntry> evicted = new ArrayList<>();
+        List<String> leaks = new ArrayList<>();
+        List<Throwable> leakSites = new ArrayList<>();     // parallel to leaks; null if not traced
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            while (total - evicted.size() > minSize && !idle.isEmpty()
+                    && now - idle.peekFirst().lastReturnedAt > idleTimeoutNanos) {
+                evicted.add(idle.pollFirst());
+            }
+            for (PooledEntry e : lent.keySet()) {
+                if (leakThresholdNanos > 0 && !e.longLived && !e.leakReported
+                        && now - e.borrowedAt > leakThresholdNanos) {
+                    e.leakReported = true;
+                    leaksDetected++;
+                    leaks.add("WARNING: possible connection leak; connection held by " + e.borrower + " for "
+                            + TimeUnit.NANOSECONDS.toMillis(now - e.borrowedAt) + " ms.");
+                    leakSites.add(e.borrowSite);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledEntry e : evicted) destroy(e);
+        // Printed after the lock is released, so a slow stderr never stalls borrowers.
+        for (int i = 0; i < leaks.size(); i++) {
+            System.err.println(leaks.get(i));
+            if (leakSites.get(i) != null) leakSites.get(i).printStackTrace();
+        }
+    }
+
+    private Connection wrap(PooledEntry entry) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("close")) {
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                }
+                if (name.equals("isClosed")) {
+                    return returned || entry.physical.isClosed();
+                }
+                if (name.equals("equals")) {
+                    return proxy == args[0];
+                }
+                if (name.equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                if (name.equals("toString")) {
+                    return "Pooled[" + entry.physical + "]";
+                }
+                if (returned) {
+                    throw new SQLException("Connection has already been returned to the pool.");
+                }
+                if (entry.statements != null && name.equals("prepareStatement")
+                        && args.length == 1) {
+                    return entry.statements.prepare((String) args[0]);
+                }
+                try {
+                    return method.invoke(entry.physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, handler);
+    }
+}
@@ -0,0 +1,69 @@
+package petcafe;
+
+/*
+ * ConnectionSource.java -- Where the repositories get their connections from.
+ *
+ * Every repository method takes a connection from its source, does its work and closes the
+ * connection again, so a repository holds no connection between calls and one instance can
+ * be shared by any number of threads when its source is the pool. Two sources are provided:
+ *
+ *   pooled()        borrows from DBUtil's pool on every call (closing returns it)
+ *   borrowed(conn)  always hands out the one connection a caller already holds, e.g. a
+ *                   batch worker; closing it does nothing
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public interface ConnectionSource {
+
+    /*---------------------------------------------------------------------
+    |  Method get()
+    |
+    |  Returns: A connection the caller must close when done with it.
+    |
+    *-------------------------------------------------------------------*/
+
+    Connection get() throws SQLException;
+
+    static ConnectionSource pooled() {
+        return DBUtil::getConnection;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method borrowed(conn)
+    |
+    |  Purpose:  Wraps a connection owned by the caller. The connection handed
+    |            out ignores close(); everything else goes to conn, so its
+    |            transaction state and statement cache are shared.
+    |
+    |  Parameters:
+    |      conn -- The connection to use; the caller still closes it.
+    |
+    *-------------------------------------------------------------------*/
+
+    static ConnectionSource borrowed(Connection conn) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        };
+        Connection view = (Connection) Proxy.newProxyInstance(ConnectionSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, handler);
+        return () -> view;
+    }
+}
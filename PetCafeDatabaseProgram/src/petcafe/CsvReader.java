@@ -0,0 +1,456 @@
+package petcafe;
+
+/*
+ * CsvReader.java -- A streaming RFC-4180 CSV reader used by insertSampleData.
+ *
+ * The reader pulls characters through a fixed char buffer and copies each record's fields,
+ * already unescaped, into one reusable field buffer. A record is exposed as slices of that
+ * buffer, so reading a row allocates nothing unless a caller asks for a String. Quoted fields
+ * may contain commas, doubled quotes ("") and line breaks; records may end in LF or CRLF; a
+ * leading byte-order mark is skipped.
+ *
+ * Besides getString(), the typed decoders parse straight from the slice:
+ *     getLong / getDecimal  -- numeric columns
+ *     getDate               -- the MM-DD-YYYY dates used by SampleDataCSVs
+ *     getTime               -- the "h:mm AM" times used by SampleDataCSVs, optionally
+ *                              preceded by an MM-DD-YYYY date ("12-02-2025 9:15 AM"), or
+ *                              a date alone for midnight (databases such as H2 in Oracle
+ *                              mode report DATE columns as TIMESTAMP)
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+public class CsvReader implements AutoCloseable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int NO_PUSHBACK = -2;
+
+    private final Reader in;
+    private final char[] buf;
+    private int pos;
+    private int limit;
+    private int pushback = NO_PUSHBACK;
+    private boolean atStart = true;
+
+    // Current record: field i is fieldChars[fieldStart[i] .. fieldEnd[i])
+    private char[] fieldChars = new char[1024];
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+    private int fieldCount;
+    private int used;
+    private long recordNumber;
+
+    // Date part given to time-only values; matches Oracle's TO_TIMESTAMP('..','HH:MI AM'),
+    // which fills in the first day of the current month.
+    private final LocalDate timeBaseDate = LocalDate.now().withDayOfMonth(1);
+
+    public CsvReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvReader(Reader in, int bufferSize) {
+        this.in = in;
+        this.buf = new char[bufferSize];
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method next()
+    |
+    |  Purpose:  Advances to the next record, skipping blank lines.
+    |
+    |  Pre-condition:  The reader has not been closed.
+    |
+    |  Post-condition: The field accessors describe the new record.
+    |
+    |  Returns: true if a record was read, false at end of input.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean next() throws IOException {
+        while (true) {
+            int c = read();
+            if (atStart) {
+                atStart = false;
+                if (c == '\uFEFF') c = read();     // byte-order mark
+            }
+            if (c == -1) {
+                fieldCount = 0;
+                return false;
+            }
+            if (c == '\n') continue;                 // blank line
+            if (c == '\r') {
+                int d = read();
+                if (d != '\n') unread(d);
+                continue;
+            }
+            unread(c);
+            readRecord();
+            recordNumber++;
+            return true;
+        }
+    }
+
+    /*
+     * Reads one record; the first character is known not to be a line break or EOF.
+     */
+    private void readRecord() throws IOException {
+        fieldCount = 0;
+        used = 0;
+
+        while (true) {
+            startField();
+            int c = read();
+
+            if (c == '"') {
+                fieldQuoted[fieldCount] = true;
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field in record " + (recordNumber + 1));
+                    }
+                    if (c == '"') {
+                        int d = read();
+                        if (d == '"') {
+                            append('"');            // escaped quote
+                            continue;
+                        }
+                        c = d;
+                        break;
+                    }
+                    append((char) c);
+                }
+                // Anything between the closing quote and the delimiter is kept, as most readers do.
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    append((char) c);
+                    c = read();
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    append((char) c);
+                    c = read();
+                }
+            }
+
+            endField();
+            if (c == ',') continue;
+
+            if (c == '\r') {
+                int d = read();
+                if (d != '\n') unread(d);
+            }
+            return;
+        }
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStart.length) {
+            int n = fieldCount * 2;
+            fieldStart = Arrays.copyOf(fieldStart, n);
+            fieldEnd = Arrays.copyOf(fieldEnd, n);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, n);
+        }
+        fieldStart[fieldCount] = used;
+        fieldQuoted[fieldCount] = false;
+    }
+
+    private void endField() {
+        fieldEnd[fieldCount] = used;
+        fieldCount++;
+    }
+
+    private void append(char c) {
+        if (used == fieldChars.length) {
+            fieldChars = Arrays.copyOf(fieldChars, used * 2);
+        }
+        fieldChars[used++] = c;
+    }
+
+    private int read() throws IOException {
+        if (pushback != NO_PUSHBACK) {
+            int c = pushback;
+            pushback = NO_PUSHBACK;
+            return c;
+        }
+        if (pos == limit) {
+            limit = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method fieldCount()
+    |
+    |  Returns: The number of fields in the current record.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method recordNumber()
+    |
+    |  Returns: The 1-based number of the current record (the header is record 1).
+    |
+    *-------------------------------------------------------------------*/
+
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method isNull(i)
+    |
+    |  Purpose:  Checks whether field i is missing or an empty, unquoted field.
+    |
+    |  Parameters:
+    |      i -- 0-based field index
+    |
+    |  Returns: true if the field should be stored as NULL.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean isNull(int i) {
+        return i >= fieldCount || (fieldEnd[i] == fieldStart[i] && !fieldQuoted[i]);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method length(i)
+    |
+    |  Returns: The number of characters in field i (0 if it is missing).
+    |
+    *-------------------------------------------------------------------*/
+
+    public int length(int i) {
+        return i >= fieldCount ? 0 : fieldEnd[i] - fieldStart[i];
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method charAt(i, k)
+    |
+    |  Returns: Character k of field i.
+    |
+    *-------------------------------------------------------------------*/
+
+    public char charAt(int i, int k) {
+        return fieldChars[fieldStart[i] + k];
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getString(i)
+    |
+    |  Returns: Field i as a String, or null if isNull(i).
+    |
+    *-------------------------------------------------------------------*/
+
+    public String getString(int i) {
+        if (isNull(i)) return null;
+        return new String(fieldChars, fieldStart[i], fieldEnd[i] - fieldStart[i]);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method isNumeric(i)
+    |
+    |  Purpose:  Checks whether field i is a plain decimal number such as
+    |            12, -3 or 2.50 (no exponent, no spaces).
+    |
+    |  Returns: true if getDecimal(i) will succeed.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean isNumeric(int i) {
+        if (isNull(i)) return false;
+        int k = fieldStart[i], end = fieldEnd[i];
+        if (fieldChars[k] == '-' || fieldChars[k] == '+') k++;
+        boolean digits = false, dot = false;
+        for (; k < end; k++) {
+            char c = fieldChars[k];
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method isWholeNumber(i)
+    |
+    |  Purpose:  Checks whether field i is an optionally signed run of at most
+    |            18 digits, i.e. whether getLong(i) will succeed.
+    |
+    |  Returns: true if the field is a whole number.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean isWholeNumber(int i) {
+        if (isNull(i)) return false;
+        int k = fieldStart[i], end = fieldEnd[i];
+        if (fieldChars[k] == '-' || fieldChars[k] == '+') k++;
+        if (k == end || end - k > 18) return false;
+        for (; k < end; k++) {
+            if (fieldChars[k] < '0' || fieldChars[k] > '9') return false;
+        }
+        return true;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getLong(i)
+    |
+    |  Returns: Field i parsed as a whole number.
+    |
+    *-------------------------------------------------------------------*/
+
+    public long getLong(int i) {
+        int k = fieldStart[i], end = fieldEnd[i];
+        if (k == end) throw badField(i, "a number");
+        boolean negative = fieldChars[k] == '-';
+        if (negative || fieldChars[k] == '+') k++;
+        if (k == end) throw badField(i, "a number");
+        long v = 0;
+        for (; k < end; k++) {
+            int d = fieldChars[k] - '0';
+            if (d < 0 || d > 9) throw badField(i, "a whole number");
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getDecimal(i)
+    |
+    |  Returns: Field i parsed as an exact decimal number.
+    |
+    *-------------------------------------------------------------------*/
+
+    public BigDecimal getDecimal(int i) {
+        try {
+            return new BigDecimal(fieldChars, fieldStart[i], fieldEnd[i] - fieldStart[i]);
+        } catch (NumberFormatException e) {
+            throw badField(i, "a number");
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getDate(i)
+    |
+    |  Returns: Field i, written as MM-DD-YYYY (one-digit month/day allowed),
+    |           as a SQL date.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Date getDate(int i) {
+        return Date.valueOf(parseDate(i, fieldStart[i], fieldEnd[i]));
+    }
+
+    /* Parses fieldChars[k .. end) of field i as MM-DD-YYYY. */
+    private LocalDate parseDate(int i, int k, int end) {
+        int month = 0, day = 0, year = 0;
+        int part = 0, digits = 0;
+        for (; k < end; k++) {
+            char c = fieldChars[k];
+            if (c >= '0' && c <= '9') {
+                if (part == 0) month = month * 10 + (c - '0');
+                else if (part == 1) day = day * 10 + (c - '0');
+                else year = year * 10 + (c - '0');
+                digits++;
+            } else if ((c == '-' || c == '/') && digits > 0 && part < 2) {
+                part++;
+                digits = 0;
+            } else {
+                throw badField(i, "a MM-DD-YYYY date");
+            }
+        }
+        if (part != 2 || digits == 0) throw badField(i, "a MM-DD-YYYY date");
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (java.time.DateTimeException e) {
+            throw badField(i, "a MM-DD-YYYY date");
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getTime(i)
+    |
+    |  Returns: Field i, written as h:mm AM / hh:mm PM, as a timestamp on the
+    |           first day of the current month (the same value Oracle's
+    |           TO_TIMESTAMP(value, 'HH:MI AM') produces); or, written as
+    |           MM-DD-YYYY h:mm AM, as a timestamp on that date; or, written
+    |           as MM-DD-YYYY, as midnight on that date.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Timestamp getTime(int i) {
+        int k = fieldStart[i], end = fieldEnd[i];
+        int hour = 0, minute = 0, hourDigits = 0, minuteDigits = 0;
+
+        LocalDate date = timeBaseDate;
+        int space = k;
+        while (space < end && fieldChars[space] != ' ') space++;
+        for (int d = k; d < space; d++) {
+            if (fieldChars[d] == '-' || fieldChars[d] == '/') {
+                date = parseDate(i, k, space);
+                k = space;
+                while (k < end && fieldChars[k] == ' ') k++;
+                if (k == end) return Timestamp.valueOf(date.atStartOfDay());
+                break;
+            }
+        }
+
+        while (k < end && fieldChars[k] >= '0' && fieldChars[k] <= '9') {
+            hour = hour * 10 + (fieldChars[k++] - '0');
+            hourDigits++;
+        }
+        if (hourDigits == 0 || k == end || fieldChars[k++] != ':') throw badField(i, "an h:mm AM time");
+        while (k < end && fieldChars[k] >= '0' && fieldChars[k] <= '9') {
+            minute = minute * 10 + (fieldChars[k++] - '0');
+            minuteDigits++;
+        }
+        while (k < end && fieldChars[k] == ' ') k++;
+        if (minuteDigits != 2 || minute > 59 || hour < 1 || hour > 12 || end - k != 2
+                || (fieldChars[k + 1] != 'M' && fieldChars[k + 1] != 'm')) {
+            throw badField(i, "an h:mm AM time");
+        }
+        char meridiem = fieldChars[k];
+        if (meridiem == 'A' || meridiem == 'a') {
+            if (hour == 12) hour = 0;
+        } else if (meridiem == 'P' || meridiem == 'p') {
+            if (hour != 12) hour += 12;
+        } else {
+            throw badField(i, "an h:mm AM time");
+        }
+        return Timestamp.valueOf(LocalDateTime.of(date.getYear(), date.getMonth(), date.getDayOfMonth(),
+                hour, minute));
+    }
+
+    private IllegalArgumentException badField(int i, String expected) {
+        return new IllegalArgumentException(String.format("Record %d, field %d: '%s' is not %s",
+                recordNumber, i + 1, getString(i), expected));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -2,14 +2,42 @@ package petcafe;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.function.Consumer;
 
 public class DBUtil {
 
-    private static final String URL = "jdbc:oracle:thin:@aloe.cs.arizona.edu:1521:oracle";
+    private static String url = "jdbc:oracle:thin:@aloe.cs.arizona.edu:1521:oracle";
 
-    private static final String USER = "makhkamov";
-    private static final String PASS = "";
+    private static String user = "makhkamov";
+    private static String pass = "";
+
+    // Pool sizing; each can be overridden with -Dpetcafe.pool.<name>=<value>
+    private static final int POOL_MIN = Integer.getInteger("petcafe.pool.min", 1);
+    private static final int POOL_MAX = Integer.getInteger("petcafe.pool.max", 8);
+    private static final long POOL_IDLE_MS = Long.getLong("petcafe.pool.idleMillis", 300_000L);
+    private static final long POOL_BORROW_MS = Long.getLong("petcafe.pool.borrowMillis", 30_000L);
+    private static final long POOL_LEAK_MS = Long.getLong("petcafe.pool.leakMillis", 600_000L);     // 0 = off
+    private static final boolean POOL_LEAK_TRACE = Boolean.getBoolean("petcafe.pool.leakTrace");   // borrow stacks
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("petcafe.statementCache.size", 64);
+
+    private static ConnectionPool pool;
+
+    /*
+     * Work done inside inTransaction.
+     */
+    public interface TransactionBody<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /*
+     * Turns the current row of a result set into a value.
+     */
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
 
     static {
         try {
@@ -20,7 +48,171 @@ public class DBUtil {
         }
     }
 
+    /*---------------------------------------------------------------------
+    |  Method configure(newUrl, newUser, newPass)
+    |
+    |  Purpose:  Points DBUtil at a different database, e.g. the credentials
+    |            given on the command line or an in-process database used for
+    |            testing. Any existing pool is closed.
+    |
+    |  Parameters:
+    |      newUrl   -- JDBC URL (null keeps the current one)
+    |      newUser  -- database username
+    |      newPass  -- database password
+    |
+    *-------------------------------------------------------------------*/
+
+    public static synchronized void configure(String newUrl, String newUser, String newPass) {
+        if (newUrl != null) url = newUrl;
+        user = newUser;
+        pass = newPass;
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getConnection()
+    |
+    |  Purpose:  Borrows a connection from the shared pool. Closing the returned
+    |            connection hands it back to the pool instead of disconnecting, and
+    |            its prepareStatement(String) reuses statements cached on the
+    |            physical connection.
+    |
+    |  Returns: A pooled connection.
+    |
+    *-------------------------------------------------------------------*/
+
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return getPool().borrow();
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getLongLivedConnection()
+    |
+    |  Purpose:  Borrows a connection from the shared pool for a borrower that
+    |            keeps it for its whole lifetime (a batch worker), so the pool's
+    |            leak detection does not report it.
+    |
+    |  Returns: A pooled connection.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static Connection getLongLivedConnection() throws SQLException {
+        return getPool().borrowLongLived();
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method openConnection()
+    |
+    |  Purpose:  Opens a dedicated, unpooled connection.
+    |
+    |  Returns: A new physical connection owned by the caller.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, user, pass);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method inTransaction(conn, body)
+    |
+    |  Purpose:  Runs body as one transaction: commits if it returns, rolls back
+    |            if it throws. If conn is already inside a transaction (autocommit
+    |            off), body simply joins it and the caller decides the outcome.
+    |
+    |  Parameters:
+    |      conn -- Connection to run on; autocommit is restored afterwards.
+    |      body -- The work to do.
+    |
+    |  Returns: Whatever body returns.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static <T> T inTransaction(Connection conn, TransactionBody<T> body) throws SQLException {
+        if (!conn.getAutoCommit()) return body.run(conn);
+        conn.setAutoCommit(false);
+        try {
+            T result = body.run(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method query(conn, sql, mapper, sink, params)
+    |
+    |  Purpose:  Runs a query and hands each row, mapped to a value, to sink
+    |            as it is read, so a large result is never held in memory.
+    |
+    |  Parameters:
+    |      conn   -- Connection to run on.
+    |      sql    -- The query, with one ? per element of params.
+    |      mapper -- Reads one row.
+    |      sink   -- Receives each value.
+    |      params -- Bound with setObject, in order.
+    |
+    |  Returns: The number of rows.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static <T> int query(Connection conn, String sql, RowMapper<T> mapper, Consumer<? super T> sink,
+                                Object... params) throws SQLException {
+        int rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) ps.setObject(i + 1, params[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(mapper.map(rs));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method getPool()
+    |
+    |  Purpose:  Returns the shared connection pool, creating it on first use.
+    |
+    |  Returns: The pool, whose stats() expose the pool metrics.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            ConnectionPool created = new ConnectionPool(DBUtil::openConnection, POOL_MIN, POOL_MAX,
+                    POOL_IDLE_MS, POOL_BORROW_MS, POOL_LEAK_MS, STATEMENT_CACHE_SIZE, POOL_LEAK_TRACE);
+            try {
+                created.prefill();
+            } catch (SQLException e) {
+                created.close();
+                throw e;
+            }
+            pool = created;
+        }
+        return pool;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method shutdown()
+    |
+    |  Purpose:  Closes the shared pool and all of its idle connections.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
     }
 }
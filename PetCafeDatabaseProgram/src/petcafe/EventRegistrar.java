@@ -0,0 +1,370 @@
+package petcafe;
+
+/*
+ * EventRegistrar.java -- Registers members for events without overselling them, and keeps a
+ *                        first-come, first-served waitlist for full events.
+ *
+ * Every change to an event's registrations runs as one transaction that starts by locking
+ * the Event row (SELECT ... FOR UPDATE), so concurrent signups for the same event take turns
+ * and each sees the seats committed before it. A signup locks the member row before that
+ * (see MemberRepository.delete), so a member being deleted cannot gain a registration that
+ * the delete's lockEventsOf did not see. Seats are the registrations that are not
+ * CANCELLED or WAITLISTED; cancelled rows no longer count against max_attendees.
+ *
+ * The number of seats taken is kept in Event.registered_count, updated in the same
+ * transaction as the registration it counts, so a capacity check reads the one locked row
+ * instead of counting Event_Registration. rebuildCounts() recomputes every event's count
+ * (used after bulk loading) and checkCounts() reports events whose count is wrong.
+ *
+ * A signup for a full event is stored as WAITLISTED with the time it joined the queue. When
+ * a seat is freed (a cancellation, or a deleted booking) the longest-waiting members are
+ * promoted to REGISTERED in the same transaction, as many as there are free seats.
+ * Every path that changes an event's registrations goes through this class so that the
+ * event lock is always taken first (after the member lock, where there is one).
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventRegistrar {
+
+    public enum Outcome { REGISTERED, WAITLISTED, ALREADY_REGISTERED, NO_SUCH_EVENT }
+
+    // Registrations that hold a seat.
+    static final String HOLDS_SEAT = "attendance_status NOT IN ('CANCELLED','WAITLISTED')";
+
+    private static final String LOCK_EVENT =
+            "SELECT max_attendees, registered_count FROM Event WHERE event_id = ? FOR UPDATE";
+
+    private static final String ADD_SEATS =
+            "UPDATE Event SET registered_count = registered_count + ? WHERE event_id = ?";
+
+    private static final String RECOUNT =
+            "UPDATE Event e SET registered_count = " +
+                    "(SELECT COUNT(*) FROM Event_Registration er " +
+                    "WHERE er.event_id = e.event_id AND er." + HOLDS_SEAT + ")";
+
+    // Seats actually taken, per event.
+    private static final String ACTUAL =
+            "SELECT e.event_id, e.registered_count, " +
+                    "(SELECT COUNT(*) FROM Event_Registration er " +
+                    "WHERE er.event_id = e.event_id AND er." + HOLDS_SEAT + ") AS seats " +
+                    "FROM Event e";
+
+    private EventRegistrar() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method register(conn, memberId, eventId)
+    |
+    |  Purpose:  Registers the member if the event has a free seat, and puts
+    |            them on the waitlist otherwise. A member whose earlier
+    |            registration was cancelled signs up again in the same row.
+    |
+    |  Pre-condition:  conn is established correctly and in autocommit mode.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |      memberId -- Member signing up.
+    |      eventId  -- Event to sign up for.
+    |
+    |  Returns: What happened.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static Outcome register(Connection conn, int memberId, int eventId) throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            MemberRepository.lock(c, memberId);     // a missing member fails the INSERT's foreign key
+            int[] seats = lockEvent(c, eventId);
+            if (seats == null) return Outcome.NO_SUCH_EVENT;
+
+            String existing = statusOf(c, memberId, eventId);
+            if (existing != null && !existing.equals("CANCELLED")) return Outcome.ALREADY_REGISTERED;
+
+            boolean seat = seats[1] < seats[0];
+            String status = seat ? "REGISTERED" : "WAITLISTED";
+            String sql = existing == null
+                    ? "INSERT INTO Event_Registration " +
+                      "(attendance_status, waitlisted_at, member_id, event_id, registration_date, payment_status) " +
+                      "VALUES (?, CASE WHEN ? = 'WAITLISTED' THEN SYSTIMESTAMP END, ?, ?, TRUNC(SYSDATE), 'UNPAID')"
+                    : "UPDATE Event_Registration SET attendance_status = ?, " +
+                      "waitlisted_at = CASE WHEN ? = 'WAITLISTED' THEN SYSTIMESTAMP END, " +
+                      "registration_date = TRUNC(SYSDATE) " +
+                      "WHERE member_id = ? AND event_id = ?";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, status);
+                ps.setString(2, status);
+                ps.setInt(3, memberId);
+                ps.setInt(4, eventId);
+                ps.executeUpdate();
+            }
+            if (seat) addSeats(c, eventId, 1);
+            return seat ? Outcome.REGISTERED : Outcome.WAITLISTED;
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method cancel(conn, memberId, eventId, delete)
+    |
+    |  Purpose:  Cancels a registration (or deletes it outright) and fills any
+    |            seat that frees up from the waitlist.
+    |
+    |  Pre-condition:  conn is established correctly and in autocommit mode.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |      memberId -- Member whose registration is cancelled.
+    |      eventId  -- The event.
+    |      delete   -- true to delete the row, false to mark it CANCELLED.
+    |
+    |  Returns: The members promoted from the waitlist, or null if there was
+    |           no such registration.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Integer> cancel(Connection conn, int memberId, int eventId, boolean delete)
+            throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            int[] seats = lockEvent(c, eventId);
+            if (seats == null) return null;
+            String old = statusOf(c, memberId, eventId);
+            if (old == null) return null;
+
+            String sql = delete
+                    ? "DELETE FROM Event_Registration WHERE member_id = ? AND event_id = ?"
+                    : "UPDATE Event_Registration SET attendance_status = 'CANCELLED', waitlisted_at = NULL " +
+                      "WHERE member_id = ? AND event_id = ?";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, memberId);
+                ps.setInt(2, eventId);
+                ps.executeUpdate();
+            }
+            if (holdsSeat(old)) {
+                addSeats(c, eventId, -1);
+                seats[1]--;
+            }
+            return promote(c, eventId, seats);
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method setAttendance(conn, memberId, eventId, status)
+    |
+    |  Purpose:  Changes a registration's attendance status by hand, and fills
+    |            the seat from the waitlist if the change gave one up.
+    |
+    |  Pre-condition:  conn is established correctly and in autocommit mode.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |      memberId -- Member whose registration changes.
+    |      eventId  -- The event.
+    |      status   -- New attendance status.
+    |
+    |  Returns: The members promoted from the waitlist, or null if there was
+    |           no such registration.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Integer> setAttendance(Connection conn, int memberId, int eventId, String status)
+            throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            int[] seats = lockEvent(c, eventId);
+            if (seats == null) return null;
+            String old = statusOf(c, memberId, eventId);
+            if (old == null) return null;
+
+            String sql = "UPDATE Event_Registration SET attendance_status = ?, " +
+                    "waitlisted_at = CASE WHEN ? = 'WAITLISTED' THEN NVL(waitlisted_at, SYSTIMESTAMP) END " +
+                    "WHERE member_id = ? AND event_id = ?";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, status);
+                ps.setString(2, status);
+                ps.setInt(3, memberId);
+                ps.setInt(4, eventId);
+                ps.executeUpdate();
+            }
+            int delta = (holdsSeat(status) ? 1 : 0) - (holdsSeat(old) ? 1 : 0);
+            if (delta != 0) {
+                addSeats(c, eventId, delta);
+                seats[1] += delta;
+            }
+            return promote(c, eventId, seats);
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method lockEventsOf(conn, memberId)
+    |
+    |  Purpose:  Locks every event the member has a registration for, before
+    |            something (such as deleting the member) removes those
+    |            registrations through a cascade. Call recount() for each
+    |            event afterwards, in the same transaction.
+    |
+    |  Pre-condition:  Called inside a transaction.
+    |
+    |  Returns: The locked events' ids.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Integer> lockEventsOf(Connection conn, int memberId) throws SQLException {
+        List<Integer> events = new ArrayList<>();
+        String q = "SELECT event_id FROM Event WHERE event_id IN " +
+                "(SELECT event_id FROM Event_Registration WHERE member_id = ?) " +
+                "ORDER BY event_id FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(q)) {
+            ps.setInt(1, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) events.add(rs.getInt(1));
+            }
+        }
+        return events;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method recount(conn, eventId)
+    |
+    |  Purpose:  Recomputes one event's registered_count from its
+    |            registrations and fills any free seats from the waitlist.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Returns: The members promoted from the waitlist.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Integer> recount(Connection conn, int eventId) throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            if (lockEvent(c, eventId) == null) return new ArrayList<Integer>();
+            try (PreparedStatement ps = c.prepareStatement(RECOUNT + " WHERE e.event_id = ?")) {
+                ps.setInt(1, eventId);
+                ps.executeUpdate();
+            }
+            return promote(c, eventId, lockEvent(c, eventId));
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method rebuildCounts(conn)
+    |
+    |  Purpose:  Recomputes registered_count for every event, in one
+    |            transaction. Waitlists are left as they are.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Returns: The number of events updated.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static int rebuildCounts(Connection conn) throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            try (Statement st = c.createStatement()) {
+                return st.executeUpdate(RECOUNT);
+            }
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method checkCounts(conn)
+    |
+    |  Purpose:  Compares every event's registered_count with its
+    |            registrations.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Returns: One line per event whose count is wrong (empty if consistent).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<String> checkCounts(Connection conn) throws SQLException {
+        String sql = "SELECT event_id, registered_count, seats FROM (" + ACTUAL + ") " +
+                "WHERE registered_count <> seats ORDER BY event_id";
+        List<String> problems = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                problems.add(String.format("Event %d: %d seats taken (registered_count %d)",
+                        rs.getInt("event_id"), rs.getInt("seats"), rs.getInt("registered_count")));
+            }
+        }
+        return problems;
+    }
+
+    /*
+     * Locks the event row; returns {max_attendees, registered_count}, or null if there is
+     * no such event.
+     */
+    private static int[] lockEvent(Connection c, int eventId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(LOCK_EVENT)) {
+            ps.setInt(1, eventId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new int[] {rs.getInt(1), rs.getInt(2)} : null;
+            }
+        }
+    }
+
+    /* The member's attendance status for the event, or null if not registered. */
+    private static String statusOf(Connection c, int memberId, int eventId) throws SQLException {
+        String q = "SELECT attendance_status FROM Event_Registration " +
+                "WHERE member_id = ? AND event_id = ?";
+        try (PreparedStatement ps = c.prepareStatement(q)) {
+            ps.setInt(1, memberId);
+            ps.setInt(2, eventId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static boolean holdsSeat(String status) {
+        return !"CANCELLED".equals(status) && !"WAITLISTED".equals(status);
+    }
+
+    private static void addSeats(Connection c, int eventId, int delta) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(ADD_SEATS)) {
+            ps.setInt(1, delta);
+            ps.setInt(2, eventId);
+            ps.executeUpdate();
+        }
+    }
+
+    /*
+     * Moves the longest-waiting members into the free seats. Caller holds the event lock;
+     * seats is {max_attendees, registered_count} as of now.
+     */
+    private static List<Integer> promote(Connection c, int eventId, int[] seats) throws SQLException {
+        List<Integer> promoted = new ArrayList<>();
+        int free = seats[0] - seats[1];
+        if (free <= 0) return promoted;
+
+        String q = "SELECT member_id FROM Event_Registration " +
+                "WHERE event_id = ? AND attendance_status = 'WAITLISTED' " +
+                "ORDER BY waitlisted_at, member_id FETCH FIRST ? ROWS ONLY";
+        try (PreparedStatement ps = c.prepareStatement(q)) {
+            ps.setInt(1, eventId);
+            ps.setInt(2, free);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) promoted.add(rs.getInt(1));
+            }
+        }
+        if (promoted.isEmpty()) return promoted;
+
+        String upd = "UPDATE Event_Registration SET attendance_status = 'REGISTERED', waitlisted_at = NULL " +
+                "WHERE member_id = ? AND event_id = ?";
+        try (PreparedStatement ps = c.prepareStatement(upd)) {
+            for (int memberId : promoted) {
+                ps.setInt(1, memberId);
+                ps.setInt(2, eventId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        addSeats(c, eventId, promoted.size());
+        return promoted;
+    }
+}
@@ -0,0 +1,185 @@
+package petcafe;
+
+/*
+ * EventRepository.java -- Adds and lists events and manages their registrations through
+ *                         EventRegistrar.
+ *
+ * See MemberRepository for how the repositories are used.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class EventRepository {
+
+    /*
+     * One row of the event list.
+     */
+    public static final class Event {
+        public final int eventId;
+        public final String title;
+        public final Date eventDate;
+        public final Timestamp startTime;
+        public final int maxAttendees;
+
+        Event(int eventId, String title, Date eventDate, Timestamp startTime, int maxAttendees) {
+            this.eventId = eventId;
+            this.title = title;
+            this.eventDate = eventDate;
+            this.startTime = startTime;
+            this.maxAttendees = maxAttendees;
+        }
+    }
+
+    /*
+     * Result of withdraw(): whether the row was deleted or only marked
+     * CANCELLED, and who took the freed seat.
+     */
+    public static final class Withdrawal {
+        public final boolean deleted;
+        public final List<Integer> promoted;
+
+        Withdrawal(boolean deleted, List<Integer> promoted) {
+            this.deleted = deleted;
+            this.promoted = Collections.unmodifiableList(promoted);
+        }
+    }
+
+    private static final String INSERT =
+            "INSERT INTO Event " +
+                    "(event_id, title, description, room_id, event_date, start_time, " +
+                    "end_time, max_attendees, event_type, staff_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ConnectionSource source;
+
+    public EventRepository(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method insert(title, desc, roomId, date, start, end, maxAttendees, type,
+    |                staffId)
+    |
+    |  Purpose:  Inserts an event with a newly allocated id. desc, type and
+    |            staffId may be null.
+    |
+    |  Returns: The new event's id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int insert(String title, String desc, int roomId, Date date, Timestamp start, Timestamp end,
+                      int maxAttendees, String type, Integer staffId) throws SQLException {
+        try (Connection conn = source.get()) {
+            int id = IdAllocator.nextId(conn, "Event", "event_id");
+            try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+                ps.setInt(1, id);
+                ps.setString(2, title);
+                if (desc == null) ps.setNull(3, Types.VARCHAR);
+                else ps.setString(3, desc);
+                ps.setInt(4, roomId);
+                ps.setDate(5, date);
+                ps.setTimestamp(6, start);
+                ps.setTimestamp(7, end);
+                ps.setInt(8, maxAttendees);
+                if (type == null) ps.setNull(9, Types.VARCHAR);
+                else ps.setString(9, type);
+                if (staffId == null) ps.setNull(10, Types.INTEGER);
+                else ps.setInt(10, staffId);
+                ps.executeUpdate();
+            }
+            return id;
+        }
+    }
+
+    /* Registers or waitlists a member; see EventRegistrar.register. */
+    public EventRegistrar.Outcome register(int memberId, int eventId) throws SQLException {
+        try (Connection conn = source.get()) {
+            return EventRegistrar.register(conn, memberId, eventId);
+        }
+    }
+
+    /* Sets a registration's status; see EventRegistrar.setAttendance. Null if there is no such registration. */
+    public List<Integer> setAttendance(int memberId, int eventId, String status) throws SQLException {
+        try (Connection conn = source.get()) {
+            return EventRegistrar.setAttendance(conn, memberId, eventId, status);
+        }
+    }
+
+    /* Cancels or deletes a registration; see EventRegistrar.cancel. Null if there is no such registration. */
+    public List<Integer> cancel(int memberId, int eventId, boolean delete) throws SQLException {
+        try (Connection conn = source.get()) {
+            return EventRegistrar.cancel(conn, memberId, eventId, delete);
+        }
+    }
+
+    /* Sets a registration's payment status; false if there is no such registration. */
+    public boolean setPaymentStatus(int memberId, int eventId, String status) throws SQLException {
+        String sql = "UPDATE Event_Registration SET payment_status = ? " +
+                "WHERE member_id = ? AND event_id = ?";
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, status);
+            ps.setInt(2, memberId);
+            ps.setInt(3, eventId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method withdraw(memberId, eventId)
+    |
+    |  Purpose:  Takes a member off an event. The registration is deleted if
+    |            it was REFUNDED and the event has not started, and otherwise
+    |            kept as CANCELLED; either way the seat goes to the waitlist.
+    |
+    |  Returns: What was done, or null if there is no such registration.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Withdrawal withdraw(int memberId, int eventId) throws SQLException {
+        String q = "SELECT e.start_time, r.payment_status " +
+                "FROM Event e JOIN Event_Registration r " +
+                "ON e.event_id = r.event_id " +
+                "WHERE r.member_id = ? AND r.event_id = ?";
+        try (Connection conn = source.get()) {
+            Timestamp start;
+            String paymentStatus;
+            try (PreparedStatement ps = conn.prepareStatement(q)) {
+                ps.setInt(1, memberId);
+                ps.setInt(2, eventId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    start = rs.getTimestamp("start_time");
+                    paymentStatus = rs.getString("payment_status");
+                }
+            }
+
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            boolean delete = now.before(start) && "REFUNDED".equals(paymentStatus);
+            List<Integer> promoted = EventRegistrar.cancel(conn, memberId, eventId, delete);
+            return promoted == null ? null : new Withdrawal(delete, promoted);
+        }
+    }
+
+    /* Every event, by date and start time. */
+    public List<Event> list() throws SQLException {
+        String sql = "SELECT event_id, title, event_date, start_time, max_attendees " +
+                "FROM Event ORDER BY event_date, start_time";
+        List<Event> events = new ArrayList<>();
+        try (Connection conn = source.get()) {
+            DBUtil.query(conn, sql, rs -> new Event(rs.getInt("event_id"), rs.getString("title"),
+                    rs.getDate("event_date"), rs.getTimestamp("start_time"), rs.getInt("max_attendees")),
+                    events::add);
+        }
+        return events;
+    }
+}
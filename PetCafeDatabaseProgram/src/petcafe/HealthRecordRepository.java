@@ -0,0 +1,134 @@
+package petcafe;
+
+/*
+ * HealthRecordRepository.java -- Adds, corrects and lists pets' health records.
+ *
+ * See MemberRepository for how the repositories are used.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HealthRecordRepository {
+
+    /*
+     * One health record as listed for a pet.
+     */
+    public static final class HealthRecord {
+        public final int recordId;
+        public final Date recordDate;
+        public final String recordType;
+        public final String status;
+        public final Date nextDueDate;
+
+        HealthRecord(int recordId, Date recordDate, String recordType, String status, Date nextDueDate) {
+            this.recordId = recordId;
+            this.recordDate = recordDate;
+            this.recordType = recordType;
+            this.status = status;
+            this.nextDueDate = nextDueDate;
+        }
+    }
+
+    private static final String INSERT =
+            "INSERT INTO Health_Record " +
+                    "(record_id, pet_id, staff_id, record_date, record_type, " +
+                    "notes, next_due_date, status) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, 'ACTIVE')";
+
+    private static final String UPDATE =
+            "UPDATE Health_Record SET " +
+                    "notes = NVL(?, notes), " +
+                    "next_due_date = NVL(?, next_due_date), " +
+                    "status = NVL(?, status) " +
+                    "WHERE record_id = ?";
+
+    private final ConnectionSource source;
+
+    public HealthRecordRepository(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method insert(petId, staffId, recordDate, type, notes, nextDue)
+    |
+    |  Purpose:  Inserts an ACTIVE health record with a newly allocated id,
+    |            with the pet locked (see PetRepository.delete). staffId,
+    |            notes and nextDue may be null.
+    |
+    |  Returns: The new record's id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int insert(int petId, Integer staffId, Date recordDate, String type, String notes, Date nextDue)
+            throws SQLException {
+        try (Connection conn = source.get()) {
+            int id = IdAllocator.nextId(conn, "Health_Record", "record_id");
+            return DBUtil.inTransaction(conn, c -> {
+                PetRepository.lock(c, petId);       // a missing pet fails the INSERT's foreign key
+                try (PreparedStatement ps = c.prepareStatement(INSERT)) {
+                    ps.setInt(1, id);
+                    ps.setInt(2, petId);
+                    if (staffId == null) ps.setNull(3, Types.INTEGER);
+                    else ps.setInt(3, staffId);
+                    ps.setDate(4, recordDate);
+                    ps.setString(5, type);
+                    if (notes == null) ps.setNull(6, Types.VARCHAR);
+                    else ps.setString(6, notes);
+                    if (nextDue == null) ps.setNull(7, Types.DATE);
+                    else ps.setDate(7, nextDue);
+                    ps.executeUpdate();
+                }
+                return id;
+            });
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method update(recordId, notes, nextDue, status)
+    |
+    |  Purpose:  Changes a record's notes, next due date and status; a null
+    |            value keeps the current one. The pet is locked first, since
+    |            the record may become current again (see PetRepository.delete).
+    |
+    |  Returns: false if there is no such record.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean update(int recordId, String notes, Date nextDue, String status) throws SQLException {
+        try (Connection conn = source.get()) {
+            return DBUtil.inTransaction(conn, c -> {
+                if (!PetRepository.lockOwnerOf(c, "Health_Record", "record_id", recordId)) return false;
+                try (PreparedStatement ps = c.prepareStatement(UPDATE)) {
+                    if (notes == null) ps.setNull(1, Types.VARCHAR);
+                    else ps.setString(1, notes);
+                    if (nextDue == null) ps.setNull(2, Types.DATE);
+                    else ps.setDate(2, nextDue);
+                    if (status == null) ps.setNull(3, Types.VARCHAR);
+                    else ps.setString(3, status);
+                    ps.setInt(4, recordId);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+        }
+    }
+
+    /* A pet's health records, oldest first. */
+    public List<HealthRecord> listForPet(int petId) throws SQLException {
+        String sql = "SELECT record_id, record_date, record_type, status, next_due_date " +
+                "FROM Health_Record WHERE pet_id = ? " +
+                "ORDER BY record_date";
+        List<HealthRecord> records = new ArrayList<>();
+        try (Connection conn = source.get()) {
+            DBUtil.query(conn, sql, rs -> new HealthRecord(rs.getInt("record_id"), rs.getDate("record_date"),
+                    rs.getString("record_type"), rs.getString("status"), rs.getDate("next_due_date")),
+                    records::add, petId);
+        }
+        return records;
+    }
+}
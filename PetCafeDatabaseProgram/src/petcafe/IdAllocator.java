@@ -0,0 +1,164 @@
+package petcafe;
+
+/*
+ * IdAllocator.java -- Hands out primary key values for the tables whose ids the application
+ *                     generates itself (Member, Pet, Reservation, Customer_Order, ...).
+ *
+ * Each such table has a sequence named <table>_seq (see createTables.sql) that increments by
+ * BLOCK_SIZE. One NEXTVAL reserves the whole block [v, v + BLOCK_SIZE - 1] for this JVM, and
+ * ids inside the block are handed out from memory with a single atomic increment, so most
+ * inserts cost no extra round trip and two terminals can never receive the same id.
+ *
+ * A thread that finds the block used up fetches the next one with no lock held and installs
+ * it with a compare-and-set, so a session waiting for NEXTVAL holds up nobody else (and, on
+ * a virtual thread, does not pin its carrier). When several threads refill the same table at
+ * once, the blocks that lose the race are kept as spares and used by the next refills.
+ *
+ * Ids left unused in a block when the program exits are simply skipped; the sequence keeps
+ * going from where it was, so restarts never reuse an id. If a table's sequence does not
+ * exist (a database created before the sequences were added) the allocator falls back to
+ * the old NVL(MAX(col),0)+1 scan for that table and prints a warning once.
+ */
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class IdAllocator {
+
+    // Must match the INCREMENT BY of every <table>_seq in createTables.sql.
+    public static final int BLOCK_SIZE = 50;
+
+    // Tables with an id sequence, and their id columns.
+    public static final String[][] SEQUENCED_TABLES = {
+        {"Member", "member_id"},
+        {"Pet", "pet_id"},
+        {"Health_Record", "record_id"},
+        {"Reservation", "reservation_id"},
+        {"Customer_Order", "order_id"},
+        {"Event", "event_id"},
+        {"Adoption_Application", "application_id"},
+        {"Adoption", "adoption_id"}
+    };
+
+    // Oracle error code for "sequence does not exist".
+    private static final int ORA_NO_SEQUENCE = 2289;
+
+    /*
+     * A reserved range of ids. next is advanced lock-free; once it passes limit the
+     * block is exhausted and a new one must be reserved.
+     */
+    private static final class Block {
+        final AtomicLong next;
+        final long limit;     // exclusive
+
+        Block(long first, long limit) {
+            this.next = new AtomicLong(first);
+            this.limit = limit;
+        }
+    }
+
+    /*
+     * Per-table state. block is swapped by compare-and-set only when a refill is needed;
+     * the fast path just reads it and increments.
+     */
+    private static final class TableIds {
+        final AtomicReference<Block> block = new AtomicReference<>(new Block(0, 0));
+        final ConcurrentLinkedQueue<Block> spares = new ConcurrentLinkedQueue<>();
+        volatile boolean noSequence;
+    }
+
+    private static final ConcurrentMap<String, TableIds> TABLES = new ConcurrentHashMap<>();
+
+    private IdAllocator() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method nextId(conn, table, col)
+    |
+    |  Purpose:  Returns a new, never before issued id for table.
+    |
+    |  Pre-condition:  conn is established correctly. table is an existing table
+    |                  with a sequence named <table>_seq, or col is its id column
+    |                  for the fallback scan.
+    |
+    |  Post-condition: No two calls (in any JVM) return the same id for a table
+    |                  while its sequence exists.
+    |
+    |  Parameters:
+    |      conn     -- Connection used only when a new block must be reserved
+    |      table    -- Name of SQL table.
+    |      col      -- Name of the id column, used by the fallback scan.
+    |
+    |  Returns: The id to use for the new row.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static int nextId(Connection conn, String table, String col) throws SQLException {
+        TableIds ids = TABLES.computeIfAbsent(table.toUpperCase(), t -> new TableIds());
+
+        while (true) {
+            if (ids.noSequence) return scanNextId(conn, table, col);
+
+            Block b = ids.block.get();
+            long id = b.next.getAndIncrement();
+            if (id < b.limit) return Math.toIntExact(id);
+
+            Block refill = ids.spares.poll();
+            if (refill == null) {
+                Long first = reserveBlock(conn, table);     // no lock held
+                if (first == null) {
+                    ids.noSequence = true;
+                    continue;
+                }
+                refill = new Block(first, first + BLOCK_SIZE);
+            }
+            if (!ids.block.compareAndSet(b, refill)) ids.spares.add(refill);   // someone refilled first
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method reset()
+    |
+    |  Purpose:  Forgets every reserved block, e.g. after the sequences have been
+    |            recreated by insertSampleData.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void reset() {
+        TABLES.clear();
+    }
+
+    /*
+     * Reserves the next block from <table>_seq. Returns null if the sequence is missing.
+     */
+    private static Long reserveBlock(Connection conn, String table) throws SQLException {
+        String sql = "SELECT " + table + "_seq.NEXTVAL FROM dual";
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ORA_NO_SEQUENCE) throw e;
+            System.err.println("WARNING: sequence " + table + "_seq not found; "
+                    + "falling back to MAX()+1 ids for " + table
+                    + ". Re-run insertSampleData to create the sequences.");
+            return null;
+        }
+    }
+
+    private static int scanNextId(Connection conn, String table, String col) throws SQLException {
+        String sql = "SELECT NVL(MAX(" + col + "),0) + 1 FROM " + table;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package petcafe;
+
+/*
+ * KeysetPager.java -- Reads a table one page at a time in primary key order.
+ *
+ * Each page is a separate query of the form
+ *
+ *         SELECT <columns> FROM <table> WHERE <filters> AND <key> > ? ORDER BY <key>
+ *         FETCH FIRST <pageSize + 1> ROWS ONLY
+ *
+ * that starts just after the last key of the previous page, so with the primary key index
+ * every page costs the same no matter how deep into the table it is, and at most one page
+ * of rows is ever held by the driver or the JVM. The extra row fetched tells whether another
+ * page exists; it is not printed. The JDBC fetch size is set to the page size so a page
+ * arrives in a single round trip.
+ *
+ * The page size defaults to -Dpetcafe.pageSize (50).
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeysetPager {
+
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("petcafe.pageSize", 50);
+
+    /*
+     * Prints (or otherwise consumes) the current row of a page.
+     */
+    public interface RowPrinter {
+        void print(ResultSet rs) throws SQLException;
+    }
+
+    private final String columns;
+    private final String table;
+    private final String keyColumn;
+    private final int pageSize;
+    private final List<String> predicates = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    private long lastKey = Long.MIN_VALUE;
+    private boolean more = true;
+
+    /*---------------------------------------------------------------------
+    |  Constructor KeysetPager(columns, table, keyColumn, pageSize)
+    |
+    |  Parameters:
+    |      columns   -- Select list; must include keyColumn.
+    |      table     -- Table to page through.
+    |      keyColumn -- Unique numeric column to page on (the primary key).
+    |      pageSize  -- Rows per page.
+    |
+    *-------------------------------------------------------------------*/
+
+    public KeysetPager(String columns, String table, String keyColumn, int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        this.columns = columns;
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.pageSize = pageSize;
+    }
+
+    public KeysetPager(String columns, String table, String keyColumn) {
+        this(columns, table, keyColumn, DEFAULT_PAGE_SIZE);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method filter(predicate, value)
+    |
+    |  Purpose:  Adds a condition with one ? placeholder, e.g. "status = ?".
+    |            A null value means "no filter" and the condition is skipped,
+    |            so optional user input can be passed straight through.
+    |
+    |  Returns: this pager, for chaining.
+    |
+    *-------------------------------------------------------------------*/
+
+    public KeysetPager filter(String predicate, Object value) {
+        if (value != null) {
+            predicates.add(predicate);
+            values.add(value);
+        }
+        return this;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method nextPage(conn, printer)
+    |
+    |  Purpose:  Fetches the page after the last one read and hands each of its
+    |            rows to printer.
+    |
+    |  Pre-condition:  conn is established correctly. hasMore() is true.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |      printer  -- Called once per row of the page.
+    |
+    |  Returns: The number of rows on the page.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int nextPage(Connection conn, RowPrinter printer) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM ").append(table)
+                .append(" WHERE ").append(keyColumn).append(" > ?");
+        for (String p : predicates) sql.append(" AND ").append(p);
+        sql.append(" ORDER BY ").append(keyColumn).append(" FETCH FIRST ? ROWS ONLY");
+
+        int rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            ps.setLong(i++, lastKey);
+            for (Object v : values) ps.setObject(i++, v);
+            ps.setInt(i, pageSize + 1);
+            ps.setFetchSize(pageSize + 1);
+
+            more = false;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rows == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    printer.print(rs);
+                    lastKey = rs.getLong(keyColumn);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method hasMore()
+    |
+    |  Returns: true until a page comes back without a following row.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean hasMore() {
+        return more;
+    }
+}
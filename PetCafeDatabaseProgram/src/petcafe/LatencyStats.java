@@ -0,0 +1,88 @@
+package petcafe;
+
+/*
+ * LatencyStats.java -- Collects the durations of one kind of operation and reports their
+ *                      count, mean and percentiles.
+ *
+ * Every sample is kept (8 bytes each, in a growing long[]), so the percentiles are exact
+ * rather than bucketed; a replay of a day of front-desk traffic is a few hundred thousand
+ * samples at most. record() may be called from several threads.
+ */
+
+import java.util.Arrays;
+
+public class LatencyStats {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+    private long totalNanos;
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method record(nanos, ok)
+    |
+    |  Purpose:  Adds one operation's duration; failed operations are counted
+    |            and timed like the rest.
+    |
+    *-------------------------------------------------------------------*/
+
+    public synchronized void record(long nanos, boolean ok) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+        totalNanos += nanos;
+        if (!ok) errors++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized int errors() {
+        return errors;
+    }
+
+    public synchronized double meanMicros() {
+        return count == 0 ? 0 : totalNanos / 1e3 / count;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method percentileMicros(p)
+    |
+    |  Purpose:  Nearest-rank percentile of the samples so far.
+    |
+    |  Parameters:
+    |      p -- Percentile, 0 to 100 (100 is the maximum).
+    |
+    |  Returns: The duration in microseconds, or 0 if there are no samples.
+    |
+    *-------------------------------------------------------------------*/
+
+    public synchronized double percentileMicros(double p) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.min(Math.max(rank, 1), count) - 1] / 1e3;
+    }
+
+    public static String header() {
+        return String.format("%-28s %9s %7s %10s %10s %10s %10s %10s",
+                "operation", "count", "errors", "mean us", "p50 us", "p95 us", "p99 us", "max us");
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%-28s %9d %7d %10.1f %10.1f %10.1f %10.1f %10.1f",
+                name, count, errors, meanMicros(),
+                percentileMicros(50), percentileMicros(95), percentileMicros(99), percentileMicros(100));
+    }
+}
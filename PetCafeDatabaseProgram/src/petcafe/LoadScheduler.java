@@ -0,0 +1,218 @@
+package petcafe;
+
+/*
+ * LoadScheduler.java -- Runs one load task per table, in parallel, in foreign key order.
+ *
+ * The dependency graph is read from the CREATE TABLE statements in createTables.sql: a
+ * table depends on every table its REFERENCES clauses name. Tables with no unfinished
+ * parents are started right away (Membership_Tier, Staff, Room, Menu_Item for the Pet
+ * Cafe schema) and every other table is started the moment its last parent finishes, on
+ * whichever worker thread is free. If any task fails, no new tables are started and the
+ * first failure is rethrown once the running tasks have stopped.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LoadScheduler {
+
+    /*
+     * The work done for one table.
+     */
+    public interface TableTask {
+        void run(String table) throws Exception;
+    }
+
+    private static final Pattern CREATE_TABLE =
+            Pattern.compile("CREATE\\s+TABLE\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFERENCES =
+            Pattern.compile("REFERENCES\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private LoadScheduler() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method readDependencies(sqlFile)
+    |
+    |  Purpose:  Reads the foreign key graph out of a file of CREATE TABLE
+    |            statements.
+    |
+    |  Pre-condition:  sqlFile exists and every REFERENCES clause sits inside
+    |                  the CREATE TABLE statement it belongs to.
+    |
+    |  Parameters:
+    |      sqlFile -- e.g. initialSQLfiles/createTables.sql
+    |
+    |  Returns: Each table (in file order) mapped to the tables it references.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static Map<String, Set<String>> readDependencies(Path sqlFile) throws IOException {
+        String sql = new String(Files.readAllBytes(sqlFile), StandardCharsets.UTF_8);
+        Map<String, Set<String>> deps = new LinkedHashMap<>();
+
+        Matcher create = CREATE_TABLE.matcher(sql);
+        List<Integer> starts = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        while (create.find()) {
+            starts.add(create.start());
+            names.add(create.group(1));
+        }
+
+        for (int t = 0; t < names.size(); t++) {
+            int end = t + 1 < starts.size() ? starts.get(t + 1) : sql.length();
+            Set<String> parents = new LinkedHashSet<>();
+            Matcher ref = REFERENCES.matcher(sql.substring(starts.get(t), end));
+            while (ref.find()) {
+                if (!ref.group(1).equalsIgnoreCase(names.get(t))) parents.add(ref.group(1));
+            }
+            deps.put(names.get(t), parents);
+        }
+
+        // Canonicalise the parent names to the spelling used in CREATE TABLE.
+        Map<String, String> canonical = new HashMap<>();
+        for (String name : deps.keySet()) canonical.put(name.toUpperCase(), name);
+        for (Map.Entry<String, Set<String>> e : deps.entrySet()) {
+            Set<String> fixed = new LinkedHashSet<>();
+            for (String p : e.getValue()) {
+                String c = canonical.get(p.toUpperCase());
+                if (c == null) {
+                    throw new IllegalArgumentException(e.getKey() + " references unknown table " + p);
+                }
+                fixed.add(c);
+            }
+            e.setValue(fixed);
+        }
+        return deps;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method topologicalOrder(deps)
+    |
+    |  Purpose:  Orders the tables so that every table comes after its parents.
+    |
+    |  Parameters:
+    |      deps -- table -> parents, as returned by readDependencies
+    |
+    |  Returns: The tables in a valid load order.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<String> topologicalOrder(Map<String, Set<String>> deps) {
+        Map<String, Integer> waitingOn = new HashMap<>();
+        Map<String, List<String>> children = children(deps, waitingOn);
+        Deque<String> ready = new ArrayDeque<>();
+        for (String t : deps.keySet()) {
+            if (waitingOn.get(t) == 0) ready.add(t);
+        }
+
+        List<String> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            String t = ready.poll();
+            order.add(t);
+            for (String c : children.get(t)) {
+                if (waitingOn.merge(c, -1, Integer::sum) == 0) ready.add(c);
+            }
+        }
+        if (order.size() != deps.size()) {
+            throw new IllegalArgumentException("Foreign keys form a cycle; cannot order tables " + deps.keySet());
+        }
+        return order;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method run(deps, threads, task)
+    |
+    |  Purpose:  Runs task once per table on a pool of worker threads, starting
+    |            each table only after all of its parents have finished.
+    |
+    |  Pre-condition:  deps has no cycles.
+    |
+    |  Post-condition: Every task has finished successfully, or the first
+    |                  failure is thrown and the remaining tables were not started.
+    |
+    |  Parameters:
+    |      deps    -- table -> parents, as returned by readDependencies
+    |      threads -- number of tables that may load at the same time
+    |      task    -- the load to run for each table
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void run(Map<String, Set<String>> deps, int threads, TableTask task) throws Exception {
+        topologicalOrder(deps);    // rejects cycles before anything starts
+
+        Map<String, Integer> waitingOn = new HashMap<>();
+        Map<String, List<String>> children = children(deps, waitingOn);
+        CountDownLatch done = new CountDownLatch(deps.size());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "petcafe-loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Submitting is serialised on waitingOn so a child is started exactly once.
+        class Starter {
+            void start(String table) {
+                workers.execute(() -> {
+                    try {
+                        if (failure.get() == null) task.run(table);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, new Exception("Loading " + table + " failed", e));
+                    } finally {
+                        List<String> ready = new ArrayList<>();
+                        synchronized (waitingOn) {
+                            for (String c : children.get(table)) {
+                                if (waitingOn.merge(c, -1, Integer::sum) == 0) ready.add(c);
+                            }
+                        }
+                        done.countDown();
+                        for (String c : ready) start(c);
+                    }
+                });
+            }
+        }
+
+        Starter starter = new Starter();
+        List<String> roots = new ArrayList<>();
+        for (String t : deps.keySet()) {
+            if (waitingOn.get(t) == 0) roots.add(t);
+        }
+        for (String t : roots) starter.start(t);
+
+        try {
+            done.await();
+        } finally {
+            workers.shutdown();
+        }
+        if (failure.get() != null) throw failure.get();
+    }
+
+    private static Map<String, List<String>> children(Map<String, Set<String>> deps,
+                                                      Map<String, Integer> waitingOn) {
+        Map<String, List<String>> children = new HashMap<>();
+        for (String t : deps.keySet()) children.put(t, new ArrayList<>());
+        for (Map.Entry<String, Set<String>> e : deps.entrySet()) {
+            waitingOn.put(e.getKey(), e.getValue().size());
+            for (String p : e.getValue()) children.get(p).add(e.getKey());
+        }
+        return children;
+    }
+}
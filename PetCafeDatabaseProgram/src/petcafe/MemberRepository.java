@@ -0,0 +1,234 @@
+package petcafe;
+
+/*
+ * MemberRepository.java -- Adds, changes, removes and lists members.
+ *
+ * Like the other repositories (PetRepository, ReservationRepository, OrderRepository,
+ * EventRepository, HealthRecordRepository and ReportService) it holds no state except its
+ * ConnectionSource: each method takes a connection, does its work and gives it back, and
+ * answers with plain values or small immutable result objects rather than printing, so the
+ * same operations serve the menus, batch mode and the benchmarks, from any number of
+ * threads when the source is the pool.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class MemberRepository {
+
+    /*
+     * One row of the member list.
+     */
+    public static final class Member {
+        public final int memberId;
+        public final String name;
+        public final String phone;
+        public final String email;
+        public final Integer tierId;
+
+        Member(int memberId, String name, String phone, String email, Integer tierId) {
+            this.memberId = memberId;
+            this.name = name;
+            this.phone = phone;
+            this.email = email;
+            this.tierId = tierId;
+        }
+    }
+
+    public enum DeleteStatus { DELETED, NO_SUCH_MEMBER, IN_USE }
+
+    /*
+     * Result of delete(): whether the member went, and who was moved off an
+     * event waitlist into the seats the member's registrations held.
+     */
+    public static final class Deletion {
+        public final DeleteStatus status;
+        public final List<Integer> promoted;
+
+        Deletion(DeleteStatus status, List<Integer> promoted) {
+            this.status = status;
+            this.promoted = Collections.unmodifiableList(promoted);
+        }
+    }
+
+    private static final String INSERT =
+            "INSERT INTO Member " +
+                    "(member_id, name, phone, email, date_of_birth, emergency_contact, tier_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE =
+            "UPDATE Member SET " +
+                    "phone = NVL(?, phone), " +
+                    "email = NVL(?, email), " +
+                    "tier_id = NVL(?, tier_id) " +
+                    "WHERE member_id = ?";
+
+    // The guards and the delete are one statement, run with the member row locked (see
+    // lock()), so the guards see every booking, order or application committed before it.
+    static final String DELETE =
+            "DELETE FROM Member m WHERE m.member_id = ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.member_id = m.member_id " +
+                    "AND r.status IN ('BOOKED','IN_PROGRESS')) " +
+                    "AND NOT EXISTS (SELECT 1 FROM Adoption_Application a WHERE a.member_id = m.member_id " +
+                    "AND a.status = 'PENDING') " +
+                    "AND NOT EXISTS (SELECT 1 FROM Customer_Order o WHERE o.member_id = m.member_id " +
+                    "AND o.payment_status <> 'PAID')";
+
+    private static final String LOCK = "SELECT member_id FROM Member WHERE member_id = ? FOR UPDATE";
+
+    private final ConnectionSource source;
+
+    public MemberRepository(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method insert(name, phone, email, dob, emergency, tierId)
+    |
+    |  Purpose:  Inserts a member with a newly allocated id.
+    |
+    |  Parameters:
+    |      name -- Member's name; the other values may be null.
+    |
+    |  Returns: The new member's id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int insert(String name, String phone, String email, Date dob, String emergency, Integer tierId)
+            throws SQLException {
+        try (Connection conn = source.get()) {
+            int id = IdAllocator.nextId(conn, "Member", "member_id");
+            try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+                ps.setInt(1, id);
+                ps.setString(2, name);
+                if (phone == null) ps.setNull(3, Types.VARCHAR);
+                else ps.setString(3, phone);
+                if (email == null) ps.setNull(4, Types.VARCHAR);
+                else ps.setString(4, email);
+                if (dob == null) ps.setNull(5, Types.DATE);
+                else ps.setDate(5, dob);
+                if (emergency == null) ps.setNull(6, Types.VARCHAR);
+                else ps.setString(6, emergency);
+                if (tierId == null) ps.setNull(7, Types.INTEGER);
+                else ps.setInt(7, tierId);
+                ps.executeUpdate();
+            }
+            return id;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method update(memberId, phone, email, tierId)
+    |
+    |  Purpose:  Changes a member's contact details and tier; a null value
+    |            keeps the current one.
+    |
+    |  Returns: false if there is no such member.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean update(int memberId, String phone, String email, Integer tierId) throws SQLException {
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(UPDATE)) {
+            if (phone == null) ps.setNull(1, Types.VARCHAR);
+            else ps.setString(1, phone);
+            if (email == null) ps.setNull(2, Types.VARCHAR);
+            else ps.setString(2, email);
+            if (tierId == null) ps.setNull(3, Types.INTEGER);
+            else ps.setInt(3, tierId);
+            ps.setInt(4, memberId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method delete(memberId)
+    |
+    |  Purpose:  Deletes a member unless they have an active reservation, a
+    |            pending adoption application or an unpaid order. Their event
+    |            registrations go with them, so those events' seat counts are
+    |            redone in the same transaction.
+    |
+    |            The member row is locked first. Everything that adds a row
+    |            referencing the member (bookings, orders, event registrations,
+    |            applications, adoptions), or makes one count against the
+    |            guards again, takes the same lock before writing, so once the
+    |            lock is held no such row can appear: the guards see every one,
+    |            lockEventsOf finds every registration, and the cascade cannot
+    |            remove a booking or order that committed while the DELETE ran.
+    |
+    |  Returns: What happened, and who was promoted off a waitlist.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Deletion delete(int memberId) throws SQLException {
+        try (Connection conn = source.get()) {
+            List<Integer> promoted = new ArrayList<>();
+            DeleteStatus status = DBUtil.inTransaction(conn, c -> {
+                if (!lock(c, memberId)) return DeleteStatus.NO_SUCH_MEMBER;
+                List<Integer> events = EventRegistrar.lockEventsOf(c, memberId);
+                try (PreparedStatement ps = c.prepareStatement(DELETE)) {
+                    ps.setInt(1, memberId);
+                    if (ps.executeUpdate() == 0) return DeleteStatus.IN_USE;
+                }
+                for (int eventId : events) promoted.addAll(EventRegistrar.recount(c, eventId));
+                return DeleteStatus.DELETED;
+            });
+            return new Deletion(status, promoted);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method lock(c, memberId)
+    |
+    |  Purpose:  Locks the member's row until the transaction ends (see
+    |            delete). Take it before any Room, Event or Reservation lock.
+    |
+    |  Pre-condition:  Called inside a transaction.
+    |
+    |  Returns: false if there is no such member.
+    |
+    *-------------------------------------------------------------------*/
+
+    static boolean lock(Connection c, int memberId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(LOCK)) {
+            ps.setInt(1, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /*
+     * Locks the member that owns a row of table (found by its key column), as lock() does;
+     * for changes to an existing booking or application. false if there is no such row.
+     */
+    static boolean lockOwnerOf(Connection c, String table, String key, int id) throws SQLException {
+        String sql = "SELECT member_id FROM Member WHERE member_id = " +
+                "(SELECT member_id FROM " + table + " WHERE " + key + " = ?) FOR UPDATE";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /* All members in id order, a page at a time. */
+    public PageCursor<Member> list() {
+        KeysetPager pager = new KeysetPager("member_id, name, phone, email, tier_id", "Member", "member_id");
+        return new PageCursor<>(source, pager, rs -> {
+            int tier = rs.getInt("tier_id");
+            Integer tierId = rs.wasNull() ? null : tier;
+            return new Member(rs.getInt("member_id"), rs.getString("name"), rs.getString("phone"),
+                    rs.getString("email"), tierId);
+        });
+    }
+}
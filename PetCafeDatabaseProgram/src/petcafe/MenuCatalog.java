@@ -0,0 +1,290 @@
+package petcafe;
+
+/*
+ * MenuCatalog.java -- In-memory, read-through copy of the Menu_Item table used for order entry.
+ *
+ * The menu is a couple of dozen rows that change rarely, but createOrder used to query
+ * Menu_Item once per line item. The catalog reads the whole table in one query and keeps it
+ * in an open-addressing table keyed by the primitive item_id (prices held as whole cents),
+ * so a lookup neither boxes nor allocates.
+ *
+ * A snapshot is replaced as a whole, never modified, so readers need no locking. It is
+ * reloaded when it is older than the TTL (-Dpetcafe.menu.ttlSeconds, default 300), when
+ * invalidate() is called after a menu change (OrderRepository.updateMenuItem does), or when
+ * an unknown item_id is asked for (a new item may have been added by another terminal).
+ * Misses reload at most once every MISS_RELOAD_MILLIS, so a mistyped id cannot turn every
+ * keystroke into a query. A change made by another PetCafeApp process, which has its own
+ * catalog, still shows up only on the next TTL or miss reload.
+ *
+ * Only one reload runs at a time. When the snapshot has merely expired, the caller that
+ * starts the reload waits for it and everyone else keeps using the expired snapshot until
+ * the new one is published. Callers that have no usable snapshot (none loaded yet, or
+ * invalidated) wait for the reload in progress and take its result. A reload that began
+ * before an invalidate() reads the table again, so it never publishes the old menu.
+ */
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class MenuCatalog {
+
+    private static final long TTL_NANOS =
+            TimeUnit.SECONDS.toNanos(Long.getLong("petcafe.menu.ttlSeconds", 300L));
+    private static final long MISS_RELOAD_MILLIS = 5_000L;
+
+    /*
+     * One immutable copy of the menu. keys holds item_id + 1 so that 0 marks an empty
+     * bucket; the other arrays are parallel to it.
+     */
+    private static final class Snapshot {
+        final int[] keys;
+        final long[] priceCents;
+        final String[] names;
+        final boolean[] available;
+        final long loadedAt;              // System.nanoTime()
+
+        Snapshot(int capacity, long loadedAt) {
+            this.keys = new int[capacity];
+            this.priceCents = new long[capacity];
+            this.names = new String[capacity];
+            this.available = new boolean[capacity];
+            this.loadedAt = loadedAt;
+        }
+
+        int slot(int itemId) {
+            int mask = keys.length - 1;
+            int i = mix(itemId) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == itemId + 1) return i;
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(int itemId, long cents, String name, boolean isAvailable) {
+            int mask = keys.length - 1;
+            int i = mix(itemId) & mask;
+            while (keys[i] != 0 && keys[i] != itemId + 1) i = (i + 1) & mask;
+            keys[i] = itemId + 1;
+            priceCents[i] = cents;
+            names[i] = name;
+            available[i] = isAvailable;
+        }
+
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /*
+     * The published snapshot (null when there is none or it was invalidated) and how many
+     * times invalidate() has been called. Both change together, by compare-and-set.
+     */
+    private static final class State {
+        final Snapshot menu;
+        final long generation;
+
+        State(Snapshot menu, long generation) {
+            this.menu = menu;
+            this.generation = generation;
+        }
+    }
+
+    private static final ReentrantLock RELOAD = new ReentrantLock();
+    private static final AtomicReference<State> state = new AtomicReference<>(new State(null, 0));
+
+    private static volatile long lastMissReload;
+
+    private MenuCatalog() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method load(conn)
+    |
+    |  Purpose:  Reads the whole Menu_Item table and replaces the cached copy.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void load(Connection conn) throws SQLException {
+        RELOAD.lock();
+        try {
+            reload(conn);
+        } finally {
+            RELOAD.unlock();
+        }
+    }
+
+    /*
+     * Reads the table and publishes the new snapshot; the caller holds RELOAD. The publish
+     * is a compare-and-set against the state seen before reading, which only invalidate()
+     * can have replaced since, so it fails (and the table is read again) if invalidate()
+     * was called at any point after the read began.
+     */
+    private static Snapshot reload(Connection conn) throws SQLException {
+        while (true) {
+            State seen = state.get();
+            Snapshot s = read(conn);
+            if (state.compareAndSet(seen, new State(s, seen.generation))) return s;
+        }
+    }
+
+    private static Snapshot read(Connection conn) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        String sql = "SELECT item_id, base_price, name, is_available FROM Menu_Item";
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                rows.add(new Object[] {
+                    rs.getInt(1),
+                    Money.fromDecimal(rs.getBigDecimal(2)),
+                    rs.getString(3),
+                    !"N".equals(rs.getString(4))
+                });
+            }
+        }
+
+        int capacity = 16;
+        while (capacity < rows.size() * 2) capacity <<= 1;
+        Snapshot s = new Snapshot(capacity, System.nanoTime());
+        for (Object[] r : rows) {
+            s.put((Integer) r[0], (Long) r[1], (String) r[2], (Boolean) r[3]);
+        }
+        return s;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method invalidate()
+    |
+    |  Purpose:  Drops the cached menu so the next lookup reloads it. Call after
+    |            inserting, updating or deleting Menu_Item rows.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void invalidate() {
+        State s;
+        do {
+            s = state.get();
+        } while (!state.compareAndSet(s, new State(null, s.generation + 1)));
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method priceCents(conn, itemId)
+    |
+    |  Purpose:  Looks up the base price of a menu item.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Parameters:
+    |      conn     -- Used only if the menu has to be (re)loaded.
+    |      itemId   -- The item_id to look up.
+    |
+    |  Returns: The base price in cents, or -1 if there is no such item.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long priceCents(Connection conn, int itemId) throws SQLException {
+        Snapshot s = lookup(conn, itemId);
+        int i = s.slot(itemId);
+        return i < 0 ? -1 : s.priceCents[i];
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method orderablePriceCents(conn, itemId)
+    |
+    |  Purpose:  Looks up the base price of a menu item that can be ordered
+    |            now; price and availability come from the same snapshot.
+    |
+    |  Returns: The base price in cents, or -1 if there is no such item or
+    |           it is not available.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long orderablePriceCents(Connection conn, int itemId) throws SQLException {
+        Snapshot s = lookup(conn, itemId);
+        int i = s.slot(itemId);
+        return i < 0 || !s.available[i] ? -1 : s.priceCents[i];
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method name(conn, itemId)
+    |
+    |  Returns: The menu item's name, or null if there is no such item.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static String name(Connection conn, int itemId) throws SQLException {
+        Snapshot s = lookup(conn, itemId);
+        int i = s.slot(itemId);
+        return i < 0 ? null : s.names[i];
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method isAvailable(conn, itemId)
+    |
+    |  Returns: true if the item exists and is_available is not 'N'.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static boolean isAvailable(Connection conn, int itemId) throws SQLException {
+        Snapshot s = lookup(conn, itemId);
+        int i = s.slot(itemId);
+        return i >= 0 && s.available[i];
+    }
+
+    /*
+     * Returns a snapshot that is fresh enough and, if possible, contains itemId.
+     */
+    private static Snapshot lookup(Connection conn, int itemId) throws SQLException {
+        Snapshot s = state.get().menu;
+        if (s == null) return reloadUnless(conn, null);
+        if (System.nanoTime() - s.loadedAt > TTL_NANOS) {
+            if (!RELOAD.tryLock()) return s;        // someone else is reloading: keep the old one
+            try {
+                return state.get().menu == s ? reload(conn) : usable(conn);
+            } finally {
+                RELOAD.unlock();
+            }
+        }
+        if (s.slot(itemId) < 0) {
+            long now = System.currentTimeMillis();
+            if (now - lastMissReload > MISS_RELOAD_MILLIS) {
+                lastMissReload = now;
+                return reloadUnless(conn, s);
+            }
+        }
+        return s;
+    }
+
+    /*
+     * Waits for RELOAD and reloads, unless the snapshot was replaced by a newer one while
+     * this caller waited (seen is the one it had; null if it had none).
+     */
+    private static Snapshot reloadUnless(Connection conn, Snapshot seen) throws SQLException {
+        RELOAD.lock();
+        try {
+            Snapshot s = state.get().menu;
+            return s != null && s != seen ? s : reload(conn);
+        } finally {
+            RELOAD.unlock();
+        }
+    }
+
+    /* The current snapshot, reloading if it was invalidated; the caller holds RELOAD. */
+    private static Snapshot usable(Connection conn) throws SQLException {
+        Snapshot s = state.get().menu;
+        return s != null ? s : reload(conn);
+    }
+}
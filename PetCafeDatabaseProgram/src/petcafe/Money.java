@@ -0,0 +1,170 @@
+package petcafe;
+
+/*
+ * Money.java -- Exact arithmetic on amounts of money held as whole cents in a long.
+ *
+ * Every money column in the schema has two decimal places (unit_price, base_price,
+ * total_price, total_spent, adoption_fee), so an amount is stored as a scaled long: 12.34 is
+ * 1234. Sums and products are exact (and throw ArithmeticException on overflow rather than
+ * wrapping), and none of the methods below except toDecimal() and format() allocate, so order
+ * totals can be computed on the hot path without doubles or BigDecimal.
+ *
+ * Rounding rule: wherever a result falls between two cents (a percentage discount, or a
+ * parsed amount with more than two decimals) it is rounded to the nearest cent, halves away
+ * from zero -- the same as BigDecimal's RoundingMode.HALF_UP and Oracle's ROUND(x, 2).
+ *
+ * BigDecimal appears only at the JDBC boundary: toDecimal() when binding a NUMBER(p,2)
+ * parameter and fromDecimal() when reading one.
+ */
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class Money {
+
+    private Money() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method times(unitCents, quantity)
+    |
+    |  Returns: unitCents * quantity, exactly.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long times(long unitCents, int quantity) {
+        return Math.multiplyExact(unitCents, (long) quantity);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method plus(a, b)
+    |
+    |  Returns: a + b, exactly.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long plus(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method percentOff(cents, ratePercent)
+    |
+    |  Purpose:  Applies a whole-percent discount (a Membership_Tier
+    |            discount_rate) and rounds to the nearest cent, halves away
+    |            from zero.
+    |
+    |  Parameters:
+    |      cents       -- Amount before the discount.
+    |      ratePercent -- Discount, 0 to 100.
+    |
+    |  Returns: The discounted amount in cents.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long percentOff(long cents, int ratePercent) {
+        if (ratePercent < 0 || ratePercent > 100) {
+            throw new IllegalArgumentException("discount rate out of range: " + ratePercent);
+        }
+        return divideHalfUp(Math.multiplyExact(cents, (long) (100 - ratePercent)), 100);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method fromDecimal(amount)
+    |
+    |  Purpose:  Converts a value read from a NUMBER column to cents, rounding
+    |            any third decimal place by the rule above.
+    |
+    |  Returns: The amount in cents (0 for null).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long fromDecimal(BigDecimal amount) {
+        if (amount == null) return 0;
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method toDecimal(cents)
+    |
+    |  Returns: The amount as a BigDecimal of scale 2, for binding a NUMBER
+    |           parameter.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method parse(text)
+    |
+    |  Purpose:  Reads an amount typed by the user, such as "50", "50.5",
+    |            "-3.25" or "1.005" (rounded to 1.01).
+    |
+    |  Returns: The amount in cents.
+    |
+    |  Throws: NumberFormatException if text is not a plain decimal number.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static long parse(String text) {
+        String s = text.trim();
+        int i = 0, n = s.length();
+        boolean negative = false;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long cents = 0;
+        int digits = 0, decimals = -1;     // decimals < 0 until the point is seen
+        boolean roundUp = false;
+        for (; i < n; i++) {
+            char ch = s.charAt(i);
+            if (ch == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (ch >= '0' && ch <= '9') {
+                digits++;
+                if (decimals < 0 || decimals < 2) {
+                    cents = Math.addExact(Math.multiplyExact(cents, 10L), ch - '0');
+                    if (decimals >= 0) decimals++;
+                } else if (decimals == 2) {
+                    roundUp = ch >= '5';       // first dropped digit decides
+                    decimals++;
+                }
+            } else {
+                throw new NumberFormatException("Not an amount: \"" + text + "\"");
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("Not an amount: \"" + text + "\"");
+
+        for (int d = Math.max(decimals, 0); d < 2; d++) cents = Math.multiplyExact(cents, 10L);
+        if (roundUp) cents = Math.addExact(cents, 1L);
+        return negative ? -cents : cents;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method format(cents)
+    |
+    |  Returns: The amount with two decimal places, e.g. "-3.05".
+    |
+    *-------------------------------------------------------------------*/
+
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        StringBuilder sb = new StringBuilder(24);
+        if (cents < 0) sb.append('-');
+        sb.append(abs / 100).append('.');
+        long frac = abs % 100;
+        if (frac < 10) sb.append('0');
+        return sb.append(frac).toString();
+    }
+
+    /* x / d rounded to the nearest integer, halves away from zero; d > 0. */
+    private static long divideHalfUp(long x, long d) {
+        long q = x / d, r = x % d;
+        if (Math.abs(r) * 2 >= d) q += x < 0 ? -1 : 1;
+        return q;
+    }
+}
@@ -0,0 +1,195 @@
+package petcafe;
+
+/*
+ * OrderCart.java -- Collects an order's line items in memory and writes the whole order in
+ *                   one transaction.
+ *
+ * createOrder used to insert the Customer_Order header at total 0, then the items, then
+ * read them back to compute the discounted total and update the header, each step in its own
+ * autocommit statement, so a failure part way left a half-built order behind. A cart prices
+ * each item from MenuCatalog as it is added (merging repeats, since Order_Item allows one
+ * row per item) and place() then does, in a single transaction:
+ *
+ *   1. one SELECT ... FOR UPDATE of the member row, which also reads the tier discount;
+ *      the lock keeps MemberRepository.delete from removing the member (and, by cascade,
+ *      this order) while the order is being written
+ *   2. for an order tied to a visit, SELECT ... FOR UPDATE of the reservation row, so
+ *      ReservationRepository.cancel cannot delete the visit (and, by cascade, this order)
+ *      while the order is being written
+ *   3. the header INSERT with the final, discounted total
+ *   4. one batched INSERT for all Order_Item rows
+ *   5. the Member_Activity_Summary update, then COMMIT
+ *
+ * so an order costs the same number of round trips however many items it has, and either
+ * all of it is committed or none of it is. Amounts are whole cents (see Money) until they
+ * are bound to the INSERTs.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OrderCart {
+
+    private static final class Line {
+        final int itemId;
+        final long unitCents;
+        int quantity;
+
+        Line(int itemId, long unitCents) {
+            this.itemId = itemId;
+            this.unitCents = unitCents;
+        }
+    }
+
+    // Locks the member row (see MemberRepository.lock) and reads the tier discount.
+    private static final String LOCK_MEMBER =
+            "SELECT (SELECT mt.discount_rate FROM Membership_Tier mt WHERE mt.tier_id = m.tier_id) " +
+                    "FROM Member m WHERE m.member_id = ? FOR UPDATE";
+
+    private static final String LOCK_RESERVATION =
+            "SELECT reservation_id FROM Reservation WHERE reservation_id = ? FOR UPDATE";
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO Customer_Order " +
+                    "(order_id, member_id, reservation_id, order_time, total_price, payment_status) " +
+                    "VALUES (?, ?, ?, SYSTIMESTAMP, ?, 'UNPAID')";
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO Order_Item (order_id, item_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+
+    private final int memberId;
+    private final Integer reservationId;
+    private final Map<Integer, Line> lines = new LinkedHashMap<>();   // in the order entered
+
+    private long totalCents = -1;   // set by place()
+
+    /*---------------------------------------------------------------------
+    |  Constructor OrderCart(memberId, reservationId)
+    |
+    |  Parameters:
+    |      memberId      -- Member placing the order.
+    |      reservationId -- Visit the order belongs to, or null.
+    |
+    *-------------------------------------------------------------------*/
+
+    public OrderCart(int memberId, Integer reservationId) {
+        this.memberId = memberId;
+        this.reservationId = reservationId;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method add(conn, itemId, quantity)
+    |
+    |  Purpose:  Adds quantity of a menu item at its current catalog price.
+    |            Adding an item again increases its quantity. Items marked
+    |            unavailable (is_available = 'N') are refused.
+    |
+    |  Parameters:
+    |      conn     -- Used only if the catalog needs reloading.
+    |      itemId   -- Menu item to add.
+    |      quantity -- How many (must be positive).
+    |
+    |  Returns: false if there is no such menu item or it is not available.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean add(Connection conn, int itemId, int quantity) throws SQLException {
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        Line line = lines.get(itemId);
+        if (line == null) {
+            long cents = MenuCatalog.orderablePriceCents(conn, itemId);
+            if (cents < 0) return false;
+            line = new Line(itemId, cents);
+            lines.put(itemId, line);
+        }
+        line.quantity += quantity;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /* Sum of quantity * unit price before any discount, in cents. */
+    public long subtotalCents() {
+        long sum = 0;
+        for (Line line : lines.values()) sum = Money.plus(sum, Money.times(line.unitCents, line.quantity));
+        return sum;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method place(conn)
+    |
+    |  Purpose:  Writes the order header and all of its items, with the
+    |            member's tier discount applied to the total, as one transaction.
+    |
+    |  Pre-condition:  conn is established correctly and in autocommit mode.
+    |
+    |  Post-condition: The whole order is committed, or nothing was changed.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |
+    |  Returns: The new order's id, or -1 if there is no such member.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int place(Connection conn) throws SQLException {
+        return DBUtil.inTransaction(conn, c -> {
+            Integer rate = null;
+            try (PreparedStatement ps = c.prepareStatement(LOCK_MEMBER)) {
+                ps.setInt(1, memberId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return -1;
+                    int r = rs.getInt(1);
+                    if (!rs.wasNull()) rate = r;
+                }
+            }
+            long orderTotal = rate == null ? subtotalCents() : Money.percentOff(subtotalCents(), rate);
+
+            if (reservationId != null) {
+                try (PreparedStatement ps = c.prepareStatement(LOCK_RESERVATION)) {
+                    ps.setInt(1, reservationId);
+                    ps.executeQuery().close();      // a missing visit fails the INSERT's foreign key
+                }
+            }
+
+            int orderId = IdAllocator.nextId(c, "Customer_Order", "order_id");
+            try (PreparedStatement ps = c.prepareStatement(INSERT_ORDER)) {
+                ps.setInt(1, orderId);
+                ps.setInt(2, memberId);
+                if (reservationId == null) ps.setNull(3, Types.INTEGER);
+                else ps.setInt(3, reservationId);
+                ps.setBigDecimal(4, Money.toDecimal(orderTotal));
+                ps.executeUpdate();
+            }
+
+            if (!lines.isEmpty()) {
+                try (PreparedStatement ps = c.prepareStatement(INSERT_ITEM)) {
+                    for (Line line : lines.values()) {
+                        ps.setInt(1, orderId);
+                        ps.setInt(2, line.itemId);
+                        ps.setInt(3, line.quantity);
+                        ps.setBigDecimal(4, Money.toDecimal(line.unitCents));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+
+            ActivitySummary.recordSpend(c, memberId, orderTotal);
+            totalCents = orderTotal;
+            return orderId;
+        });
+    }
+
+    /* The total in cents written by the last successful place(), or -1. */
+    public long totalCents() {
+        return totalCents;
+    }
+}
@@ -0,0 +1,172 @@
+package petcafe;
+
+/*
+ * OrderRepository.java -- Places, pays for, deletes and lists cafe orders.
+ *
+ * Orders are built in an OrderCart and written by place() in one transaction. See
+ * MemberRepository for how the repositories are used.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class OrderRepository {
+
+    /*
+     * One row of the order list.
+     */
+    public static final class Order {
+        public final int orderId;
+        public final int memberId;
+        public final long totalCents;
+        public final String paymentStatus;
+
+        Order(int orderId, int memberId, long totalCents, String paymentStatus) {
+            this.orderId = orderId;
+            this.memberId = memberId;
+            this.totalCents = totalCents;
+            this.paymentStatus = paymentStatus;
+        }
+    }
+
+    public enum DeleteStatus { DELETED, NO_SUCH_ORDER, NOT_UNPAID }
+
+    private final ConnectionSource source;
+
+    public OrderRepository(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method addItem(cart, itemId, quantity)
+    |
+    |  Purpose:  Adds a menu item to a cart at its catalog price (see
+    |            OrderCart.add); a connection is only taken if the catalog
+    |            needs reloading.
+    |
+    |  Returns: false if there is no such menu item or it is not available.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean addItem(OrderCart cart, int itemId, int quantity) throws SQLException {
+        try (Connection conn = source.get()) {
+            return cart.add(conn, itemId, quantity);
+        }
+    }
+
+    /* Name of a menu item, or null if there is no such item. */
+    public String itemName(int itemId) throws SQLException {
+        try (Connection conn = source.get()) {
+            return MenuCatalog.name(conn, itemId);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method updateMenuItem(itemId, priceCents, available)
+    |
+    |  Purpose:  Changes a menu item's price and/or availability and drops the
+    |            cached menu, so the next order in this process sees the change.
+    |
+    |  Parameters:
+    |      itemId     -- Menu item to change.
+    |      priceCents -- New base price in cents, or null to keep it.
+    |      available  -- New availability, or null to keep it.
+    |
+    |  Returns: false if there is no such menu item.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean updateMenuItem(int itemId, Long priceCents, Boolean available) throws SQLException {
+        String u = "UPDATE Menu_Item SET base_price = NVL(?, base_price), " +
+                "is_available = NVL(?, is_available) WHERE item_id = ?";
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(u)) {
+            if (priceCents == null) ps.setNull(1, Types.NUMERIC);
+            else ps.setBigDecimal(1, Money.toDecimal(priceCents));
+            if (available == null) ps.setNull(2, Types.CHAR);
+            else ps.setString(2, available ? "Y" : "N");
+            ps.setInt(3, itemId);
+            return ps.executeUpdate() > 0;
+        } finally {
+            MenuCatalog.invalidate();
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method place(cart)
+    |
+    |  Purpose:  Writes the cart's order (see OrderCart.place); the total is
+    |            then available from cart.totalCents().
+    |
+    |  Returns: The new order's id, or -1 if there is no such member.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int place(OrderCart cart) throws SQLException {
+        try (Connection conn = source.get()) {
+            return cart.place(conn);
+        }
+    }
+
+    /* Marks an order PAID; false if there is no such order. */
+    public boolean markPaid(int orderId) throws SQLException {
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(
+                     "UPDATE Customer_Order SET payment_status = 'PAID' WHERE order_id = ?")) {
+            ps.setInt(1, orderId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method delete(orderId)
+    |
+    |  Purpose:  Deletes an UNPAID order (one created in error) and takes its
+    |            total off the member's activity summary. The order row is
+    |            locked while it is checked, so it cannot be paid in between.
+    |
+    |  Returns: DELETED, or why the order was kept.
+    |
+    *-------------------------------------------------------------------*/
+
+    public DeleteStatus delete(int orderId) throws SQLException {
+        String q = "SELECT payment_status, member_id, total_price FROM Customer_Order " +
+                "WHERE order_id = ? FOR UPDATE";
+        try (Connection conn = source.get()) {
+            return DBUtil.inTransaction(conn, c -> {
+                int memberId;
+                long totalCents;
+                try (PreparedStatement ps = c.prepareStatement(q)) {
+                    ps.setInt(1, orderId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) return DeleteStatus.NO_SUCH_ORDER;
+                        if (!"UNPAID".equals(rs.getString(1))) return DeleteStatus.NOT_UNPAID;
+                        memberId = rs.getInt(2);
+                        totalCents = Money.fromDecimal(rs.getBigDecimal(3));
+                    }
+                }
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM Customer_Order WHERE order_id = ?")) {
+                    ps.setInt(1, orderId);
+                    ps.executeUpdate();
+                }
+                ActivitySummary.recordSpend(c, memberId, -totalCents);
+                return DeleteStatus.DELETED;
+            });
+        }
+    }
+
+    /* Orders in id order, a page at a time; null filters are skipped. */
+    public PageCursor<Order> list(String paymentStatus, Date from, Date to) {
+        KeysetPager pager = new KeysetPager("order_id, member_id, total_price, payment_status",
+                "Customer_Order", "order_id")
+                .filter("payment_status = ?", paymentStatus)
+                .filter("order_time >= ?", from)
+                .filter("order_time < ? + 1", to);
+        return new PageCursor<>(source, pager, rs -> new Order(rs.getInt("order_id"), rs.getInt("member_id"),
+                Money.fromDecimal(rs.getBigDecimal("total_price")), rs.getString("payment_status")));
+    }
+}
@@ -0,0 +1,49 @@
+package petcafe;
+
+/*
+ * PageCursor.java -- A KeysetPager that returns typed rows.
+ *
+ * The list operations of the repositories return one of these instead of a result set:
+ * each next() takes a connection from the repository's source, reads one page with the
+ * pager and maps its rows, so a caller can stop after any page and no connection is held
+ * while it decides. A cursor remembers its position and belongs to one caller at a time.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PageCursor<T> {
+
+    private final ConnectionSource source;
+    private final KeysetPager pager;
+    private final DBUtil.RowMapper<T> mapper;
+
+    PageCursor(ConnectionSource source, KeysetPager pager, DBUtil.RowMapper<T> mapper) {
+        this.source = source;
+        this.pager = pager;
+        this.mapper = mapper;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method next()
+    |
+    |  Pre-condition:  hasMore() is true.
+    |
+    |  Returns: The rows of the page after the last one read.
+    |
+    *-------------------------------------------------------------------*/
+
+    public List<T> next() throws SQLException {
+        List<T> page = new ArrayList<>();
+        try (Connection conn = source.get()) {
+            pager.nextPage(conn, rs -> page.add(mapper.map(rs)));
+        }
+        return page;
+    }
+
+    public boolean hasMore() {
+        return pager.hasMore();
+    }
+}
@@ -24,6 +24,19 @@ package petcafe;
  *
  *         java JDBC <oracle username> <oracle password>
  *
+ *   To run commands from a file (or stdin) instead of the menus, see BatchRunner:
+ *
+ *         java petcafe.PetCafeApp <oracle username> <oracle password> --batch [file|-] [--workers N]
+ *
+ *   To serve the same commands to many front-desk terminals over a socket until
+ *   interrupted, see SessionServer:
+ *
+ *         java petcafe.PetCafeApp <oracle username> <oracle password> --serve [port]
+ *
+ * The menus here only prompt and print; the SQL behind each option is in the repositories
+ * (MemberRepository, PetRepository, ... ReportService; see Repositories), which batch mode
+ * shares.
+ *
  * As of 12/7/2025 there are no known bugs. Each input checks that values are within bounds.
  * 
  * Author: Amirkhon Makhkamov
@@ -35,11 +48,20 @@ package petcafe;
  */
 
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 public class PetCafeApp {
 
@@ -49,11 +71,106 @@ public class PetCafeApp {
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     public static void main(String[] args) {
-        try (Connection conn = DBUtil.getConnection();
-             Scanner in = new Scanner(System.in)) {
+        List<String> credentials = new ArrayList<>();
+        boolean batch = false;
+        String batchFile = null;
+        int workers = BatchRunner.DEFAULT_WORKERS;
+        boolean serve = false;
+        int port = SessionServer.DEFAULT_PORT;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch")) {
+                batch = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) batchFile = args[++i];
+            } else if (args[i].equals("--serve")) {
+                serve = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--workers") && i + 1 < args.length) {
+                workers = Integer.parseInt(args[++i]);
+            } else {
+                credentials.add(args[i]);
+            }
+        }
+        if (credentials.size() == 2) {    // get username/password from cmd line args
+            DBUtil.configure(null, credentials.get(0), credentials.get(1));
+        }
+
+        boolean interactive = !batch && !serve;
+        int failed = 0;
+        try {
+            try (Connection conn = DBUtil.getConnection()) {
+                if (interactive) System.out.println("Welcome to the Pet Cafe Management System!");
+                SchemaCheck.verifyIndexes(conn);
+                MenuCatalog.load(conn);
+                RoomSchedule.warm(conn);
+            }
+            if (interactive) runMenus();
+
+            if (serve) serve(port);
+
+            if (batch) {
+                Reader input = batchFile == null || batchFile.equals("-")
+                        ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                        : new InputStreamReader(new FileInputStream(batchFile), StandardCharsets.UTF_8);
+                failed = BatchRunner.run(input, workers, System.out);
+            }
+
+            if (Boolean.getBoolean("petcafe.stats")) {
+                System.out.println("Connection pool: " + DBUtil.getPool().stats());
+            }
+
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            failed++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed++;
+        } finally {
+            DBUtil.shutdown();
+        }
+        if (batch && failed > 0) System.exit(1);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method serve(port)
+    |
+    |  Purpose:  Runs a SessionServer on port until the process is
+    |            interrupted (Ctrl-C or kill), then closes it, printing its
+    |            statistics if -Dpetcafe.stats=true.
+    |
+    *-------------------------------------------------------------------*/
+
+    private static void serve(int port) throws IOException, InterruptedException {
+        SessionServer server = SessionServer.start(port);
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                main.join(15_000);      // let main print the stats and close the pool
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "petcafe-shutdown"));
+        System.out.printf("Serving terminals on port %d (%s threads)%n", server.port(),
+                server.virtualThreads() ? "virtual" : "platform");
+        server.awaitClose();
+        if (Boolean.getBoolean("petcafe.stats")) server.printStats(System.out);
+    }
 
-            System.out.println("Welcome to the Pet Cafe Management System!");
+    /*---------------------------------------------------------------------
+    |  Method runMenus()
+    |
+    |  Purpose:  Shows the main menu until the user chooses to exit. The
+    |            menus read and write through repositories over the pool,
+    |            so a connection is held only while an operation runs, not
+    |            while the menu waits for the user.
+    |
+    |  Pre-condition:  DBUtil is configured for the database.
+    |
+    *-------------------------------------------------------------------*/
 
+    private static void runMenus() {
+        Repositories repo = new Repositories(ConnectionSource.pooled());
+        try (Scanner in = new Scanner(System.in)) {
             boolean running = true;
             while (running) {
                 System.out.println("\n-- Main Menu --");
@@ -70,25 +187,25 @@ public class PetCafeApp {
                 String choice = in.nextLine().trim();
                 switch (choice) {
                     case "1":
-                        memberMenu(conn, in);
+                        memberMenu(repo, in);
                         break;
                     case "2":
-                        petMenu(conn, in);
+                        petMenu(repo, in);
                         break;
                     case "3":
-                        reservationMenu(conn, in);
+                        reservationMenu(repo, in);
                         break;
                     case "4":
-                        orderMenu(conn, in);
+                        orderMenu(repo, in);
                         break;
                     case "5":
-                        eventMenu(conn, in);
+                        eventMenu(repo, in);
                         break;
                     case "6":
-                        healthMenu(conn, in);
+                        healthMenu(repo, in);
                         break;
                     case "7":
-                        reportsMenu(conn, in);
+                        reportsMenu(repo, in);
                         break;
                     case "0":
                         running = false;
@@ -97,42 +214,11 @@ public class PetCafeApp {
                         System.out.println("Invalid choice.");
                 }
             }
-
             System.out.println("Goodbye!");
-
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
     
-    /*---------------------------------------------------------------------
-    |  Method nextId(conn, table, col)
-    |
-    |  Purpose:  Takes in a table and finds its max id so that the next created one
-    |            is one higher than the previous max.
-    |
-    |  Pre-condition:  conn is established correctly. table is an existing table.
-    |
-    |  Post-condition: No exception is thrown when getting the results of the query
-    |
-    |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
-    |      table    -- Name of SQL table.
-    |      col      -- index that new id is found in
-    |
-    *-------------------------------------------------------------------*/
-
-    private static int nextId(Connection conn, String table, String col)
-            throws SQLException {
-        String sql = "SELECT NVL(MAX(" + col + "),0) + 1 FROM " + table;
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            rs.next();
-            return rs.getInt(1);
-        }
-    }
-
     /*---------------------------------------------------------------------
     |  Method readInt(in, prompt)
     |
@@ -201,6 +287,57 @@ public class PetCafeApp {
         return in.nextLine().trim();
     }
 
+    /*---------------------------------------------------------------------
+    |  Method readFilter(in, prompt)
+    |
+    |  Purpose:  Reads an optional status filter from the user's input.
+    |
+    |  Parameters:
+    |      in       -- The keyboard input scanner
+    |      prompt   -- The prompt asked for specific query.
+    |
+    |  Returns: The value upper-cased, or null if left blank.
+    |
+    *-------------------------------------------------------------------*/
+    private static String readFilter(Scanner in, String prompt) {
+        String s = readString(in, prompt).toUpperCase();
+        return s.isEmpty() ? null : s;
+    }
+
+    /* Blank answers to "(blank to keep)" prompts mean null to the repositories. */
+    private static String blankToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method printPages(in, cursor, printer)
+    |
+    |  Purpose:  Prints a list one page at a time, asking before each further
+    |            page, so long tables never have to be read in full.
+    |
+    |  Pre-condition:  Scanner is established correctly.
+    |
+    |  Parameters:
+    |      in       -- The keyboard input scanner
+    |      cursor   -- The list to page through.
+    |      printer  -- Prints one row.
+    |
+    *-------------------------------------------------------------------*/
+    private static <T> void printPages(Scanner in, PageCursor<T> cursor, Consumer<T> printer)
+            throws SQLException {
+        int total = 0;
+        while (cursor.hasMore()) {
+            List<T> page = cursor.next();
+            for (T row : page) printer.accept(row);
+            total += page.size();
+            if (cursor.hasMore()
+                    && readString(in, "-- " + total + " shown; Enter for more, q to stop: ").equalsIgnoreCase("q")) {
+                return;
+            }
+        }
+        if (total == 0) System.out.println("No rows found.");
+    }
+
     /*---------------------------------------------------------------------
     |  Method readDate(in, prompt)
     |
@@ -284,22 +421,22 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method memberMenu(conn, in)
+    |  Method memberMenu(repo, in)
     |
     |  Purpose:  Displays the options for interacting with member table including adding,
     |            updating, deleting, and displaying information.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void memberMenu(Connection conn, Scanner in) {
+    private static void memberMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Member Menu ---");
@@ -313,16 +450,16 @@ public class PetCafeApp {
             try {
                 switch (c) {
                     case "1":
-                        addMember(conn, in);
+                        addMember(repo, in);
                         break;
                     case "2":
-                        updateMember(conn, in);
+                        updateMember(repo, in);
                         break;
                     case "3":
-                        deleteMember(conn, in);
+                        deleteMember(repo, in);
                         break;
                     case "4":
-                        listMembers(conn);
+                        listMembers(repo, in);
                         break;
                     case "0":
                         back = true;
@@ -338,22 +475,21 @@ public class PetCafeApp {
 
 
     /*---------------------------------------------------------------------
-    |  Method addMember(conn, in)
+    |  Method addMember(repo, in)
     |
     |  Purpose:  Adds a new member to the member table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void addMember(Connection conn, Scanner in) throws SQLException {
-        int id = nextId(conn, "Member", "member_id");
+    private static void addMember(Repositories repo, Scanner in) throws SQLException {
         String name = readString(in, "Name: ");
         String phone = readString(in, "Phone (optional): ");
         if (phone.isEmpty()) phone = null;
@@ -364,168 +500,111 @@ public class PetCafeApp {
         if (emergency.isEmpty()) emergency = null;
         Integer tierId = readOptionalInt(in, "Tier ID");
 
-        String sql = "INSERT INTO Member " +
-                "(member_id, name, phone, email, date_of_birth, emergency_contact, tier_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ps.setString(2, name);
-            if (phone == null) ps.setNull(3, Types.VARCHAR);
-            else ps.setString(3, phone);
-            if (email == null) ps.setNull(4, Types.VARCHAR);
-            else ps.setString(4, email);
-            if (dob == null) ps.setNull(5, Types.DATE);
-            else ps.setDate(5, dob);
-            if (emergency == null) ps.setNull(6, Types.VARCHAR);
-            else ps.setString(6, emergency);
-            if (tierId == null) ps.setNull(7, Types.INTEGER);
-            else ps.setInt(7, tierId);
-            ps.executeUpdate();
-        }
+        int id = repo.members.insert(name, phone, email, dob, emergency, tierId);
         System.out.println("Member added with ID " + id);
     }
 
     /*---------------------------------------------------------------------
-    |  Method updateMember(conn, in)
+    |  Method updateMember(repo, in)
     |
     |  Purpose:  Updates an existing member in the member table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void updateMember(Connection conn, Scanner in) throws SQLException {
+    private static void updateMember(Repositories repo, Scanner in) throws SQLException {
         int id = readInt(in, "Member ID to update: ");
         String phone = readString(in, "New phone (blank to keep): ");
         String email = readString(in, "New email (blank to keep): ");
         Integer tierId = readOptionalInt(in, "New tier ID");
 
-        String sql = "UPDATE Member SET " +
-                "phone = NVL(?, phone), " +
-                "email = NVL(?, email), " +
-                "tier_id = NVL(?, tier_id) " +
-                "WHERE member_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            if (phone.isEmpty()) ps.setNull(1, Types.VARCHAR);
-            else ps.setString(1, phone);
-            if (email.isEmpty()) ps.setNull(2, Types.VARCHAR);
-            else ps.setString(2, email);
-            if (tierId == null) ps.setNull(3, Types.INTEGER);
-            else ps.setInt(3, tierId);
-            ps.setInt(4, id);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such member.");
-            else System.out.println("Member updated.");
+        if (!repo.members.update(id, blankToNull(phone), blankToNull(email), tierId)) {
+            System.out.println("No such member.");
+        } else {
+            System.out.println("Member updated.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method deleteMember(conn, in)
+    |  Method deleteMember(repo, in)
     |
     |  Purpose:  Deletes an existing member in the member table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void deleteMember(Connection conn, Scanner in) throws SQLException {
+    private static void deleteMember(Repositories repo, Scanner in) throws SQLException {
         int id = readInt(in, "Member ID to delete: ");
 
-        String q1 = "SELECT COUNT(*) FROM Reservation " +
-                "WHERE member_id = ? AND status IN ('BOOKED','IN_PROGRESS')";
-        String q2 = "SELECT COUNT(*) FROM Adoption_Application " +
-                "WHERE member_id = ? AND status = 'PENDING'";
-        String q3 = "SELECT COUNT(*) FROM Customer_Order " +
-                "WHERE member_id = ? AND payment_status <> 'PAID'";
-
-        try (PreparedStatement ps1 = conn.prepareStatement(q1);
-             PreparedStatement ps2 = conn.prepareStatement(q2);
-             PreparedStatement ps3 = conn.prepareStatement(q3)) {
-
-            ps1.setInt(1, id);
-            ps2.setInt(1, id);
-            ps3.setInt(1, id);
-            try (ResultSet r1 = ps1.executeQuery();
-                 ResultSet r2 = ps2.executeQuery();
-                 ResultSet r3 = ps3.executeQuery()) {
-                r1.next();
-                r2.next();
-                r3.next();
-                if (r1.getInt(1) > 0 || r2.getInt(1) > 0 || r3.getInt(1) > 0) {
-                    System.out.println("Cannot delete member: active reservations, " +
-                            "pending applications, or unpaid orders exist.");
-                    return;
-                }
-            }
-        }
-
-        String del = "DELETE FROM Member WHERE member_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(del)) {
-            ps.setInt(1, id);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such member.");
-            else System.out.println("Member and related records deleted.");
+        MemberRepository.Deletion result = repo.members.delete(id);
+        switch (result.status) {
+            case DELETED:
+                System.out.println("Member and related records deleted.");
+                printPromoted(result.promoted);
+                break;
+            case NO_SUCH_MEMBER:
+                System.out.println("No such member.");
+                break;
+            case IN_USE:
+                System.out.println("Cannot delete member: active reservations, " +
+                        "pending applications, or unpaid orders exist.");
+                break;
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method listMembers(conn)
+    |  Method listMembers(repo, in)
     |
-    |  Purpose:  Lists the information about all members in the member table.
+    |  Purpose:  Lists the information about all members in the member table,
+    |            one page at a time.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database.
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void listMembers(Connection conn) throws SQLException {
-        String sql = "SELECT member_id, name, phone, email, tier_id FROM Member ORDER BY member_id";
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
+    private static void listMembers(Repositories repo, Scanner in) throws SQLException {
+        printPages(in, repo.members.list(), m ->
                 System.out.printf("%d: %s, phone=%s, email=%s, tier=%s%n",
-                        rs.getInt("member_id"),
-                        rs.getString("name"),
-                        rs.getString("phone"),
-                        rs.getString("email"),
-                        rs.getString("tier_id"));
-            }
-        }
+                        m.memberId, m.name, m.phone, m.email, m.tierId));
     }
 
     /*---------------------------------------------------------------------
-    |  Method petMenu(conn, in)
+    |  Method petMenu(repo, in)
     |
     |  Purpose:  Displays the options for interacting with pet table including adding,
     |            updating, deleting, and displaying information.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void petMenu(Connection conn, Scanner in) {
+    private static void petMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Pets & Adoptions Menu ---");
@@ -543,28 +622,28 @@ public class PetCafeApp {
             try {
                 switch (c) {
                     case "1":
-                        addPet(conn, in);
+                        addPet(repo, in);
                         break;
                     case "2":
-                        updatePet(conn, in);
+                        updatePet(repo, in);
                         break;
                     case "3":
-                        deletePet(conn, in);
+                        deletePet(repo, in);
                         break;
                     case "4":
-                        addAdoptionApplication(conn, in);
+                        addAdoptionApplication(repo, in);
                         break;
                     case "5":
-                        updateAdoptionApplication(conn, in);
+                        updateAdoptionApplication(repo, in);
                         break;
                     case "6":
-                        deleteOrWithdrawAdoptionApplication(conn, in);
+                        deleteOrWithdrawAdoptionApplication(repo, in);
                         break;
                     case "7":
-                        recordAdoption(conn, in);
+                        recordAdoption(repo, in);
                         break;
                     case "8":
-                        listPets(conn);
+                        listPets(repo, in);
                         break;
                     case "0":
                         back = true;
@@ -579,22 +658,21 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method addPet(conn, in)
+    |  Method addPet(repo, in)
     |
     |  Purpose:  Adds a new pet to the pet table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void addPet(Connection conn, Scanner in) throws SQLException {
-        int id = nextId(conn, "Pet", "pet_id");
+    private static void addPet(Repositories repo, Scanner in) throws SQLException {
         String name = readString(in, "Pet name: ");
         String species = readString(in, "Species: ");
         String breed = readString(in, "Breed (optional): ");
@@ -609,295 +687,183 @@ public class PetCafeApp {
                 "Status (AVAILABLE, IN_CARE, AVAILABLE_FOR_ADOPTION, ADOPTED, DECEASED): ");
         Integer roomId = readOptionalInt(in, "Current room ID");
 
-        String sql = "INSERT INTO Pet " +
-                "(pet_id, name, species, breed, age, date_of_arrival, temperament," +
-                " special_needs, status, current_room_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ps.setString(2, name);
-            ps.setString(3, species);
-            if (breed == null) ps.setNull(4, Types.VARCHAR);
-            else ps.setString(4, breed);
-            if (age == null) ps.setNull(5, Types.INTEGER);
-            else ps.setInt(5, age);
-            ps.setDate(6, arrival);
-            if (temperament == null) ps.setNull(7, Types.VARCHAR);
-            else ps.setString(7, temperament);
-            if (special == null) ps.setNull(8, Types.VARCHAR);
-            else ps.setString(8, special);
-            ps.setString(9, status);
-            if (roomId == null) ps.setNull(10, Types.INTEGER);
-            else ps.setInt(10, roomId);
-            ps.executeUpdate();
-        }
+        int id = repo.pets.insert(name, species, breed, age, arrival, temperament, special, status, roomId);
         System.out.println("Pet added with ID " + id);
     }
 
     /*---------------------------------------------------------------------
-    |  Method updatePet(conn, in)
+    |  Method updatePet(repo, in)
     |
     |  Purpose:  Updates an existing pet in the pet table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void updatePet(Connection conn, Scanner in) throws SQLException {
+    private static void updatePet(Repositories repo, Scanner in) throws SQLException {
         int id = readInt(in, "Pet ID to update: ");
         String status = readString(in, "New status (blank to keep): ");
         String temperament = readString(in, "New temperament (blank to keep): ");
         Integer roomId = readOptionalInt(in, "New current room ID");
 
-        String sql = "UPDATE Pet SET " +
-                "status = NVL(?, status), " +
-                "temperament = NVL(?, temperament), " +
-                "current_room_id = NVL(?, current_room_id) " +
-                "WHERE pet_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            if (status.isEmpty()) ps.setNull(1, Types.VARCHAR);
-            else ps.setString(1, status);
-            if (temperament.isEmpty()) ps.setNull(2, Types.VARCHAR);
-            else ps.setString(2, temperament);
-            if (roomId == null) ps.setNull(3, Types.INTEGER);
-            else ps.setInt(3, roomId);
-            ps.setInt(4, id);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such pet.");
-            else System.out.println("Pet updated.");
+        if (!repo.pets.update(id, blankToNull(status), blankToNull(temperament), roomId)) {
+            System.out.println("No such pet.");
+        } else {
+            System.out.println("Pet updated.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method deletePet(conn, in)
+    |  Method deletePet(repo, in)
     |
     |  Purpose:  Deletes an existing pet in the pet table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void deletePet(Connection conn, Scanner in) throws SQLException {
+    private static void deletePet(Repositories repo, Scanner in) throws SQLException {
         int id = readInt(in, "Pet ID to delete: ");
 
-        String qStatus = "SELECT status FROM Pet WHERE pet_id = ?";
-        String status;
-        try (PreparedStatement ps = conn.prepareStatement(qStatus)) {
-            ps.setInt(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such pet.");
-                    return;
-                }
-                status = rs.getString(1);
-            }
-        }
-
-        if (!status.equals("ADOPTED") && !status.equals("DECEASED")) {
-            System.out.println("Pet can be deleted only if ADOPTED or DECEASED.");
-            return;
-        }
-
-        String qApps = "SELECT COUNT(*) FROM Adoption_Application " +
-                "WHERE pet_id = ? AND status = 'PENDING'";
-        String qHealth = "SELECT COUNT(*) FROM Health_Record " +
-                "WHERE pet_id = ? AND status = 'ACTIVE' " +
-                "AND (next_due_date IS NULL OR next_due_date >= TRUNC(SYSDATE))";
-        String qFollow = "SELECT COUNT(*) FROM Adoption " +
-                "WHERE pet_id = ? AND follow_up_schedule > TRUNC(SYSDATE)";
-
-        try (PreparedStatement ps1 = conn.prepareStatement(qApps);
-             PreparedStatement ps2 = conn.prepareStatement(qHealth);
-             PreparedStatement ps3 = conn.prepareStatement(qFollow)) {
-            ps1.setInt(1, id);
-            ps2.setInt(1, id);
-            ps3.setInt(1, id);
-            try (ResultSet r1 = ps1.executeQuery();
-                 ResultSet r2 = ps2.executeQuery();
-                 ResultSet r3 = ps3.executeQuery()) {
-                r1.next();
-                r2.next();
-                r3.next();
-                if (r1.getInt(1) > 0 || r2.getInt(1) > 0 || r3.getInt(1) > 0) {
-                    System.out.println("Cannot delete pet: pending applications, " +
-                            "active health records, or future follow-ups exist.");
-                    return;
-                }
-            }
-        }
-
-        String del = "DELETE FROM Pet WHERE pet_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(del)) {
-            ps.setInt(1, id);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such pet.");
-            else System.out.println("Pet and related records deleted.");
+        switch (repo.pets.delete(id)) {
+            case DELETED:
+                System.out.println("Pet and related records deleted.");
+                break;
+            case NO_SUCH_PET:
+                System.out.println("No such pet.");
+                break;
+            case NOT_FINAL:
+                System.out.println("Pet can be deleted only if ADOPTED or DECEASED.");
+                break;
+            case IN_USE:
+                System.out.println("Cannot delete pet: pending applications, " +
+                        "active health records, or future follow-ups exist.");
+                break;
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method listPets(conn)
+    |  Method listPets(repo, in)
     |
-    |  Purpose:  Lists the information about all pets in the pet table.
+    |  Purpose:  Lists the information about the pets in the pet table, one page
+    |            at a time, optionally filtered by status.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database.
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void listPets(Connection conn) throws SQLException {
-        String sql = "SELECT pet_id, name, species, status FROM Pet ORDER BY pet_id";
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                System.out.printf("%d: %s (%s), status=%s%n",
-                        rs.getInt("pet_id"),
-                        rs.getString("name"),
-                        rs.getString("species"),
-                        rs.getString("status"));
-            }
-        }
+    private static void listPets(Repositories repo, Scanner in) throws SQLException {
+        String status = readFilter(in, "Status filter (blank for all): ");
+        printPages(in, repo.pets.list(status), p ->
+                System.out.printf("%d: %s (%s), status=%s%n", p.petId, p.name, p.species, p.status));
     }
 
     /*---------------------------------------------------------------------
-    |  Method addAdoptionApplication(conn, in)
+    |  Method addAdoptionApplication(repo, in)
     |
     |  Purpose:  Adds a new adoption application to the adoption application table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void addAdoptionApplication(Connection conn, Scanner in) throws SQLException {
-        int appId = nextId(conn, "Adoption_Application", "application_id");
+    private static void addAdoptionApplication(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         int petId = readInt(in, "Pet ID: ");
         int staffId = readInt(in, "Assigned adoption coordinator staff ID: ");
 
-        String sql = "INSERT INTO Adoption_Application " +
-                "(application_id, member_id, pet_id, submitted_date, status, reviewed_by) " +
-                "VALUES (?, ?, ?, TRUNC(SYSDATE), 'PENDING', ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, appId);
-            ps.setInt(2, memberId);
-            ps.setInt(3, petId);
-            ps.setInt(4, staffId);
-            ps.executeUpdate();
-        }
+        int appId = repo.pets.addApplication(memberId, petId, staffId);
         System.out.println("Adoption application created with ID " + appId);
     }
 
     /*---------------------------------------------------------------------
-    |  Method updateAdoptionApplication(conn, in)
+    |  Method updateAdoptionApplication(repo, in)
     |
     |  Purpose:  Updates an existing adoption application in the adoption application table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void updateAdoptionApplication(Connection conn, Scanner in) throws SQLException {
+    private static void updateAdoptionApplication(Repositories repo, Scanner in) throws SQLException {
         int appId = readInt(in, "Application ID to update: ");
         String status = readString(in, "New status (PENDING, APPROVED, REJECTED, WITHDRAWN): ");
         String notes = readString(in, "Notes (optional): ");
-        if (notes.isEmpty()) notes = null;
 
-        String sql = "UPDATE Adoption_Application SET status = ?, review_date = TRUNC(SYSDATE), " +
-                "notes = ? WHERE application_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            if (notes == null) ps.setNull(2, Types.VARCHAR);
-            else ps.setString(2, notes);
-            ps.setInt(3, appId);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such application.");
-            else System.out.println("Application updated.");
+        if (!repo.pets.reviewApplication(appId, status, blankToNull(notes))) {
+            System.out.println("No such application.");
+        } else {
+            System.out.println("Application updated.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method deleteAdoptionApplication(conn, in)
+    |  Method deleteAdoptionApplication(repo, in)
     |
     |  Purpose:  Deletes an existing adoption application in the adoption application table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void deleteOrWithdrawAdoptionApplication(Connection conn, Scanner in)
+    private static void deleteOrWithdrawAdoptionApplication(Repositories repo, Scanner in)
             throws SQLException {
         int appId = readInt(in, "Application ID: ");
 
-        String q = "SELECT review_date, status FROM Adoption_Application WHERE application_id = ?";
-        Date reviewDate;
-        String status;
-        try (PreparedStatement ps = conn.prepareStatement(q)) {
-            ps.setInt(1, appId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such application.");
-                    return;
-                }
-                reviewDate = rs.getDate("review_date");
-                status = rs.getString("status");
-            }
+        PetRepository.Application app = repo.pets.findApplication(appId);
+        if (app == null) {
+            System.out.println("No such application.");
+            return;
         }
 
-        if (reviewDate == null) {
+        if (app.reviewDate == null) {
             String confirm = readString(in,
                     "No review has begun. Delete application as 'submitted in error'? (y/n): ");
             if (confirm.equalsIgnoreCase("y")) {
-                String del = "DELETE FROM Adoption_Application WHERE application_id = ?";
-                try (PreparedStatement ps = conn.prepareStatement(del)) {
-                    ps.setInt(1, appId);
-                    ps.executeUpdate();
-                }
+                repo.pets.deleteApplication(appId);
                 System.out.println("Application deleted.");
             } else {
                 System.out.println("Aborted.");
             }
         } else {
-            if (!status.equals("WITHDRAWN")) {
-                String upd = "UPDATE Adoption_Application SET status = 'WITHDRAWN' " +
-                        "WHERE application_id = ?";
-                try (PreparedStatement ps = conn.prepareStatement(upd)) {
-                    ps.setInt(1, appId);
-                    ps.executeUpdate();
-                }
+            if (!app.status.equals("WITHDRAWN")) {
+                repo.pets.withdrawApplication(appId);
                 System.out.println("Application marked as WITHDRAWN.");
             } else {
                 System.out.println("Application is already WITHDRAWN.");
@@ -907,91 +873,57 @@ public class PetCafeApp {
 
     
     /*---------------------------------------------------------------------
-    |  Method recordAdoption(conn, in)
+    |  Method recordAdoption(repo, in)
     |
     |  Purpose:  Creates entry in Adoption table if application is approved
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void recordAdoption(Connection conn, Scanner in) throws SQLException {
+    private static void recordAdoption(Repositories repo, Scanner in) throws SQLException {
         int appId = readInt(in, "Approved application ID: ");
 
-        String q = "SELECT member_id, pet_id, status FROM Adoption_Application " +
-                "WHERE application_id = ?";
-        int memberId, petId;
-        String status;
-        try (PreparedStatement ps = conn.prepareStatement(q)) {
-            ps.setInt(1, appId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such application.");
-                    return;
-                }
-                memberId = rs.getInt("member_id");
-                petId = rs.getInt("pet_id");
-                status = rs.getString("status");
-            }
+        PetRepository.Application app = repo.pets.findApplication(appId);
+        if (app == null) {
+            System.out.println("No such application.");
+            return;
         }
-
-        if (!"APPROVED".equals(status)) {
+        if (!"APPROVED".equals(app.status)) {
             System.out.println("Application is not APPROVED.");
             return;
         }
 
-        int adoptionId = nextId(conn, "Adoption", "adoption_id");
-        double fee = Double.parseDouble(
-                readString(in, "Adoption fee (e.g., 50.00): "));
+        long feeCents = Money.parse(readString(in, "Adoption fee (e.g., 50.00): "));
         Date followUp = readOptionalDate(in, "Follow-up date");
 
-        String ins = "INSERT INTO Adoption " +
-                "(adoption_id, application_id, pet_id, member_id, adoption_date," +
-                " adoption_fee, follow_up_schedule) " +
-                "VALUES (?, ?, ?, ?, TRUNC(SYSDATE), ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(ins)) {
-            ps.setInt(1, adoptionId);
-            ps.setInt(2, appId);
-            ps.setInt(3, petId);
-            ps.setInt(4, memberId);
-            ps.setDouble(5, fee);
-            if (followUp == null) ps.setNull(6, Types.DATE);
-            else ps.setDate(6, followUp);
-            ps.executeUpdate();
-        }
-
-        String updPet = "UPDATE Pet SET status = 'ADOPTED' WHERE pet_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(updPet)) {
-            ps.setInt(1, petId);
-            ps.executeUpdate();
-        }
-
+        int adoptionId = repo.pets.recordAdoption(app, feeCents, followUp);
         System.out.println("Adoption recorded with ID " + adoptionId);
     }
 
     /*---------------------------------------------------------------------
-    |  Method reservationMenu(conn, in)
+    |  Method reservationMenu(repo, in)
     |
     |  Purpose:  Displays the options for interacting with reservation table including adding,
     |            updating, deleting, and displaying information.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void reservationMenu(Connection conn, Scanner in) {
+    private static void reservationMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Reservation Menu ---");
@@ -999,22 +931,26 @@ public class PetCafeApp {
             System.out.println("2. Update status / check-out");
             System.out.println("3. Cancel reservation");
             System.out.println("4. List reservations");
+            System.out.println("5. Find available rooms");
             System.out.println("0. Back");
             System.out.print("Choice: ");
             String c = in.nextLine().trim();
             try {
                 switch (c) {
                     case "1":
-                        addReservation(conn, in);
+                        addReservation(repo, in);
                         break;
                     case "2":
-                        updateReservationStatus(conn, in);
+                        updateReservationStatus(repo, in);
                         break;
                     case "3":
-                        cancelReservation(conn, in);
+                        cancelReservation(repo, in);
                         break;
                     case "4":
-                        listReservations(conn);
+                        listReservations(repo, in);
+                        break;
+                    case "5":
+                        findAvailableRooms(repo, in);
                         break;
                     case "0":
                         back = true;
@@ -1029,22 +965,21 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method addReservation(conn, in)
+    |  Method addReservation(repo, in)
     |
     |  Purpose:  Adds a new reservation to the reservation table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void addReservation(Connection conn, Scanner in) throws SQLException {
-        int resId = nextId(conn, "Reservation", "reservation_id");
+    private static void addReservation(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         int roomId = readInt(in, "Room ID: ");
         Date date = readDate(in, "Reservation date");
@@ -1052,211 +987,204 @@ public class PetCafeApp {
         int duration = readInt(in, "Duration minutes (60-120): ");
         Integer tierId = readOptionalInt(in, "Tier ID at time of visit (blank to use member's current tier)");
 
-        if (tierId == null) {
-            String q = "SELECT tier_id FROM Member WHERE member_id = ?";
-            try (PreparedStatement ps = conn.prepareStatement(q)) {
-                ps.setInt(1, memberId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        int t = rs.getInt(1);
-                        if (!rs.wasNull()) tierId = t;
-                    }
-                }
-            }
+        bookReservation(repo, memberId, roomId, date, start, duration, tierId);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method bookReservation(repo, memberId, roomId, date, start, duration, tierId)
+    |
+    |  Purpose:  Books a reservation (see ReservationRepository.book) and
+    |            reports the result.
+    |
+    |  Pre-condition:  repo is established correctly.
+    |
+    |  Parameters:
+    |      repo     -- The repositories to work through.
+    |      memberId, roomId, date, start, duration -- The reservation.
+    |      tierId   -- Tier at time of visit, or null for the member's current tier.
+    |
+    *-------------------------------------------------------------------*/
+
+    private static void bookReservation(Repositories repo, int memberId, int roomId, Date date,
+                                        Timestamp start, int duration, Integer tierId) throws SQLException {
+        ReservationRepository.Booking booking =
+                repo.reservations.book(memberId, roomId, date, start, duration, tierId);
+        switch (booking.outcome) {
+            case NO_SUCH_ROOM:
+                System.out.println("No such room.");
+                break;
+            case ROOM_FULL:
+                System.out.println("Room is at capacity for that time.");
+                break;
+            default:
+                System.out.println("Reservation created with ID " + booking.reservationId);
+                break;
         }
+    }
 
-        int maxCap;
-        String qCap = "SELECT max_capacity FROM Room WHERE room_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(qCap)) {
-            ps.setInt(1, roomId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such room.");
-                    return;
-                }
-                maxCap = rs.getInt(1);
-            }
+    /*---------------------------------------------------------------------
+    |  Method findAvailableRooms(repo, in)
+    |
+    |  Purpose:  Shows every room and start time with space for a party on a
+    |            given day, then optionally books one of them.
+    |
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
+    |
+    |  Parameters:
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
+    |
+    *-------------------------------------------------------------------*/
+
+    private static void findAvailableRooms(Repositories repo, Scanner in) throws SQLException {
+        Date date = readDate(in, "Date");
+        int duration = readInt(in, "Duration minutes (60-120): ");
+        Integer party = readOptionalInt(in, "Party size");
+        String type = readString(in, "Room type (blank for any): ");
+        String area = readString(in, "Adoption area only? (y/n, blank for any): ");
+
+        List<RoomSchedule.Availability> slots = repo.reservations.availability(date, duration,
+                party == null ? 1 : party,
+                blankToNull(type),
+                area.isEmpty() ? null : area.equalsIgnoreCase("y"),
+                true);
+        if (slots.isEmpty()) {
+            System.out.println("No rooms available.");
+            return;
         }
 
-        String qOverlap =
-                "SELECT COUNT(*) FROM Reservation " +
-                        "WHERE room_id = ? " +
-                        "AND reservation_date = ? " +
-                        "AND status IN ('BOOKED','IN_PROGRESS') " +
-                        "AND (start_time < ? + NUMTODSINTERVAL(?, 'MINUTE') " +
-                        "AND start_time + NUMTODSINTERVAL(duration_minutes, 'MINUTE') > ?)";
-
-        try (PreparedStatement ps = conn.prepareStatement(qOverlap)) {
-            ps.setInt(1, roomId);
-            ps.setDate(2, date);
-            ps.setTimestamp(3, start);
-            ps.setInt(4, duration);
-            ps.setTimestamp(5, start);
-            try (ResultSet rs = ps.executeQuery()) {
-                rs.next();
-                int count = rs.getInt(1);
-                if (count >= maxCap) {
-                    System.out.println("Room is at capacity for that time.");
-                    return;
-                }
+        RoomSchedule.Room current = null;
+        for (RoomSchedule.Availability a : slots) {
+            if (a.room != current) {
+                if (current != null) System.out.println();
+                current = a.room;
+                System.out.printf("Room %d: %s (%s, capacity %d)%n  ",
+                        current.roomId, current.name, current.type, current.capacity);
             }
+            System.out.printf("%02d:%02d[%d] ", a.startMinute / 60, a.startMinute % 60, a.remaining);
         }
+        System.out.println();
 
-        String ins = "INSERT INTO Reservation " +
-                "(reservation_id, member_id, room_id, reservation_date, start_time," +
-                " duration_minutes, status, tier_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, 'BOOKED', ?)";
-        try (PreparedStatement ps = conn.prepareStatement(ins)) {
-            ps.setInt(1, resId);
-            ps.setInt(2, memberId);
-            ps.setInt(3, roomId);
-            ps.setDate(4, date);
-            ps.setTimestamp(5, start);
-            ps.setInt(6, duration);
-            if (tierId == null) ps.setNull(7, Types.INTEGER);
-            else ps.setInt(7, tierId);
-            ps.executeUpdate();
+        Integer roomId = readOptionalInt(in, "Room ID to book");
+        if (roomId == null) return;
+        LocalDate day = date.toLocalDate();
+        Timestamp start;
+        while (true) {
+            String hhmm = readString(in, "Start time (HH:mm): ");
+            try {
+                start = Timestamp.valueOf(day.atTime(LocalTime.parse(hhmm)));
+                break;
+            } catch (Exception e) {
+                System.out.println("Invalid time format.");
+            }
         }
-        System.out.println("Reservation created with ID " + resId);
+        int memberId = readInt(in, "Member ID: ");
+        bookReservation(repo, memberId, roomId, date, start, duration, null);
     }
 
     /*---------------------------------------------------------------------
-    |  Method updateReservation(conn, in)
+    |  Method updateReservation(repo, in)
     |
     |  Purpose:  Updates an existing reservation in the reservation table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void updateReservationStatus(Connection conn, Scanner in) throws SQLException {
+    private static void updateReservationStatus(Repositories repo, Scanner in) throws SQLException {
         int resId = readInt(in, "Reservation ID: ");
         String status = readString(in, "New status (BOOKED, IN_PROGRESS, COMPLETED, CANCELLED): ");
         String setCheckout = readString(in, "Set check-out time to now? (y/n): ");
 
-        String sql = "UPDATE Reservation SET status = ?, " +
-                "check_out_time = CASE WHEN ? = 'Y' THEN SYSTIMESTAMP ELSE check_out_time END " +
-                "WHERE reservation_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setString(2, setCheckout.equalsIgnoreCase("y") ? "Y" : "N");
-            ps.setInt(3, resId);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such reservation.");
-            else System.out.println("Reservation updated.");
+        if (!repo.reservations.updateStatus(resId, status, setCheckout.equalsIgnoreCase("y"))) {
+            System.out.println("No such reservation.");
+        } else {
+            System.out.println("Reservation updated.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method cancelReservation(conn, in)
+    |  Method cancelReservation(repo, in)
     |
     |  Purpose:  Deletes an existing reservation in the reservation table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void cancelReservation(Connection conn, Scanner in) throws SQLException {
+    private static void cancelReservation(Repositories repo, Scanner in) throws SQLException {
         int resId = readInt(in, "Reservation ID to cancel: ");
 
-        String q = "SELECT start_time FROM Reservation WHERE reservation_id = ?";
-        Timestamp start;
-        try (PreparedStatement ps = conn.prepareStatement(q)) {
-            ps.setInt(1, resId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such reservation.");
-                    return;
-                }
-                start = rs.getTimestamp(1);
-            }
-        }
-
-        Timestamp now = new Timestamp(System.currentTimeMillis());
-        if (!now.before(start)) {
-            System.out.println("Cannot cancel past or ongoing reservation.");
-            return;
-        }
-
-        String qOrders = "SELECT COUNT(*) FROM Customer_Order WHERE reservation_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(qOrders)) {
-            ps.setInt(1, resId);
-            try (ResultSet rs = ps.executeQuery()) {
-                rs.next();
-                if (rs.getInt(1) > 0) {
-                    System.out.println("Cannot cancel: orders exist for this reservation.");
-                    return;
-                }
-            }
+        switch (repo.reservations.cancel(resId)) {
+            case CANCELLED:
+                System.out.println("Reservation cancelled and deleted.");
+                break;
+            case NO_SUCH_RESERVATION:
+                System.out.println("No such reservation.");
+                break;
+            case ALREADY_STARTED:
+                System.out.println("Cannot cancel past or ongoing reservation.");
+                break;
+            case HAS_ORDERS:
+                System.out.println("Cannot cancel: orders exist for this reservation.");
+                break;
         }
-
-        String del = "DELETE FROM Reservation WHERE reservation_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(del)) {
-            ps.setInt(1, resId);
-            ps.executeUpdate();
-        }
-        System.out.println("Reservation cancelled and deleted.");
     }
 
     /*---------------------------------------------------------------------
-    |  Method listReservations(conn)
+    |  Method listReservations(repo, in)
     |
-    |  Purpose:  Lists the information about all reservations in the reservation table.
+    |  Purpose:  Lists the information about the reservations in the reservation
+    |            table, one page at a time, optionally filtered by status and date.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database.
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void listReservations(Connection conn) throws SQLException {
-        String sql = "SELECT reservation_id, member_id, room_id, reservation_date, " +
-                "start_time, status FROM Reservation ORDER BY reservation_id";
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
+    private static void listReservations(Repositories repo, Scanner in) throws SQLException {
+        String status = readFilter(in, "Status filter (blank for all): ");
+        Date from = readOptionalDate(in, "From date");
+        Date to = readOptionalDate(in, "To date");
+        printPages(in, repo.reservations.list(status, from, to), r ->
                 System.out.printf("%d: member=%d room=%d date=%s status=%s%n",
-                        rs.getInt("reservation_id"),
-                        rs.getInt("member_id"),
-                        rs.getInt("room_id"),
-                        rs.getDate("reservation_date"),
-                        rs.getString("status"));
-            }
-        }
+                        r.reservationId, r.memberId, r.roomId, r.reservationDate, r.status));
     }
 
     /*---------------------------------------------------------------------
-    |  Method orderMenu(conn, in)
+    |  Method orderMenu(repo, in)
     |
     |  Purpose:  Displays the options for interacting with order table including adding,
     |            updating, deleting, and displaying information.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void orderMenu(Connection conn, Scanner in) {
+    private static void orderMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Order Menu ---");
@@ -1264,22 +1192,26 @@ public class PetCafeApp {
             System.out.println("2. Mark order paid");
             System.out.println("3. Delete order");
             System.out.println("4. List orders");
+            System.out.println("5. Change menu item price/availability");
             System.out.println("0. Back");
             System.out.print("Choice: ");
             String c = in.nextLine().trim();
             try {
                 switch (c) {
                     case "1":
-                        createOrder(conn, in);
+                        createOrder(repo, in);
                         break;
                     case "2":
-                        markOrderPaid(conn, in);
+                        markOrderPaid(repo, in);
                         break;
                     case "3":
-                        deleteOrder(conn, in);
+                        deleteOrder(repo, in);
                         break;
                     case "4":
-                        listOrders(conn);
+                        listOrders(repo, in);
+                        break;
+                    case "5":
+                        updateMenuItem(repo, in);
                         break;
                     case "0":
                         back = true;
@@ -1294,239 +1226,182 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method createOrder(conn, in)
+    |  Method createOrder(repo, in)
     |
-    |  Purpose:  Adds a new order to the order table.
+    |  Purpose:  Adds a new order to the order table. Items are collected in an
+    |            OrderCart and the whole order is written in one transaction.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void createOrder(Connection conn, Scanner in) throws SQLException {
-        int orderId = nextId(conn, "Customer_Order", "order_id");
+    private static void createOrder(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         Integer resId = readOptionalInt(in, "Reservation ID (optional)");
 
-        String ins = "INSERT INTO Customer_Order " +
-                "(order_id, member_id, reservation_id, order_time, total_price, payment_status) " +
-                "VALUES (?, ?, ?, SYSTIMESTAMP, 0, 'UNPAID')";
-        try (PreparedStatement ps = conn.prepareStatement(ins)) {
-            ps.setInt(1, orderId);
-            ps.setInt(2, memberId);
-            if (resId == null) ps.setNull(3, Types.INTEGER);
-            else ps.setInt(3, resId);
-            ps.executeUpdate();
-        }
-
+        OrderCart cart = new OrderCart(memberId, resId);
         while (true) {
             Integer itemId = readOptionalInt(in, "Menu item ID to add (blank to finish): ");
             if (itemId == null) break;
-            int qty = readInt(in, "Quantity: ");
-
-            String qPrice = "SELECT base_price FROM Menu_Item WHERE item_id = ?";
-            double unitPrice;
-            try (PreparedStatement ps = conn.prepareStatement(qPrice)) {
-                ps.setInt(1, itemId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) {
-                        System.out.println("No such menu item.");
-                        continue;
-                    }
-                    unitPrice = rs.getDouble(1);
-                }
+            String name = repo.orders.itemName(itemId);
+            if (name == null) {
+                System.out.println("No such menu item.");
+                continue;
             }
-
-            String insItem = "INSERT INTO Order_Item " +
-                    "(order_id, item_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement ps = conn.prepareStatement(insItem)) {
-                ps.setInt(1, orderId);
-                ps.setInt(2, itemId);
-                ps.setInt(3, qty);
-                ps.setDouble(4, unitPrice);
-                ps.executeUpdate();
+            int qty = readInt(in, "Quantity: ");
+            if (qty <= 0) {
+                System.out.println("Quantity must be positive.");
+                continue;
             }
-            System.out.println("Item added.");
+            if (repo.orders.addItem(cart, itemId, qty)) System.out.println("Added " + name + ".");
+            else System.out.println(name + " is not available.");
         }
 
-        finalizeOrderTotal(conn, orderId);
-        System.out.println("Order created with ID " + orderId);
+        int orderId = repo.orders.place(cart);
+        if (orderId < 0) {
+            System.out.println("No such member.");
+            return;
+        }
+        System.out.println("Order created with ID " + orderId + ", total " + Money.format(cart.totalCents()));
     }
 
     /*---------------------------------------------------------------------
-    |  Method finalizeOrderTotal(conn, in)
+    |  Method markOrderPaid(repo, in)
     |
-    |  Purpose:  Updates order totals to reflect discounts.
+    |  Purpose:  Updates an existing order in the order table to be set to paid.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
-
-    private static void finalizeOrderTotal(Connection conn, int orderId) throws SQLException {
-        String qBase = "SELECT SUM(quantity * unit_price) " +
-                "FROM Order_Item WHERE order_id = ?";
-        double baseTotal = 0.0;
-        try (PreparedStatement ps = conn.prepareStatement(qBase)) {
-            ps.setInt(1, orderId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) baseTotal = rs.getDouble(1);
-            }
-        }
-
-        String qTier =
-                "SELECT mt.discount_rate " +
-                        "FROM Customer_Order co " +
-                        "JOIN Member m ON co.member_id = m.member_id " +
-                        "JOIN Membership_Tier mt ON m.tier_id = mt.tier_id " +
-                        "WHERE co.order_id = ?";
-        Double discountRate = null;
-        try (PreparedStatement ps = conn.prepareStatement(qTier)) {
-            ps.setInt(1, orderId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) discountRate = rs.getDouble(1);
-            }
-        }
-
-        double finalTotal = baseTotal;
-        if (discountRate != null) {
-            finalTotal = baseTotal * (1.0 - discountRate / 100.0);
-        }
-
-        String upd = "UPDATE Customer_Order SET total_price = ?, payment_status = 'UNPAID' " +
-                "WHERE order_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(upd)) {
-            ps.setDouble(1, finalTotal);
-            ps.setInt(2, orderId);
-            ps.executeUpdate();
-        }
+    
+    private static void markOrderPaid(Repositories repo, Scanner in) throws SQLException {
+        int orderId = readInt(in, "Order ID to mark PAID: ");
+        if (!repo.orders.markPaid(orderId)) System.out.println("No such order.");
+        else System.out.println("Order marked as PAID.");
     }
 
     /*---------------------------------------------------------------------
-    |  Method markOrderPaid(conn, in)
+    |  Method updateMenuItem(repo, in)
     |
-    |  Purpose:  Updates an existing order in the order table to be set to paid.
+    |  Purpose:  Changes a menu item's base price and/or availability. A blank
+    |            answer keeps the current value.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
-    
-    private static void markOrderPaid(Connection conn, Scanner in) throws SQLException {
-        int orderId = readInt(in, "Order ID to mark PAID: ");
-        String sql = "UPDATE Customer_Order SET payment_status = 'PAID' WHERE order_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, orderId);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such order.");
-            else System.out.println("Order marked as PAID.");
+
+    private static void updateMenuItem(Repositories repo, Scanner in) throws SQLException {
+        int itemId = readInt(in, "Menu item ID: ");
+        String price = readString(in, "New base price (e.g., 4.50, blank to keep): ");
+        String available = readString(in, "Available? (Y/N, blank to keep): ").toUpperCase();
+        if (!available.isEmpty() && !available.equals("Y") && !available.equals("N")) {
+            System.out.println("Please answer Y or N.");
+            return;
+        }
+        Long priceCents;
+        try {
+            priceCents = price.isEmpty() ? null : Money.parse(price);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid price: " + price);
+            return;
+        }
+        if (!repo.orders.updateMenuItem(itemId, priceCents, available.isEmpty() ? null : available.equals("Y"))) {
+            System.out.println("No such menu item.");
+        } else {
+            System.out.println("Menu item updated.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method deleteOrder(conn, in)
+    |  Method deleteOrder(repo, in)
     |
     |  Purpose:  Deletes an existing order in the order table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void deleteOrder(Connection conn, Scanner in) throws SQLException {
+    private static void deleteOrder(Repositories repo, Scanner in) throws SQLException {
         int orderId = readInt(in, "Order ID to delete: ");
-        String q = "SELECT payment_status FROM Customer_Order WHERE order_id = ?";
-        String status;
-        try (PreparedStatement ps = conn.prepareStatement(q)) {
-            ps.setInt(1, orderId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such order.");
-                    return;
-                }
-                status = rs.getString(1);
-            }
-        }
-
-        if (!"UNPAID".equals(status)) {
-            System.out.println("Order can be deleted only if UNPAID (created in error).");
-            return;
-        }
-
-        String delOrder = "DELETE FROM Customer_Order WHERE order_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(delOrder)) {
-            ps.setInt(1, orderId);
-            ps.executeUpdate();
+        switch (repo.orders.delete(orderId)) {
+            case DELETED:
+                System.out.println("Order deleted.");
+                break;
+            case NO_SUCH_ORDER:
+                System.out.println("No such order.");
+                break;
+            case NOT_UNPAID:
+                System.out.println("Order can be deleted only if UNPAID (created in error).");
+                break;
         }
-        System.out.println("Order deleted.");
     }
 
     /*---------------------------------------------------------------------
-    |  Method listOrders(conn)
+    |  Method listOrders(repo, in)
     |
-    |  Purpose:  Lists the information about all orders in the order table.
+    |  Purpose:  Lists the information about the orders in the order table, one
+    |            page at a time, optionally filtered by payment status and date.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database.
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void listOrders(Connection conn) throws SQLException {
-        String sql = "SELECT order_id, member_id, total_price, payment_status " +
-                "FROM Customer_Order ORDER BY order_id";
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                System.out.printf("%d: member=%d total=%.2f status=%s%n",
-                        rs.getInt("order_id"),
-                        rs.getInt("member_id"),
-                        rs.getDouble("total_price"),
-                        rs.getString("payment_status"));
-            }
-        }
+    private static void listOrders(Repositories repo, Scanner in) throws SQLException {
+        String status = readFilter(in, "Payment status filter (blank for all): ");
+        Date from = readOptionalDate(in, "From date");
+        Date to = readOptionalDate(in, "To date");
+        printPages(in, repo.orders.list(status, from, to), o ->
+                System.out.printf("%d: member=%d total=%s status=%s%n",
+                        o.orderId, o.memberId, Money.format(o.totalCents), o.paymentStatus));
     }
 
     /*---------------------------------------------------------------------
-    |  Method eventMenu(conn, in)
+    |  Method eventMenu(repo, in)
     |
     |  Purpose:  Displays the options for interacting with event table including adding,
     |            updating, deleting, and displaying information.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void eventMenu(Connection conn, Scanner in) {
+    private static void eventMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Events Menu ---");
@@ -1542,22 +1417,22 @@ public class PetCafeApp {
             try {
                 switch (c) {
                     case "1":
-                        addEvent(conn, in);
+                        addEvent(repo, in);
                         break;
                     case "2":
-                        registerForEvent(conn, in);
+                        registerForEvent(repo, in);
                         break;
                     case "3":
-                        updateEventAttendance(conn, in);
+                        updateEventAttendance(repo, in);
                         break;
                     case "4":
-                        updateEventPaymentStatus(conn, in);
+                        updateEventPaymentStatus(repo, in);
                         break;
                     case "5":
-                        deleteEventRegistration(conn, in);
+                        deleteEventRegistration(repo, in);
                         break;
                     case "6":
-                        listEvents(conn);
+                        listEvents(repo);
                         break;
                     case "0":
                         back = true;
@@ -1572,22 +1447,21 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method addEvent(conn, in)
+    |  Method addEvent(repo, in)
     |
     |  Purpose:  Adds a new event to the event table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void addEvent(Connection conn, Scanner in) throws SQLException {
-        int id = nextId(conn, "Event", "event_id");
+    private static void addEvent(Repositories repo, Scanner in) throws SQLException {
         String title = readString(in, "Title: ");
         String desc = readString(in, "Description (optional): ");
         if (desc.isEmpty()) desc = null;
@@ -1600,257 +1474,177 @@ public class PetCafeApp {
         if (type.isEmpty()) type = null;
         Integer staffId = readOptionalInt(in, "Coordinating staff ID");
 
-        String sql = "INSERT INTO Event " +
-                "(event_id, title, description, room_id, event_date, start_time, " +
-                "end_time, max_attendees, event_type, staff_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ps.setString(2, title);
-            if (desc == null) ps.setNull(3, Types.VARCHAR);
-            else ps.setString(3, desc);
-            ps.setInt(4, roomId);
-            ps.setDate(5, date);
-            ps.setTimestamp(6, start);
-            ps.setTimestamp(7, end);
-            ps.setInt(8, maxAtt);
-            if (type == null) ps.setNull(9, Types.VARCHAR);
-            else ps.setString(9, type);
-            if (staffId == null) ps.setNull(10, Types.INTEGER);
-            else ps.setInt(10, staffId);
-            ps.executeUpdate();
-        }
+        int id = repo.events.insert(title, desc, roomId, date, start, end, maxAtt, type, staffId);
         System.out.println("Event added with ID " + id);
     }
 
     /*---------------------------------------------------------------------
-    |  Method registerForEvent(conn, in)
+    |  Method registerForEvent(repo, in)
     |
-    |  Purpose:  Allows user to register member for specific event.
+    |  Purpose:  Allows user to register member for specific event. A full
+    |            event puts the member on its waitlist instead.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
 
-    private static void registerForEvent(Connection conn, Scanner in) throws SQLException {
+    private static void registerForEvent(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         int eventId = readInt(in, "Event ID: ");
 
-        String qEvent = "SELECT max_attendees FROM Event WHERE event_id = ?";
-        int maxAtt;
-        try (PreparedStatement ps = conn.prepareStatement(qEvent)) {
-            ps.setInt(1, eventId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such event.");
-                    return;
-                }
-                maxAtt = rs.getInt(1);
-            }
-        }
-
-        String qCount = "SELECT COUNT(*) FROM Event_Registration WHERE event_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(qCount)) {
-            ps.setInt(1, eventId);
-            try (ResultSet rs = ps.executeQuery()) {
-                rs.next();
-                if (rs.getInt(1) >= maxAtt) {
-                    System.out.println("Event is at capacity.");
-                    return;
-                }
-            }
-        }
-
-        String ins = "INSERT INTO Event_Registration " +
-                "(member_id, event_id, registration_date, attendance_status, payment_status) " +
-                "VALUES (?, ?, TRUNC(SYSDATE), 'REGISTERED', 'UNPAID')";
-        try (PreparedStatement ps = conn.prepareStatement(ins)) {
-            ps.setInt(1, memberId);
-            ps.setInt(2, eventId);
-            ps.executeUpdate();
+        switch (repo.events.register(memberId, eventId)) {
+            case REGISTERED:
+                System.out.println("Member registered for event.");
+                break;
+            case WAITLISTED:
+                System.out.println("Event is at capacity; member added to the waitlist.");
+                break;
+            case ALREADY_REGISTERED:
+                System.out.println("Member is already registered or waitlisted for this event.");
+                break;
+            case NO_SUCH_EVENT:
+                System.out.println("No such event.");
+                break;
         }
-        System.out.println("Member registered for event.");
     }
 
     /*---------------------------------------------------------------------
-    |  Method updateEventAttendance(conn, in)
+    |  Method updateEventAttendance(repo, in)
     |
     |  Purpose:  Updates event registration status.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
 
-    private static void updateEventAttendance(Connection conn, Scanner in) throws SQLException {
+    private static void updateEventAttendance(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         int eventId = readInt(in, "Event ID: ");
         String status = readString(in,
-                "New attendance status (REGISTERED, ATTENDED, NO_SHOW, CANCELLED): ");
-
-        String sql = "UPDATE Event_Registration SET attendance_status = ? " +
-                "WHERE member_id = ? AND event_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, memberId);
-            ps.setInt(3, eventId);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such registration.");
-            else System.out.println("Attendance status updated.");
+                "New attendance status (REGISTERED, ATTENDED, NO_SHOW, CANCELLED, WAITLISTED): ");
+
+        List<Integer> promoted = repo.events.setAttendance(memberId, eventId, status);
+        if (promoted == null) {
+            System.out.println("No such registration.");
+            return;
         }
+        System.out.println("Attendance status updated.");
+        printPromoted(promoted);
     }
 
     /*---------------------------------------------------------------------
-    |  Method updateEventPaymentStatus(conn, in)
+    |  Method updateEventPaymentStatus(repo, in)
     |
     |  Purpose:  Updates an existing event's payment status.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
 
-    private static void updateEventPaymentStatus(Connection conn, Scanner in) throws SQLException {
+    private static void updateEventPaymentStatus(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         int eventId = readInt(in, "Event ID: ");
         String status = readString(in, "New payment status (UNPAID, PAID, REFUNDED): ");
 
-        String sql = "UPDATE Event_Registration SET payment_status = ? " +
-                "WHERE member_id = ? AND event_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, memberId);
-            ps.setInt(3, eventId);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such registration.");
-            else System.out.println("Payment status updated.");
-        }
+        if (!repo.events.setPaymentStatus(memberId, eventId, status)) System.out.println("No such registration.");
+        else System.out.println("Payment status updated.");
     }
 
     /*---------------------------------------------------------------------
-    |  Method deleteEventRegistration(conn, in)
+    |  Method deleteEventRegistration(repo, in)
     |
-    |  Purpose:  Deletes an existing event registration in the event registration table.
+    |  Purpose:  Deletes an existing event registration in the event registration table,
+    |            and gives the freed seat to the first member on the waitlist.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void deleteEventRegistration(Connection conn, Scanner in) throws SQLException {
+    private static void deleteEventRegistration(Repositories repo, Scanner in) throws SQLException {
         int memberId = readInt(in, "Member ID: ");
         int eventId = readInt(in, "Event ID: ");
 
-        String q = "SELECT e.start_time, r.payment_status " +
-                "FROM Event e JOIN Event_Registration r " +
-                "ON e.event_id = r.event_id " +
-                "WHERE r.member_id = ? AND r.event_id = ?";
-        Timestamp start;
-        String paymentStatus;
-        try (PreparedStatement ps = conn.prepareStatement(q)) {
-            ps.setInt(1, memberId);
-            ps.setInt(2, eventId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No such registration.");
-                    return;
-                }
-                start = rs.getTimestamp("start_time");
-                paymentStatus = rs.getString("payment_status");
-            }
+        EventRepository.Withdrawal result = repo.events.withdraw(memberId, eventId);
+        if (result == null) {
+            System.out.println("No such registration.");
+            return;
         }
+        if (result.deleted) System.out.println("Booking deleted (refunded & in advance).");
+        else System.out.println("Booking not deleted; marked as CANCELLED instead.");
+        printPromoted(result.promoted);
+    }
 
-        Timestamp now = new Timestamp(System.currentTimeMillis());
-        if (now.before(start) && "REFUNDED".equals(paymentStatus)) {
-            String del = "DELETE FROM Event_Registration WHERE member_id = ? AND event_id = ?";
-            try (PreparedStatement ps = conn.prepareStatement(del)) {
-                ps.setInt(1, memberId);
-                ps.setInt(2, eventId);
-                ps.executeUpdate();
-            }
-            System.out.println("Booking deleted (refunded & in advance).");
-        } else {
-            String upd = "UPDATE Event_Registration SET attendance_status = 'CANCELLED' " +
-                    "WHERE member_id = ? AND event_id = ?";
-            try (PreparedStatement ps = conn.prepareStatement(upd)) {
-                ps.setInt(1, memberId);
-                ps.setInt(2, eventId);
-                ps.executeUpdate();
-            }
-            System.out.println("Booking not deleted; marked as CANCELLED instead.");
+    /* Tells the user who moved off an event's waitlist. */
+    private static void printPromoted(List<Integer> promoted) {
+        for (int memberId : promoted) {
+            System.out.println("Member " + memberId + " moved from the waitlist to REGISTERED.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method listEvents(conn)
+    |  Method listEvents(repo)
     |
     |  Purpose:  Lists the information about all events in the event table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database.
+    |      repo     -- The repositories to work through.
     |
     *-------------------------------------------------------------------*/
 
-    private static void listEvents(Connection conn) throws SQLException {
-        String sql = "SELECT event_id, title, event_date, start_time, max_attendees " +
-                "FROM Event ORDER BY event_date, start_time";
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                System.out.printf("%d: %s on %s (max %d)%n",
-                        rs.getInt("event_id"),
-                        rs.getString("title"),
-                        rs.getDate("event_date"),
-                        rs.getInt("max_attendees"));
-            }
+    private static void listEvents(Repositories repo) throws SQLException {
+        for (EventRepository.Event e : repo.events.list()) {
+            System.out.printf("%d: %s on %s (max %d)%n", e.eventId, e.title, e.eventDate, e.maxAttendees);
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method healthMenu(conn, in)
+    |  Method healthMenu(repo, in)
     |
     |  Purpose:  Displays the options for interacting with health table including adding,
     |            updating, deleting, and displaying information.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void healthMenu(Connection conn, Scanner in) {
+    private static void healthMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Health Records Menu ---");
@@ -1863,13 +1657,13 @@ public class PetCafeApp {
             try {
                 switch (c) {
                     case "1":
-                        addHealthRecord(conn, in);
+                        addHealthRecord(repo, in);
                         break;
                     case "2":
-                        updateHealthRecord(conn, in);
+                        updateHealthRecord(repo, in);
                         break;
                     case "3":
-                        listHealthRecordsForPet(conn, in);
+                        listHealthRecordsForPet(repo, in);
                         break;
                     case "0":
                         back = true;
@@ -1884,22 +1678,21 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method addHealthRecord(conn, in)
+    |  Method addHealthRecord(repo, in)
     |
     |  Purpose:  Adds a new health to the health table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void addHealthRecord(Connection conn, Scanner in) throws SQLException {
-        int id = nextId(conn, "Health_Record", "record_id");
+    private static void addHealthRecord(Repositories repo, Scanner in) throws SQLException {
         int petId = readInt(in, "Pet ID: ");
         Integer staffId = readOptionalInt(in, "Staff ID (vet/handler, optional)");
         Date recordDate = readDate(in, "Record date");
@@ -1908,117 +1701,77 @@ public class PetCafeApp {
         if (notes.isEmpty()) notes = null;
         Date nextDue = readOptionalDate(in, "Next due date");
 
-        String sql = "INSERT INTO Health_Record " +
-                "(record_id, pet_id, staff_id, record_date, record_type, " +
-                "notes, next_due_date, status) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, 'ACTIVE')";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ps.setInt(2, petId);
-            if (staffId == null) ps.setNull(3, Types.INTEGER);
-            else ps.setInt(3, staffId);
-            ps.setDate(4, recordDate);
-            ps.setString(5, type);
-            if (notes == null) ps.setNull(6, Types.VARCHAR);
-            else ps.setString(6, notes);
-            if (nextDue == null) ps.setNull(7, Types.DATE);
-            else ps.setDate(7, nextDue);
-            ps.executeUpdate();
-        }
+        int id = repo.healthRecords.insert(petId, staffId, recordDate, type, notes, nextDue);
         System.out.println("Health record added with ID " + id);
     }
 
     /*---------------------------------------------------------------------
-    |  Method updateHealthRecord(conn, in)
+    |  Method updateHealthRecord(repo, in)
     |
     |  Purpose:  Updates an existing health in the health table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void updateHealthRecord(Connection conn, Scanner in) throws SQLException {
+    private static void updateHealthRecord(Repositories repo, Scanner in) throws SQLException {
         int id = readInt(in, "Health record ID to update: ");
         String notes = readString(in, "New notes (blank to keep): ");
         Date nextDue = readOptionalDate(in, "New next due date");
         String status = readString(in, "New status (ACTIVE, VOID, CORRECTED; blank to keep): ");
 
-        String sql = "UPDATE Health_Record SET " +
-                "notes = NVL(?, notes), " +
-                "next_due_date = NVL(?, next_due_date), " +
-                "status = NVL(?, status) " +
-                "WHERE record_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            if (notes.isEmpty()) ps.setNull(1, Types.VARCHAR);
-            else ps.setString(1, notes);
-            if (nextDue == null) ps.setNull(2, Types.DATE);
-            else ps.setDate(2, nextDue);
-            if (status.isEmpty()) ps.setNull(3, Types.VARCHAR);
-            else ps.setString(3, status);
-            ps.setInt(4, id);
-            int rows = ps.executeUpdate();
-            if (rows == 0) System.out.println("No such health record.");
-            else System.out.println("Health record updated.");
+        if (!repo.healthRecords.update(id, blankToNull(notes), nextDue, blankToNull(status))) {
+            System.out.println("No such health record.");
+        } else {
+            System.out.println("Health record updated.");
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method listHealthRecordsForPet(conn)
+    |  Method listHealthRecordsForPet(repo)
     |
     |  Purpose:  Lists the information about all health records in the health table.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database.
+    |      repo     -- The repositories to work through.
     |
     *-------------------------------------------------------------------*/
 
-    private static void listHealthRecordsForPet(Connection conn, Scanner in) throws SQLException {
+    private static void listHealthRecordsForPet(Repositories repo, Scanner in) throws SQLException {
         int petId = readInt(in, "Pet ID: ");
-        String sql = "SELECT record_id, record_date, record_type, status, next_due_date " +
-                "FROM Health_Record WHERE pet_id = ? " +
-                "ORDER BY record_date";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, petId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    System.out.printf("Record %d on %s: type=%s status=%s next_due=%s%n",
-                            rs.getInt("record_id"),
-                            rs.getDate("record_date"),
-                            rs.getString("record_type"),
-                            rs.getString("status"),
-                            rs.getDate("next_due_date"));
-                }
-            }
+        for (HealthRecordRepository.HealthRecord h : repo.healthRecords.listForPet(petId)) {
+            System.out.printf("Record %d on %s: type=%s status=%s next_due=%s%n",
+                    h.recordId, h.recordDate, h.recordType, h.status, h.nextDueDate);
         }
     }
 
     /*---------------------------------------------------------------------
-    |  Method reportMenu(conn, in)
+    |  Method reportMenu(repo, in)
     |
     |  Purpose:  Displays the options for different reports so that queries may
     |            happen.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void reportsMenu(Connection conn, Scanner in) {
+    private static void reportsMenu(Repositories repo, Scanner in) {
         boolean back = false;
         while (!back) {
             System.out.println("\n--- Reports Menu ---");
@@ -2026,22 +1779,30 @@ public class PetCafeApp {
             System.out.println("2. Visit history for a member");
             System.out.println("3. Upcoming events with available capacity");
             System.out.println("4. Top members by total spend (custom query)");
+            System.out.println("5. Check member activity summary");
+            System.out.println("6. Check event registration counts");
             System.out.println("0. Back");
             System.out.print("Choice: ");
             String c = in.nextLine().trim();
             try {
                 switch (c) {
                     case "1":
-                        reportAdoptionApplicationsForPet(conn, in);
+                        reportAdoptionApplicationsForPet(repo, in);
                         break;
                     case "2":
-                        reportVisitHistory(conn, in);
+                        reportVisitHistory(repo, in);
                         break;
                     case "3":
-                        reportUpcomingEventsWithCapacity(conn);
+                        reportUpcomingEventsWithCapacity(repo);
                         break;
                     case "4":
-                        reportTopMembers(conn, in);
+                        reportTopMembers(repo, in);
+                        break;
+                    case "5":
+                        checkActivitySummary(repo, in);
+                        break;
+                    case "6":
+                        checkEventCounts(repo, in);
                         break;
                     case "0":
                         back = true;
@@ -2056,182 +1817,168 @@ public class PetCafeApp {
     }
 
     /*---------------------------------------------------------------------
-    |  Method reportAdoptionApplicationsForPet(conn, in)
+    |  Method reportAdoptionApplicationsForPet(repo, in)
     |
     |  Purpose:  Displays all applications for a specific pet.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void reportAdoptionApplicationsForPet(Connection conn, Scanner in)
+    private static void reportAdoptionApplicationsForPet(Repositories repo, Scanner in)
             throws SQLException {
         int petId = readInt(in, "Pet ID: ");
-        String sql = "SELECT a.application_id, m.name AS member_name, " +
-                "a.submitted_date, a.status, s.name AS coordinator " +
-                "FROM Adoption_Application a " +
-                "JOIN Member m ON a.member_id = m.member_id " +
-                "LEFT JOIN Staff s ON a.reviewed_by = s.staff_id " +
-                "WHERE a.pet_id = ? " +
-                "ORDER BY a.submitted_date";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, petId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    System.out.printf("App %d by %s on %s: status=%s, coordinator=%s%n",
-                            rs.getInt("application_id"),
-                            rs.getString("member_name"),
-                            rs.getDate("submitted_date"),
-                            rs.getString("status"),
-                            rs.getString("coordinator"));
-                }
-            }
-        }
+        repo.reports.adoptionApplications(petId, a ->
+                System.out.printf("App %d by %s on %s: status=%s, coordinator=%s%n",
+                        a.applicationId, a.memberName, a.submittedDate, a.status, a.coordinator));
     }
 
     /*---------------------------------------------------------------------
-    |  Method reportVisitHistory(conn, in)
+    |  Method reportVisitHistory(repo, in)
     |
     |  Purpose:  Reports the visitation history for a given member
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void reportVisitHistory(Connection conn, Scanner in)
+    private static void reportVisitHistory(Repositories repo, Scanner in)
             throws SQLException {
         int memberId = readInt(in, "Member ID: ");
-        String sql = "SELECT r.reservation_id, r.reservation_date, r.start_time, " +
-                "rm.room_name, mt.tier_name, " +
-                "NVL(SUM(co.total_price),0) AS total_spent " +
-                "FROM Reservation r " +
-                "JOIN Room rm ON r.room_id = rm.room_id " +
-                "LEFT JOIN Membership_Tier mt ON r.tier_id = mt.tier_id " +
-                "LEFT JOIN Customer_Order co ON co.reservation_id = r.reservation_id " +
-                "WHERE r.member_id = ? " +
-                "GROUP BY r.reservation_id, r.reservation_date, r.start_time, " +
-                "rm.room_name, mt.tier_name " +
-                "ORDER BY r.reservation_date, r.start_time";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, memberId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    System.out.printf("Res %d on %s in room %s tier=%s total_spent=%.2f%n",
-                            rs.getInt("reservation_id"),
-                            rs.getDate("reservation_date"),
-                            rs.getString("room_name"),
-                            rs.getString("tier_name"),
-                            rs.getDouble("total_spent"));
-                }
-            }
+
+        ReportService.MemberTotals totals = repo.reports.memberTotals(memberId);
+        if (totals != null) {
+            System.out.printf("Member %d: %d visits, total_spent=%s%n",
+                    memberId, totals.visits, Money.format(totals.totalSpentCents));
         }
+
+        repo.reports.visitHistory(memberId, v ->
+                System.out.printf("Res %d on %s in room %s tier=%s total_spent=%s%n",
+                        v.reservationId, v.reservationDate, v.roomName, v.tierName,
+                        Money.format(v.totalSpentCents)));
     }
 
     /*---------------------------------------------------------------------
-    |  Method reportUpcomingEventsWithCapacity(conn)
+    |  Method reportUpcomingEventsWithCapacity(repo)
     |
     |  Purpose:  Reports all upcoming events along with their max capacity
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |
     *-------------------------------------------------------------------*/
 
-    private static void reportUpcomingEventsWithCapacity(Connection conn)
+    private static void reportUpcomingEventsWithCapacity(Repositories repo)
             throws SQLException {
-        String sql = "SELECT e.event_id, e.title, e.event_date, e.start_time, " +
-                "r.room_name, NVL(COUNT(er.member_id),0) AS registered, " +
-                "e.max_attendees, s.name AS coordinator " +
-                "FROM Event e " +
-                "JOIN Room r ON e.room_id = r.room_id " +
-                "LEFT JOIN Event_Registration er " +
-                "ON e.event_id = er.event_id AND er.attendance_status <> 'CANCELLED' " +
-                "LEFT JOIN Staff s ON e.staff_id = s.staff_id " +
-                "WHERE e.event_date >= TRUNC(SYSDATE) " +
-                "GROUP BY e.event_id, e.title, e.event_date, e.start_time, " +
-                "r.room_name, e.max_attendees, s.name " +
-                "HAVING NVL(COUNT(er.member_id),0) < e.max_attendees " +
-                "ORDER BY e.event_date, e.start_time";
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
+        repo.reports.upcomingEvents(e ->
                 System.out.printf("Event %d: %s on %s in %s (%d/%d registered, coord=%s)%n",
-                        rs.getInt("event_id"),
-                        rs.getString("title"),
-                        rs.getDate("event_date"),
-                        rs.getString("room_name"),
-                        rs.getInt("registered"),
-                        rs.getInt("max_attendees"),
-                        rs.getString("coordinator"));
-            }
-        }
+                        e.eventId, e.title, e.eventDate, e.roomName, e.registered, e.maxAttendees,
+                        e.coordinator));
     }
 
     /*---------------------------------------------------------------------
-    |  Method reportTopMembers(conn, in)
+    |  Method reportTopMembers(repo, in)
     |
-    |  Purpose:  Reports the top members that spent at least N amount of money
+    |  Purpose:  Reports the top members that spent at least N amount of money,
+    |            optionally only the first N of them.
     |
-    |  Pre-condition:  conn is established correctly. Scanner is established correctly.
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
     |
     |  Post-condition: No exception is thrown when getting the results of the query
     |
     |  Parameters:
-    |      conn     -- The connection object representing the connection to the database
+    |      repo     -- The repositories to work through.
     |      in       -- Scanner representing keyboard input.
     |
     *-------------------------------------------------------------------*/
 
-    private static void reportTopMembers(Connection conn, Scanner in)
+    private static void reportTopMembers(Repositories repo, Scanner in)
             throws SQLException {
         System.out.print("Minimum total spend to include (e.g. 50.0): ");
-        double minSpend;
+        long minSpend;
         try {
-            minSpend = Double.parseDouble(in.nextLine().trim());
+            minSpend = Money.parse(in.nextLine());
         } catch (NumberFormatException e) {
             System.out.println("Invalid amount, using 0.");
-            minSpend = 0.0;
+            minSpend = 0;
         }
 
-        String sql = "SELECT m.member_id, m.name, mt.tier_name, " +
-                "COUNT(DISTINCT r.reservation_id) AS visits, " +
-                "NVL(SUM(co.total_price),0) AS total_spent " +
-                "FROM Member m " +
-                "LEFT JOIN Membership_Tier mt ON m.tier_id = mt.tier_id " +
-                "LEFT JOIN Reservation r ON r.member_id = m.member_id " +
-                "LEFT JOIN Customer_Order co ON co.member_id = m.member_id " +
-                "GROUP BY m.member_id, m.name, mt.tier_name " +
-                "HAVING NVL(SUM(co.total_price),0) >= ? " +
-                "ORDER BY total_spent DESC";
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, minSpend);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    System.out.printf("Member %d: %s tier=%s visits=%d total_spent=%.2f%n",
-                            rs.getInt("member_id"),
-                            rs.getString("name"),
-                            rs.getString("tier_name"),
-                            rs.getInt("visits"),
-                            rs.getDouble("total_spent"));
-                }
-            }
+        Integer topN = readOptionalInt(in, "How many members to show");
+
+        repo.reports.topMembers(minSpend, topN, m ->
+                System.out.printf("Member %d: %s tier=%s visits=%d total_spent=%s%n",
+                        m.memberId, m.name, m.tierName, m.visits, Money.format(m.totalSpentCents)));
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method checkActivitySummary(repo, in)
+    |
+    |  Purpose:  Compares Member_Activity_Summary with totals recomputed from
+    |            the base tables and offers to rebuild it if they disagree.
+    |
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
+    |
+    |  Parameters:
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
+    |
+    *-------------------------------------------------------------------*/
+
+    private static void checkActivitySummary(Repositories repo, Scanner in) throws SQLException {
+        List<String> problems = repo.reports.checkActivitySummary();
+        if (problems.isEmpty()) {
+            System.out.println("Member activity summary is consistent.");
+            return;
+        }
+        for (String p : problems) System.out.println(p);
+        System.out.println(problems.size() + " member(s) out of step.");
+        if (readString(in, "Rebuild the summary now? (y/n): ").equalsIgnoreCase("y")) {
+            int rows = repo.reports.rebuildActivitySummary();
+            System.out.println("Summary rebuilt for " + rows + " members.");
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method checkEventCounts(repo, in)
+    |
+    |  Purpose:  Compares each event's registered_count with its registrations
+    |            and offers to recompute the counts if they disagree.
+    |
+    |  Pre-condition:  repo is established correctly. Scanner is established correctly.
+    |
+    |  Parameters:
+    |      repo     -- The repositories to work through.
+    |      in       -- Scanner representing keyboard input.
+    |
+    *-------------------------------------------------------------------*/
+
+    private static void checkEventCounts(Repositories repo, Scanner in) throws SQLException {
+        List<String> problems = repo.reports.checkEventCounts();
+        if (problems.isEmpty()) {
+            System.out.println("Event registration counts are consistent.");
+            return;
+        }
+        for (String p : problems) System.out.println(p);
+        System.out.println(problems.size() + " event(s) out of step.");
+        if (readString(in, "Recompute the counts now? (y/n): ").equalsIgnoreCase("y")) {
+            int rows = repo.reports.rebuildEventCounts();
+            System.out.println("Counts recomputed for " + rows + " events.");
         }
     }
 }
@@ -0,0 +1,379 @@
+package petcafe;
+
+/*
+ * PetRepository.java -- Pets, adoption applications and adoptions.
+ *
+ * See MemberRepository for how the repositories are used.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class PetRepository {
+
+    /*
+     * One row of the pet list.
+     */
+    public static final class Pet {
+        public final int petId;
+        public final String name;
+        public final String species;
+        public final String status;
+
+        Pet(int petId, String name, String species, String status) {
+            this.petId = petId;
+            this.name = name;
+            this.species = species;
+            this.status = status;
+        }
+    }
+
+    /*
+     * An adoption application as far as the menus need it.
+     */
+    public static final class Application {
+        public final int applicationId;
+        public final int memberId;
+        public final int petId;
+        public final String status;
+        public final Date reviewDate;       // null until a review has begun
+
+        Application(int applicationId, int memberId, int petId, String status, Date reviewDate) {
+            this.applicationId = applicationId;
+            this.memberId = memberId;
+            this.petId = petId;
+            this.status = status;
+            this.reviewDate = reviewDate;
+        }
+    }
+
+    public enum DeleteStatus { DELETED, NO_SUCH_PET, NOT_FINAL, IN_USE }
+
+    private static final String INSERT =
+            "INSERT INTO Pet " +
+                    "(pet_id, name, species, breed, age, date_of_arrival, temperament," +
+                    " special_needs, status, current_room_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE =
+            "UPDATE Pet SET " +
+                    "status = NVL(?, status), " +
+                    "temperament = NVL(?, temperament), " +
+                    "current_room_id = NVL(?, current_room_id) " +
+                    "WHERE pet_id = ?";
+
+    // Status check, guards and delete in one statement, run with the pet row locked
+    // (see delete() and MemberRepository.delete).
+    private static final String DELETE =
+            "DELETE FROM Pet p WHERE p.pet_id = ? " +
+                    "AND p.status IN ('ADOPTED','DECEASED') " +
+                    "AND NOT EXISTS (SELECT 1 FROM Adoption_Application a WHERE a.pet_id = p.pet_id " +
+                    "AND a.status = 'PENDING') " +
+                    "AND NOT EXISTS (SELECT 1 FROM Health_Record h WHERE h.pet_id = p.pet_id " +
+                    "AND h.status = 'ACTIVE' " +
+                    "AND (h.next_due_date IS NULL OR h.next_due_date >= TRUNC(SYSDATE))) " +
+                    "AND NOT EXISTS (SELECT 1 FROM Adoption d WHERE d.pet_id = p.pet_id " +
+                    "AND d.follow_up_schedule > TRUNC(SYSDATE))";
+
+    private static final String INSERT_APPLICATION =
+            "INSERT INTO Adoption_Application " +
+                    "(application_id, member_id, pet_id, submitted_date, status, reviewed_by) " +
+                    "VALUES (?, ?, ?, TRUNC(SYSDATE), 'PENDING', ?)";
+
+    private static final String INSERT_ADOPTION =
+            "INSERT INTO Adoption " +
+                    "(adoption_id, application_id, pet_id, member_id, adoption_date," +
+                    " adoption_fee, follow_up_schedule) " +
+                    "VALUES (?, ?, ?, ?, TRUNC(SYSDATE), ?, ?)";
+
+    private static final String LOCK = "SELECT pet_id FROM Pet WHERE pet_id = ? FOR UPDATE";
+
+    private final ConnectionSource source;
+
+    public PetRepository(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method insert(name, species, breed, age, arrival, temperament, special,
+    |                status, roomId)
+    |
+    |  Purpose:  Inserts a pet with a newly allocated id. breed, age,
+    |            temperament, special and roomId may be null.
+    |
+    |  Returns: The new pet's id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int insert(String name, String species, String breed, Integer age, Date arrival,
+                      String temperament, String special, String status, Integer roomId) throws SQLException {
+        try (Connection conn = source.get()) {
+            int id = IdAllocator.nextId(conn, "Pet", "pet_id");
+            try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+                ps.setInt(1, id);
+                ps.setString(2, name);
+                ps.setString(3, species);
+                if (breed == null) ps.setNull(4, Types.VARCHAR);
+                else ps.setString(4, breed);
+                if (age == null) ps.setNull(5, Types.INTEGER);
+                else ps.setInt(5, age);
+                ps.setDate(6, arrival);
+                if (temperament == null) ps.setNull(7, Types.VARCHAR);
+                else ps.setString(7, temperament);
+                if (special == null) ps.setNull(8, Types.VARCHAR);
+                else ps.setString(8, special);
+                ps.setString(9, status);
+                if (roomId == null) ps.setNull(10, Types.INTEGER);
+                else ps.setInt(10, roomId);
+                ps.executeUpdate();
+            }
+            return id;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method update(petId, status, temperament, roomId)
+    |
+    |  Purpose:  Changes a pet's status, temperament and room; a null value
+    |            keeps the current one.
+    |
+    |  Returns: false if there is no such pet.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean update(int petId, String status, String temperament, Integer roomId) throws SQLException {
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(UPDATE)) {
+            if (status == null) ps.setNull(1, Types.VARCHAR);
+            else ps.setString(1, status);
+            if (temperament == null) ps.setNull(2, Types.VARCHAR);
+            else ps.setString(2, temperament);
+            if (roomId == null) ps.setNull(3, Types.INTEGER);
+            else ps.setInt(3, roomId);
+            ps.setInt(4, petId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method delete(petId)
+    |
+    |  Purpose:  Deletes an ADOPTED or DECEASED pet that has no pending
+    |            application, current health record or future follow-up.
+    |            The pet row is locked first, and applications, adoptions and
+    |            health records take the same lock before they are added or
+    |            made current again, so the cascade cannot remove one that
+    |            committed while the DELETE ran.
+    |
+    |  Returns: DELETED, or why the pet was kept.
+    |
+    *-------------------------------------------------------------------*/
+
+    public DeleteStatus delete(int petId) throws SQLException {
+        try (Connection conn = source.get()) {
+            return DBUtil.inTransaction(conn, c -> {
+                if (!lock(c, petId)) return DeleteStatus.NO_SUCH_PET;
+                try (PreparedStatement ps = c.prepareStatement(DELETE)) {
+                    ps.setInt(1, petId);
+                    if (ps.executeUpdate() > 0) return DeleteStatus.DELETED;
+                }
+                try (PreparedStatement ps = c.prepareStatement("SELECT status FROM Pet WHERE pet_id = ?")) {
+                    ps.setInt(1, petId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        String status = rs.getString(1);
+                        if (!status.equals("ADOPTED") && !status.equals("DECEASED")) return DeleteStatus.NOT_FINAL;
+                        return DeleteStatus.IN_USE;
+                    }
+                }
+            });
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method lock(c, petId)
+    |
+    |  Purpose:  Locks the pet's row until the transaction ends (see delete).
+    |            Take it after any member lock and before any other.
+    |
+    |  Pre-condition:  Called inside a transaction.
+    |
+    |  Returns: false if there is no such pet.
+    |
+    *-------------------------------------------------------------------*/
+
+    static boolean lock(Connection c, int petId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(LOCK)) {
+            ps.setInt(1, petId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /*
+     * Locks the pet that a row of table (found by its key column) is about, as lock() does;
+     * for changes to an existing application or health record.
+     */
+    static boolean lockOwnerOf(Connection c, String table, String key, int id) throws SQLException {
+        String sql = "SELECT pet_id FROM Pet WHERE pet_id = " +
+                "(SELECT pet_id FROM " + table + " WHERE " + key + " = ?) FOR UPDATE";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /* Pets in id order, a page at a time, optionally only those with the given status. */
+    public PageCursor<Pet> list(String status) {
+        KeysetPager pager = new KeysetPager("pet_id, name, species, status", "Pet", "pet_id")
+                .filter("status = ?", status);
+        return new PageCursor<>(source, pager, rs -> new Pet(rs.getInt("pet_id"), rs.getString("name"),
+                rs.getString("species"), rs.getString("status")));
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method addApplication(memberId, petId, staffId)
+    |
+    |  Purpose:  Files a PENDING adoption application dated today, with the
+    |            member and the pet locked (see delete).
+    |
+    |  Returns: The new application's id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int addApplication(int memberId, int petId, int staffId) throws SQLException {
+        try (Connection conn = source.get()) {
+            int appId = IdAllocator.nextId(conn, "Adoption_Application", "application_id");
+            return DBUtil.inTransaction(conn, c -> {
+                MemberRepository.lock(c, memberId);     // a missing member or pet fails the INSERT's foreign key
+                lock(c, petId);
+                try (PreparedStatement ps = c.prepareStatement(INSERT_APPLICATION)) {
+                    ps.setInt(1, appId);
+                    ps.setInt(2, memberId);
+                    ps.setInt(3, petId);
+                    ps.setInt(4, staffId);
+                    ps.executeUpdate();
+                }
+                return appId;
+            });
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method reviewApplication(appId, status, notes)
+    |
+    |  Purpose:  Sets an application's status and notes, dated today. The
+    |            member and pet are locked first, since the application may
+    |            become PENDING again (see delete).
+    |
+    |  Returns: false if there is no such application.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean reviewApplication(int appId, String status, String notes) throws SQLException {
+        String sql = "UPDATE Adoption_Application SET status = ?, review_date = TRUNC(SYSDATE), " +
+                "notes = ? WHERE application_id = ?";
+        try (Connection conn = source.get()) {
+            return DBUtil.inTransaction(conn, c -> {
+                if (!MemberRepository.lockOwnerOf(c, "Adoption_Application", "application_id", appId)) return false;
+                lockOwnerOf(c, "Adoption_Application", "application_id", appId);
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    ps.setString(1, status);
+                    if (notes == null) ps.setNull(2, Types.VARCHAR);
+                    else ps.setString(2, notes);
+                    ps.setInt(3, appId);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method findApplication(appId)
+    |
+    |  Returns: The application, or null if there is none with that id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Application findApplication(int appId) throws SQLException {
+        String sql = "SELECT member_id, pet_id, status, review_date FROM Adoption_Application " +
+                "WHERE application_id = ?";
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, appId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new Application(appId, rs.getInt("member_id"), rs.getInt("pet_id"),
+                        rs.getString("status"), rs.getDate("review_date"));
+            }
+        }
+    }
+
+    /* Removes an application submitted in error (before any review); false if it was not there. */
+    public boolean deleteApplication(int appId) throws SQLException {
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(
+                     "DELETE FROM Adoption_Application WHERE application_id = ?")) {
+            ps.setInt(1, appId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /* Marks an application WITHDRAWN; false if there is no such application. */
+    public boolean withdrawApplication(int appId) throws SQLException {
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(
+                     "UPDATE Adoption_Application SET status = 'WITHDRAWN' WHERE application_id = ?")) {
+            ps.setInt(1, appId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method recordAdoption(app, feeCents, followUp)
+    |
+    |  Purpose:  Records the adoption for an approved application and marks
+    |            the pet ADOPTED, in one transaction, with the member and the
+    |            pet locked (see delete).
+    |
+    |  Parameters:
+    |      app      -- An APPROVED application (see findApplication).
+    |      feeCents -- Adoption fee.
+    |      followUp -- Follow-up date, or null.
+    |
+    |  Returns: The new adoption's id.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int recordAdoption(Application app, long feeCents, Date followUp) throws SQLException {
+        try (Connection conn = source.get()) {
+            return DBUtil.inTransaction(conn, c -> {
+                MemberRepository.lock(c, app.memberId);
+                lock(c, app.petId);
+                int adoptionId = IdAllocator.nextId(c, "Adoption", "adoption_id");
+                try (PreparedStatement ps = c.prepareStatement(INSERT_ADOPTION)) {
+                    ps.setInt(1, adoptionId);
+                    ps.setInt(2, app.applicationId);
+                    ps.setInt(3, app.petId);
+                    ps.setInt(4, app.memberId);
+                    ps.setBigDecimal(5, Money.toDecimal(feeCents));
+                    if (followUp == null) ps.setNull(6, Types.DATE);
+                    else ps.setDate(6, followUp);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = c.prepareStatement("UPDATE Pet SET status = 'ADOPTED' WHERE pet_id = ?")) {
+                    ps.setInt(1, app.petId);
+                    ps.executeUpdate();
+                }
+                return adoptionId;
+            });
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package petcafe;
+
+/*
+ * ReportService.java -- The report queries, and the consistency checks for the maintained
+ *                       summaries (Member_Activity_Summary, Event.registered_count).
+ *
+ * Report rows are handed to a sink one at a time as they are read instead of being collected,
+ * so a report over every member holds no more than one row in memory; pass list::add to
+ * collect them, or r -> { } to only count them. Each method returns the number of rows. See
+ * MemberRepository for how the repositories are used.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ReportService {
+
+    /*
+     * An adoption application for a pet, with who made and reviews it.
+     */
+    public static final class ApplicationRow {
+        public final int applicationId;
+        public final String memberName;
+        public final Date submittedDate;
+        public final String status;
+        public final String coordinator;
+
+        ApplicationRow(int applicationId, String memberName, Date submittedDate, String status,
+                       String coordinator) {
+            this.applicationId = applicationId;
+            this.memberName = memberName;
+            this.submittedDate = submittedDate;
+            this.status = status;
+            this.coordinator = coordinator;
+        }
+    }
+
+    /*
+     * A member's totals from Member_Activity_Summary.
+     */
+    public static final class MemberTotals {
+        public final int visits;
+        public final long totalSpentCents;
+
+        MemberTotals(int visits, long totalSpentCents) {
+            this.visits = visits;
+            this.totalSpentCents = totalSpentCents;
+        }
+    }
+
+    /*
+     * One reservation in a member's visit history, with the spend on it.
+     */
+    public static final class Visit {
+        public final int reservationId;
+        public final Date reservationDate;
+        public final Timestamp startTime;
+        public final String roomName;
+        public final String tierName;
+        public final long totalSpentCents;
+
+        Visit(int reservationId, Date reservationDate, Timestamp startTime, String roomName, String tierName,
+              long totalSpentCents) {
+            this.reservationId = reservationId;
+            this.reservationDate = reservationDate;
+            this.startTime = startTime;
+            this.roomName = roomName;
+            this.tierName = tierName;
+            this.totalSpentCents = totalSpentCents;
+        }
+    }
+
+    /*
+     * An upcoming event that still has free seats.
+     */
+    public static final class UpcomingEvent {
+        public final int eventId;
+        public final String title;
+        public final Date eventDate;
+        public final Timestamp startTime;
+        public final String roomName;
+        public final int registered;
+        public final int maxAttendees;
+        public final String coordinator;
+
+        UpcomingEvent(int eventId, String title, Date eventDate, Timestamp startTime, String roomName,
+                      int registered, int maxAttendees, String coordinator) {
+            this.eventId = eventId;
+            this.title = title;
+            this.eventDate = eventDate;
+            this.startTime = startTime;
+            this.roomName = roomName;
+            this.registered = registered;
+            this.maxAttendees = maxAttendees;
+            this.coordinator = coordinator;
+        }
+    }
+
+    /*
+     * One member in the top members report.
+     */
+    public static final class TopMember {
+        public final int memberId;
+        public final String name;
+        public final String tierName;
+        public final int visits;
+        public final long totalSpentCents;
+
+        TopMember(int memberId, String name, String tierName, int visits, long totalSpentCents) {
+            this.memberId = memberId;
+            this.name = name;
+            this.tierName = tierName;
+            this.visits = visits;
+            this.totalSpentCents = totalSpentCents;
+        }
+    }
+
+    private static final String APPLICATIONS =
+            "SELECT a.application_id, m.name AS member_name, " +
+                    "a.submitted_date, a.status, s.name AS coordinator " +
+                    "FROM Adoption_Application a " +
+                    "JOIN Member m ON a.member_id = m.member_id " +
+                    "LEFT JOIN Staff s ON a.reviewed_by = s.staff_id " +
+                    "WHERE a.pet_id = ? " +
+                    "ORDER BY a.submitted_date";
+
+    private static final String VISITS =
+            "SELECT r.reservation_id, r.reservation_date, r.start_time, " +
+                    "rm.room_name, mt.tier_name, " +
+                    "NVL(SUM(co.total_price),0) AS total_spent " +
+                    "FROM Reservation r " +
+                    "JOIN Room rm ON r.room_id = rm.room_id " +
+                    "LEFT JOIN Membership_Tier mt ON r.tier_id = mt.tier_id " +
+                    "LEFT JOIN Customer_Order co ON co.reservation_id = r.reservation_id " +
+                    "WHERE r.member_id = ? " +
+                    "GROUP BY r.reservation_id, r.reservation_date, r.start_time, " +
+                    "rm.room_name, mt.tier_name " +
+                    "ORDER BY r.reservation_date, r.start_time";
+
+    private static final String UPCOMING =
+            "SELECT e.event_id, e.title, e.event_date, e.start_time, " +
+                    "r.room_name, e.registered_count AS registered, " +
+                    "e.max_attendees, s.name AS coordinator " +
+                    "FROM Event e " +
+                    "JOIN Room r ON e.room_id = r.room_id " +
+                    "LEFT JOIN Staff s ON e.staff_id = s.staff_id " +
+                    "WHERE e.event_date >= TRUNC(SYSDATE) " +
+                    "AND e.registered_count < e.max_attendees " +
+                    "ORDER BY e.event_date, e.start_time";
+
+    // Spend and visits come from the maintained per-member summary (see
+    // ActivitySummary), so the report never re-totals the order history.
+    private static final String TOP_MEMBERS =
+            "SELECT m.member_id, m.name, mt.tier_name, " +
+                    "NVL(s.visit_count,0) AS visits, " +
+                    "NVL(s.total_spent,0) AS total_spent " +
+                    "FROM Member m " +
+                    "LEFT JOIN Membership_Tier mt ON m.tier_id = mt.tier_id " +
+                    "LEFT JOIN Member_Activity_Summary s ON s.member_id = m.member_id " +
+                    "WHERE NVL(s.total_spent,0) >= ? " +
+                    "ORDER BY total_spent DESC, m.member_id";
+
+    private final ConnectionSource source;
+
+    public ReportService(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /* Every application for a pet, oldest first. */
+    public int adoptionApplications(int petId, Consumer<? super ApplicationRow> sink) throws SQLException {
+        try (Connection conn = source.get()) {
+            return DBUtil.query(conn, APPLICATIONS, rs -> new ApplicationRow(rs.getInt("application_id"),
+                    rs.getString("member_name"), rs.getDate("submitted_date"), rs.getString("status"),
+                    rs.getString("coordinator")), sink, petId);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method memberTotals(memberId)
+    |
+    |  Returns: The member's visit count and total spend, or null if the
+    |           member has no summary row.
+    |
+    *-------------------------------------------------------------------*/
+
+    public MemberTotals memberTotals(int memberId) throws SQLException {
+        String sql = "SELECT visit_count, total_spent FROM Member_Activity_Summary WHERE member_id = ?";
+        try (Connection conn = source.get();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, memberId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new MemberTotals(rs.getInt(1), Money.fromDecimal(rs.getBigDecimal(2)));
+            }
+        }
+    }
+
+    /* A member's reservations in date order, each with the total of its orders. */
+    public int visitHistory(int memberId, Consumer<? super Visit> sink) throws SQLException {
+        try (Connection conn = source.get()) {
+            return DBUtil.query(conn, VISITS, rs -> new Visit(rs.getInt("reservation_id"),
+                    rs.getDate("reservation_date"), rs.getTimestamp("start_time"), rs.getString("room_name"),
+                    rs.getString("tier_name"), Money.fromDecimal(rs.getBigDecimal("total_spent"))),
+                    sink, memberId);
+        }
+    }
+
+    /* Events from today on that still have a free seat, by date and start time. */
+    public int upcomingEvents(Consumer<? super UpcomingEvent> sink) throws SQLException {
+        try (Connection conn = source.get()) {
+            return DBUtil.query(conn, UPCOMING, rs -> new UpcomingEvent(rs.getInt("event_id"),
+                    rs.getString("title"), rs.getDate("event_date"), rs.getTimestamp("start_time"),
+                    rs.getString("room_name"), rs.getInt("registered"), rs.getInt("max_attendees"),
+                    rs.getString("coordinator")), sink);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method topMembers(minSpendCents, topN, sink)
+    |
+    |  Purpose:  Members by total spend, highest first.
+    |
+    |  Parameters:
+    |      minSpendCents -- Smallest total spend to include.
+    |      topN          -- How many members to return at most, or null for all.
+    |      sink          -- Receives each row.
+    |
+    *-------------------------------------------------------------------*/
+
+    public int topMembers(long minSpendCents, Integer topN, Consumer<? super TopMember> sink)
+            throws SQLException {
+        DBUtil.RowMapper<TopMember> mapper = rs -> new TopMember(rs.getInt("member_id"), rs.getString("name"),
+                rs.getString("tier_name"), rs.getInt("visits"), Money.fromDecimal(rs.getBigDecimal("total_spent")));
+        try (Connection conn = source.get()) {
+            return topN == null
+                    ? DBUtil.query(conn, TOP_MEMBERS, mapper, sink, Money.toDecimal(minSpendCents))
+                    : DBUtil.query(conn, TOP_MEMBERS + " FETCH FIRST ? ROWS ONLY", mapper, sink,
+                            Money.toDecimal(minSpendCents), Math.max(topN, 0));
+        }
+    }
+
+    /* Members whose activity summary disagrees with the base tables; see ActivitySummary.check. */
+    public List<String> checkActivitySummary() throws SQLException {
+        try (Connection conn = source.get()) {
+            return ActivitySummary.check(conn);
+        }
+    }
+
+    /* Recomputes Member_Activity_Summary; returns the number of members. */
+    public int rebuildActivitySummary() throws SQLException {
+        try (Connection conn = source.get()) {
+            return ActivitySummary.rebuild(conn);
+        }
+    }
+
+    /* Events whose registered_count disagrees with their registrations; see EventRegistrar.checkCounts. */
+    public List<String> checkEventCounts() throws SQLException {
+        try (Connection conn = source.get()) {
+            return EventRegistrar.checkCounts(conn);
+        }
+    }
+
+    /* Recomputes every event's registered_count; returns the number of events. */
+    public int rebuildEventCounts() throws SQLException {
+        try (Connection conn = source.get()) {
+            return EventRegistrar.rebuildCounts(conn);
+        }
+    }
+}
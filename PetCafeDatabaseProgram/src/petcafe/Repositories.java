@@ -0,0 +1,30 @@
+package petcafe;
+
+/*
+ * Repositories.java -- One of each repository over the same ConnectionSource.
+ *
+ * Each batch worker builds one over its worker connection; new
+ * Repositories(ConnectionSource.pooled()), as the menus and SessionServer use, gives a set
+ * that any number of threads can share.
+ */
+
+public final class Repositories {
+
+    public final MemberRepository members;
+    public final PetRepository pets;
+    public final ReservationRepository reservations;
+    public final OrderRepository orders;
+    public final EventRepository events;
+    public final HealthRecordRepository healthRecords;
+    public final ReportService reports;
+
+    public Repositories(ConnectionSource source) {
+        members = new MemberRepository(source);
+        pets = new PetRepository(source);
+        reservations = new ReservationRepository(source);
+        orders = new OrderRepository(source);
+        events = new EventRepository(source);
+        healthRecords = new HealthRecordRepository(source);
+        reports = new ReportService(source);
+    }
+}
@@ -0,0 +1,224 @@
+package petcafe;
+
+/*
+ * ReservationRepository.java -- Books, changes, cancels and lists room reservations, and
+ *                               answers availability searches from RoomSchedule.
+ *
+ * See MemberRepository for how the repositories are used.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+public class ReservationRepository {
+
+    /*
+     * One row of the reservation list.
+     */
+    public static final class Reservation {
+        public final int reservationId;
+        public final int memberId;
+        public final int roomId;
+        public final Date reservationDate;
+        public final Timestamp startTime;
+        public final String status;
+
+        Reservation(int reservationId, int memberId, int roomId, Date reservationDate, Timestamp startTime,
+                    String status) {
+            this.reservationId = reservationId;
+            this.memberId = memberId;
+            this.roomId = roomId;
+            this.reservationDate = reservationDate;
+            this.startTime = startTime;
+            this.status = status;
+        }
+    }
+
+    /*
+     * Result of book(): the outcome and, if BOOKED, the new reservation's id.
+     */
+    public static final class Booking {
+        public final BookingEngine.Outcome outcome;
+        public final int reservationId;
+
+        Booking(BookingEngine.Outcome outcome, int reservationId) {
+            this.outcome = outcome;
+            this.reservationId = reservationId;
+        }
+    }
+
+    public enum CancelStatus { CANCELLED, NO_SUCH_RESERVATION, ALREADY_STARTED, HAS_ORDERS }
+
+    private static final String LOCK_RESERVATION =
+            "SELECT start_time, member_id FROM Reservation WHERE reservation_id = ? FOR UPDATE";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE Reservation SET status = ?, " +
+                    "check_out_time = CASE WHEN ? = 'Y' THEN SYSTIMESTAMP ELSE check_out_time END " +
+                    "WHERE reservation_id = ?";
+
+    private final ConnectionSource source;
+
+    public ReservationRepository(ConnectionSource source) {
+        this.source = source;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method book(memberId, roomId, date, start, duration, tierId)
+    |
+    |  Purpose:  Books a reservation, turning a full room away from the
+    |            in-memory RoomSchedule where possible, and keeps the schedule
+    |            up to date with the result.
+    |
+    |  Parameters:
+    |      memberId, roomId, date, start, duration -- The reservation.
+    |      tierId   -- Tier at time of visit, or null for the member's current tier.
+    |
+    |  Returns: BOOKED with the new id, or why the booking was refused.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Booking book(int memberId, int roomId, Date date, Timestamp start, int duration, Integer tierId)
+            throws SQLException {
+        try (Connection conn = source.get()) {
+            // A full room is usually turned away from memory. The schedule only sees this
+            // JVM's changes, so the day is re-read before refusing.
+            LocalDate day = date.toLocalDate();
+            if (!RoomSchedule.hasRoomFor(roomId, day, start, duration)) {
+                RoomSchedule.reloadDay(conn, roomId, day);
+                if (!RoomSchedule.hasRoomFor(roomId, day, start, duration)) {
+                    return new Booking(BookingEngine.Outcome.ROOM_FULL, 0);
+                }
+            }
+
+            // Capacity check and insert happen atomically; see BookingEngine.
+            int resId = IdAllocator.nextId(conn, "Reservation", "reservation_id");
+            BookingEngine.Outcome outcome =
+                    BookingEngine.book(conn, resId, memberId, roomId, date, start, duration, tierId);
+            if (outcome == BookingEngine.Outcome.ROOM_FULL) RoomSchedule.reloadDay(conn, roomId, day);
+            else if (outcome == BookingEngine.Outcome.BOOKED) RoomSchedule.add(resId, roomId, day, start, duration);
+            return new Booking(outcome, outcome == BookingEngine.Outcome.BOOKED ? resId : 0);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method updateStatus(resId, status, checkOut)
+    |
+    |  Purpose:  Sets a reservation's status, and its check-out time to now if
+    |            checkOut is true.
+    |
+    |  Returns: false if there is no such reservation.
+    |
+    *-------------------------------------------------------------------*/
+
+    public boolean updateStatus(int resId, String status, boolean checkOut) throws SQLException {
+        try (Connection conn = source.get()) {
+            int rows = DBUtil.inTransaction(conn, c -> {
+                // the booking may become active again (see MemberRepository.delete)
+                if (!MemberRepository.lockOwnerOf(c, "Reservation", "reservation_id", resId)) return 0;
+                try (PreparedStatement ps = c.prepareStatement(UPDATE_STATUS)) {
+                    ps.setString(1, status);
+                    ps.setString(2, checkOut ? "Y" : "N");
+                    ps.setInt(3, resId);
+                    return ps.executeUpdate();
+                }
+            });
+            RoomSchedule.reloadReservation(conn, resId);
+            return rows > 0;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method cancel(resId)
+    |
+    |  Purpose:  Deletes a reservation that has not started and has no orders,
+    |            and takes the visit off the member's activity summary, as one
+    |            transaction. The reservation row is locked before it is
+    |            checked, and OrderCart.place locks it too before inserting an
+    |            order for it, so no order can be placed (and then removed by
+    |            the cascading delete) between the check and the delete.
+    |
+    |  Returns: CANCELLED, or why the reservation was kept.
+    |
+    *-------------------------------------------------------------------*/
+
+    public CancelStatus cancel(int resId) throws SQLException {
+        try (Connection conn = source.get()) {
+            CancelStatus status = DBUtil.inTransaction(conn, c -> {
+                Timestamp start;
+                int memberId;
+                try (PreparedStatement ps = c.prepareStatement(LOCK_RESERVATION)) {
+                    ps.setInt(1, resId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) return CancelStatus.NO_SUCH_RESERVATION;
+                        start = rs.getTimestamp(1);
+                        memberId = rs.getInt(2);
+                    }
+                }
+
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                if (!now.before(start)) return CancelStatus.ALREADY_STARTED;
+
+                try (PreparedStatement ps = c.prepareStatement(
+                        "SELECT COUNT(*) FROM Customer_Order WHERE reservation_id = ?")) {
+                    ps.setInt(1, resId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        if (rs.getInt(1) > 0) return CancelStatus.HAS_ORDERS;
+                    }
+                }
+
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM Reservation WHERE reservation_id = ?")) {
+                    ps.setInt(1, resId);
+                    ps.executeUpdate();
+                }
+                ActivitySummary.recordVisit(c, memberId, -1);
+                return CancelStatus.CANCELLED;
+            });
+            if (status == CancelStatus.CANCELLED) RoomSchedule.remove(resId);
+            return status;
+        }
+    }
+
+    /* Reservations in id order, a page at a time; null filters are skipped. */
+    public PageCursor<Reservation> list(String status, Date from, Date to) {
+        KeysetPager pager = new KeysetPager("reservation_id, member_id, room_id, reservation_date, " +
+                "start_time, status", "Reservation", "reservation_id")
+                .filter("status = ?", status)
+                .filter("reservation_date >= ?", from)
+                .filter("reservation_date <= ?", to);
+        return new PageCursor<>(source, pager, rs -> new Reservation(rs.getInt("reservation_id"),
+                rs.getInt("member_id"), rs.getInt("room_id"), rs.getDate("reservation_date"),
+                rs.getTimestamp("start_time"), rs.getString("status")));
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method availability(date, duration, party, type, adoptionArea, refresh)
+    |
+    |  Purpose:  Every room and start time with space for a party on a day
+    |            (see RoomSchedule.availability).
+    |
+    |  Parameters:
+    |      refresh -- Re-read the day from the database first, to see other
+    |                 terminals' bookings; otherwise answered from memory.
+    |      type, adoptionArea -- Optional filters (null for any).
+    |
+    *-------------------------------------------------------------------*/
+
+    public List<RoomSchedule.Availability> availability(Date date, int duration, int party, String type,
+                                                        Boolean adoptionArea, boolean refresh) throws SQLException {
+        LocalDate day = date.toLocalDate();
+        if (refresh) {
+            try (Connection conn = source.get()) {
+                RoomSchedule.reloadDate(conn, day);
+            }
+        }
+        return RoomSchedule.availability(day, duration, party, type, adoptionArea);
+    }
+}
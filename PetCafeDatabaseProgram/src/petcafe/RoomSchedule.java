@@ -0,0 +1,525 @@
+package petcafe;
+
+/*
+ * RoomSchedule.java -- In-memory index of who occupies which room when, so availability
+ *                      questions ("is room 3 free at 14:00 for 90 minutes?", "which rooms are
+ *                      free then?") are answered without a database round trip.
+ *
+ * For every room and day the active (BOOKED / IN_PROGRESS) reservations are kept as parallel
+ * primitive arrays of start and end minute-of-day, sorted by start. An overlap count binary-
+ * searches to the first reservation that could still be running at the slot's start (start
+ * >= slot start - longest reservation of that day) and scans forward until reservations
+ * start after the slot ends, so it touches only the handful of neighbouring entries.
+ *
+ * Overlap is decided exactly as in BookingEngine.OVERLAPPING: same room and reservation_date,
+ * and intersecting [start, start + duration) minutes of the day taken from start_time's time
+ * of day. Its date part is ignored in both places.
+ *
+ * The schedule is warmed from the database at startup (today onwards) and updated by
+ * PetCafeApp's add / update / cancel paths. It is advisory: other terminals' changes reach it
+ * only when a day is reloaded, so BookingEngine's locked conditional insert stays the final
+ * word, and callers reload a room's day (reloadDay) whenever the two disagree. Room capacities
+ * and attributes are loaded alongside, for the availability search.
+ *
+ * The maps are guarded by one ReentrantLock, held only for in-memory work. The warm and
+ * reload methods run their query with no lock held and take it just to publish the rows,
+ * so a session waiting on the database never holds up the others (nor, on a virtual thread,
+ * pins its carrier). If add() or remove() ran while such a query was in flight, its rows may
+ * be out of date; the query is then repeated, up to RELOAD_ATTEMPTS times in all, after which
+ * the rows are published anyway -- the schedule is advisory and the next reload corrects it.
+ */
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RoomSchedule {
+
+    /*
+     * A room and the attributes availability searches filter on.
+     */
+    public static final class Room {
+        public final int roomId;
+        public final String name;
+        public final String type;
+        public final int capacity;
+        public final boolean adoptionArea;
+
+        Room(int roomId, String name, String type, int capacity, boolean adoptionArea) {
+            this.roomId = roomId;
+            this.name = name;
+            this.type = type;
+            this.capacity = capacity;
+            this.adoptionArea = adoptionArea;
+        }
+    }
+
+    /*
+     * One bookable slot of a room and how many more reservations it can take.
+     */
+    public static final class Availability {
+        public final Room room;
+        public final int startMinute;       // minutes after midnight
+        public final int remaining;
+
+        Availability(Room room, int startMinute, int remaining) {
+            this.room = room;
+            this.startMinute = startMinute;
+            this.remaining = remaining;
+        }
+    }
+
+    /*
+     * Active reservations of one room on one day, sorted by start minute.
+     */
+    private static final class Day {
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+        int[] ids = new int[8];
+        int size;
+        int longest;        // longest duration on this day, bounds the backwards search
+
+        void add(int id, int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int i = firstStartAtOrAfter(start + 1);
+            System.arraycopy(starts, i, starts, i + 1, size - i);
+            System.arraycopy(ends, i, ends, i + 1, size - i);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            starts[i] = start;
+            ends[i] = end;
+            ids[i] = id;
+            size++;
+            longest = Math.max(longest, end - start);
+        }
+
+        // longest is not lowered when the longest reservation goes. It stays an upper bound
+        // on every remaining duration, so overlapping() may start its scan a few entries
+        // early but never misses one; the next reload of the day recomputes it.
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+                    System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+                    System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int overlapping(int start, int end) {
+            int count = 0;
+            for (int i = firstStartAtOrAfter(start - longest); i < size && starts[i] < end; i++) {
+                if (ends[i] > start) count++;
+            }
+            return count;
+        }
+
+        private int firstStartAtOrAfter(int minute) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < minute) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /*
+     * An active reservation as read from the database, not yet published.
+     */
+    private static final class Row {
+        final int reservationId;
+        final int roomId;
+        final LocalDate day;
+        final Timestamp start;
+        final int duration;
+
+        Row(int reservationId, int roomId, LocalDate day, Timestamp start, int duration) {
+            this.reservationId = reservationId;
+            this.roomId = roomId;
+            this.day = day;
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+
+    /* Runs a reload's query; called with no lock held. */
+    private interface RowQuery {
+        List<Row> read() throws SQLException;
+    }
+
+    /* Applies a reload's rows; called with LOCK held. */
+    private interface RowPublisher {
+        void publish(List<Row> rows);
+    }
+
+    // Opening hours and slot grid used by availability().
+    public static final int OPEN_MINUTE = 8 * 60;
+    public static final int CLOSE_MINUTE = 20 * 60;
+    public static final int SLOT_MINUTES = 30;
+
+    private static final Map<Integer, Room> ROOMS = new LinkedHashMap<>();
+    private static final Map<Long, Day> DAYS = new HashMap<>();
+    private static final Map<Integer, Long> DAY_OF_RESERVATION = new HashMap<>();
+
+    private static final String ACTIVE = "status IN ('BOOKED','IN_PROGRESS')";
+    private static final int RELOAD_ATTEMPTS = 3;
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static volatile long changes;       // add() and remove() calls so far; written under LOCK
+
+    private RoomSchedule() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method warm(conn)
+    |
+    |  Purpose:  Loads every room and every active reservation from today on.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void warm(Connection conn) throws SQLException {
+        Map<Integer, Room> rooms = new LinkedHashMap<>();
+        String qRooms = "SELECT room_id, room_name, room_type, max_capacity, is_adoption_area " +
+                "FROM Room ORDER BY room_id";
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(qRooms)) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                rooms.put(id, new Room(id, rs.getString(2), rs.getString(3), rs.getInt(4),
+                        "Y".equals(rs.getString(5))));
+            }
+        }
+
+        String qRes = "SELECT reservation_id, room_id, reservation_date, start_time, duration_minutes " +
+                "FROM Reservation WHERE " + ACTIVE + " AND reservation_date >= TRUNC(SYSDATE)";
+        reload(() -> {
+            List<Row> rows = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(qRes)) {
+                ps.setFetchSize(1000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new Row(rs.getInt(1), rs.getInt(2), rs.getDate(3).toLocalDate(),
+                                rs.getTimestamp(4), rs.getInt(5)));
+                    }
+                }
+            }
+            return rows;
+        }, rows -> {
+            ROOMS.clear();
+            DAYS.clear();
+            DAY_OF_RESERVATION.clear();
+            ROOMS.putAll(rooms);
+            for (Row r : rows) put(r);
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method reloadDay(conn, roomId, day)
+    |
+    |  Purpose:  Replaces one room's day with what the database holds now,
+    |            picking up bookings and cancellations made by other terminals.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void reloadDay(Connection conn, int roomId, LocalDate day) throws SQLException {
+        String q = "SELECT reservation_id, start_time, duration_minutes FROM Reservation " +
+                "WHERE room_id = ? AND reservation_date = ? AND " + ACTIVE;
+        reload(() -> {
+            List<Row> rows = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(q)) {
+                ps.setInt(1, roomId);
+                ps.setDate(2, Date.valueOf(day));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) rows.add(new Row(rs.getInt(1), roomId, day, rs.getTimestamp(2), rs.getInt(3)));
+                }
+            }
+            return rows;
+        }, rows -> {
+            forgetDay(roomId, day);
+            for (Row r : rows) put(r);
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method reloadDate(conn, day)
+    |
+    |  Purpose:  Replaces every room's reservations for one day with what the
+    |            database holds now, in a single query.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void reloadDate(Connection conn, LocalDate day) throws SQLException {
+        String q = "SELECT reservation_id, room_id, start_time, duration_minutes FROM Reservation " +
+                "WHERE reservation_date = ? AND " + ACTIVE;
+        reload(() -> {
+            List<Row> rows = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(q)) {
+                ps.setDate(1, Date.valueOf(day));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) rows.add(new Row(rs.getInt(1), rs.getInt(2), day, rs.getTimestamp(3), rs.getInt(4)));
+                }
+            }
+            return rows;
+        }, rows -> {
+            for (Room room : ROOMS.values()) forgetDay(room.roomId, day);
+            for (Row r : rows) put(r);
+        });
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method reloadReservation(conn, reservationId)
+    |
+    |  Purpose:  Re-reads one reservation after its status changed, adding it
+    |            if it is active and forgetting it otherwise.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void reloadReservation(Connection conn, int reservationId) throws SQLException {
+        String q = "SELECT room_id, reservation_date, start_time, duration_minutes FROM Reservation " +
+                "WHERE reservation_id = ? AND " + ACTIVE;
+        reload(() -> {
+            List<Row> rows = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(q)) {
+                ps.setInt(1, reservationId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        rows.add(new Row(reservationId, rs.getInt(1), rs.getDate(2).toLocalDate(),
+                                rs.getTimestamp(3), rs.getInt(4)));
+                    }
+                }
+            }
+            return rows;
+        }, rows -> {
+            if (rows.isEmpty()) forget(reservationId);
+            else put(rows.get(0));
+        });
+    }
+
+    /*
+     * Runs query with no lock held, then publishes its rows under LOCK, repeating the query
+     * if add() or remove() ran meanwhile (see the class comment).
+     */
+    private static void reload(RowQuery query, RowPublisher publisher) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            long seen = changes;
+            List<Row> rows = query.read();
+            LOCK.lock();
+            try {
+                if (changes == seen || attempt == RELOAD_ATTEMPTS) {
+                    publisher.publish(rows);
+                    return;
+                }
+            } finally {
+                LOCK.unlock();
+            }
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method add(reservationId, roomId, day, start, duration)
+    |
+    |  Purpose:  Records an active reservation (after it has been committed).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void add(int reservationId, int roomId, LocalDate day, Timestamp start, int duration) {
+        LOCK.lock();
+        try {
+            changes++;
+            put(new Row(reservationId, roomId, day, start, duration));
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method remove(reservationId)
+    |
+    |  Purpose:  Forgets a reservation that was cancelled, completed or deleted.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static void remove(int reservationId) {
+        LOCK.lock();
+        try {
+            changes++;
+            forget(reservationId);
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /* The in-memory updates behind add, remove and the reloads; the caller holds LOCK. */
+    private static void put(Row r) {
+        forget(r.reservationId);
+        long k = key(r.roomId, r.day);
+        int from = minuteOfDay(r.start);
+        DAYS.computeIfAbsent(k, x -> new Day()).add(r.reservationId, from, from + r.duration);
+        DAY_OF_RESERVATION.put(r.reservationId, k);
+    }
+
+    private static void forget(int reservationId) {
+        Long k = DAY_OF_RESERVATION.remove(reservationId);
+        if (k != null) DAYS.get(k).remove(reservationId);
+    }
+
+    private static void forgetDay(int roomId, LocalDate day) {
+        Day old = DAYS.remove(key(roomId, day));
+        if (old != null) {
+            for (int i = 0; i < old.size; i++) DAY_OF_RESERVATION.remove(old.ids[i]);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method overlapping(roomId, day, start, duration)
+    |
+    |  Returns: How many active reservations of the room overlap the slot --
+    |           the same count BookingEngine compares with max_capacity.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static int overlapping(int roomId, LocalDate day, Timestamp start, int duration) {
+        LOCK.lock();
+        try {
+            return overlapping(roomId, day, minuteOfDay(start), duration);
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    private static int overlapping(int roomId, LocalDate day, int from, int duration) {
+        Day d = DAYS.get(key(roomId, day));
+        return d == null ? 0 : d.overlapping(from, from + duration);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method hasRoomFor(roomId, day, start, duration)
+    |
+    |  Returns: false only if the room is known and at capacity for the slot;
+    |           rooms added since warm() are left for the database to judge.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static boolean hasRoomFor(int roomId, LocalDate day, Timestamp start, int duration) {
+        LOCK.lock();
+        try {
+            Room room = ROOMS.get(roomId);
+            return room == null || overlapping(roomId, day, minuteOfDay(start), duration) < room.capacity;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method freeRooms(day, start, duration)
+    |
+    |  Returns: The rooms below capacity for the whole slot, in room_id order.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Room> freeRooms(LocalDate day, Timestamp start, int duration) {
+        int from = minuteOfDay(start);
+        LOCK.lock();
+        try {
+            List<Room> free = new ArrayList<>();
+            for (Room room : ROOMS.values()) {
+                if (overlapping(room.roomId, day, from, duration) < room.capacity) free.add(room);
+            }
+            return free;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method availability(day, duration, partySize, roomType, adoptionArea)
+    |
+    |  Purpose:  Lists, for every matching room, each slot of the day (every
+    |            SLOT_MINUTES from OPEN_MINUTE, ending by CLOSE_MINUTE) that can
+    |            still take partySize more reservations.
+    |
+    |  Pre-condition:  The day is current (see reloadDate).
+    |
+    |  Parameters:
+    |      day          -- The date to search.
+    |      duration     -- Length of the visit in minutes.
+    |      partySize    -- Places needed.
+    |      roomType     -- Only rooms of this room_type (case-insensitive), or null.
+    |      adoptionArea -- Only rooms with / without is_adoption_area = 'Y', or null.
+    |
+    |  Returns: The free slots, by room_id and then start time.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Availability> availability(LocalDate day, int duration, int partySize,
+                                                  String roomType, Boolean adoptionArea) {
+        LOCK.lock();
+        try {
+            List<Availability> slots = new ArrayList<>();
+            for (Room room : ROOMS.values()) {
+                if (roomType != null && !roomType.equalsIgnoreCase(room.type)) continue;
+                if (adoptionArea != null && adoptionArea != room.adoptionArea) continue;
+                if (room.capacity < partySize) continue;
+                for (int from = OPEN_MINUTE; from + duration <= CLOSE_MINUTE; from += SLOT_MINUTES) {
+                    int remaining = room.capacity - overlapping(room.roomId, day, from, duration);
+                    if (remaining >= partySize) slots.add(new Availability(room, from, remaining));
+                }
+            }
+            return slots;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method rooms()
+    |
+    |  Returns: Every room, in room_id order.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<Room> rooms() {
+        LOCK.lock();
+        try {
+            return new ArrayList<>(ROOMS.values());
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    private static long key(int roomId, LocalDate day) {
+        return ((long) roomId << 32) | (day.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    /* Minutes after midnight of t's time of day, the unit all overlaps are decided in. */
+    static int minuteOfDay(Timestamp t) {
+        LocalDateTime dt = t.toLocalDateTime();
+        return dt.getHour() * 60 + dt.getMinute();
+    }
+}
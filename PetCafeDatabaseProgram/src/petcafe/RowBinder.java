@@ -0,0 +1,198 @@
+package petcafe;
+
+/*
+ * RowBinder.java -- Binds CSV records to a table's INSERT statement using the column types
+ *                   the database reports, so the loader needs no per-table knowledge.
+ *
+ * compile() matches the CSV header names to the table's columns (once per table) and picks a
+ * binder for each column from its SQL type: DATE columns get setDate with the MM-DD-YYYY
+ * decoder, TIMESTAMP columns get setTimestamp with the h:mm AM decoder, whole-number columns
+ * get setLong, other numbers get setBigDecimal and everything else setString. Columns of the
+ * table that are not in the CSV are left out of the INSERT so they take their defaults.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RowBinder {
+
+    /*
+     * Binds field `field` of the current record to parameter `index`.
+     */
+    private interface ColumnBinder {
+        void bind(PreparedStatement ps, int index, CsvReader r, int field) throws SQLException;
+    }
+
+    private static final ColumnBinder DATE =
+            (ps, index, r, field) -> ps.setDate(index, r.getDate(field));
+    private static final ColumnBinder TIME =
+            (ps, index, r, field) -> ps.setTimestamp(index, r.getTime(field));
+    private static final ColumnBinder WHOLE_NUMBER =
+            (ps, index, r, field) -> ps.setLong(index, r.getLong(field));
+    private static final ColumnBinder NUMBER = (ps, index, r, field) -> {
+        if (r.isWholeNumber(field)) ps.setLong(index, r.getLong(field));
+        else ps.setBigDecimal(index, r.getDecimal(field));
+    };
+    private static final ColumnBinder TEXT =
+            (ps, index, r, field) -> ps.setString(index, r.getString(field));
+
+    private final String insertSql;
+    private final ColumnBinder[] binders;
+    private final int[] nullTypes;
+
+    private RowBinder(String insertSql, ColumnBinder[] binders, int[] nullTypes) {
+        this.insertSql = insertSql;
+        this.binders = binders;
+        this.nullTypes = nullTypes;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method compile(conn, table, header)
+    |
+    |  Purpose:  Builds the INSERT statement and the column binders for a table
+    |            from the table's metadata and the CSV header record.
+    |
+    |  Pre-condition:  conn is established correctly. header is positioned on the
+    |                  CSV header record, whose fields are column names of table.
+    |
+    |  Parameters:
+    |      conn   -- Connection used to read the table's column types.
+    |      table  -- Name of SQL table.
+    |      header -- Reader positioned on the header record.
+    |
+    |  Returns: A RowBinder for the CSV file's rows.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static RowBinder compile(Connection conn, String table, CsvReader header) throws SQLException {
+        Map<String, Integer> typeByColumn = new HashMap<>();
+        Map<String, String> typeNameByColumn = new HashMap<>();
+        Map<String, Boolean> wholeByColumn = new HashMap<>();
+
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData md = rs.getMetaData();
+            for (int c = 1; c <= md.getColumnCount(); c++) {
+                String name = md.getColumnName(c).toUpperCase();
+                typeByColumn.put(name, md.getColumnType(c));
+                typeNameByColumn.put(name, md.getColumnTypeName(c));
+                wholeByColumn.put(name, isWholeNumber(md.getColumnType(c), md.getPrecision(c), md.getScale(c)));
+            }
+        }
+
+        int n = header.fieldCount();
+        ColumnBinder[] binders = new ColumnBinder[n];
+        int[] nullTypes = new int[n];
+        StringBuilder columns = new StringBuilder();
+        StringBuilder params = new StringBuilder();
+
+        for (int i = 0; i < n; i++) {
+            String name = header.getString(i).trim().toUpperCase();
+            Integer type = typeByColumn.get(name);
+            if (type == null) {
+                throw new SQLException("CSV column '" + header.getString(i) + "' is not a column of " + table);
+            }
+            String typeName = typeNameByColumn.get(name);
+
+            if (type == Types.DATE || "DATE".equalsIgnoreCase(typeName)) {
+                binders[i] = DATE;
+                nullTypes[i] = Types.DATE;
+            } else if (type == Types.TIMESTAMP || type == Types.TIME
+                    || (typeName != null && typeName.toUpperCase().startsWith("TIMESTAMP"))) {
+                binders[i] = TIME;
+                nullTypes[i] = Types.TIMESTAMP;
+            } else if (isNumeric(type)) {
+                binders[i] = wholeByColumn.get(name) ? WHOLE_NUMBER : NUMBER;
+                nullTypes[i] = Types.NUMERIC;
+            } else {
+                binders[i] = TEXT;
+                nullTypes[i] = Types.VARCHAR;
+            }
+
+            if (i > 0) {
+                columns.append(", ");
+                params.append(", ");
+            }
+            columns.append(name);
+            params.append('?');
+        }
+
+        String sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + params + ")";
+        return new RowBinder(sql, binders, nullTypes);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method insertSql()
+    |
+    |  Returns: The INSERT statement the bound parameters belong to.
+    |
+    *-------------------------------------------------------------------*/
+
+    public String insertSql() {
+        return insertSql;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method bind(ps, r)
+    |
+    |  Purpose:  Sets every parameter of ps from the reader's current record.
+    |            Empty fields are bound as NULL.
+    |
+    |  Pre-condition:  ps was prepared from insertSql(); r is on a data record.
+    |
+    |  Parameters:
+    |      ps -- Statement prepared from insertSql().
+    |      r  -- Reader positioned on the record to bind.
+    |
+    *-------------------------------------------------------------------*/
+
+    public void bind(PreparedStatement ps, CsvReader r) throws SQLException {
+        for (int i = 0; i < binders.length; i++) {
+            if (r.isNull(i)) ps.setNull(i + 1, nullTypes[i]);
+            else binders[i].bind(ps, i + 1, r, i);
+        }
+    }
+
+    /*
+     * Integer types, and NUMBER(p) / DECIMAL(p, 0). Oracle reports a plain NUMBER as
+     * precision 0, scale -127; those values may have decimals and use the NUMBER binder.
+     */
+    private static boolean isWholeNumber(int type, int precision, int scale) {
+        switch (type) {
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.BIGINT:
+                return true;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return precision > 0 && precision <= 18 && scale == 0;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isNumeric(int type) {
+        switch (type) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.BIGINT:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package petcafe;
+
+/*
+ * SchemaCheck.java -- Startup check that the index pack in initialSQLfiles/createIndexes.sql
+ *                     has been applied. Without those indexes the reservation overlap check
+ *                     and the delete guards scan whole tables, so PetCafeApp warns loudly
+ *                     rather than silently slowing down as the tables grow.
+ *
+ * The pack records the version it applied in Schema_Version (component INDEX_PACK). The check
+ * compares that with INDEX_PACK_VERSION, so a database still on an older pack is reported even
+ * if it happens to have every index this version names, and also looks each index up by name.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SchemaCheck {
+
+    // Version of the index pack the application expects; createIndexes.sql records the
+    // version it applies under this component name in Schema_Version.
+    public static final int INDEX_PACK_VERSION = 1;
+    public static final String INDEX_PACK = "INDEX_PACK";
+
+    // Every index created by createIndexes.sql.
+    private static final List<String> EXPECTED_INDEXES = Arrays.asList(
+            "IDX_RES_ROOM_DATE",
+            "IDX_RES_MEMBER",
+            "IDX_ORDER_MEMBER",
+            "IDX_ORDER_RES",
+            "IDX_ER_EVENT",
+            "IDX_HEALTH_PET",
+            "IDX_APP_PET",
+            "IDX_APP_MEMBER",
+            "IDX_ADOPT_PET",
+            "IDX_EVENT_DATE");
+
+    private SchemaCheck() {
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method missingIndexes(conn)
+    |
+    |  Purpose:  Looks up which of the expected indexes do not exist in the
+    |            current user's schema.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |
+    |  Returns: The names of the missing indexes (empty if the pack is applied).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static List<String> missingIndexes(Connection conn) throws SQLException {
+        List<String> missing = new ArrayList<>(EXPECTED_INDEXES);
+        String sql = "SELECT index_name FROM user_indexes WHERE index_name LIKE 'IDX\\_%' ESCAPE '\\'";
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                missing.remove(rs.getString(1).toUpperCase());
+            }
+        }
+        return missing;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method appliedVersion(conn, component)
+    |
+    |  Purpose:  Reads the version of a schema component recorded in
+    |            Schema_Version.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Parameters:
+    |      conn      -- The connection object representing the connection to the database
+    |      component -- The component name, e.g. INDEX_PACK
+    |
+    |  Returns: The recorded version, or 0 if none is recorded (including a
+    |           database created before Schema_Version existed).
+    |
+    *-------------------------------------------------------------------*/
+
+    public static int appliedVersion(Connection conn, String component) throws SQLException {
+        String sql = "SELECT version FROM Schema_Version WHERE component = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, component);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            // table or view does not exist: ORA-00942 on Oracle, SQLState 42S02 elsewhere
+            if (e.getErrorCode() == 942 || "42S02".equals(e.getSQLState())) return 0;
+            throw e;
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method verifyIndexes(conn)
+    |
+    |  Purpose:  Prints a warning if the database records an older index pack
+    |            than INDEX_PACK_VERSION (or none), or naming any missing
+    |            indexes. Problems reading the data dictionary are reported but
+    |            never stop the program.
+    |
+    |  Pre-condition:  conn is established correctly.
+    |
+    |  Parameters:
+    |      conn     -- The connection object representing the connection to the database
+    |
+    |  Returns: true if the expected pack version is recorded and every
+    |           expected index exists.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static boolean verifyIndexes(Connection conn) {
+        try {
+            int applied = appliedVersion(conn, INDEX_PACK);
+            List<String> missing = missingIndexes(conn);
+            if (applied >= INDEX_PACK_VERSION && missing.isEmpty()) return true;
+            if (applied < INDEX_PACK_VERSION) {
+                System.out.println("WARNING: this database records "
+                        + (applied == 0 ? "no index pack" : "index pack v" + applied)
+                        + "; the application expects v" + INDEX_PACK_VERSION + "."
+                        + (applied == 0 ? " If the database has no Schema_Version table yet, create it"
+                                + " first (see initialSQLfiles/createTables.sql)." : ""));
+            }
+            if (!missing.isEmpty()) {
+                System.out.println("WARNING: index pack v" + INDEX_PACK_VERSION + " is not fully applied; missing "
+                        + missing + ". Queries will slow down as tables grow.");
+            }
+            System.out.println("Run initialSQLfiles/createIndexes.sql (insertSampleData does this).");
+        } catch (SQLException e) {
+            System.out.println("WARNING: could not check indexes: " + e.getMessage());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,290 @@
+package petcafe;
+
+/*
+ * SessionServer.java -- Serves many front-desk terminals from one JVM. Each terminal opens a
+ *                       socket and sends BatchRunner commands, one per line, and gets one
+ *                       reply line per command.
+ *
+ * Started with  java petcafe.PetCafeApp [user pass] --serve [port]
+ *
+ * A session (UTF-8 lines, S: server, C: terminal):
+ *
+ *   S: PETCAFE READY
+ *   C: book-room member=3 room=1 start="2025-12-01 10:00" duration=60
+ *   S: OK reservation 412
+ *   C: register-event member=3 event=99
+ *   S: ERR no such event
+ *   C: quit
+ *   S: BYE
+ *
+ * Blank lines and lines starting with # get no reply. The commands and their results are
+ * the ones listed in BatchRunner; a refusal for business reasons (room full) is an OK reply.
+ *
+ * Every session runs on its own thread: a virtual thread on Java 21 and later, a platform
+ * thread from a cached pool before that. A session holds no connection while it waits for
+ * its terminal. Each command borrows one from DBUtil's pool for as long as it runs (the
+ * repositories are over ConnectionSource.pooled()), so hundreds of mostly idle terminals share
+ * petcafe.pool.max connections; a command that finds them all busy waits on the pool's lock
+ * condition, which does not tie up a virtual thread's carrier. The caches the sessions share
+ * (MenuCatalog, RoomSchedule, IdAllocator) likewise never hold a lock while they wait on the
+ * database, so one session's query cannot stall the rest.
+ *
+ * The server listens on the loopback interface (-Dpetcafe.server.bind=address to change)
+ * on port 4600 (-Dpetcafe.server.port or the --serve argument; 0 picks a free port), and
+ * closes sessions that send nothing for petcafe.server.idleSeconds (default 1800).
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = Integer.getInteger("petcafe.server.port", 4600);
+
+    private static final int IDLE_MILLIS = Integer.getInteger("petcafe.server.idleSeconds", 1800) * 1000;
+    private static final int BACKLOG = 512;
+
+    private final ServerSocket listener;
+    private final ExecutorService sessions;
+    private final boolean virtual;
+    private final Repositories repo = new Repositories(ConnectionSource.pooled());
+    private final Map<String, LatencyStats> stats = BatchRunner.newStats();
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicInteger served = new AtomicInteger();
+    private final Thread acceptor;
+    private volatile boolean stopping;
+
+    private SessionServer(ServerSocket listener) {
+        this.listener = listener;
+        ExecutorService virtualExecutor = newVirtualExecutor();
+        this.virtual = virtualExecutor != null;
+        this.sessions = virtual ? virtualExecutor : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "petcafe-session");
+            t.setDaemon(true);
+            return t;
+        });
+        this.acceptor = new Thread(this::accept, "petcafe-acceptor");
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method start(port)
+    |
+    |  Purpose:  Opens the listening socket and starts accepting sessions.
+    |
+    |  Pre-condition:  DBUtil is configured; the caches PetCafeApp warms at
+    |                  start-up have been loaded.
+    |
+    |  Parameters:
+    |      port -- TCP port to listen on, or 0 for any free port (see port()).
+    |
+    |  Returns: The running server; close() stops it.
+    |
+    *-------------------------------------------------------------------*/
+
+    public static SessionServer start(int port) throws IOException {
+        String bind = System.getProperty("petcafe.server.bind");
+        ServerSocket listener = new ServerSocket();
+        try {
+            listener.setReuseAddress(true);
+            listener.bind(new InetSocketAddress(bind == null ? InetAddress.getLoopbackAddress()
+                    : InetAddress.getByName(bind), port), BACKLOG);
+        } catch (IOException e) {
+            listener.close();
+            throw e;
+        }
+        SessionServer server = new SessionServer(listener);
+        server.acceptor.start();
+        return server;
+    }
+
+    public int port() {
+        return listener.getLocalPort();
+    }
+
+    /* Whether sessions run on virtual threads. */
+    public boolean virtualThreads() {
+        return virtual;
+    }
+
+    /* Sessions open now, the most open at once, and the number started so far. */
+    public int activeSessions() {
+        return active.get();
+    }
+
+    public int peakSessions() {
+        return peak.get();
+    }
+
+    public int sessionsServed() {
+        return served.get();
+    }
+
+    /* Waits until the server has been closed. */
+    public void awaitClose() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method close()
+    |
+    |  Purpose:  Stops accepting, disconnects every open session and waits
+    |            up to 10 seconds for the commands in progress to finish.
+    |
+    *-------------------------------------------------------------------*/
+
+    @Override
+    public void close() {
+        stopping = true;
+        try {
+            listener.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        for (Socket s : open) closeQuietly(s);
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* Prints the session counts and the latency of every command run so far. */
+    public void printStats(PrintStream out) {
+        out.printf("%d sessions served (peak %d at once) on %s threads%n", served.get(), peak.get(),
+                virtual ? "virtual" : "platform");
+        out.println(LatencyStats.header());
+        for (LatencyStats s : stats.values()) {
+            if (s.count() > 0) out.println(s);
+        }
+    }
+
+    private void accept() {
+        while (!stopping) {
+            Socket socket;
+            try {
+                socket = listener.accept();
+            } catch (IOException e) {
+                if (!stopping) System.err.println("Session server stopped accepting: " + e.getMessage());
+                return;
+            }
+            open.add(socket);
+            served.incrementAndGet();
+            try {
+                sessions.execute(() -> serve(socket));
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                open.remove(socket);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method serve(socket)
+    |
+    |  Purpose:  Runs one session: reads commands until the terminal sends
+    |            quit, disconnects or goes idle, replying to each with OK and
+    |            the result or ERR and the reason.
+    |
+    *-------------------------------------------------------------------*/
+
+    private void serve(Socket socket) {
+        peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setSoTimeout(IDLE_MILLIS);
+            s.setTcpNoDelay(true);
+            reply(out, "PETCAFE READY");
+
+            String text;
+            int line = 0;
+            while ((text = in.readLine()) != null) {
+                line++;
+                if (text.trim().equalsIgnoreCase("quit")) {
+                    reply(out, "BYE");
+                    break;
+                }
+                long start = System.nanoTime();
+                BatchRunner.Command cmd = null;
+                String result;
+                try {
+                    cmd = BatchRunner.parseLine(line, text);
+                    if (cmd == null) continue;
+                    result = "OK " + BatchRunner.execute(repo, cmd);
+                } catch (SQLException | RuntimeException e) {
+                    result = "ERR " + oneLine(e.getMessage());
+                }
+                if (cmd != null) stats.get(cmd.name).record(System.nanoTime() - start, result.startsWith("OK"));
+                reply(out, result);
+            }
+        } catch (SocketTimeoutException e) {
+            // idle terminal; the socket is closed above
+        } catch (IOException e) {
+            if (!stopping) System.err.println("Session " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+        } finally {
+            open.remove(socket);
+            active.decrementAndGet();
+        }
+    }
+
+    private static void reply(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write('\n');
+        out.flush();
+    }
+
+    private static String oneLine(String message) {
+        return message == null ? "error" : message.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method newVirtualExecutor()
+    |
+    |  Purpose:  Executors.newVirtualThreadPerTaskExecutor(), looked up at run
+    |            time so the code still compiles and runs on Java 8.
+    |
+    |  Returns: The executor, or null if this JVM has no virtual threads (or
+    |           has them only as a disabled preview).
+    |
+    *-------------------------------------------------------------------*/
+
+    static ExecutorService newVirtualExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
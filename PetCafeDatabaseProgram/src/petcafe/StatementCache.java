@@ -0,0 +1,266 @@
+package petcafe;
+
+/*
+ * StatementCache.java -- Per-connection cache of prepared statements, so SQL that PetCafeApp
+ *                        runs again and again (the price lookup in createOrder's item loop,
+ *                        the overlap check in addReservation, ...) is parsed once per physical
+ *                        connection instead of once per call.
+ *
+ * ConnectionPool gives every physical connection its own cache and routes the pooled
+ * connection's prepareStatement(String) through it, so callers keep writing the usual
+ * try-with-resources blocks. The statement handed out is a proxy: close() clears its
+ * parameters and batch and returns it to the cache instead of closing it. If the same SQL
+ * is already in use (e.g. nested calls), a plain uncached statement is returned. Once the
+ * cache holds maxSize statements, the least recently used idle one is closed.
+ *
+ * A borrower may tune the statement it was lent. Fetch size, fetch direction, max rows, max
+ * field size and query timeout are put back to the values the statement had when it was
+ * prepared before the next borrower gets it. Settings that cannot be read back (cursor name,
+ * escape processing, poolable, closeOnCompletion) take the statement out of the cache
+ * instead, and it is closed when it is returned.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class StatementCache {
+
+    /*
+     * One cached statement and the proxy currently lent out for it, if any.
+     */
+    private static final class Slot {
+        final PreparedStatement statement;
+        Handle lentTo;
+
+        // Settings at prepare time, restored when a borrower changed them.
+        final int fetchSize;
+        final int fetchDirection;
+        final int maxRows;
+        final int maxFieldSize;
+        final int queryTimeout;
+        boolean tuned;          // a restorable setting was changed
+        boolean discard;        // a setting that cannot be restored was changed
+
+        Slot(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        // maxRows first: some drivers refuse a fetch size above the current max rows.
+        void restoreSettings() throws SQLException {
+            statement.setMaxRows(maxRows);
+            statement.setMaxFieldSize(maxFieldSize);
+            statement.setQueryTimeout(queryTimeout);
+            statement.setFetchDirection(fetchDirection);
+            statement.setFetchSize(fetchSize);
+            tuned = false;
+        }
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits, misses, evictions, bypasses;
+
+    public StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method prepare(sql)
+    |
+    |  Purpose:  Returns a prepared statement for sql, reusing the cached one
+    |            when it is idle.
+    |
+    |  Parameters:
+    |      sql -- The statement text.
+    |
+    |  Returns: A statement whose close() hands it back to the cache.
+    |
+    *-------------------------------------------------------------------*/
+
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        Slot slot = slots.get(sql);
+        if (slot != null) {
+            if (slot.lentTo != null) {
+                bypasses++;
+                return physical.prepareStatement(sql);
+            }
+            hits++;
+        } else {
+            misses++;
+            PreparedStatement ps = physical.prepareStatement(sql);
+            try {
+                slot = new Slot(ps);
+            } catch (SQLException e) {
+                closeQuietly(ps);
+                throw e;
+            }
+            slots.put(sql, slot);
+            evictIfFull();
+        }
+        slot.lentTo = new Handle(slot);
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, slot.lentTo);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method reclaim()
+    |
+    |  Purpose:  Takes back every statement still lent out. Called when the
+    |            connection goes back to the pool, so a statement its borrower
+    |            forgot to close cannot be used by the next borrower.
+    |
+    *-------------------------------------------------------------------*/
+
+    public synchronized void reclaim() {
+        for (Slot slot : new ArrayList<>(slots.values())) {     // giveBack may discard
+            if (slot.lentTo != null) giveBack(slot.lentTo);
+        }
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method close()
+    |
+    |  Purpose:  Closes every cached statement.
+    |
+    *-------------------------------------------------------------------*/
+
+    public synchronized void close() {
+        for (Slot slot : slots.values()) closeQuietly(slot.statement);
+        slots.clear();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("size=%d hits=%d misses=%d evictions=%d bypasses=%d",
+                slots.size(), hits, misses, evictions, bypasses);
+    }
+
+    /*
+     * Closes least recently used idle statements until the cache fits in maxSize.
+     */
+    private void evictIfFull() {
+        Iterator<Slot> it = slots.values().iterator();
+        while (slots.size() > maxSize && it.hasNext()) {
+            Slot slot = it.next();
+            if (slot.lentTo == null) {
+                it.remove();
+                evictions++;
+                closeQuietly(slot.statement);
+            }
+        }
+    }
+
+    private synchronized void giveBack(Handle handle) {
+        if (handle.returned) return;
+        handle.returned = true;
+        Slot slot = handle.slot;
+        slot.lentTo = null;
+        if (slot.discard) {
+            discard(slot);
+            return;
+        }
+        try {
+            slot.statement.clearParameters();
+            slot.statement.clearBatch();
+            if (slot.tuned) slot.restoreSettings();
+        } catch (SQLException e) {
+            discard(slot);
+        }
+    }
+
+    private void discard(Slot slot) {
+        slots.values().remove(slot);
+        closeQuietly(slot.statement);
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            // The statement is being thrown away.
+        }
+    }
+
+    /*
+     * The proxy lent out for one use of a cached statement.
+     */
+    private final class Handle implements InvocationHandler {
+        final Slot slot;
+        boolean returned;
+
+        Handle(Slot slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack(this);
+                    return null;
+                case "isClosed":
+                    return returned || slot.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + slot.statement + "]";
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setMaxFieldSize":
+                case "setQueryTimeout":
+                    if (!returned) slot.tuned = true;
+                    break;
+                case "setCursorName":
+                case "setEscapeProcessing":
+                case "setPoolable":
+                case "closeOnCompletion":
+                    if (!returned) slot.discard = true;
+                    break;
+                default:
+                    break;
+            }
+            if (returned) throw new SQLException("Statement has already been closed.");
+            try {
+                return method.invoke(slot.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
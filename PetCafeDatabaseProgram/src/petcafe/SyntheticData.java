@@ -0,0 +1,782 @@
+package petcafe;
+
+/*
+ * SyntheticData.java -- Generates a Pet Cafe data set of any size, shaped like SampleDataCSVs,
+ *                       for loading production-sized tables.
+ *
+ * The size is given as a member count; every other table grows with it (per member: 5
+ * reservations, 3 orders of 1 to 4 items; per 5 members a pet with 3 health records; per 50
+ * members an event; per 100 a staff member; per 1000 a room). Membership_Tier and Menu_Item
+ * are copied from the sample files, and the names, breeds, titles and notes of the other
+ * tables are drawn from the sample rows, numbered once the sample runs out ("Alex 2").
+ *
+ * Each value is a pure function of (seed, table, row number): a row is never stored, and a
+ * table that refers to another recomputes the parent values it needs instead of looking them
+ * up. The output is therefore the same for the same seed on every run, any table can be
+ * produced on its own, and nothing but the sample rows and the room seat layout is held in
+ * memory. The data is referentially consistent:
+ *
+ *     - reservations are laid out on a grid of two-hour slots, one seat per reservation, so
+ *       no room is ever booked past its max_capacity; they run from about 18 months before
+ *       the as-of date to 6 months after it, COMPLETED (some CANCELLED) before and BOOKED after
+ *     - orders belong to a completed reservation's member and visit, or are walk-ins; the
+ *       total is the sum of their Order_Item lines less the member's tier discount
+ *     - events never seat more than max_attendees; upcoming full events have a waitlist
+ *     - every other pet has three adoption applications; every other such pet was adopted
+ *       through its APPROVED application, and its status is ADOPTED
+ *
+ * Member_Activity_Summary and Event.registered_count are not generated; the loader rebuilds
+ * them afterwards, as it does for the sample data.
+ *
+ * Dates and times use the sample file formats; timestamps carry their date
+ * ("12-02-2025 9:15 AM", see CsvReader.getTime). open() streams a table as CSV text straight
+ * into CsvReader, which is how insertSampleData loads it (-Dpetcafe.synthetic.members=N);
+ * main() writes every table to a directory of CSV files instead:
+ *
+ *         java -cp bench-out petcafe.SyntheticData <members> <outputDir> [seed]
+ *
+ * run from the CS460Prog4 directory. -Dpetcafe.synthetic.asOf=YYYY-MM-DD moves the as-of
+ * date (default 2026-01-01), e.g. to today so that the future rows are upcoming.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SyntheticData {
+
+    /* The generated tables, parents before children. */
+    public static final List<String> TABLES = Collections.unmodifiableList(Arrays.asList(
+            "Membership_Tier", "Staff", "Room", "Menu_Item", "Member", "Pet", "Health_Record",
+            "Reservation", "Customer_Order", "Order_Item", "Event", "Event_Registration",
+            "Adoption_Application", "Adoption"));
+
+    public static final long DEFAULT_SEED = 460;
+    public static final LocalDate DEFAULT_AS_OF = LocalDate.of(2026, 1, 1);
+
+    private static final int SLOTS = 6;                 // two-hour reservation slots from 8 AM
+    private static final int ROWS_PER_REFILL = 256;
+
+    /*
+     * Appends the CSV records for row number i (1-based) of a table; most tables write one
+     * record per number, Order_Item and Event_Registration one per order / event.
+     */
+    private interface Generator {
+        void rows(long i, Row row);
+    }
+
+    private static final class Table {
+        final String header;
+        final long count;
+        final Generator generator;
+
+        Table(String header, long count, Generator generator) {
+            this.header = header;
+            this.count = count;
+            this.generator = generator;
+        }
+    }
+
+    /*
+     * The rows of one sample file, by column name.
+     */
+    private static final class Sample {
+        final String header;
+        final Map<String, Integer> columns = new HashMap<>();
+        final List<String[]> rows = new ArrayList<>();
+
+        Sample(String header) {
+            this.header = header;
+        }
+
+        String get(long row, String column) {
+            return rows.get((int) row)[columns.get(column)];
+        }
+    }
+
+    private final long seed;
+    private final LocalDate asOf;
+    private final long members;
+    private final Map<String, Sample> samples = new HashMap<>();
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+
+    private final long staff;
+    private final int rooms;
+    private final long pets;
+    private final long reservations;
+    private final long events;
+    private final long applicationGroups;       // three applications for every odd pet id
+
+    private final String[] tierIds;
+    private final int[] tierDiscounts;
+    private final String[] itemIds;
+    private final long[] itemCents;
+    private final int[] roomCapacity;           // by room id
+    private final int[] roomBySeat;             // the rooms of one slot, a seat each
+    private final Map<String, List<String>> notesByStatus = new HashMap<>();
+    private final long seatsPerDay;
+    private final long seatStride;              // coprime with seatsPerDay
+    private final long days;
+    private final LocalDate firstDay;
+
+    /*---------------------------------------------------------------------
+    |  Method SyntheticData(sampleDir, members, seed, asOf)
+    |
+    |  Purpose:  Reads the sample files and sizes every table for `members`
+    |            members.
+    |
+    |  Parameters:
+    |      sampleDir -- The SampleDataCSVs directory.
+    |      members   -- Number of Member rows; at least 1.
+    |      seed      -- Data sets with the same seed and size are identical.
+    |      asOf      -- The day the data set is taken on: reservations and
+    |                   events before it are over, those after it upcoming.
+    |
+    *-------------------------------------------------------------------*/
+
+    public SyntheticData(Path sampleDir, long members, long seed, LocalDate asOf) throws IOException {
+        if (members < 1) throw new IllegalArgumentException("members must be at least 1: " + members);
+        this.seed = seed;
+        this.asOf = asOf;
+        this.members = members;
+        for (String t : Arrays.asList("Membership_Tier", "Staff", "Room", "Menu_Item", "Member", "Pet",
+                "Health_Record", "Event", "Adoption_Application", "Adoption")) {
+            samples.put(t, readSample(sampleDir.resolve(t + ".csv").toFile()));
+        }
+
+        staff = Math.max(20, members / 100);
+        rooms = (int) Math.max(20, Math.min(members / 1000, 100_000));
+        pets = Math.max(20, members / 5);
+        reservations = 5 * members;
+        events = Math.max(20, members / 50);
+        applicationGroups = (pets + 1) / 2;
+
+        Sample tiers = samples.get("Membership_Tier");
+        tierIds = new String[tiers.rows.size()];
+        tierDiscounts = new int[tierIds.length];
+        for (int t = 0; t < tierIds.length; t++) {
+            tierIds[t] = tiers.get(t, "tier_id");
+            String rate = tiers.get(t, "discount_rate");
+            tierDiscounts[t] = rate == null ? 0 : Integer.parseInt(rate.trim());
+        }
+        Sample menu = samples.get("Menu_Item");
+        itemIds = new String[menu.rows.size()];
+        itemCents = new long[itemIds.length];
+        for (int m = 0; m < itemIds.length; m++) {
+            itemIds[m] = menu.get(m, "item_id");
+            itemCents[m] = Money.parse(menu.get(m, "base_price"));
+        }
+
+        Sample applications = samples.get("Adoption_Application");
+        for (String[] r : applications.rows) {
+            String note = r[applications.columns.get("notes")];
+            if (note != null) {
+                notesByStatus.computeIfAbsent(r[applications.columns.get("status")], k -> new ArrayList<>())
+                        .add(note);
+            }
+        }
+
+        // Seat layout of one slot: a seat in every room, then a second seat in every room
+        // that holds two, and so on; see seatOf.
+        Sample room = samples.get("Room");
+        roomCapacity = new int[rooms + 1];
+        int maxCapacity = 0, seats = 0;
+        for (int r = 1; r <= rooms; r++) {
+            String capacity = room.get((r - 1) % room.rows.size(), "max_capacity");
+            roomCapacity[r] = Math.max(1, Integer.parseInt(capacity.trim()));
+            maxCapacity = Math.max(maxCapacity, roomCapacity[r]);
+            seats += roomCapacity[r];
+        }
+        roomBySeat = new int[seats];
+        int s = 0;
+        for (int layer = 0; layer < maxCapacity; layer++) {
+            for (int r = 1; r <= rooms; r++) {
+                if (roomCapacity[r] > layer) roomBySeat[s++] = r;
+            }
+        }
+        seatsPerDay = (long) seats * SLOTS;
+        long stride = seatsPerDay * 5 / 8 + 1;
+        while (gcd(stride, seatsPerDay) != 1) stride++;
+        seatStride = stride;
+        days = Math.max(730, (reservations + seatsPerDay - 1) / seatsPerDay);
+        firstDay = asOf.minusDays(days * 3 / 4);
+
+        defineTables();
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method open(table)
+    |
+    |  Purpose:  Streams a table as CSV text, header first, generating rows
+    |            as they are read.
+    |
+    |  Returns: A reader over the table's CSV file.
+    |
+    *-------------------------------------------------------------------*/
+
+    public Reader open(String table) {
+        Table t = tables.get(table);
+        if (t == null) throw new IllegalArgumentException("No synthetic data for table " + table);
+        return new TableReader(t);
+    }
+
+    /* Whether open(table) has data for the table. */
+    public boolean hasTable(String table) {
+        return tables.containsKey(table);
+    }
+
+    /*---------------------------------------------------------------------
+    |  Method write(table, out)
+    |
+    |  Purpose:  Writes a table as CSV text, header first.
+    |
+    |  Returns: The number of rows written, not counting the header.
+    |
+    *-------------------------------------------------------------------*/
+
+    public long write(String table, Writer out) throws IOException {
+        long lines = 0;
+        char[] buf = new char[64 * 1024];
+        try (Reader in = open(table)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+                for (int k = 0; k < n; k++) {
+                    if (buf[k] == '\n') lines++;
+                }
+            }
+        }
+        return lines - 1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java petcafe.SyntheticData <members> <outputDir> [seed]");
+            System.exit(-1);
+        }
+        long members = Long.parseLong(args[0]);
+        File dir = new File(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        String asOf = System.getProperty("petcafe.synthetic.asOf");
+        SyntheticData data = new SyntheticData(new File("SampleDataCSVs").toPath(), members, seed,
+                asOf == null ? DEFAULT_AS_OF : LocalDate.parse(asOf));
+
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        for (String table : TABLES) {
+            long t0 = System.nanoTime();
+            long rows;
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(dir, table + ".csv")),
+                    StandardCharsets.UTF_8)) {
+                rows = data.write(table, out);
+            }
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.println(String.format("Wrote %s.csv (%d rows in %.2f s)", table, rows, seconds));
+        }
+    }
+
+    private void defineTables() {
+        copy("Membership_Tier");
+        tables.put("Staff", new Table("staff_id,name,phone,email,hire_date,is_active,role", staff, this::staff));
+        tables.put("Room", new Table("room_id,room_name,room_type,max_capacity,is_adoption_area", rooms,
+                this::room));
+        copy("Menu_Item");
+        tables.put("Member", new Table("member_id,name,phone,email,date_of_birth,emergency_contact,tier_id",
+                members, this::member));
+        tables.put("Pet", new Table("pet_id,name,species,breed,age,date_of_arrival,temperament," +
+                "special_needs,status,current_room_id", pets, this::pet));
+        tables.put("Health_Record", new Table("record_id,pet_id,staff_id,record_date,record_type,notes," +
+                "next_due_date,status", 3 * pets, this::healthRecord));
+        tables.put("Reservation", new Table("reservation_id,member_id,room_id,reservation_date,start_time," +
+                "duration_minutes,status,check_in_time,check_out_time,tier_id", reservations, this::reservation));
+        tables.put("Customer_Order", new Table("order_id,member_id,reservation_id,order_time,total_price," +
+                "payment_status", 3 * members, this::order));
+        tables.put("Order_Item", new Table("order_id,item_id,quantity,unit_price", 3 * members, this::orderItems));
+        tables.put("Event", new Table("event_id,title,description,room_id,event_date,start_time,end_time," +
+                "max_attendees,event_type,staff_id", events, this::event));
+        tables.put("Event_Registration", new Table("member_id,event_id,registration_date,attendance_status," +
+                "payment_status,waitlisted_at", events, this::registrations));
+        tables.put("Adoption_Application", new Table("application_id,member_id,pet_id,submitted_date,status," +
+                "reviewed_by,review_date,notes", 3 * applicationGroups, this::application));
+        tables.put("Adoption", new Table("adoption_id,application_id,pet_id,member_id,adoption_date," +
+                "adoption_fee,follow_up_schedule", (applicationGroups + 1) / 2, this::adoption));
+    }
+
+    /* A table copied row for row from its sample file. */
+    private void copy(String table) {
+        Sample s = samples.get(table);
+        tables.put(table, new Table(s.header, s.rows.size(), (i, row) -> {
+            for (String v : s.rows.get((int) i - 1)) row.add(v);
+            row.end();
+        }));
+    }
+
+    private void staff(long i, Row row) {
+        Sample s = samples.get("Staff");
+        long k = (i - 1) % s.rows.size();
+        String name = s.get(k, "name");
+        row.add(i).add(numbered(name, i, s)).add(phone(i)).add(email(name, i))
+                .date(LocalDate.of(2010, 1, 1).plusDays(pick("staff-hired", i, 5000)))
+                .add(pick("staff-inactive", i, 10) == 0 ? "N" : "Y")
+                .add(s.get(pick("staff-role", i, s.rows.size()), "role"));
+        row.end();
+    }
+
+    private void room(long i, Row row) {
+        Sample s = samples.get("Room");
+        long k = (i - 1) % s.rows.size();
+        row.add(i).add(numbered(s.get(k, "room_name"), i, s)).add(s.get(k, "room_type"))
+                .add(roomCapacity[(int) i]).add(s.get(k, "is_adoption_area"));
+        row.end();
+    }
+
+    private void member(long i, Row row) {
+        Sample s = samples.get("Member");
+        long k = (i - 1) % s.rows.size();
+        String name = s.get(k, "name");
+        row.add(i).add(numbered(name, i, s)).add(phone(i)).add(email(name, i))
+                .date(LocalDate.of(1950, 1, 1).plusDays(pick("member-born", i, 18_250)))
+                .add(s.get(pick("member-contact", i, s.rows.size()), "emergency_contact"))
+                .add(tierIds[tierOf(i)]);
+        row.end();
+    }
+
+    private void pet(long i, Row row) {
+        Sample s = samples.get("Pet");
+        long k = (i - 1) % s.rows.size();
+        long like = pick("pet-kind", i, s.rows.size());       // species, breed and manner go together
+        boolean adopted = adopted(i);
+        row.add(i).add(numbered(s.get(k, "name"), i, s)).add(s.get(like, "species"))
+                .add(s.get(like, "breed")).add(pick("pet-age", i, 15)).date(arrival(i))
+                .add(s.get(like, "temperament")).add(s.get(like, "special_needs"))
+                .add(adopted ? "ADOPTED" : s.get(pick("pet-status", i, s.rows.size()), "status"));
+        if (adopted) row.none();
+        else row.add(1 + pick("pet-room", i, rooms));
+        row.end();
+    }
+
+    private void healthRecord(long i, Row row) {
+        Sample s = samples.get("Health_Record");
+        long pet = (i - 1) / 3 + 1;
+        long like = pick("health-kind", i, s.rows.size());
+        LocalDate date = arrival(pet).plusDays(7 + 60 * ((i - 1) % 3) + pick("health-day", i, 30));
+        row.add(i).add(pet).add(1 + pick("health-staff", i, staff)).date(date)
+                .add(s.get(like, "record_type")).add(s.get(like, "notes"));
+        if (pick("health-due", i, 3) == 0) row.none();
+        else row.date(date.plusDays(21));
+        row.add("ACTIVE");
+        row.end();
+    }
+
+    private void reservation(long i, Row row) {
+        long member = reservationMember(i);
+        LocalDateTime start = reservationStart(i);
+        int duration = reservationDuration(i);
+        String status = reservationStatus(i);
+        row.add(i).add(member).add(roomBySeat[(int) (seatOf(i) / SLOTS)]).date(start.toLocalDate()).time(start)
+                .add(duration).add(status);
+        if ("COMPLETED".equals(status)) {
+            LocalDateTime in = start.plusMinutes(pick("check-in", i, 16) - 5);
+            row.time(in).time(in.plusMinutes(duration - 10 + pick("check-out", i, 21)));
+        } else {
+            row.none().none();
+        }
+        row.add(tierIds[tierOf(member)]);
+        row.end();
+    }
+
+    private void order(long i, Row row) {
+        long reservation = orderReservation(i);
+        long member = orderMember(i);
+        long subtotal = 0;
+        for (int line = 0, n = orderLines(i); line < n; line++) {
+            subtotal = Money.plus(subtotal, Money.times(itemCents[orderItem(i, line)], orderQuantity(i, line)));
+        }
+        LocalDateTime time = orderTime(i);
+        row.add(i).add(member);
+        if (reservation == 0) row.none();
+        else row.add(reservation);
+        row.time(time).money(Money.percentOff(subtotal, tierDiscounts[tierOf(member)]))
+                .add(time.toLocalDate().isAfter(asOf.minusDays(7)) && pick("order-unpaid", i, 4) == 0
+                        ? "UNPAID" : "PAID");
+        row.end();
+    }
+
+    private void orderItems(long i, Row row) {
+        for (int line = 0, n = orderLines(i); line < n; line++) {
+            int item = orderItem(i, line);
+            row.add(i).add(itemIds[item]).add(orderQuantity(i, line)).money(itemCents[item]);
+            row.end();
+        }
+    }
+
+    private void event(long i, Row row) {
+        Sample s = samples.get("Event");
+        long k = (i - 1) % s.rows.size();
+        LocalDateTime start = eventStart(i);
+        row.add(i).add(numbered(s.get(k, "title"), i, s)).add(s.get(k, "description"))
+                .add(1 + pick("event-room", i, rooms)).date(start.toLocalDate()).time(start)
+                .time(start.plusMinutes(60 + 30 * pick("event-length", i, 4))).add(eventSeats(i))
+                .add(s.get(k, "event_type")).add(1 + pick("event-staff", i, staff));
+        row.end();
+    }
+
+    /*
+     * A run of consecutive members from a random start registers for each event. Past events
+     * are attended by up to max_attendees of them; upcoming ones may be over-subscribed, in
+     * which case the members past the last seat are waitlisted in order.
+     */
+    private void registrations(long i, Row row) {
+        LocalDateTime start = eventStart(i);
+        LocalDate date = start.toLocalDate();
+        int seats = eventSeats(i);
+        boolean past = date.isBefore(asOf);
+        long wanted = Math.min(pick("event-wanted", i, seats + 4), members);
+        long seated = Math.min(wanted, seats);
+        long first = pick("event-first", i, members);
+        for (long j = 0; j < (past ? seated : wanted); j++) {
+            row.add(1 + (first + j) % members).add(i);
+            if (j >= seated) {
+                LocalDateTime joined = date.minusDays(2).atTime(9, 0).plusMinutes(j - seated);
+                row.date(joined.toLocalDate()).add("WAITLISTED").add("UNPAID").time(joined);
+            } else {
+                row.date(date.minusDays(3 + pick("registered-day", i * 64 + j, 60)));
+                if (past) row.add(pick("no-show", i * 64 + j, 8) == 0 ? "NO_SHOW" : "ATTENDED").add("PAID");
+                else row.add("REGISTERED").add(pick("registration-unpaid", i * 64 + j, 3) == 0 ? "UNPAID" : "PAID");
+                row.none();
+            }
+            row.end();
+        }
+    }
+
+    /*
+     * Applications come in threes for pet 2g+1. In even groups the first is APPROVED (the pet
+     * was adopted) and the other two REJECTED; in odd groups two are PENDING and one WITHDRAWN.
+     */
+    private void application(long i, Row row) {
+        long group = (i - 1) / 3;
+        String status = applicationStatus(i);
+        row.add(i).add(applicationMember(i)).add(2 * group + 1).date(applicationSubmitted(i)).add(status);
+        if ("APPROVED".equals(status) || "REJECTED".equals(status)) {
+            row.add(1 + pick("review-staff", i, staff)).date(applicationReviewed(i));
+        } else {
+            row.none().none();
+        }
+        row.add(noteFor(status, i));
+        row.end();
+    }
+
+    private void adoption(long i, Row row) {
+        Sample s = samples.get("Adoption");
+        long group = 2 * (i - 1);
+        long application = 3 * group + 1;
+        LocalDate date = applicationReviewed(application).plusDays(1 + pick("adopted-day", i, 7));
+        row.add(i).add(application).add(2 * group + 1).add(applicationMember(application)).date(date)
+                .add(s.get(pick("adoption-fee", i, s.rows.size()), "adoption_fee")).date(date.plusDays(7));
+        row.end();
+    }
+
+    private int tierOf(long member) {
+        return (int) pick("member-tier", member, tierIds.length);
+    }
+
+    private LocalDate arrival(long pet) {
+        return asOf.minusDays(180 + pick("pet-arrival", pet, 1000));
+    }
+
+    /* Pets 1, 5, 9, ... were adopted through the first application of their group. */
+    private boolean adopted(long pet) {
+        return pet % 2 == 1 && ((pet - 1) / 2) % 2 == 0;
+    }
+
+    private long reservationMember(long i) {
+        return 1 + pick("reservation-member", i, members);
+    }
+
+    /*
+     * Reservation i is on day (i-1) % days, and is the ((i-1) / days)'th booking of that day.
+     * The n'th booking of a day takes seat (n * seatStride + day) % seatsPerDay of the day's
+     * slots, which differs for every n, so a seat is never taken twice while the bookings of
+     * a quiet day still spread over all the rooms and hours. Seat s is in slot s % SLOTS of
+     * room roomBySeat[s / SLOTS].
+     */
+    private long seatOf(long i) {
+        long day = (i - 1) % days, n = (i - 1) / days;
+        return (n * seatStride + day) % seatsPerDay;
+    }
+
+    private LocalDateTime reservationStart(long i) {
+        int slot = (int) (seatOf(i) % SLOTS);
+        return firstDay.plusDays((i - 1) % days).atTime(8 + 2 * slot, 15 * (int) pick("reservation-offset", i, 3));
+    }
+
+    private int reservationDuration(long i) {
+        return 60 + 15 * (int) pick("reservation-duration", i, 3);
+    }
+
+    private String reservationStatus(long i) {
+        if (!reservationStart(i).toLocalDate().isBefore(asOf)) return "BOOKED";
+        return pick("reservation-cancelled", i, 20) == 0 ? "CANCELLED" : "COMPLETED";
+    }
+
+    /* The completed reservation order i was placed during, or 0 for a walk-in. */
+    private long orderReservation(long i) {
+        long reservation = (i - 1) * 5 / 3 + 1;
+        return "COMPLETED".equals(reservationStatus(reservation)) ? reservation : 0;
+    }
+
+    private long orderMember(long i) {
+        long reservation = orderReservation(i);
+        return reservation == 0 ? 1 + pick("order-member", i, members) : reservationMember(reservation);
+    }
+
+    private LocalDateTime orderTime(long i) {
+        long reservation = orderReservation(i);
+        if (reservation != 0) {
+            return reservationStart(reservation).plusMinutes(5 + pick("order-minute", i, 50));
+        }
+        return asOf.minusDays(1 + pick("order-day", i, days * 3 / 4))
+                .atTime(8 + (int) pick("order-hour", i, 12), (int) pick("order-minute", i, 60));
+    }
+
+    private int orderLines(long i) {
+        return 1 + (int) pick("order-lines", i, Math.min(4, itemIds.length));
+    }
+
+    /* Index into itemIds of line `line`; the lines of an order are distinct items. */
+    private int orderItem(long i, int line) {
+        return (int) ((pick("order-first-item", i, itemIds.length) + line) % itemIds.length);
+    }
+
+    private int orderQuantity(long i, int line) {
+        return 1 + (int) pick("order-quantity", i * 4 + line, 3);
+    }
+
+    private LocalDateTime eventStart(long i) {
+        return asOf.minusDays(365).plusDays(pick("event-day", i, 545))
+                .atTime(9 + (int) pick("event-hour", i, 10), 30 * (int) pick("event-half", i, 2));
+    }
+
+    private int eventSeats(long i) {
+        return 5 + (int) pick("event-seats", i, 26);
+    }
+
+    private String applicationStatus(long i) {
+        long group = (i - 1) / 3, k = (i - 1) % 3;
+        if (group % 2 == 0) return k == 0 ? "APPROVED" : "REJECTED";
+        return k == 2 ? "WITHDRAWN" : "PENDING";
+    }
+
+    private long applicationMember(long i) {
+        return 1 + pick("application-member", i, members);
+    }
+
+    private LocalDate applicationSubmitted(long i) {
+        return arrival(2 * ((i - 1) / 3) + 1).plusDays(10 + pick("application-day", i, 60));
+    }
+
+    private LocalDate applicationReviewed(long i) {
+        return applicationSubmitted(i).plusDays(2 + pick("review-day", i, 6));
+    }
+
+    /* A sample note written for an application with the same status, or null. */
+    private String noteFor(String status, long i) {
+        List<String> notes = notesByStatus.get(status);
+        return notes == null ? null : notes.get((int) pick("application-note", i, notes.size()));
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /* The sample value as is for the first pass through the sample, then numbered. */
+    private static String numbered(String value, long i, Sample s) {
+        long round = (i - 1) / s.rows.size();
+        return round == 0 || value == null ? value : value + " " + (round + 1);
+    }
+
+    private static String phone(long i) {
+        return String.valueOf(5_205_550_000L + i % 10_000);
+    }
+
+    private static String email(String name, long i) {
+        String first = name == null ? "member" : name.trim().split("\\s+")[0].toLowerCase();
+        return first + "." + i + "@email.com";
+    }
+
+    /* A value in [0, n) that depends only on the seed, what is being picked, and i. */
+    private long pick(String what, long i, long n) {
+        long z = seed * 0x9E3779B97F4A7C15L + what.hashCode() * 0xC2B2AE3D27D4EB4FL + i;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return Math.floorMod(z, n);
+    }
+
+    private static Sample readSample(File file) throws IOException {
+        try (CsvReader r = new CsvReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!r.next()) throw new IOException(file + " is empty");
+            StringBuilder header = new StringBuilder();
+            String[] names = new String[r.fieldCount()];
+            for (int c = 0; c < names.length; c++) {
+                names[c] = r.getString(c).trim();
+                if (c > 0) header.append(',');
+                header.append(names[c]);
+            }
+            Sample s = new Sample(header.toString());
+            for (int c = 0; c < names.length; c++) s.columns.put(names[c], c);
+            while (r.next()) {
+                String[] values = new String[names.length];
+                for (int c = 0; c < names.length; c++) values[c] = r.getString(c);
+                s.rows.add(values);
+            }
+            if (s.rows.isEmpty()) throw new IOException(file + " has no rows");
+            return s;
+        }
+    }
+
+    /*
+     * Writes the fields of one CSV record after another into a buffer.
+     */
+    private static final class Row {
+        final StringBuilder out;
+        private boolean first = true;
+
+        Row(StringBuilder out) {
+            this.out = out;
+        }
+
+        Row add(String value) {
+            next();
+            if (value == null) return this;
+            boolean quote = value.isEmpty();
+            for (int k = 0; k < value.length() && !quote; k++) {
+                char c = value.charAt(k);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.append(value);
+            } else {
+                out.append('"');
+                for (int k = 0; k < value.length(); k++) {
+                    char c = value.charAt(k);
+                    if (c == '"') out.append('"');
+                    out.append(c);
+                }
+                out.append('"');
+            }
+            return this;
+        }
+
+        Row add(long value) {
+            next();
+            out.append(value);
+            return this;
+        }
+
+        Row money(long cents) {
+            next();
+            out.append(Money.format(cents));
+            return this;
+        }
+
+        /* MM-DD-YYYY */
+        Row date(LocalDate d) {
+            next();
+            appendDate(d);
+            return this;
+        }
+
+        /* MM-DD-YYYY h:mm AM */
+        Row time(LocalDateTime t) {
+            next();
+            appendDate(t.toLocalDate());
+            int hour = t.getHour() % 12;
+            out.append(' ').append(hour == 0 ? 12 : hour).append(':');
+            two(t.getMinute());
+            out.append(t.getHour() < 12 ? " AM" : " PM");
+            return this;
+        }
+
+        /* An empty field (NULL). */
+        Row none() {
+            next();
+            return this;
+        }
+
+        void end() {
+            out.append('\n');
+            first = true;
+        }
+
+        private void next() {
+            if (!first) out.append(',');
+            first = false;
+        }
+
+        private void appendDate(LocalDate d) {
+            two(d.getMonthValue());
+            out.append('-');
+            two(d.getDayOfMonth());
+            out.append('-').append(d.getYear());
+        }
+
+        private void two(int n) {
+            if (n < 10) out.append('0');
+            out.append(n);
+        }
+    }
+
+    /*
+     * A table's CSV text, generated ROWS_PER_REFILL row numbers at a time as it is read.
+     */
+    private static final class TableReader extends Reader {
+        private final Table table;
+        private final StringBuilder buf = new StringBuilder(64 * 1024);
+        private final Row row = new Row(buf);
+        private long next = 1;
+        private int pos;
+
+        TableReader(Table table) {
+            this.table = table;
+            buf.append(table.header).append('\n');
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) return 0;
+            while (pos == buf.length()) {
+                if (next > table.count) return -1;
+                buf.setLength(0);
+                pos = 0;
+                for (int k = 0; k < ROWS_PER_REFILL && next <= table.count; k++) table.generator.rows(next++, row);
+            }
+            int n = Math.min(len, buf.length() - pos);
+            buf.getChars(pos, pos + n, cbuf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            next = Long.MAX_VALUE;
+            buf.setLength(0);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package petcafe;
+
+/*
+ * BookingEngineTest.java -- Checks that BookingEngine never overbooks a room, with many threads
+ *                           booking the same slot at once (what BookingStress does against
+ *                           Oracle), and that it applies the overlap rule RoomSchedule uses.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BookingEngineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2099, 6, 1);
+    private static final int ROOM = 1;
+    private static final int CAPACITY = 5;
+    private static final int MEMBERS = 40;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        TestDatabase.create();
+        TestDatabase.execute("INSERT INTO Room (room_id, room_name, room_type, max_capacity) " +
+                "VALUES (" + ROOM + ", 'Cat Lounge', 'CAT', " + CAPACITY + ")");
+        for (int m = 1; m <= MEMBERS; m++) {
+            TestDatabase.execute("INSERT INTO Member (member_id, name) VALUES (" + m + ", 'Member " + m + "')");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        DBUtil.shutdown();
+    }
+
+    @Test
+    void concurrentBookingsNeverExceedCapacity() throws Exception {
+        int bookers = 200;
+        Timestamp start = Timestamp.valueOf(DAY.atTime(10, 0));
+        Queue<BookingEngine.Outcome> outcomes = new ConcurrentLinkedQueue<>();
+        CountDownLatch gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> done = new ArrayList<>();
+        for (int i = 0; i < bookers; i++) {
+            int member = 1 + i % MEMBERS;
+            done.add(pool.submit(() -> {
+                gate.await();
+                try (Connection conn = DBUtil.getConnection()) {
+                    int resId = IdAllocator.nextId(conn, "Reservation", "reservation_id");
+                    outcomes.add(BookingEngine.book(conn, resId, member, ROOM, Date.valueOf(DAY), start, 60, null));
+                }
+                return null;
+            }));
+        }
+        gate.countDown();
+        for (Future<?> f : done) f.get();      // rethrows any booker's exception
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        long booked = outcomes.stream().filter(o -> o == BookingEngine.Outcome.BOOKED).count();
+        assertEquals(bookers, outcomes.size());
+        assertEquals(CAPACITY, booked);
+        assertEquals(CAPACITY, overlapping(start, 60));
+        assertEquals(CAPACITY, TestDatabase.queryInt("SELECT SUM(visit_count) FROM Member_Activity_Summary"));
+    }
+
+    @Test
+    void slotsOverlapByMinuteOfDay() throws Exception {
+        TestDatabase.execute("UPDATE Room SET max_capacity = 1 WHERE room_id = " + ROOM);
+        assertEquals(BookingEngine.Outcome.BOOKED, book(1, 10, 0, 60));
+        assertEquals(BookingEngine.Outcome.ROOM_FULL, book(2, 10, 30, 60));     // starts inside 10:00-11:00
+        assertEquals(BookingEngine.Outcome.ROOM_FULL, book(3, 9, 30, 31));      // ends one minute into it
+        assertEquals(BookingEngine.Outcome.BOOKED, book(4, 11, 0, 30));         // starts as it ends
+        assertEquals(BookingEngine.Outcome.BOOKED, book(5, 9, 0, 60));          // ends as it starts
+        assertEquals(BookingEngine.Outcome.NO_SUCH_ROOM, bookRoom(99, 6, 12, 0, 30));
+
+        try (Connection conn = DBUtil.getConnection()) {
+            RoomSchedule.warm(conn);
+        }
+        for (int hour = 8; hour < 13; hour++) {
+            for (int minute = 0; minute < 60; minute += 15) {
+                Timestamp t = Timestamp.valueOf(DAY.atTime(hour, minute));
+                assertEquals(overlapping(t, 45), RoomSchedule.overlapping(ROOM, DAY, t, 45), t::toString);
+            }
+        }
+    }
+
+    private static BookingEngine.Outcome book(int member, int hour, int minute, int duration) throws SQLException {
+        return bookRoom(ROOM, member, hour, minute, duration);
+    }
+
+    private static BookingEngine.Outcome bookRoom(int room, int member, int hour, int minute, int duration)
+            throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            int resId = IdAllocator.nextId(conn, "Reservation", "reservation_id");
+            return BookingEngine.book(conn, resId, member, room, Date.valueOf(DAY),
+                    Timestamp.valueOf(DAY.atTime(hour, minute)), duration, null);
+        }
+    }
+
+    private static int overlapping(Timestamp start, int duration) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(BookingEngine.OVERLAPPING)) {
+            BookingEngine.bindOverlapping(ps, 1, ROOM, Date.valueOf(DAY), start, duration);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
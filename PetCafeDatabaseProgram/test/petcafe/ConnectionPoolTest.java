@@ -0,0 +1,175 @@
+package petcafe;
+
+/*
+ * ConnectionPoolTest.java -- Checks ConnectionPool's size bound, borrow timeout, validation on
+ *                            borrow, idle eviction, leak detection and counters, with an
+ *                            in-memory H2 database standing in for Oracle.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final long LONG = 600_000L;
+
+    // Every physical connection the pool under test opened, in order.
+    private final List<Connection> opened = new CopyOnWriteArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) pool.close();
+    }
+
+    @Test
+    void timesOutABorrowerWhenAllConnectionsAreLent() throws Exception {
+        pool = pool(0, 2, LONG, 200, LONG, 0);
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+
+        long start = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, pool::borrow);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        ConnectionPool.Stats s = pool.stats();
+        assertEquals(1, s.timeouts);
+        assertEquals(2, s.created);
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void neverOpensMoreThanMaxSize() throws Exception {
+        pool = pool(0, 2, LONG, 10_000, LONG, 0);
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+
+        // A borrower that waits gets the connection the next one returns.
+        ExecutorService waiter = Executors.newSingleThreadExecutor();
+        Future<Connection> third = waiter.submit(pool::borrow);
+        awaitStats(s -> s.waiting == 1);
+        a.close();
+        third.get(5, TimeUnit.SECONDS).close();
+        b.close();
+        waiter.shutdown();
+
+        ConnectionPool.Stats s = pool.stats();
+        assertEquals(2, s.created);
+        assertEquals(2, s.total);
+        assertEquals(0, s.active);
+        assertEquals(0, s.timeouts);
+    }
+
+    @Test
+    void discardsAConnectionThatFailsValidation() throws Exception {
+        pool = pool(0, 1, LONG, 1_000, LONG, 0);
+        pool.borrow().close();
+        opened.get(0).close();              // the database side went away while it was idle
+
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+            conn.createStatement().execute("SELECT 1 FROM dual");
+        }
+        assertEquals(2, opened.size());
+        assertNotSame(opened.get(0), opened.get(1));
+        ConnectionPool.Stats s = pool.stats();
+        assertEquals(1, s.validationFailures);
+        assertEquals(1, s.destroyed);
+        assertEquals(1, s.total);
+    }
+
+    @Test
+    void evictsIdleConnectionsDownToMinSize() throws Exception {
+        pool = pool(1, 3, 100, 1_000, 0, 0);
+        pool.prefill();
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+        Connection c = pool.borrow();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.stats().idle);
+
+        awaitStats(s -> s.total == 1);
+        ConnectionPool.Stats s = pool.stats();
+        assertEquals(1, s.idle);
+        assertEquals(2, s.destroyed);
+        int closed = 0;
+        for (Connection physical : opened) if (physical.isClosed()) closed++;
+        assertEquals(2, closed);
+    }
+
+    @Test
+    void reportsLeaksButNotLongLivedBorrows() throws Exception {
+        pool = pool(0, 2, LONG, 1_000, 100, 0);
+        Connection held = pool.borrow();
+        Connection worker = pool.borrowLongLived();
+
+        awaitStats(s -> s.leaksDetected == 1);
+        Thread.sleep(1_500);                // at least one more housekeeping pass
+        assertEquals(1, pool.stats().leaksDetected);
+        held.close();
+        worker.close();
+    }
+
+    @Test
+    void countsBorrowsWaitsAndStatementReuse() throws Exception {
+        pool = pool(0, 2, LONG, 1_000, LONG, 8);
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.borrow();
+                 PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM dual")) {
+                ps.executeQuery().close();
+            }
+        }
+        ConnectionPool.Stats s = pool.stats();
+        assertEquals(3, s.borrows);
+        assertEquals(1, s.created);
+        assertEquals(1, s.statementMisses);
+        assertEquals(2, s.statementHits);
+        assertEquals(0, s.active);
+        assertEquals(1, s.idle);
+        assertTrue(s.totalWaitNanos >= 0);
+        assertTrue(s.toString().contains("borrows=3"), s::toString);
+    }
+
+    /* A pool over a fresh in-memory database that records the connections it opens. */
+    private ConnectionPool pool(int min, int max, long idleMillis, long borrowMillis, long leakMillis,
+                                int statementCacheSize) {
+        String url = "jdbc:h2:mem:pool" + COUNTER.incrementAndGet() + ";MODE=Oracle;DB_CLOSE_DELAY=-1";
+        return new ConnectionPool(() -> {
+            Connection c = DriverManager.getConnection(url, "sa", "");
+            opened.add(c);
+            return c;
+        }, min, max, idleMillis, borrowMillis, leakMillis, statementCacheSize);
+    }
+
+    /* Waits up to five seconds for the pool's counters to satisfy done. */
+    private void awaitStats(Predicate<ConnectionPool.Stats> done) throws InterruptedException, SQLException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.test(pool.stats())) {
+            if (System.nanoTime() > deadline) throw new SQLException("Gave up waiting; pool is " + pool.stats());
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package petcafe;
+
+/*
+ * DeleteGuardTest.java -- Checks that deleting a member or pet while another terminal is adding
+ *                         a booking, order, registration or health record for it never loses
+ *                         that row to the cascading delete: the delete waits for the other
+ *                         transaction and then sees what it committed.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeleteGuardTest {
+
+    private static final LocalDate DAY = LocalDate.of(2099, 6, 1);
+    private static final int MEMBER = 1;
+    private static final int PET = 1;
+    private static final int EVENT = 1;
+
+    private final ExecutorService deleter = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        TestDatabase.create();
+        TestDatabase.execute(
+                "INSERT INTO Room (room_id, room_name, room_type, max_capacity) VALUES (1, 'Cat Lounge', 'CAT', 5)",
+                "INSERT INTO Member (member_id, name) VALUES (" + MEMBER + ", 'Ann Lee')",
+                "INSERT INTO Event (event_id, title, room_id, event_date, start_time, max_attendees) " +
+                        "VALUES (" + EVENT + ", 'Kitten Yoga', 1, DATE '2099-06-01', " +
+                        "TIMESTAMP '2099-06-01 10:00:00', 10)",
+                "INSERT INTO Pet (pet_id, name, species, status) VALUES (" + PET + ", 'Tom', 'CAT', 'ADOPTED')");
+    }
+
+    @AfterEach
+    void closePool() {
+        deleter.shutdownNow();
+        DBUtil.shutdown();
+    }
+
+    @Test
+    void memberDeleteWaitsForABookingAndKeepsIt() throws Exception {
+        MemberRepository.DeleteStatus status = deleteMemberDuring(c -> {
+            int resId = IdAllocator.nextId(c, "Reservation", "reservation_id");
+            assertEquals(BookingEngine.Outcome.BOOKED, BookingEngine.book(c, resId, MEMBER, 1, Date.valueOf(DAY),
+                    Timestamp.valueOf(DAY.atTime(10, 0)), 60, null));
+        });
+        assertEquals(MemberRepository.DeleteStatus.IN_USE, status);
+        assertEquals(1, TestDatabase.queryInt("SELECT COUNT(*) FROM Reservation WHERE member_id = " + MEMBER));
+    }
+
+    @Test
+    void memberDeleteWaitsForAnOrderAndKeepsIt() throws Exception {
+        MemberRepository.DeleteStatus status = deleteMemberDuring(c -> new OrderCart(MEMBER, null).place(c));
+        assertEquals(MemberRepository.DeleteStatus.IN_USE, status);
+        assertEquals(1, TestDatabase.queryInt("SELECT COUNT(*) FROM Customer_Order WHERE member_id = " + MEMBER));
+    }
+
+    @Test
+    void memberDeleteRecountsAnEventSignedUpForMeanwhile() throws Exception {
+        MemberRepository.DeleteStatus status = deleteMemberDuring(
+                c -> assertEquals(EventRegistrar.Outcome.REGISTERED, EventRegistrar.register(c, MEMBER, EVENT)));
+        assertEquals(MemberRepository.DeleteStatus.DELETED, status);
+        assertEquals(0, TestDatabase.queryInt("SELECT registered_count FROM Event WHERE event_id = " + EVENT));
+        try (Connection conn = DBUtil.getConnection()) {
+            assertEquals(new ArrayList<String>(), EventRegistrar.checkCounts(conn));
+        }
+    }
+
+    @Test
+    void petDeleteWaitsForAHealthRecordAndKeepsIt() throws Exception {
+        try (Connection other = DBUtil.getConnection()) {
+            other.setAutoCommit(false);
+            new HealthRecordRepository(ConnectionSource.borrowed(other))
+                    .insert(PET, null, Date.valueOf(DAY), "CHECKUP", null, null);
+            Future<PetRepository.DeleteStatus> delete = deleter.submit(
+                    () -> new PetRepository(ConnectionSource.pooled()).delete(PET));
+            assertBlocked(delete);
+            other.commit();
+            other.setAutoCommit(true);
+            assertEquals(PetRepository.DeleteStatus.IN_USE, delete.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, TestDatabase.queryInt("SELECT COUNT(*) FROM Health_Record WHERE pet_id = " + PET));
+    }
+
+    private interface Work {
+        void run(Connection conn) throws Exception;
+    }
+
+    /*
+     * Does work in an open transaction on one connection, starts deleting the member on
+     * another, checks that the delete waits, then commits the work and returns what the
+     * delete did.
+     */
+    private MemberRepository.DeleteStatus deleteMemberDuring(Work work) throws Exception {
+        try (Connection other = DBUtil.getConnection()) {
+            other.setAutoCommit(false);
+            work.run(other);
+            Future<MemberRepository.DeleteStatus> delete = deleter.submit(
+                    (Callable<MemberRepository.DeleteStatus>) () ->
+                            new MemberRepository(ConnectionSource.pooled()).delete(MEMBER).status);
+            assertBlocked(delete);
+            other.commit();
+            other.setAutoCommit(true);
+            return delete.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /* The delete is still waiting for the other transaction's lock. */
+    private static void assertBlocked(Future<?> delete) throws InterruptedException {
+        Thread.sleep(300);
+        assertFalse(delete.isDone(), "the delete did not wait for the open transaction");
+    }
+}
@@ -0,0 +1,173 @@
+package petcafe;
+
+/*
+ * EventRegistrarTest.java -- Checks that EventRegistrar never oversells an event when many members
+ *                            sign up at once (what EventRegistrationLoad does against Oracle),
+ *                            and that freed seats go to the waitlist in the order it filled.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EventRegistrarTest {
+
+    private static final int EVENT = 1;
+    private static final int SEATS = 10;
+    private static final int MEMBERS = 60;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        TestDatabase.create();
+        TestDatabase.execute(
+                "INSERT INTO Room (room_id, room_name, room_type, max_capacity) VALUES (1, 'Cat Lounge', 'CAT', 80)",
+                "INSERT INTO Event (event_id, title, room_id, event_date, start_time, max_attendees) " +
+                        "VALUES (" + EVENT + ", 'Kitten Yoga', 1, DATE '2099-06-01', " +
+                        "TIMESTAMP '2099-06-01 10:00:00', " + SEATS + ")");
+        for (int m = 1; m <= MEMBERS; m++) {
+            TestDatabase.execute("INSERT INTO Member (member_id, name) VALUES (" + m + ", 'Member " + m + "')");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        DBUtil.shutdown();
+    }
+
+    @Test
+    void concurrentSignupsNeverOversell() throws Exception {
+        List<Integer> everyone = new ArrayList<>();
+        for (int m = 1; m <= MEMBERS; m++) everyone.add(m);
+        Queue<EventRegistrar.Outcome> outcomes = new ConcurrentLinkedQueue<>();
+        concurrently(everyone, (conn, m) -> outcomes.add(EventRegistrar.register(conn, m, EVENT)));
+
+        assertEquals(SEATS, outcomes.stream().filter(o -> o == EventRegistrar.Outcome.REGISTERED).count());
+        assertEquals(MEMBERS - SEATS, outcomes.stream().filter(o -> o == EventRegistrar.Outcome.WAITLISTED).count());
+        assertSeats();
+
+        // Half the seated members cancel at once; their seats go to the head of the waitlist.
+        List<Integer> seated = members("attendance_status = 'REGISTERED'");
+        List<Integer> queue = members("attendance_status = 'WAITLISTED'");
+        List<Integer> leaving = seated.subList(0, SEATS / 2);
+        Queue<Integer> promoted = new ConcurrentLinkedQueue<>();
+        concurrently(leaving, (conn, m) -> promoted.addAll(EventRegistrar.cancel(conn, m, EVENT, m % 2 == 0)));
+
+        assertEquals(new HashSet<>(queue.subList(0, leaving.size())), new HashSet<>(promoted));
+        assertEquals(promoted.size(), new HashSet<>(promoted).size());
+        assertEquals(queue.subList(leaving.size(), queue.size()), members("attendance_status = 'WAITLISTED'"));
+        assertSeats();
+    }
+
+    @Test
+    void waitlistIsFirstComeFirstServed() throws Exception {
+        TestDatabase.execute("UPDATE Event SET max_attendees = 2 WHERE event_id = " + EVENT);
+        assertEquals(EventRegistrar.Outcome.REGISTERED, register(1));
+        assertEquals(EventRegistrar.Outcome.REGISTERED, register(2));
+        assertEquals(EventRegistrar.Outcome.WAITLISTED, register(5));
+        assertEquals(EventRegistrar.Outcome.WAITLISTED, register(3));
+        assertEquals(EventRegistrar.Outcome.ALREADY_REGISTERED, register(3));
+        assertEquals(EventRegistrar.Outcome.NO_SUCH_EVENT, register(4, 99));
+
+        assertEquals(Arrays.asList(5), cancel(1, false));
+        assertEquals(EventRegistrar.Outcome.WAITLISTED, register(1));        // back of the queue
+        assertEquals(Arrays.asList(3), cancel(2, true));
+        assertEquals(Arrays.asList(1), cancel(5, false));
+        assertEquals(new ArrayList<Integer>(), cancel(3, false));           // nobody left waiting
+        assertNull(cancel(4, false));
+        assertEquals(Arrays.asList(1), members("attendance_status = 'REGISTERED'"));
+        assertSeats();
+    }
+
+    /*
+     * Runs work once per member on its own pooled connection, all starting together, and
+     * rethrows the first failure.
+     */
+    private static void concurrently(List<Integer> members, Work work) throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> done = new ArrayList<>();
+        for (int m : members) {
+            done.add(pool.submit((Callable<Void>) () -> {
+                gate.await();
+                try (Connection conn = DBUtil.getConnection()) {
+                    work.run(conn, m);
+                }
+                return null;
+            }));
+        }
+        gate.countDown();
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    private interface Work {
+        void run(Connection conn, int memberId) throws Exception;
+    }
+
+    private static EventRegistrar.Outcome register(int member) throws SQLException {
+        return register(member, EVENT);
+    }
+
+    private static EventRegistrar.Outcome register(int member, int event) throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            return EventRegistrar.register(conn, member, event);
+        }
+    }
+
+    private static List<Integer> cancel(int member, boolean delete) throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            return EventRegistrar.cancel(conn, member, EVENT, delete);
+        }
+    }
+
+    /* The event is full, and registered_count agrees with its registrations. */
+    private static void assertSeats() throws SQLException {
+        int max = TestDatabase.queryInt("SELECT max_attendees FROM Event WHERE event_id = " + EVENT);
+        int seated = TestDatabase.queryInt("SELECT COUNT(*) FROM Event_Registration WHERE event_id = " + EVENT +
+                " AND " + EventRegistrar.HOLDS_SEAT);
+        int waiting = TestDatabase.queryInt("SELECT COUNT(*) FROM Event_Registration WHERE event_id = " + EVENT +
+                " AND attendance_status = 'WAITLISTED'");
+        assertTrue(seated <= max, seated + " seats taken of " + max);
+        assertTrue(seated == max || waiting == 0, "free seats left with members waiting");
+        try (Connection conn = DBUtil.getConnection()) {
+            assertEquals(new ArrayList<String>(), EventRegistrar.checkCounts(conn));
+        }
+    }
+
+    /* Member ids of the event's registrations matching where, in waitlist order. */
+    private static List<Integer> members(String where) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String q = "SELECT member_id FROM Event_Registration WHERE event_id = ? AND " + where +
+                " ORDER BY waitlisted_at, member_id";
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(q)) {
+            ps.setInt(1, EVENT);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
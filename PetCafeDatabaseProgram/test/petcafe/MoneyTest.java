@@ -0,0 +1,108 @@
+package petcafe;
+
+/*
+ * MoneyTest.java -- Checks Money's cents arithmetic against BigDecimal, on fixed examples and on
+ *                   random inputs drawn from a fixed seed (the same properties MoneyBenchmark
+ *                   checks, run by mvn test).
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    private static final int CASES = 200_000;
+    private static final long SEED = 460L;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Test
+    void examples() {
+        assertEquals(5000, Money.parse("50"));
+        assertEquals(5050, Money.parse("50.5"));
+        assertEquals(-325, Money.parse("-3.25"));
+        assertEquals(101, Money.parse("1.005"));
+        assertEquals(-101, Money.parse("-1.005"));
+        assertEquals("-3.05", Money.format(-305));
+        assertEquals("0.07", Money.format(7));
+        assertEquals(1234, Money.fromDecimal(new BigDecimal("12.335")));
+        assertEquals(0, Money.fromDecimal(null));
+        assertEquals(new BigDecimal("12.34"), Money.toDecimal(1234));
+        assertEquals(850, Money.percentOff(1000, 15));
+        assertEquals(1, Money.percentOff(1, 50));       // 0.5 cent rounds up
+    }
+
+    @Test
+    void rejectsBadInput() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("12,50"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("."));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> Money.percentOff(100, 101));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.plus(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void percentOffRoundsLikeBigDecimalHalfUp() {
+        Random rnd = new Random(SEED);
+        for (int i = 0; i < CASES; i++) {
+            long cents = randomCents(rnd);
+            int rate = rnd.nextInt(101);
+            long expected = BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(100 - rate))
+                    .divide(HUNDRED, 0, RoundingMode.HALF_UP).longValueExact();
+            assertEquals(expected, Money.percentOff(cents, rate), () -> "percentOff(" + cents + ", " + rate + ")");
+        }
+    }
+
+    @Test
+    void formatParseAndDecimalRoundTrip() {
+        Random rnd = new Random(SEED + 1);
+        for (int i = 0; i < CASES; i++) {
+            long cents = randomCents(rnd);
+            String text = Money.format(cents);
+            assertEquals(BigDecimal.valueOf(cents, 2).toPlainString(), text);
+            assertEquals(cents, Money.parse(text), text);
+            assertEquals(cents, Money.fromDecimal(Money.toDecimal(cents)));
+        }
+    }
+
+    @Test
+    void parseRoundsAThirdDecimalLikeBigDecimalHalfUp() {
+        Random rnd = new Random(SEED + 2);
+        for (int i = 0; i < CASES; i++) {
+            String text = BigDecimal.valueOf(randomCents(rnd) * 10 + rnd.nextInt(10), 3).toPlainString();
+            long expected = new BigDecimal(text).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            assertEquals(expected, Money.parse(text), text);
+        }
+    }
+
+    @Test
+    void orderTotalsMatchBigDecimal() {
+        Random rnd = new Random(SEED + 3);
+        for (int i = 0; i < CASES; i++) {
+            long sum = 0;
+            BigDecimal big = BigDecimal.ZERO;
+            for (int l = 0, n = 1 + rnd.nextInt(5); l < n; l++) {
+                long unit = rnd.nextInt(1_000_000);
+                int q = 1 + rnd.nextInt(1_000);
+                sum = Money.plus(sum, Money.times(unit, q));
+                big = big.add(BigDecimal.valueOf(unit).multiply(BigDecimal.valueOf(q)));
+            }
+            int rate = rnd.nextInt(101);
+            long expected = big.multiply(BigDecimal.valueOf(100 - rate))
+                    .divide(HUNDRED, 0, RoundingMode.HALF_UP).longValueExact();
+            assertEquals(big.longValueExact(), sum);
+            assertEquals(expected, Money.percentOff(sum, rate));
+        }
+    }
+
+    /* Mostly small amounts, some up to a billion dollars, either sign. */
+    private static long randomCents(Random rnd) {
+        return rnd.nextInt(4) == 0 ? rnd.nextInt(1_000) : rnd.nextLong() % 100_000_000_000L;
+    }
+}
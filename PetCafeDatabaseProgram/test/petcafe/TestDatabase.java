@@ -0,0 +1,66 @@
+package petcafe;
+
+/*
+ * TestDatabase.java -- A fresh in-memory H2 database in Oracle mode with the application's
+ *                      schema, for tests that need a database.
+ *
+ * create() builds the schema from initialSQLfiles/createTables.sql (the tests run from the
+ * repository root, see pom.xml), points DBUtil at the new database and drops whatever the
+ * static caches remember from an earlier one. H2 accepts the schema and the application's
+ * SQL, including SELECT ... FOR UPDATE, so the locking the concurrency tests exercise is
+ * real; it is not Oracle, though, so these tests complement a run of the bench drivers
+ * against Oracle rather than replace it.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class TestDatabase {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private TestDatabase() {
+    }
+
+    /* Creates the database and configures DBUtil to use it. */
+    static void create() throws IOException, SQLException {
+        String url = "jdbc:h2:mem:petcafe" + COUNTER.incrementAndGet()
+                + ";MODE=Oracle;DATABASE_TO_UPPER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000";
+        DBUtil.configure(url, "sa", "");
+        String script = new String(Files.readAllBytes(Paths.get("initialSQLfiles/createTables.sql")),
+                StandardCharsets.UTF_8).replaceAll("(?s)/\\*.*?\\*/", " ");
+        try (Connection conn = DBUtil.openConnection();
+             Statement st = conn.createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.trim().isEmpty()) st.execute(sql);
+            }
+        }
+        IdAllocator.reset();
+        MenuCatalog.invalidate();
+    }
+
+    /* Runs each statement in autocommit mode. */
+    static void execute(String... sql) throws SQLException {
+        try (Connection conn = DBUtil.openConnection();
+             Statement st = conn.createStatement()) {
+            for (String s : sql) st.execute(s);
+        }
+    }
+
+    /* The first column of the query's first row. */
+    static int queryInt(String sql) throws SQLException {
+        try (Connection conn = DBUtil.openConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            if (!rs.next()) throw new SQLException("No rows for: " + sql);
+            return rs.getInt(1);
+        }
+    }
+}
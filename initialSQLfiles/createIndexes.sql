@@ -0,0 +1,40 @@
+/* Index pack v1 -- indexes for the predicates PetCafeApp filters on.
+   Applied by insertSampleData after the sample data is loaded, and the
+   version applied is recorded in Schema_Version (last statement below).
+   PetCafeApp checks both at startup (SchemaCheck). When changing the pack,
+   add a new block below, bump the recorded version and
+   SchemaCheck.INDEX_PACK_VERSION together. */
+
+/* addReservation overlap check and availability: room + day + status */
+CREATE INDEX idx_res_room_date ON Reservation (room_id, reservation_date, status);
+
+/* deleteMember guard, visit history */
+CREATE INDEX idx_res_member ON Reservation (member_id, status);
+
+/* deleteMember guard, top members report */
+CREATE INDEX idx_order_member ON Customer_Order (member_id, payment_status);
+
+/* cancelReservation guard, visit history, ON DELETE CASCADE from Reservation */
+CREATE INDEX idx_order_res ON Customer_Order (reservation_id);
+
+/* registerForEvent capacity count, upcoming events report */
+CREATE INDEX idx_er_event ON Event_Registration (event_id, attendance_status);
+
+/* deletePet guard, health records for a pet */
+CREATE INDEX idx_health_pet ON Health_Record (pet_id, status);
+
+/* deletePet guard, adoption applications report */
+CREATE INDEX idx_app_pet ON Adoption_Application (pet_id, status);
+
+/* deleteMember guard */
+CREATE INDEX idx_app_member ON Adoption_Application (member_id, status);
+
+/* deletePet follow-up guard */
+CREATE INDEX idx_adopt_pet ON Adoption (pet_id);
+
+/* upcoming events report */
+CREATE INDEX idx_event_date ON Event (event_date);
+
+/* Record the version of the pack now applied */
+DELETE FROM Schema_Version WHERE component = 'INDEX_PACK';
+INSERT INTO Schema_Version (component, version, applied_at) VALUES ('INDEX_PACK', 1, SYSTIMESTAMP);
@@ -171,7 +171,8 @@ CREATE TABLE Order_Item (
                     ON DELETE CASCADE
 );
 
-/* Events */
+/* Events. registered_count is the number of registrations holding a seat, kept
+   current by EventRegistrar and recomputed by insertSampleData after loading */
 
 CREATE TABLE Event (
     event_id      NUMBER PRIMARY KEY,
@@ -184,6 +185,8 @@ CREATE TABLE Event (
     max_attendees NUMBER NOT NULL,
     event_type    VARCHAR2(50),
     staff_id      NUMBER,
+    registered_count NUMBER DEFAULT 0 NOT NULL
+        CHECK (registered_count >= 0),
     CONSTRAINT fk_event_room
         FOREIGN KEY (room_id)
             REFERENCES Room (room_id)
@@ -201,9 +204,10 @@ CREATE TABLE Event_Registration (
     event_id          NUMBER,
     registration_date DATE NOT NULL,
     attendance_status VARCHAR2(30) DEFAULT 'REGISTERED'
-        CHECK (attendance_status IN ('REGISTERED','ATTENDED','NO_SHOW','CANCELLED')),
+        CHECK (attendance_status IN ('REGISTERED','ATTENDED','NO_SHOW','CANCELLED','WAITLISTED')),
             payment_status    VARCHAR2(20) DEFAULT 'UNPAID'
         CHECK (payment_status IN ('UNPAID','PAID','REFUNDED')),
+            waitlisted_at     TIMESTAMP,
             CONSTRAINT pk_event_reg
                 PRIMARY KEY (member_id, event_id),
             CONSTRAINT fk_er_member
@@ -265,3 +269,37 @@ CREATE TABLE Adoption (
             REFERENCES Member (member_id)
             ON DELETE CASCADE
 );
+
+/* Per-member activity totals, kept current by PetCafeApp (see ActivitySummary.java)
+   and rebuilt by insertSampleData after loading */
+
+CREATE TABLE Member_Activity_Summary (
+    member_id    NUMBER PRIMARY KEY,
+    visit_count  NUMBER DEFAULT 0 NOT NULL,
+    total_spent  NUMBER(12,2) DEFAULT 0 NOT NULL,
+    CONSTRAINT fk_summary_member
+        FOREIGN KEY (member_id)
+            REFERENCES Member (member_id)
+            ON DELETE CASCADE
+);
+
+/* Versions of the optional schema parts applied to this database, e.g. the
+   index pack in createIndexes.sql (see SchemaCheck.java) */
+
+CREATE TABLE Schema_Version (
+    component   VARCHAR2(30) PRIMARY KEY,
+    version     NUMBER NOT NULL,
+    applied_at  TIMESTAMP
+);
+
+/* Id sequences. Each NEXTVAL reserves a block of 50 ids for the application
+   (see IdAllocator.BLOCK_SIZE), and insertSampleData restarts them above the sample data. */
+
+CREATE SEQUENCE Member_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Pet_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Health_Record_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Reservation_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Customer_Order_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Event_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Adoption_Application_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Adoption_seq START WITH 1 INCREMENT BY 50;
@@ -1,3 +1,5 @@
+DROP TABLE Schema_Version CASCADE CONSTRAINTS;
+DROP TABLE Member_Activity_Summary CASCADE CONSTRAINTS;
 DROP TABLE Order_Item CASCADE CONSTRAINTS;
 DROP TABLE Customer_Order CASCADE CONSTRAINTS;
 DROP TABLE Event_Registration CASCADE CONSTRAINTS;
@@ -12,3 +14,11 @@ DROP TABLE Staff CASCADE CONSTRAINTS;
 DROP TABLE Member CASCADE CONSTRAINTS;
 DROP TABLE Membership_Tier CASCADE CONSTRAINTS;
 DROP TABLE Menu_Item CASCADE CONSTRAINTS;
+DROP SEQUENCE Member_seq;
+DROP SEQUENCE Pet_seq;
+DROP SEQUENCE Health_Record_seq;
+DROP SEQUENCE Reservation_seq;
+DROP SEQUENCE Customer_Order_seq;
+DROP SEQUENCE Event_seq;
+DROP SEQUENCE Adoption_Application_seq;
+DROP SEQUENCE Adoption_seq;
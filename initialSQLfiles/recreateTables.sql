@@ -1,4 +1,6 @@
 
+DROP TABLE Schema_Version CASCADE CONSTRAINTS;
+DROP TABLE Member_Activity_Summary CASCADE CONSTRAINTS;
 DROP TABLE Order_Item CASCADE CONSTRAINTS;
 DROP TABLE Customer_Order CASCADE CONSTRAINTS;
 DROP TABLE Event_Registration CASCADE CONSTRAINTS;
@@ -13,6 +15,14 @@ DROP TABLE Staff CASCADE CONSTRAINTS;
 DROP TABLE Member CASCADE CONSTRAINTS;
 DROP TABLE Membership_Tier CASCADE CONSTRAINTS;
 DROP TABLE Menu_Item CASCADE CONSTRAINTS;
+DROP SEQUENCE Member_seq;
+DROP SEQUENCE Pet_seq;
+DROP SEQUENCE Health_Record_seq;
+DROP SEQUENCE Reservation_seq;
+DROP SEQUENCE Customer_Order_seq;
+DROP SEQUENCE Event_seq;
+DROP SEQUENCE Adoption_Application_seq;
+DROP SEQUENCE Adoption_seq;
 
 
 /* Membership tiers */
@@ -188,7 +198,8 @@ CREATE TABLE Order_Item (
                     ON DELETE CASCADE
 );
 
-/* Events */
+/* Events. registered_count is the number of registrations holding a seat, kept
+   current by EventRegistrar and recomputed by insertSampleData after loading */
 
 CREATE TABLE Event (
     event_id      NUMBER PRIMARY KEY,
@@ -201,6 +212,8 @@ CREATE TABLE Event (
     max_attendees NUMBER NOT NULL,
     event_type    VARCHAR2(50),
     staff_id      NUMBER,
+    registered_count NUMBER DEFAULT 0 NOT NULL
+        CHECK (registered_count >= 0),
     CONSTRAINT fk_event_room
         FOREIGN KEY (room_id)
             REFERENCES Room (room_id)
@@ -218,9 +231,10 @@ CREATE TABLE Event_Registration (
     event_id          NUMBER,
     registration_date DATE NOT NULL,
     attendance_status VARCHAR2(30) DEFAULT 'REGISTERED'
-        CHECK (attendance_status IN ('REGISTERED','ATTENDED','NO_SHOW','CANCELLED')),
+        CHECK (attendance_status IN ('REGISTERED','ATTENDED','NO_SHOW','CANCELLED','WAITLISTED')),
             payment_status    VARCHAR2(20) DEFAULT 'UNPAID'
         CHECK (payment_status IN ('UNPAID','PAID','REFUNDED')),
+            waitlisted_at     TIMESTAMP,
             CONSTRAINT pk_event_reg
                 PRIMARY KEY (member_id, event_id),
             CONSTRAINT fk_er_member
@@ -282,3 +296,37 @@ CREATE TABLE Adoption (
             REFERENCES Member (member_id)
             ON DELETE CASCADE
 );
+
+/* Per-member activity totals, kept current by PetCafeApp (see ActivitySummary.java)
+   and rebuilt by insertSampleData after loading */
+
+CREATE TABLE Member_Activity_Summary (
+    member_id    NUMBER PRIMARY KEY,
+    visit_count  NUMBER DEFAULT 0 NOT NULL,
+    total_spent  NUMBER(12,2) DEFAULT 0 NOT NULL,
+    CONSTRAINT fk_summary_member
+        FOREIGN KEY (member_id)
+            REFERENCES Member (member_id)
+            ON DELETE CASCADE
+);
+
+/* Versions of the optional schema parts applied to this database, e.g. the
+   index pack in createIndexes.sql (see SchemaCheck.java) */
+
+CREATE TABLE Schema_Version (
+    component   VARCHAR2(30) PRIMARY KEY,
+    version     NUMBER NOT NULL,
+    applied_at  TIMESTAMP
+);
+
+/* Id sequences. Each NEXTVAL reserves a block of 50 ids for the application
+   (see IdAllocator.BLOCK_SIZE), and insertSampleData restarts them above the sample data. */
+
+CREATE SEQUENCE Member_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Pet_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Health_Record_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Reservation_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Customer_Order_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Event_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Adoption_Application_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE Adoption_seq START WITH 1 INCREMENT BY 50;